@@ -0,0 +1,545 @@
+package com.reedelk.database.component;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.reedelk.database.internal.attribute.BatchInsertAttributes;
+import com.reedelk.database.internal.batch.BatchWriter;
+import com.reedelk.database.internal.batch.BoundedStreamReader;
+import com.reedelk.database.internal.batch.IsolatingBatchWriter;
+import com.reedelk.database.internal.batch.ParallelBatchWriter;
+import com.reedelk.database.internal.batch.PartitionedBatchException;
+import com.reedelk.database.internal.batch.PayloadElements;
+import com.reedelk.database.internal.commons.*;
+import com.reedelk.database.internal.exception.BatchInsertException;
+import com.reedelk.database.internal.type.ListOfBatchRowResult;
+import com.reedelk.database.internal.type.ListOfDatabaseRow;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicObjectMap;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ServiceScope;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.reedelk.database.internal.commons.Messages.BatchInsert.*;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+@ModuleComponent("SQL Batch Insert")
+@ComponentOutput(
+        attributes = BatchInsertAttributes.class,
+        payload = { int.class, ListOfDatabaseRow.class },
+        description = "The total number of rows inserted into the database, " +
+                "or the generated keys (one row for each inserted element) if they are returned as payload.")
+@ComponentInput(
+        payload = { List.class, TypedPublisher.class },
+        description = "The input payload is a collection or a stream of elements: the query parameters mappings " +
+                "are evaluated once for each element.")
+@Description("Executes an INSERT SQL statement for each element of the input collection on the configured data source connection. " +
+        "The statements are executed in JDBC batches on a single connection, or on parallel connections. " +
+        "When the input is a stream, its elements are requested from upstream only as fast as the batches are executed. " +
+        "Supported databases and drivers: H2 (org.h2.Driver), MySQL (com.mysql.cj.jdbc.Driver), Oracle (oracle.jdbc.Driver), PostgreSQL (org.postgresql.Driver).")
+@Component(service = BatchInsert.class, scope = ServiceScope.PROTOTYPE)
+public class BatchInsert implements ProcessorSync {
+
+    static final int DEFAULT_BATCH_SIZE = 500;
+    static final int DEFAULT_COMMIT_INTERVAL = 1;
+    static final int DEFAULT_BATCH_TIMEOUT = 1000;
+    static final int DEFAULT_PARALLEL_CONNECTIONS = 1;
+
+    @DialogTitle("Data Source Configuration")
+    @Property("Connection")
+    @Description("Data source configuration to be used by this query. " +
+            "Shared configurations use the same connection pool.")
+    private ConnectionConfiguration connection;
+
+    @Property("Insert Query")
+    @Example("<ul>" +
+            "<li><code>INSERT INTO orders (id, name) VALUES (:id, :name)</code></li>" +
+            "<li><code>INSERT INTO orders VALUES (:id, :name, :description)</code></li>" +
+            "</ul>")
+    @Hint("INSERT INTO orders (id, name) VALUES (:id, :name)")
+    @Description("The <b>insert</b> query to be executed on the database for each element of the input collection. " +
+            "The query parameters are filled from the expressions defined in the parameters mapping configuration below.")
+    private String query;
+
+    @Property("Batch Size")
+    @Hint("500")
+    @Example("1000")
+    @DefaultValue("500")
+    @Description("The maximum number of insert statements sent to the database in a single batch.")
+    private Integer batchSize;
+
+    @Property("Commit Interval")
+    @Hint("1")
+    @Example("10")
+    @DefaultValue("1")
+    @Description("The number of executed batches after which the transaction is committed. " +
+            "Rows of batches not yet committed are rolled back if a following batch fails.")
+    private Integer commitInterval;
+
+    @Property("Batch Timeout (ms)")
+    @Hint("1000")
+    @Example("5000")
+    @DefaultValue("1000")
+    @Description("Applies only when the input is a stream. The maximum time in milliseconds a batch is kept open " +
+            "waiting for new elements: when the timeout expires the batch is executed even if it is not full.")
+    private Integer batchTimeout;
+
+    @Property("Row Failure Handling")
+    @Example("ISOLATE_FAILED_ROWS")
+    @InitValue("FAIL_BATCH")
+    @DefaultValue("FAIL_BATCH")
+    @Description("<b>Fail Batch</b> fails the whole insert when a statement of a batch fails. " +
+            "<b>Isolate Failed Rows</b> commits the statements which succeed and returns the outcome of each element " +
+            "(success, count, SQL state) in the 'rowResults' attribute: the failed statements of a batch are isolated " +
+            "by rolling the batch back to a savepoint and executing it again without them. " +
+            "The results of all the elements are kept in memory.")
+    private BatchFailureMode rowFailureHandling;
+
+    @Property("Parallel Connections")
+    @Hint("1")
+    @Example("4")
+    @DefaultValue("1")
+    @Description("The number of connections the batches are executed on at the same time, each one committing " +
+            "on its own. The connections on top of the first one are taken only if available: together, the components " +
+            "sharing a connection configuration take at most half of its pool for parallel connections. " +
+            "If a batch fails, the batches of the other connections not yet committed are rolled back.")
+    private Integer parallelConnections;
+
+    @Property("Partition Strategy")
+    @Example("KEY_HASH")
+    @InitValue("ROUND_ROBIN")
+    @DefaultValue("ROUND_ROBIN")
+    @Description("Applies only with parallel connections. <b>Round Robin</b> sends each batch to the next connection. " +
+            "<b>Key Hash</b> sends the elements with the same partition key value to the same connection, " +
+            "in their order, so that concurrent batches do not wait for each other's row locks.")
+    private BatchPartitionStrategy partitionStrategy;
+
+    @Property("Partition Key")
+    @Hint("customer_id")
+    @Example("id")
+    @When(propertyName = "partitionStrategy", propertyValue = "KEY_HASH")
+    @Description("The name of the query parameter whose value partitions the elements across the connections.")
+    private String partitionKey;
+
+    @Property("Return Generated Keys")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, the keys generated by each batch are collected, in the order of the input elements. " +
+            "PostgreSQL returns them with a RETURNING clause: the whole inserted rows if no key columns are defined. " +
+            "The keys of all the inserted elements are kept in memory.")
+    private Boolean returnGeneratedKeys;
+
+    @Property("Key Columns")
+    @Hint("id, created_at")
+    @Example("id")
+    @When(propertyName = "returnGeneratedKeys", propertyValue = "true")
+    @Description("Comma separated names of the columns to be returned. If empty, the driver returns " +
+            "the auto generated columns (Oracle requires the key columns to be defined).")
+    private String keyColumns;
+
+    @Property("Generated Keys Output")
+    @Example("PAYLOAD")
+    @InitValue("ATTRIBUTE")
+    @DefaultValue("ATTRIBUTE")
+    @When(propertyName = "returnGeneratedKeys", propertyValue = "true")
+    @Description("Whether the generated keys are returned in the 'generatedKeys' attribute, " +
+            "or as payload instead of the number of inserted rows.")
+    private GeneratedKeysOutput generatedKeysOutput;
+
+    @Property("Query Parameter Mappings")
+    @TabGroup("Query Parameter Mappings")
+    @KeyName("Query Parameter Name")
+    @ValueName("Query Parameter Value")
+    @Example("name > <code>message.payload().name</code>")
+    @Description("Mapping of insert query parameters > values. Query parameters are evaluated for each element of the input collection, " +
+            "the element is the payload of the message the expressions are evaluated against. " +
+            "If no mappings are defined and the element is a map, the map entries are used as query parameters.")
+    private DynamicObjectMap parametersMapping = DynamicObjectMap.empty();
+
+    @Reference
+    DataSourceService dataSourceService;
+    @Reference
+    ScriptEngineService scriptEngine;
+
+    private ComboPooledDataSource dataSource;
+    private StatementCache statementCache;
+    private QueryStatementTemplate queryStatement;
+    private String[] generatedKeyColumns;
+    private ExecutorService executor;
+
+    @Override
+    public void initialize() {
+        requireNotBlank(BatchInsert.class, query, "Insert query is not defined");
+        requireTrue(BatchInsert.class, batchSize == null || batchSize > 0, "Batch size must be greater than zero");
+        requireTrue(BatchInsert.class, commitInterval == null || commitInterval > 0, "Commit interval must be greater than zero");
+        requireTrue(BatchInsert.class, batchTimeout == null || batchTimeout > 0, "Batch timeout must be greater than zero");
+        requireTrue(BatchInsert.class, parallelConnections == null || parallelConnections > 0, "Parallel connections must be greater than zero");
+        requireTrue(BatchInsert.class, parallelConnections() == 1 || !Boolean.TRUE.equals(returnGeneratedKeys),
+                PARALLEL_GENERATED_KEYS_NOT_SUPPORTED.format());
+        requireTrue(BatchInsert.class, !isolateFailedRows() || (parallelConnections() == 1 && !Boolean.TRUE.equals(returnGeneratedKeys)),
+                ISOLATE_FAILED_ROWS_NOT_SUPPORTED.format());
+        if (partitionStrategy == BatchPartitionStrategy.KEY_HASH) {
+            requireNotBlank(BatchInsert.class, partitionKey, "Partition key is not defined");
+        }
+        dataSource = dataSourceService.getDataSource(this, connection);
+        statementCache = dataSourceService.getStatementCache(connection);
+        queryStatement = new QueryStatementTemplate(query);
+        if (Boolean.TRUE.equals(returnGeneratedKeys)) {
+            generatedKeyColumns = GeneratedKeys.keyColumnsOf(keyColumns);
+        }
+        if (parallelConnections() > 1) {
+            executor = Executors.newFixedThreadPool(parallelConnections(), new WriterThreadFactory());
+        }
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+        PayloadElements elements = PayloadElements.of(message, batchSize());
+        if (elements == null) {
+            Object payload = message.payload();
+            String payloadType = payload == null ? null : payload.getClass().getName();
+            throw new BatchInsertException(PAYLOAD_NOT_SUPPORTED.format(payloadType));
+        }
+        try {
+            ElementsWriter elementsWriter = elements.isStream() ?
+                    writer -> writeStream(flowContext, elements.reader(), writer) :
+                    writer -> writeCollection(flowContext, elements, writer);
+            return executor == null ? insert(elementsWriter) : insertParallel(elementsWriter);
+        } finally {
+            elements.close();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        this.dataSourceService.dispose(this, connection);
+        this.dataSource = null;
+        this.statementCache = null;
+        this.queryStatement = null;
+        this.generatedKeyColumns = null;
+    }
+
+    public void setConnection(ConnectionConfiguration connection) {
+        this.connection = connection;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setCommitInterval(Integer commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+
+    public void setBatchTimeout(Integer batchTimeout) {
+        this.batchTimeout = batchTimeout;
+    }
+
+    public void setRowFailureHandling(BatchFailureMode rowFailureHandling) {
+        this.rowFailureHandling = rowFailureHandling;
+    }
+
+    public void setParallelConnections(Integer parallelConnections) {
+        this.parallelConnections = parallelConnections;
+    }
+
+    public void setPartitionStrategy(BatchPartitionStrategy partitionStrategy) {
+        this.partitionStrategy = partitionStrategy;
+    }
+
+    public void setPartitionKey(String partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public void setReturnGeneratedKeys(Boolean returnGeneratedKeys) {
+        this.returnGeneratedKeys = returnGeneratedKeys;
+    }
+
+    public void setKeyColumns(String keyColumns) {
+        this.keyColumns = keyColumns;
+    }
+
+    public void setGeneratedKeysOutput(GeneratedKeysOutput generatedKeysOutput) {
+        this.generatedKeysOutput = generatedKeysOutput;
+    }
+
+    public void setParametersMapping(DynamicObjectMap parametersMapping) {
+        this.parametersMapping = parametersMapping;
+    }
+
+    private Message insert(ElementsWriter elementsWriter) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        boolean autoCommit = true;
+        try {
+            connection = dataSource.getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            statement = statementCache.prepare(connection, queryStatement.compiledQuery(), generatedKeyColumns);
+
+            if (isolateFailedRows()) {
+                return insertIsolatingFailedRows(connection, statement, elementsWriter);
+            }
+
+            ListOfDatabaseRow generatedKeys = generatedKeyColumns == null ? null : new ListOfDatabaseRow();
+
+            BatchWriter writer = new BatchWriter(connection, statement, batchSize(),
+                    Optional.ofNullable(commitInterval).orElse(DEFAULT_COMMIT_INTERVAL), generatedKeys);
+
+            elementsWriter.write(new SingleConnectionWriter(writer));
+
+            writer.flush();
+
+            MessageAttributes attributes = new BatchInsertAttributes(query, writer.rowCount(), writer.batchCounts(), generatedKeys);
+
+            Object payload = generatedKeys != null && generatedKeysOutput == GeneratedKeysOutput.PAYLOAD ?
+                    generatedKeys : writer.rowCount();
+
+            return MessageBuilder.get(BatchInsert.class)
+                    .withJavaObject(payload)
+                    .attributes(attributes)
+                    .build();
+
+        } catch (Throwable exception) {
+            DatabaseUtils.rollbackSilently(connection);
+            String error = QUERY_EXECUTE_ERROR_WITH_QUERY.format(query, rootCauseMessageOf(exception));
+            throw new BatchInsertException(error, exception);
+
+        } finally {
+            statementCache.release(statement);
+            DatabaseUtils.autoCommitSilently(connection, autoCommit);
+            DatabaseUtils.closeSilently(connection);
+        }
+    }
+
+    private Message insertIsolatingFailedRows(Connection connection, PreparedStatement statement, ElementsWriter elementsWriter) throws Exception {
+        IsolatingBatchWriter writer = new IsolatingBatchWriter(connection, statement, queryStatement::bind, batchSize(),
+                Optional.ofNullable(commitInterval).orElse(DEFAULT_COMMIT_INTERVAL));
+
+        elementsWriter.write(new IsolatingWriter(writer));
+
+        writer.flush();
+
+        ListOfBatchRowResult rowResults = writer.rowResults();
+        MessageAttributes attributes = new BatchInsertAttributes(query, writer.rowCount(), writer.batchCounts(),
+                rowResults, writer.failedRowCount());
+
+        return MessageBuilder.get(BatchInsert.class)
+                .withJavaObject(writer.rowCount())
+                .attributes(attributes)
+                .build();
+    }
+
+    // The connections on top of the first one are taken only if permits are available.
+    private Message insertParallel(ElementsWriter elementsWriter) {
+        Semaphore permits = dataSourceService.getParallelConnectionPermits(connection);
+        int extraConnections = 0;
+        while (extraConnections < parallelConnections() - 1 && permits.tryAcquire()) {
+            extraConnections++;
+        }
+
+        String partitionParameter = partitionStrategy == BatchPartitionStrategy.KEY_HASH ? partitionKey.trim() : null;
+        try (ParallelBatchWriter writer = new ParallelBatchWriter(dataSource, statementCache, queryStatement, executor,
+                1 + extraConnections, partitionParameter, batchSize(),
+                Optional.ofNullable(commitInterval).orElse(DEFAULT_COMMIT_INTERVAL))) {
+
+            elementsWriter.write(new ParallelConnectionsWriter(writer));
+
+            writer.flush();
+
+            MessageAttributes attributes = new BatchInsertAttributes(query, writer.rowCount(), writer.batchCounts());
+
+            return MessageBuilder.get(BatchInsert.class)
+                    .withJavaObject(writer.rowCount())
+                    .attributes(attributes)
+                    .build();
+
+        } catch (PartitionedBatchException exception) {
+            String error = PARALLEL_QUERY_EXECUTE_ERROR.format(query, exception.failedBatches(),
+                    exception.firstFailedElement(), rootCauseMessageOf(exception));
+            throw new BatchInsertException(error, exception);
+
+        } catch (Throwable exception) {
+            String error = QUERY_EXECUTE_ERROR_WITH_QUERY.format(query, rootCauseMessageOf(exception));
+            throw new BatchInsertException(error, exception);
+
+        } finally {
+            permits.release(extraConnections);
+        }
+    }
+
+    private void writeCollection(FlowContext flowContext, Iterable<?> elements, ParameterWriter writer) throws Exception {
+        for (Object element : elements) {
+            write(flowContext, element, writer);
+        }
+    }
+
+    private void writeStream(FlowContext flowContext, BoundedStreamReader<?> reader, ParameterWriter writer) throws Exception {
+        long timeout = Optional.ofNullable(batchTimeout).orElse(DEFAULT_BATCH_TIMEOUT);
+        long batchDeadline = 0;
+        while (!reader.isComplete()) {
+            long waitTime = writer.hasPendingStatements() ?
+                    Math.max(0, batchDeadline - System.currentTimeMillis()) :
+                    Long.MAX_VALUE;
+            if (reader.await(waitTime)) {
+                if (!writer.hasPendingStatements()) {
+                    batchDeadline = System.currentTimeMillis() + timeout;
+                }
+                write(flowContext, reader.next(), writer);
+            } else if (!reader.isComplete()) {
+                // The batch timeout expired before the batch was full.
+                writer.executePending();
+            }
+        }
+    }
+
+    private void write(FlowContext flowContext, Object element, ParameterWriter writer) throws Exception {
+        writer.add(evaluate(flowContext, element));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> evaluate(FlowContext flowContext, Object element) {
+        if (parametersMapping.isEmpty() && element instanceof Map) {
+            return (Map<String, Object>) element;
+        }
+        Message elementMessage = PayloadElements.elementMessage(BatchInsert.class, element);
+        return scriptEngine.evaluate(parametersMapping, flowContext, elementMessage);
+    }
+
+    private boolean isolateFailedRows() {
+        return rowFailureHandling == BatchFailureMode.ISOLATE_FAILED_ROWS;
+    }
+
+    private int parallelConnections() {
+        return Optional.ofNullable(parallelConnections).orElse(DEFAULT_PARALLEL_CONNECTIONS);
+    }
+
+    private int batchSize() {
+        return Optional.ofNullable(batchSize).orElse(DEFAULT_BATCH_SIZE);
+    }
+
+    private interface ElementsWriter {
+        void write(ParameterWriter writer) throws Exception;
+    }
+
+    // Receives the evaluated query parameters of each element.
+    private interface ParameterWriter {
+
+        void add(Map<String, Object> parameters) throws Exception;
+
+        void executePending() throws Exception;
+
+        boolean hasPendingStatements();
+    }
+
+    private class SingleConnectionWriter implements ParameterWriter {
+
+        private final BatchWriter writer;
+
+        SingleConnectionWriter(BatchWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void add(Map<String, Object> parameters) throws SQLException {
+            queryStatement.bind(writer.statement(), parameters);
+            writer.add();
+        }
+
+        @Override
+        public void executePending() throws SQLException {
+            writer.executePending();
+        }
+
+        @Override
+        public boolean hasPendingStatements() {
+            return writer.hasPendingStatements();
+        }
+    }
+
+    private static class IsolatingWriter implements ParameterWriter {
+
+        private final IsolatingBatchWriter writer;
+
+        IsolatingWriter(IsolatingBatchWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void add(Map<String, Object> parameters) throws SQLException {
+            writer.add(parameters);
+        }
+
+        @Override
+        public void executePending() throws SQLException {
+            writer.executePending();
+        }
+
+        @Override
+        public boolean hasPendingStatements() {
+            return writer.hasPendingStatements();
+        }
+    }
+
+    private static class ParallelConnectionsWriter implements ParameterWriter {
+
+        private final ParallelBatchWriter writer;
+
+        ParallelConnectionsWriter(ParallelBatchWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void add(Map<String, Object> parameters) throws SQLException, InterruptedException {
+            writer.add(parameters);
+        }
+
+        @Override
+        public void executePending() throws SQLException, InterruptedException {
+            writer.executePending();
+        }
+
+        @Override
+        public boolean hasPendingStatements() {
+            return writer.hasPendingStatements();
+        }
+    }
+
+    private static class WriterThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger COUNT = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "batch-insert-writer-" + COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.reedelk.database.component;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.reedelk.database.internal.attribute.BulkLoadAttributes;
+import com.reedelk.database.internal.batch.PayloadElements;
+import com.reedelk.database.internal.bulk.BulkLoadInput;
+import com.reedelk.database.internal.bulk.BulkLoader;
+import com.reedelk.database.internal.commons.BulkLoadMethod;
+import com.reedelk.database.internal.commons.DataSourceService;
+import com.reedelk.database.internal.commons.DatabaseUtils;
+import com.reedelk.database.internal.exception.BulkLoadException;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedContent;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
+import com.reedelk.runtime.api.resource.ResourceBinary;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ServiceScope;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static com.reedelk.database.internal.commons.Messages.BulkLoad.LOAD_ERROR;
+import static com.reedelk.database.internal.commons.Messages.BulkLoad.PAYLOAD_NOT_SUPPORTED;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+@ModuleComponent("SQL Bulk Load")
+@ComponentOutput(
+        attributes = BulkLoadAttributes.class,
+        payload = long.class,
+        description = "The number of rows loaded into the table.")
+@ComponentInput(
+        payload = { byte[].class, String.class, List.class, TypedPublisher.class },
+        description = "CSV text, as bytes, string or a stream of chunks, or a collection or a stream of rows. " +
+                "A row is a map of column name > value, or a list of values in the order of the columns. " +
+                "The input payload is ignored if a CSV file is defined.")
+@Description("Loads rows into a table with the bulk load of the configured database, streaming the input " +
+        "without keeping it in memory: COPY FROM STDIN on PostgreSQL, LOAD DATA LOCAL INFILE on MySQL, " +
+        "CSVREAD on H2 and batched inserts on the other databases. The rows are loaded in a single transaction, " +
+        "except for batched inserts, which commit after each batch. " +
+        "Supported databases and drivers: H2 (org.h2.Driver), MySQL (com.mysql.cj.jdbc.Driver), Oracle (oracle.jdbc.Driver), PostgreSQL (org.postgresql.Driver).")
+@Component(service = BulkLoad.class, scope = ServiceScope.PROTOTYPE)
+public class BulkLoad implements ProcessorSync {
+
+    static final int DEFAULT_BATCH_SIZE = 1000;
+    // The number of stream elements requested ahead of the database.
+    static final int STREAM_PREFETCH = 16;
+
+    @DialogTitle("Data Source Configuration")
+    @Property("Connection")
+    @Description("Data source configuration to be used by this query. " +
+            "Shared configurations use the same connection pool.")
+    private ConnectionConfiguration connection;
+
+    @Property("Table")
+    @Hint("orders")
+    @Example("inventory.products")
+    @Description("The name of the table the rows are loaded into.")
+    private String table;
+
+    @Property("Columns")
+    @Hint("id, name, price")
+    @Example("order_id, line_number, amount")
+    @Description("Comma separated names of the columns to be loaded, in the order of the CSV fields. " +
+            "The values of map rows are taken by column name.")
+    private String columns;
+
+    @Property("Load Method")
+    @Example("BATCH_INSERT")
+    @InitValue("NATIVE")
+    @DefaultValue("NATIVE")
+    @Description("<b>Native</b> uses the bulk load of the database, falling back to batched inserts on databases " +
+            "without one. MySQL requires the 'allowLoadLocalInfile=true' connection property; " +
+            "H2 reads the CSV from a temporary file, which must be visible to the database. " +
+            "<b>Batch Insert</b> always uses batched insert statements.")
+    private BulkLoadMethod method;
+
+    @Property("CSV File")
+    @HintBrowseFile("Select CSV File ...")
+    @Example("assets/products.csv")
+    @Description("The CSV file in the project's resources directory to be loaded. " +
+            "If not defined, the input payload is loaded.")
+    private ResourceBinary csvFile;
+
+    @Property("CSV Header")
+    @Example("false")
+    @InitValue("true")
+    @DefaultValue("true")
+    @Description("If true, the first line of the CSV input names the columns and it is not loaded. " +
+            "The CSV text must be UTF-8 encoded, with ',' separators; MySQL requires LF line breaks.")
+    private Boolean header;
+
+    @Property("Batch Size")
+    @Hint("1000")
+    @Example("5000")
+    @DefaultValue("1000")
+    @Description("The number of rows inserted with each batch when batched inserts are used.")
+    private Integer batchSize;
+
+    @Reference
+    DataSourceService dataSourceService;
+
+    private ComboPooledDataSource dataSource;
+    private BulkLoader loader;
+
+    @Override
+    public void initialize() {
+        requireNotBlank(BulkLoad.class, table, "Table is not defined");
+        requireNotBlank(BulkLoad.class, columns, "Columns are not defined");
+        requireTrue(BulkLoad.class, batchSize == null || batchSize > 0, "Batch size must be greater than zero");
+
+        List<String> columnNames = Arrays.stream(columns.split(","))
+                .map(String::trim)
+                .filter(column -> !column.isEmpty())
+                .collect(Collectors.toList());
+
+        dataSource = dataSourceService.getDataSource(this, connection);
+        loader = BulkLoader.of(connection.getDatabaseDriver(),
+                Optional.ofNullable(method).orElse(BulkLoadMethod.NATIVE),
+                table.trim(),
+                columnNames,
+                Optional.ofNullable(batchSize).orElse(DEFAULT_BATCH_SIZE));
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+        Connection connection = null;
+        boolean autoCommit = true;
+        try (BulkLoadInput input = inputOf(message)) {
+            connection = dataSource.getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            long start = System.nanoTime();
+
+            long rowCount = loader.load(connection, input);
+            connection.commit();
+
+            MessageAttributes attributes =
+                    new BulkLoadAttributes(table, loader.method(), rowCount, System.nanoTime() - start);
+
+            return MessageBuilder.get(BulkLoad.class)
+                    .withJavaObject(rowCount)
+                    .attributes(attributes)
+                    .build();
+
+        } catch (BulkLoadException exception) {
+            DatabaseUtils.rollbackSilently(connection);
+            throw exception;
+
+        } catch (Throwable exception) {
+            DatabaseUtils.rollbackSilently(connection);
+            String error = LOAD_ERROR.format(table, loader.method(), rootCauseMessageOf(exception));
+            throw new BulkLoadException(error, exception);
+
+        } finally {
+            DatabaseUtils.autoCommitSilently(connection, autoCommit);
+            DatabaseUtils.closeSilently(connection);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        this.dataSourceService.dispose(this, connection);
+        this.dataSource = null;
+        this.loader = null;
+    }
+
+    public void setConnection(ConnectionConfiguration connection) {
+        this.connection = connection;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public void setColumns(String columns) {
+        this.columns = columns;
+    }
+
+    public void setMethod(BulkLoadMethod method) {
+        this.method = method;
+    }
+
+    public void setCsvFile(ResourceBinary csvFile) {
+        this.csvFile = csvFile;
+    }
+
+    public void setHeader(Boolean header) {
+        this.header = header;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    private BulkLoadInput inputOf(Message message) {
+        boolean csvHeader = Optional.ofNullable(header).orElse(true);
+        if (csvFile != null) {
+            return BulkLoadInput.ofCsv(csvFile.data(), csvHeader, STREAM_PREFETCH);
+        }
+
+        TypedContent<?, ?> content = message.content();
+        if (content.isStream()) {
+            TypedPublisher<?> stream = content.stream();
+            Class<?> streamType = stream.getType();
+            if (byte[].class.equals(streamType) || String.class.equals(streamType)) {
+                return BulkLoadInput.ofCsv(stream, csvHeader, STREAM_PREFETCH);
+            }
+        }
+
+        Object payload = message.payload();
+        if (payload instanceof byte[]) {
+            return BulkLoadInput.ofCsv(new ByteArrayInputStream((byte[]) payload), csvHeader);
+        } else if (payload instanceof String) {
+            byte[] bytes = ((String) payload).getBytes(StandardCharsets.UTF_8);
+            return BulkLoadInput.ofCsv(new ByteArrayInputStream(bytes), csvHeader);
+        }
+
+        PayloadElements rows = PayloadElements.of(message, Optional.ofNullable(batchSize).orElse(DEFAULT_BATCH_SIZE));
+        if (rows != null) {
+            return BulkLoadInput.ofRows(rows.iterator(), rows);
+        }
+        String payloadType = payload == null ? null : payload.getClass().getName();
+        throw new BulkLoadException(PAYLOAD_NOT_SUPPORTED.format(payloadType));
+    }
+}
@@ -0,0 +1,254 @@
+package com.reedelk.database.component;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.reedelk.database.internal.attribute.ChunkedDeleteAttributes;
+import com.reedelk.database.internal.commons.DataSourceService;
+import com.reedelk.database.internal.commons.DatabaseUtils;
+import com.reedelk.database.internal.commons.QueryStatementTemplate;
+import com.reedelk.database.internal.commons.StatementCache;
+import com.reedelk.database.internal.dialect.Dialect;
+import com.reedelk.database.internal.exception.ChunkedDeleteException;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicObjectMap;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ServiceScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.reedelk.database.internal.commons.Messages.ChunkedDelete.QUERY_EXECUTE_ERROR_WITH_QUERY;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+@ModuleComponent("SQL Chunked Delete")
+@ComponentOutput(
+        attributes = ChunkedDeleteAttributes.class,
+        payload = long.class,
+        description = "The total number of rows deleted from the database.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The input payload is used to evaluate the expressions bound to the condition parameters mappings.")
+@Description("Deletes the rows of a table matching a condition in chunks of at most the given number of rows, " +
+        "committing after each chunk, so that a large delete neither holds its locks nor grows the undo log " +
+        "until the very end. The chunks are deleted with LIMIT on H2 and MySQL, ROWNUM on Oracle and " +
+        "a ctid subquery on PostgreSQL. The delete ends with a chunk not full, or on PostgreSQL with an empty chunk, " +
+        "as rows updated concurrently are skipped by a chunk. If a chunk fails, the chunks already deleted stay committed. " +
+        "Supported databases and drivers: H2 (org.h2.Driver), MySQL (com.mysql.cj.jdbc.Driver), Oracle (oracle.jdbc.Driver), PostgreSQL (org.postgresql.Driver).")
+@Component(service = ChunkedDelete.class, scope = ServiceScope.PROTOTYPE)
+public class ChunkedDelete implements ProcessorSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedDelete.class);
+
+    static final int DEFAULT_CHUNK_SIZE = 10000;
+
+    @DialogTitle("Data Source Configuration")
+    @Property("Connection")
+    @Description("Data source configuration to be used by this query. " +
+            "Shared configurations use the same connection pool.")
+    private ConnectionConfiguration connection;
+
+    @Property("Table")
+    @Hint("orders")
+    @Example("audit.events")
+    @Description("The name of the table the rows are deleted from.")
+    private String table;
+
+    @Property("Condition")
+    @Hint("created_at < :cutoff")
+    @Example("status = 'ARCHIVED' AND updated_at < :cutoff")
+    @Description("The condition of the rows to be deleted, as in a WHERE clause. If empty, all the rows are deleted. " +
+            "The condition might contain parameters which will be filled from the expressions defined in " +
+            "the parameters mapping configuration below: they are evaluated once, before the first chunk.")
+    private String condition;
+
+    @Property("Chunk Size")
+    @Hint("10000")
+    @Example("50000")
+    @DefaultValue("10000")
+    @Description("The maximum number of rows deleted by each statement.")
+    private Integer chunkSize;
+
+    @Property("Pause Between Chunks (ms)")
+    @Hint("100")
+    @Example("500")
+    @DefaultValue("0")
+    @Description("The time in milliseconds to wait after each committed chunk, leaving room for the other " +
+            "sessions using the table.")
+    private Integer pause;
+
+    @Property("Target Chunk Duration (ms)")
+    @Hint("1000")
+    @Example("2000")
+    @Description("If defined, the number of rows of the next chunk is adjusted to the duration of the last one: " +
+            "it is halved when a chunk takes longer than this duration and doubled, up to the chunk size, " +
+            "when a chunk takes less than half of it.")
+    private Integer targetChunkDuration;
+
+    @Property("Condition Parameter Mappings")
+    @TabGroup("Condition Parameter Mappings")
+    @KeyName("Condition Parameter Name")
+    @ValueName("Condition Parameter Value")
+    @Example("cutoff > <code>message.payload()</code>")
+    @Description("Mapping of condition parameters > values.")
+    private DynamicObjectMap parametersMapping = DynamicObjectMap.empty();
+
+    @Reference
+    DataSourceService dataSourceService;
+    @Reference
+    ScriptEngineService scriptEngine;
+
+    private ComboPooledDataSource dataSource;
+    private StatementCache statementCache;
+    private QueryStatementTemplate queryStatement;
+    private int chunkSizeParameterIndex;
+    private boolean shortChunkIsLast;
+
+    @Override
+    public void initialize() {
+        requireNotBlank(ChunkedDelete.class, table, "Table is not defined");
+        requireTrue(ChunkedDelete.class, chunkSize == null || chunkSize > 0, "Chunk size must be greater than zero");
+        requireTrue(ChunkedDelete.class, pause == null || pause >= 0, "Pause between chunks must not be negative");
+        requireTrue(ChunkedDelete.class, targetChunkDuration == null || targetChunkDuration > 0, "Target chunk duration must be greater than zero");
+
+        dataSource = dataSourceService.getDataSource(this, connection);
+        statementCache = dataSourceService.getStatementCache(connection);
+
+        String chunkCondition = condition == null || condition.trim().isEmpty() ? null : condition.trim();
+        Dialect dialect = Dialect.of(connection.getDatabaseDriver());
+        shortChunkIsLast = dialect.isShortDeleteChunkLast();
+        queryStatement = new QueryStatementTemplate(dialect.deleteChunk(table.trim(), chunkCondition));
+        // The chunk size is the last parameter, after the ones of the condition.
+        chunkSizeParameterIndex = queryStatement.parameterIndexMap().values().stream()
+                .mapToInt(List::size)
+                .sum() + 1;
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        boolean autoCommit = true;
+        long deletedRows = 0;
+        int chunks = 0;
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> evaluatedMap = scriptEngine.evaluate(parametersMapping, flowContext, message);
+
+            connection = dataSource.getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            statement = statementCache.prepare(connection, queryStatement.compiledQuery());
+
+            int maxChunkRows = Optional.ofNullable(chunkSize).orElse(DEFAULT_CHUNK_SIZE);
+            int chunkRows = maxChunkRows;
+            while (true) {
+                long chunkStart = System.nanoTime();
+
+                queryStatement.bind(statement, evaluatedMap);
+                statement.setInt(chunkSizeParameterIndex, chunkRows);
+                int deleted = statement.executeUpdate();
+                connection.commit();
+
+                long chunkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStart);
+                deletedRows += deleted;
+                chunks++;
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("Deleted chunk=[%d] of rows=[%d] from table=[%s] in %d ms, total deleted rows=[%d]",
+                            chunks, deleted, table, chunkMillis, deletedRows));
+                }
+
+                // A chunk not full is the last one, where the dialect guarantees it.
+                if (deleted == 0 || (shortChunkIsLast && deleted < chunkRows)) break;
+
+                chunkRows = nextChunkRows(chunkRows, maxChunkRows, chunkMillis);
+                if (pause != null && pause > 0) {
+                    Thread.sleep(pause);
+                }
+            }
+
+            MessageAttributes attributes = new ChunkedDeleteAttributes(table, queryStatement.compiledQuery(),
+                    deletedRows, chunks, System.nanoTime() - start);
+
+            return MessageBuilder.get(ChunkedDelete.class)
+                    .withJavaObject(deletedRows)
+                    .attributes(attributes)
+                    .build();
+
+        } catch (Throwable exception) {
+            if (exception instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            DatabaseUtils.rollbackSilently(connection);
+            String error = QUERY_EXECUTE_ERROR_WITH_QUERY.format(queryStatement.compiledQuery(),
+                    deletedRows, chunks, rootCauseMessageOf(exception));
+            throw new ChunkedDeleteException(error, exception);
+
+        } finally {
+            statementCache.release(statement);
+            DatabaseUtils.autoCommitSilently(connection, autoCommit);
+            DatabaseUtils.closeSilently(connection);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        this.dataSourceService.dispose(this, connection);
+        this.dataSource = null;
+        this.statementCache = null;
+        this.queryStatement = null;
+    }
+
+    public void setConnection(ConnectionConfiguration connection) {
+        this.connection = connection;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public void setCondition(String condition) {
+        this.condition = condition;
+    }
+
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setPause(Integer pause) {
+        this.pause = pause;
+    }
+
+    public void setTargetChunkDuration(Integer targetChunkDuration) {
+        this.targetChunkDuration = targetChunkDuration;
+    }
+
+    public void setParametersMapping(DynamicObjectMap parametersMapping) {
+        this.parametersMapping = parametersMapping;
+    }
+
+    private int nextChunkRows(int chunkRows, int maxChunkRows, long chunkMillis) {
+        if (targetChunkDuration == null) {
+            return chunkRows;
+        } else if (chunkMillis > targetChunkDuration) {
+            return Math.max(1, chunkRows / 2);
+        } else if (chunkMillis < targetChunkDuration / 2) {
+            return (int) Math.min(maxChunkRows, chunkRows * 2L);
+        }
+        return chunkRows;
+    }
+}
@@ -69,6 +69,23 @@ public class ConnectionConfiguration implements Implementor {
             "when the pool is exhausted.")
     private Integer acquireIncrement;
 
+    @Property("Statement Cache")
+    @Example("false")
+    @InitValue("true")
+    @DefaultValue("true")
+    @Description("If true, prepared statements are cached and reused for each connection of the pool. " +
+            "Reusing prepared statements avoids preparing the same query on every execution.")
+    private Boolean statementCacheEnabled;
+
+    @Property("Statement Cache Size")
+    @Hint("25")
+    @Example("50")
+    @DefaultValue("25")
+    @When(propertyName = "statementCacheEnabled", propertyValue = "true")
+    @Description("Maximum number of prepared statements cached for each connection of the pool. " +
+            "When the limit is reached the least recently used statement is closed.")
+    private Integer statementCacheSize;
+
     public String getId() {
         return id;
     }
@@ -132,4 +149,20 @@ public class ConnectionConfiguration implements Implementor {
     public void setAcquireIncrement(Integer acquireIncrement) {
         this.acquireIncrement = acquireIncrement;
     }
+
+    public Boolean getStatementCacheEnabled() {
+        return statementCacheEnabled;
+    }
+
+    public void setStatementCacheEnabled(Boolean statementCacheEnabled) {
+        this.statementCacheEnabled = statementCacheEnabled;
+    }
+
+    public Integer getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(Integer statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
 }
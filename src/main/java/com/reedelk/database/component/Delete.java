@@ -5,6 +5,7 @@ import com.reedelk.database.internal.attribute.DatabaseAttributes;
 import com.reedelk.database.internal.commons.DataSourceService;
 import com.reedelk.database.internal.commons.DatabaseUtils;
 import com.reedelk.database.internal.commons.QueryStatementTemplate;
+import com.reedelk.database.internal.commons.StatementCache;
 import com.reedelk.database.internal.exception.DeleteException;
 import com.reedelk.runtime.api.annotation.*;
 import com.reedelk.runtime.api.component.ProcessorSync;
@@ -19,8 +20,8 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ServiceScope;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.Statement;
 import java.util.Map;
 import java.util.Optional;
 
@@ -64,7 +65,7 @@ public class Delete implements ProcessorSync {
     @KeyName("Query Parameter Name")
     @ValueName("Query Parameter Value")
     @Example("id > <code>message.payload()</code>")
-    @Description("Mapping of delete query parameters > values. Query parameters will be evaluated and replaced each time before the query is executed.")
+    @Description("Mapping of delete query parameters > values. Query parameters will be evaluated and bound to the prepared statement each time before the query is executed.")
     private DynamicObjectMap parametersMapping = DynamicObjectMap.empty();
 
     @Reference
@@ -75,31 +76,34 @@ public class Delete implements ProcessorSync {
     private QueryStatementTemplate queryStatement;
 
     private ComboPooledDataSource dataSource;
+    private StatementCache statementCache;
 
     @Override
     public void initialize() {
         requireNotBlank(Insert.class, query, "Delete query is not defined");
         dataSource = dataSourceService.getDataSource(this, connection);
+        statementCache = dataSourceService.getStatementCache(connection);
         queryStatement = new QueryStatementTemplate(query);
     }
 
     @Override
     public Message apply(FlowContext flowContext, Message message) {
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
         ResultSet resultSet = null;
-        String realQuery = null;
+        Map<String, Object> evaluatedMap = null;
 
         try {
             connection = dataSource.getConnection();
-            statement = connection.createStatement();
 
-            Map<String, Object> evaluatedMap = scriptEngine.evaluate(parametersMapping, flowContext, message);
-            realQuery = queryStatement.replace(evaluatedMap);
+            evaluatedMap = scriptEngine.evaluate(parametersMapping, flowContext, message);
 
-            int rowCount = statement.executeUpdate(realQuery);
+            statement = statementCache.prepare(connection, queryStatement.compiledQuery());
+            queryStatement.bind(statement, evaluatedMap);
 
-            MessageAttributes attributes = new DatabaseAttributes(realQuery);
+            int rowCount = statement.executeUpdate();
+
+            MessageAttributes attributes = new DatabaseAttributes(query);
 
             return MessageBuilder.get(Delete.class)
                     .withJavaObject(rowCount)
@@ -107,14 +111,15 @@ public class Delete implements ProcessorSync {
                     .build();
 
         } catch (Throwable exception) {
-            String error = Optional.ofNullable(realQuery)
+            String error = Optional.ofNullable(evaluatedMap)
+                    .map(queryStatement::replace)
                     .map(query -> QUERY_EXECUTE_ERROR_WITH_QUERY.format(query, rootCauseMessageOf(exception)))
                     .orElse(QUERY_EXECUTE_ERROR.format(rootCauseMessageOf(exception)));
             throw new DeleteException(error, exception);
 
         } finally {
             DatabaseUtils.closeSilently(resultSet);
-            DatabaseUtils.closeSilently(statement);
+            statementCache.release(statement);
             DatabaseUtils.closeSilently(connection);
         }
     }
@@ -123,6 +128,7 @@ public class Delete implements ProcessorSync {
     public void dispose() {
         this.dataSourceService.dispose(this, connection);
         this.dataSource = null;
+        this.statementCache = null;
         this.queryStatement = null;
     }
 
@@ -1,11 +1,10 @@
 package com.reedelk.database.component;
 
 import com.mchange.v2.c3p0.ComboPooledDataSource;
-import com.reedelk.database.internal.attribute.DatabaseAttributes;
-import com.reedelk.database.internal.commons.DataSourceService;
-import com.reedelk.database.internal.commons.DatabaseUtils;
-import com.reedelk.database.internal.commons.QueryStatementTemplate;
+import com.reedelk.database.internal.attribute.InsertAttributes;
+import com.reedelk.database.internal.commons.*;
 import com.reedelk.database.internal.exception.InsertException;
+import com.reedelk.database.internal.type.ListOfDatabaseRow;
 import com.reedelk.runtime.api.annotation.*;
 import com.reedelk.runtime.api.component.ProcessorSync;
 import com.reedelk.runtime.api.flow.FlowContext;
@@ -19,8 +18,8 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ServiceScope;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.Statement;
 import java.util.Map;
 import java.util.Optional;
 
@@ -31,9 +30,10 @@ import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf
 
 @ModuleComponent("SQL Insert")
 @ComponentOutput(
-        attributes = DatabaseAttributes.class,
-        payload = int.class,
-        description = "The number of rows inserted into the database.")
+        attributes = InsertAttributes.class,
+        payload = { int.class, ListOfDatabaseRow.class },
+        description = "The number of rows inserted into the database, " +
+                "or the generated keys if they are returned as payload.")
 @ComponentInput(
         payload = Object.class,
         description = "The input payload is used to evaluate the expressions bound to the query parameters mappings.")
@@ -58,12 +58,36 @@ public class Insert implements ProcessorSync {
             "the parameters mapping configuration below.")
     private String query;
 
+    @Property("Return Generated Keys")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, the keys generated by the insert are returned without executing a follow-up query. " +
+            "PostgreSQL returns them with a RETURNING clause: the whole inserted rows if no key columns are defined.")
+    private Boolean returnGeneratedKeys;
+
+    @Property("Key Columns")
+    @Hint("id, created_at")
+    @Example("id")
+    @When(propertyName = "returnGeneratedKeys", propertyValue = "true")
+    @Description("Comma separated names of the columns to be returned. If empty, the driver returns " +
+            "the auto generated columns (Oracle requires the key columns to be defined).")
+    private String keyColumns;
+
+    @Property("Generated Keys Output")
+    @Example("PAYLOAD")
+    @InitValue("ATTRIBUTE")
+    @DefaultValue("ATTRIBUTE")
+    @When(propertyName = "returnGeneratedKeys", propertyValue = "true")
+    @Description("Whether the generated keys are returned in the 'generatedKeys' attribute, " +
+            "or as payload instead of the number of inserted rows.")
+    private GeneratedKeysOutput generatedKeysOutput;
+
     @Property("Query Parameter Mappings")
     @TabGroup("Query Parameter Mappings")
     @KeyName("Query Parameter Name")
     @ValueName("Query Parameter Value")
     @Example("name > <code>message.payload()</code>")
-    @Description("Mapping of insert query parameters > values. Query parameters will be evaluated and replaced each time before the query is executed.")
+    @Description("Mapping of insert query parameters > values. Query parameters will be evaluated and bound to the prepared statement each time before the query is executed.")
     private DynamicObjectMap parametersMapping = DynamicObjectMap.empty();
 
     @Reference
@@ -72,46 +96,63 @@ public class Insert implements ProcessorSync {
     ScriptEngineService scriptEngine;
 
     private ComboPooledDataSource dataSource;
+    private StatementCache statementCache;
     private QueryStatementTemplate queryStatement;
+    private String[] generatedKeyColumns;
 
     @Override
     public void initialize() {
         requireNotBlank(Insert.class, query, "Insert query is not defined");
         dataSource = dataSourceService.getDataSource(this, connection);
+        statementCache = dataSourceService.getStatementCache(connection);
         queryStatement = new QueryStatementTemplate(query);
+        if (Boolean.TRUE.equals(returnGeneratedKeys)) {
+            generatedKeyColumns = GeneratedKeys.keyColumnsOf(keyColumns);
+        }
     }
 
     @Override
     public Message apply(FlowContext flowContext, Message message) {
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
         ResultSet resultSet = null;
-        String realQuery = null;
+        Map<String, Object> evaluatedMap = null;
         try {
             connection = dataSource.getConnection();
-            statement = connection.createStatement();
 
-            Map<String, Object> evaluatedMap = scriptEngine.evaluate(parametersMapping, flowContext, message);
-            realQuery = queryStatement.replace(evaluatedMap);
+            evaluatedMap = scriptEngine.evaluate(parametersMapping, flowContext, message);
+
+            statement = statementCache.prepare(connection, queryStatement.compiledQuery(), generatedKeyColumns);
+            queryStatement.bind(statement, evaluatedMap);
 
-            int rowCount = statement.executeUpdate(realQuery);
+            int rowCount = statement.executeUpdate();
 
-            MessageAttributes attributes = new DatabaseAttributes(realQuery);
+            ListOfDatabaseRow generatedKeys = null;
+            if (generatedKeyColumns != null) {
+                generatedKeys = new ListOfDatabaseRow();
+                GeneratedKeys.read(statement, generatedKeys);
+            }
+
+            MessageAttributes attributes = new InsertAttributes(query, generatedKeys);
+
+            Object payload = generatedKeys != null && generatedKeysOutput == GeneratedKeysOutput.PAYLOAD ?
+                    generatedKeys : rowCount;
 
             return MessageBuilder.get(Select.class)
-                    .withJavaObject(rowCount)
+                    .withJavaObject(payload)
                     .attributes(attributes)
                     .build();
 
         } catch (Throwable exception) {
-            String error = Optional.ofNullable(realQuery)
+            String error = Optional.ofNullable(evaluatedMap)
+                    .map(queryStatement::replace)
                     .map(query -> QUERY_EXECUTE_ERROR_WITH_QUERY.format(query, rootCauseMessageOf(exception)))
                     .orElse(QUERY_EXECUTE_ERROR.format(rootCauseMessageOf(exception)));
             throw new InsertException(error, exception);
 
         } finally {
             DatabaseUtils.closeSilently(resultSet);
-            DatabaseUtils.closeSilently(statement);
+            statementCache.release(statement);
             DatabaseUtils.closeSilently(connection);
         }
     }
@@ -120,7 +161,9 @@ public class Insert implements ProcessorSync {
     public void dispose() {
         this.dataSourceService.dispose(this, connection);
         this.dataSource = null;
+        this.statementCache = null;
         this.queryStatement = null;
+        this.generatedKeyColumns = null;
     }
 
     public void setParametersMapping(DynamicObjectMap parametersMapping) {
@@ -134,4 +177,16 @@ public class Insert implements ProcessorSync {
     public void setQuery(String query) {
         this.query = query;
     }
+
+    public void setReturnGeneratedKeys(Boolean returnGeneratedKeys) {
+        this.returnGeneratedKeys = returnGeneratedKeys;
+    }
+
+    public void setKeyColumns(String keyColumns) {
+        this.keyColumns = keyColumns;
+    }
+
+    public void setGeneratedKeysOutput(GeneratedKeysOutput generatedKeysOutput) {
+        this.generatedKeysOutput = generatedKeysOutput;
+    }
 }
@@ -1,12 +1,17 @@
 package com.reedelk.database.component;
 
 import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.reedelk.database.internal.arrow.ArrowStreamWriter;
 import com.reedelk.database.internal.attribute.DatabaseAttributes;
 import com.reedelk.database.internal.attribute.SelectAttributes;
 import com.reedelk.database.internal.commons.*;
+import com.reedelk.database.internal.exception.ConversionError;
 import com.reedelk.database.internal.exception.SelectException;
+import com.reedelk.database.internal.text.RowTextWriter;
+import com.reedelk.database.internal.type.ColumnarResult;
 import com.reedelk.database.internal.type.DatabaseRow;
 import com.reedelk.database.internal.type.ListOfDatabaseRow;
+import com.reedelk.database.internal.type.SpillableListOfDatabaseRow;
 import com.reedelk.runtime.api.annotation.*;
 import com.reedelk.runtime.api.component.ProcessorSync;
 import com.reedelk.runtime.api.flow.FlowContext;
@@ -27,13 +32,18 @@ import java.util.Optional;
 
 import static com.reedelk.database.internal.commons.Messages.Select.*;
 import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
 import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
 
 @ModuleComponent("SQL Select")
 @ComponentOutput(
         attributes = DatabaseAttributes.class,
         payload = ListOfDatabaseRow.class,
-        description = "A list of database rows.")
+        description = "A list of database rows. In stream fetch mode the rows are streamed from the database " +
+                "while they are consumed, in materialize fetch mode all the rows are read before the component returns. " +
+                "In columnar fetch mode the payload is a columnar result: one vector of values for each column. " +
+                "In Arrow IPC stream fetch mode the payload is a binary stream in the Apache Arrow IPC streaming format. " +
+                "In CSV and NDJSON stream fetch modes the payload is a binary stream of UTF-8 text.")
 @ComponentInput(
         payload = Object.class,
         description = "The input payload is used to evaluate the expressions bound to the query parameters mappings.")
@@ -58,12 +68,106 @@ public class Select implements ProcessorSync {
             "the parameters mapping configuration. below.")
     private String query;
 
+    @Property("Fetch Mode")
+    @Example("MATERIALIZE")
+    @InitValue("STREAM")
+    @DefaultValue("STREAM")
+    @Description("<b>Stream</b>: rows are read from the database while they are consumed, the connection is held " +
+            "until all the rows are read. <b>Materialize</b>: all the rows are read into a list and the connection is " +
+            "released before the component returns. Materialize is meant for queries returning a small number of rows. " +
+            "<b>Columnar</b>: all the rows are read into one vector for each column (numeric columns as primitive arrays, " +
+            "string columns dictionary encoded) and the connection is released before the component returns. " +
+            "Columnar is meant for large results of a few columns to be scanned or aggregated. " +
+            "<b>Arrow IPC Stream</b>: the rows are written as Apache Arrow record batches while the stream is consumed. " +
+            "<b>CSV Stream</b> and <b>NDJSON Stream</b>: the rows are written as CSV lines (with a header line) " +
+            "or as newline delimited JSON objects while the stream is consumed.")
+    private FetchMode fetchMode;
+
+    @Property("Arrow Batch Rows")
+    @Hint("10000")
+    @Example("50000")
+    @DefaultValue("10000")
+    @When(propertyName = "fetchMode", propertyValue = "ARROW")
+    @Description("The maximum number of rows in each Arrow record batch.")
+    private Integer arrowBatchRows;
+
+    @Property("Max Materialized Rows")
+    @Hint("1000")
+    @Example("500")
+    @DefaultValue("1000")
+    @When(propertyName = "fetchMode", propertyValue = "MATERIALIZE")
+    @Description("The maximum number of rows read into the list in materialize fetch mode. " +
+            "If empty, at most 1000 rows are read, or all the rows if a spill threshold is defined.")
+    private Integer maxRows;
+
+    @Property("On Max Rows Exceeded")
+    @Example("FAIL")
+    @InitValue("STREAM")
+    @DefaultValue("STREAM")
+    @When(propertyName = "fetchMode", propertyValue = "MATERIALIZE")
+    @Description("What to do when the query returns more than the max materialized rows: " +
+            "<b>Fallback to stream</b> streams the remaining rows, <b>Fail</b> throws an error.")
+    private MaxRowsExceededStrategy onMaxRowsExceeded;
+
+    @Property("Spill Threshold (MB)")
+    @Hint("256")
+    @Example("512")
+    @When(propertyName = "fetchMode", propertyValue = "MATERIALIZE")
+    @Description("The approximate memory size of the rows kept in memory in materialize fetch mode. " +
+            "The rows exceeding it are written to a temporary file, read back from the memory mapped file when accessed. " +
+            "The file is deleted when the flow completes. If empty, all the rows are kept in memory. " +
+            "If defined, the max materialized rows apply only when they are defined as well.")
+    private Integer spillThreshold;
+
+    @Property("LOB Mode")
+    @Example("STREAM")
+    @InitValue("EAGER")
+    @DefaultValue("EAGER")
+    @Description("How BLOB and CLOB columns are read in stream and materialize fetch modes. " +
+            "<b>Eager</b>: values are read into byte arrays and strings. " +
+            "<b>Stream</b>: values are returned as DatabaseBlob and DatabaseClob, read through an input stream or a reader " +
+            "only when needed; the connection is then held until the flow ends. " +
+            "<b>Threshold</b>: values up to the LOB inline threshold are read eagerly, larger values are streamed.")
+    private LobMode lobMode;
+
+    @Property("LOB Inline Threshold")
+    @Hint("65536")
+    @Example("1048576")
+    @DefaultValue("65536")
+    @When(propertyName = "lobMode", propertyValue = "THRESHOLD")
+    @Description("The max size of the BLOB (in bytes) and CLOB (in characters) values read eagerly in threshold LOB mode.")
+    private Integer lobThreshold;
+
+    @Property("Fetch Size")
+    @Hint("100")
+    @Example("500")
+    @Description("The number of rows fetched from the database in each round trip. " +
+            "If empty, the driver default is used (1000 when the server side cursor is enabled).")
+    private Integer fetchSize;
+
+    @Property("Adaptive Fetch Size")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, the fetch size is computed from the number and the width of the result columns, " +
+            "so that each round trip transfers about 1MB of data.")
+    private Boolean adaptiveFetchSize;
+
+    @Property("Server Side Cursor")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, the rows are streamed from the database using a server side cursor instead of being " +
+            "loaded in memory before the first row is returned. " +
+            "MySQL: rows are streamed one by one, or with the fetch size if 'useCursorFetch=true' is set in the connection URL. " +
+            "PostgreSQL: auto commit is disabled while the rows are read. " +
+            "Oracle and H2: the fetch size is used as the number of prefetched rows.")
+    private Boolean serverSideCursor;
+
     @Property("Query Parameter Mappings")
     @TabGroup("Query Parameter Mappings")
     @KeyName("Query Parameter Name")
     @ValueName("Query Parameter Value")
     @Example("name > <code>message.payload()</code>")
-    @Description("Mapping of select query parameters > values. Query parameters will be evaluated and replaced each time before the query is executed.")
+    @Description("Mapping of select query parameters > values. Query parameters will be evaluated and bound to the prepared statement each time before the query is executed.")
     private DynamicObjectMap parametersMapping = DynamicObjectMap.empty();
 
     @Reference
@@ -72,66 +176,190 @@ public class Select implements ProcessorSync {
     ScriptEngineService scriptEngine;
 
     private ComboPooledDataSource dataSource;
+    private StatementCache statementCache;
     private QueryStatementTemplate queryStatement;
+    private FetchSettings fetchSettings;
+
+    static final int DEFAULT_MAX_ROWS = 1000;
+    static final int DEFAULT_ARROW_BATCH_ROWS = 10000;
+    static final int DEFAULT_LOB_THRESHOLD = 64 * 1024;
+    static final int TEXT_CHUNK_SIZE = 64 * 1024;
 
     @Override
     public void initialize() {
         requireNotBlank(Select.class, query, "Select query is not defined");
+        requireTrue(Select.class, fetchSize == null || fetchSize >= 0, "Fetch size must not be negative");
+        requireTrue(Select.class, maxRows == null || maxRows > 0, "Max materialized rows must be greater than zero");
+        requireTrue(Select.class, spillThreshold == null || spillThreshold >= 0, "Spill threshold must not be negative");
+        requireTrue(Select.class, arrowBatchRows == null || arrowBatchRows > 0, "Arrow batch rows must be greater than zero");
+        requireTrue(Select.class, lobThreshold == null || lobThreshold >= 0, "LOB inline threshold must not be negative");
         dataSource = dataSourceService.getDataSource(this, connection);
+        statementCache = dataSourceService.getStatementCache(connection);
         queryStatement = new QueryStatementTemplate(query);
+        fetchSettings = new FetchSettings(
+                connection.getDatabaseDriver(),
+                connection.getConnectionURL(),
+                fetchSize,
+                Optional.ofNullable(adaptiveFetchSize).orElse(false),
+                Optional.ofNullable(serverSideCursor).orElse(false));
     }
 
     @Override
     public Message apply(FlowContext flowContext, Message message) {
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
         ResultSet resultSet = null;
-        String realQuery = null;
+        Map<String, Object> evaluatedMap = null;
+        boolean restoreAutoCommit = false;
 
         try {
             connection = dataSource.getConnection();
 
-            statement = connection.createStatement();
+            evaluatedMap = scriptEngine.evaluate(parametersMapping, flowContext, message);
+
+            statement = statementCache.prepare(connection, queryStatement.compiledQuery());
+
+            queryStatement.bind(statement, evaluatedMap);
 
-            Map<String, Object> evaluatedMap = scriptEngine.evaluate(parametersMapping, flowContext, message);
+            restoreAutoCommit = fetchSettings.beforeExecute(connection, statement);
 
-            realQuery = queryStatement.replace(evaluatedMap);
+            resultSet = statement.executeQuery();
 
-            resultSet = statement.executeQuery(realQuery);
+            fetchSettings.afterExecute(resultSet);
 
         } catch (Throwable exception) {
             DatabaseUtils.closeSilently(resultSet);
-            DatabaseUtils.closeSilently(statement);
+            statementCache.release(statement);
+            if (restoreAutoCommit) {
+                DatabaseUtils.autoCommitSilently(connection, true);
+            }
             DatabaseUtils.closeSilently(connection);
 
-            String error = Optional.ofNullable(realQuery)
+            String error = Optional.ofNullable(evaluatedMap)
+                    .map(queryStatement::replace)
                     .map(query -> QUERY_EXECUTE_ERROR_WITH_QUERY.format(query, rootCauseMessageOf(exception)))
                     .orElse(QUERY_EXECUTE_ERROR.format(rootCauseMessageOf(exception)));
             throw new SelectException(error, exception);
         }
 
-        DisposableResultSet disposableResultSet = new DisposableResultSet(connection, statement, resultSet);
+        DisposableResultSet disposableResultSet = new DisposableResultSet(connection, statement, resultSet, statementCache, restoreAutoCommit);
         flowContext.register(disposableResultSet);
 
-        ResultSetMetaData metaData;
+        RowSchema schema;
         try {
-            metaData = disposableResultSet.getMetaData();
+            schema = RowSchema.from(disposableResultSet.getMetaData());
         } catch (SQLException exception) {
             String error = METADATA_FETCH_ERROR.format(
                     exception.getErrorCode(),
                     exception.getSQLState(),
                     exception.getMessage());
+            disposableResultSet.dispose();
             throw new SelectException(error, exception);
         }
 
-        List<Integer> columnTypes = MetadataUtils.getColumnType(metaData);
-        Map<String, Integer> columnNameIndexMap = MetadataUtils.getColumnNameIndexMap(metaData);
-        Map<Integer, String> columnIndexNameMap = MetadataUtils.getColumnIndexNameMap(metaData);
+        // LOB values are streamed only by row fetch modes, the other modes read all the values while writing the result.
+        boolean rowFetchMode = fetchMode == FetchMode.STREAM || fetchMode == FetchMode.MATERIALIZE;
+        RowConverter rowConverter = rowFetchMode ?
+                RowConverter.from(schema,
+                        Optional.ofNullable(lobMode).orElse(LobMode.EAGER),
+                        Optional.ofNullable(lobThreshold).orElse(DEFAULT_LOB_THRESHOLD)) :
+                RowConverter.from(schema);
+        if (rowConverter.streamsLobs()) {
+            disposableResultSet.holdUntilFlowEnds();
+        }
+
+        SelectAttributes selectAttributes = new SelectAttributes(query, schema.columnTypes());
+
+        if (fetchMode == FetchMode.COLUMNAR) {
+            ColumnarResult columnarResult;
+            try {
+                columnarResult = columnar(rowConverter, disposableResultSet);
+            } catch (Throwable exception) {
+                String error = QUERY_EXECUTE_ERROR_WITH_QUERY.format(query, rootCauseMessageOf(exception));
+                throw new SelectException(error, exception);
+            } finally {
+                disposableResultSet.dispose();
+            }
+            return MessageBuilder.get(Select.class)
+                    .withJavaObject(columnarResult)
+                    .attributes(selectAttributes)
+                    .build();
+        }
+
+        if (fetchMode == FetchMode.ARROW) {
+            ArrowStreamWriter arrowWriter;
+            try {
+                arrowWriter = ArrowStreamWriter.from(rowConverter,
+                        Optional.ofNullable(arrowBatchRows).orElse(DEFAULT_ARROW_BATCH_ROWS));
+            } catch (ConversionError exception) {
+                disposableResultSet.dispose();
+                throw new SelectException(exception.getMessage(), exception);
+            }
+            return MessageBuilder.get(Select.class)
+                    .withTypedPublisher(createResultStream(disposableResultSet, arrowWriter::next, byte[].class))
+                    .attributes(selectAttributes)
+                    .build();
+        }
+
+        if (fetchMode == FetchMode.CSV || fetchMode == FetchMode.NDJSON) {
+            RowTextWriter textWriter = fetchMode == FetchMode.CSV ?
+                    RowTextWriter.csv(rowConverter, TEXT_CHUNK_SIZE) :
+                    RowTextWriter.ndjson(rowConverter, TEXT_CHUNK_SIZE);
+            return MessageBuilder.get(Select.class)
+                    .withTypedPublisher(createResultStream(disposableResultSet, textWriter::next, byte[].class))
+                    .attributes(selectAttributes)
+                    .build();
+        }
+
+        TypedPublisher<DatabaseRow> result;
+        if (fetchMode == FetchMode.MATERIALIZE) {
+            // Spilled rows are not bounded by memory: the default max rows applies only without spilling.
+            int materializeMaxRows = Optional.ofNullable(maxRows)
+                    .orElse(spillThreshold != null ? Integer.MAX_VALUE : DEFAULT_MAX_ROWS);
+            List<DatabaseRow> rows;
+            SpillableListOfDatabaseRow spillableRows = null;
+            if (spillThreshold != null) {
+                spillableRows = new SpillableListOfDatabaseRow(spillThreshold * 1024L * 1024L);
+                flowContext.register(spillableRows);
+                rows = spillableRows;
+            } else {
+                rows = new ListOfDatabaseRow();
+            }
+            boolean maxRowsExceeded;
+            try {
+                maxRowsExceeded = materialize(rowConverter, disposableResultSet, rows, materializeMaxRows);
+                if (spillableRows != null) {
+                    spillableRows.complete();
+                }
+            } catch (Throwable exception) {
+                disposableResultSet.dispose();
+                String error = QUERY_EXECUTE_ERROR_WITH_QUERY.format(query, rootCauseMessageOf(exception));
+                throw new SelectException(error, exception);
+            }
+
+            if (!maxRowsExceeded) {
+                disposableResultSet.release();
+                return MessageBuilder.get(Select.class)
+                        .withJavaObject(rows)
+                        .attributes(selectAttributes)
+                        .build();
+            }
+
+            if (onMaxRowsExceeded == MaxRowsExceededStrategy.FAIL) {
+                disposableResultSet.dispose();
+                throw new SelectException(MAX_ROWS_EXCEEDED.format(query, materializeMaxRows));
+            }
 
-        TypedPublisher<DatabaseRow> result =
-                createResultStream(metaData, disposableResultSet, columnNameIndexMap, columnIndexNameMap);
+            // Fallback to stream: the rows already read are emitted first.
+            Flux<DatabaseRow> remainingRows =
+                    Flux.from(createRowStream(rowConverter, disposableResultSet));
+            result = TypedPublisher.from(Flux.fromIterable(rows)
+                    .concatWith(remainingRows)
+                    .doFinally(signalType -> disposableResultSet.release()), DatabaseRow.class);
 
-        SelectAttributes selectAttributes = new SelectAttributes(query, columnTypes);
+        } else {
+            result = createRowStream(rowConverter, disposableResultSet);
+        }
 
         return MessageBuilder.get(Select.class)
                 .withTypedPublisher(result)
@@ -143,7 +371,9 @@ public class Select implements ProcessorSync {
     public void dispose() {
         this.dataSourceService.dispose(this, connection);
         this.dataSource = null;
+        this.statementCache = null;
         this.queryStatement = null;
+        this.fetchSettings = null;
     }
 
     public void setConnection(ConnectionConfiguration connection) {
@@ -158,30 +388,110 @@ public class Select implements ProcessorSync {
         this.query = query;
     }
 
-    private TypedPublisher<DatabaseRow> createResultStream(
-            ResultSetMetaData metaData,
-            DisposableResultSet disposableResultSet,
-            Map<String, Integer> columnNameIndexMap,
-            Map<Integer, String> columnIndexNameMap) {
+    public void setFetchMode(FetchMode fetchMode) {
+        this.fetchMode = fetchMode;
+    }
+
+    public void setMaxRows(Integer maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    public void setOnMaxRowsExceeded(MaxRowsExceededStrategy onMaxRowsExceeded) {
+        this.onMaxRowsExceeded = onMaxRowsExceeded;
+    }
+
+    public void setArrowBatchRows(Integer arrowBatchRows) {
+        this.arrowBatchRows = arrowBatchRows;
+    }
+
+    public void setSpillThreshold(Integer spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    public void setLobMode(LobMode lobMode) {
+        this.lobMode = lobMode;
+    }
+
+    public void setLobThreshold(Integer lobThreshold) {
+        this.lobThreshold = lobThreshold;
+    }
+
+    public void setFetchSize(Integer fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public void setAdaptiveFetchSize(Boolean adaptiveFetchSize) {
+        this.adaptiveFetchSize = adaptiveFetchSize;
+    }
+
+    public void setServerSideCursor(Boolean serverSideCursor) {
+        this.serverSideCursor = serverSideCursor;
+    }
+
+    // Reads at most 'maxRows' rows, plus the first row exceeding the limit, if any.
+    // Returns true if the result set has more rows than 'maxRows'.
+    private static boolean materialize(RowConverter rowConverter,
+                                       DisposableResultSet resultSet,
+                                       List<DatabaseRow> rows,
+                                       int maxRows) throws SQLException {
+        while (resultSet.next()) {
+            rows.add(rowConverter.convert(resultSet));
+            if (rows.size() > maxRows) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ColumnarResult columnar(RowConverter rowConverter, DisposableResultSet resultSet) throws SQLException {
+        ColumnarConverter columnarConverter = ColumnarConverter.from(rowConverter);
+        while (resultSet.next()) {
+            columnarConverter.append(resultSet);
+        }
+        return columnarConverter.complete();
+    }
+
+    private TypedPublisher<DatabaseRow> createRowStream(RowConverter rowConverter, DisposableResultSet disposableResultSet) {
+        return createResultStream(disposableResultSet,
+                resultSet -> resultSet.next() ? rowConverter.convert(resultSet) : null,
+                DatabaseRow.class);
+    }
+
+    private <T> TypedPublisher<T> createResultStream(DisposableResultSet disposableResultSet,
+                                                     ResultSetReader<T> reader,
+                                                     Class<T> type) {
 
-        return TypedPublisher.from(Flux.create(sink -> {
+        // Items are read from the result set only when requested by the subscriber:
+        // a slow subscriber does not cause the result set to be buffered in memory.
+        // The result set, statement and connection are released as soon as the stream
+        // completes, fails or is cancelled instead of waiting for the flow to end
+        // (unless streamed LOB values must be readable until the flow ends).
+        Flux<T> items = Flux.generate(() -> disposableResultSet, (resultSet, sink) -> {
             try {
 
-                while (disposableResultSet.next()) {
-                    DatabaseRow row = RowConverter.convert(
-                            metaData,
-                            disposableResultSet,
-                            columnNameIndexMap,
-                            columnIndexNameMap);
-                    sink.next(row);
+                T item = reader.read(resultSet);
+                if (item != null) {
+                    sink.next(item);
+                } else {
+                    sink.complete();
                 }
 
-                sink.complete();
-
             } catch (Throwable exception) {
                 sink.error(exception);
             }
+            return resultSet;
+        }, DisposableResultSet::release);
+
+        if (fetchSettings.cancelOnEarlyClose()) {
+            items = items.doOnCancel(disposableResultSet::cancel);
+        }
+
+        return TypedPublisher.from(items, type);
+    }
+
+    // Returns the next item read from the result set, null if there are no more items.
+    private interface ResultSetReader<T> {
 
-        }), DatabaseRow.class);
+        T read(ResultSet resultSet) throws SQLException;
     }
 }
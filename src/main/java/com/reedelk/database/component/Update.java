@@ -1,10 +1,12 @@
 package com.reedelk.database.component;
 
 import com.mchange.v2.c3p0.ComboPooledDataSource;
-import com.reedelk.database.internal.attribute.DatabaseAttributes;
-import com.reedelk.database.internal.commons.DataSourceService;
-import com.reedelk.database.internal.commons.DatabaseUtils;
-import com.reedelk.database.internal.commons.QueryStatementTemplate;
+import com.reedelk.database.internal.attribute.UpdateAttributes;
+import com.reedelk.database.internal.batch.PayloadElements;
+import com.reedelk.database.internal.bulk.BulkLoadInput;
+import com.reedelk.database.internal.bulk.BulkLoader;
+import com.reedelk.database.internal.commons.*;
+import com.reedelk.database.internal.dialect.Dialect;
 import com.reedelk.database.internal.exception.UpdateException;
 import com.reedelk.runtime.api.annotation.*;
 import com.reedelk.runtime.api.component.ProcessorSync;
@@ -12,6 +14,7 @@ import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import com.reedelk.runtime.api.message.MessageAttributes;
 import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicmap.DynamicObjectMap;
 import org.osgi.service.component.annotations.Component;
@@ -19,40 +22,59 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ServiceScope;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
-import static com.reedelk.database.internal.commons.Messages.Update.QUERY_EXECUTE_ERROR;
-import static com.reedelk.database.internal.commons.Messages.Update.QUERY_EXECUTE_ERROR_WITH_QUERY;
+import static com.reedelk.database.internal.commons.Messages.Update.*;
 import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
 import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
 
 @ModuleComponent("SQL Update")
 @ComponentOutput(
-        attributes = DatabaseAttributes.class,
+        attributes = UpdateAttributes.class,
         payload = int.class,
         description = "The number of rows updated in the database.")
 @ComponentInput(
-        payload = Object.class,
-        description = "The input payload is used to evaluate the expressions bound to the query parameters mappings.")
-@Description("Executes an UPDATE SQL statement on the configured data source connection. Supported databases and drivers: H2 (org.h2.Driver), MySQL (com.mysql.cj.jdbc.Driver), Oracle (oracle.jdbc.Driver), PostgreSQL (org.postgresql.Driver).")
+        payload = { Object.class, List.class, TypedPublisher.class },
+        description = "The input payload is used to evaluate the expressions bound to the query parameters mappings. " +
+                "In bulk mode, if the input payload is a collection or a stream, the column value mappings are " +
+                "evaluated once for each element, otherwise once against the input message.")
+@Description("Executes an UPDATE SQL statement on the configured data source connection. " +
+        "In bulk mode the rows are loaded into a session temporary table, with the native bulk load or batched inserts, " +
+        "and the table is updated from it with a single statement joining the rows by key: " +
+        "MERGE on H2 and Oracle (18c or later), UPDATE ... FROM on PostgreSQL, UPDATE ... JOIN on MySQL. " +
+        "Supported databases and drivers: H2 (org.h2.Driver), MySQL (com.mysql.cj.jdbc.Driver), Oracle (oracle.jdbc.Driver), PostgreSQL (org.postgresql.Driver).")
 @Component(service = Update.class, scope = ServiceScope.PROTOTYPE)
 public class Update implements ProcessorSync {
 
+    static final int DEFAULT_BATCH_SIZE = 1000;
+
     @DialogTitle("Data Source Configuration")
     @Property("Connection")
     @Description("Data source configuration to be used by this query. " +
             "Shared configurations use the same connection pool.")
     private ConnectionConfiguration connection;
 
+    @Property("Mode")
+    @InitValue("QUERY")
+    @Example("STAGING_TABLE")
+    @DefaultValue("QUERY")
+    @Description("<b>Query</b> executes the given update query once. " +
+            "<b>Bulk (Staging Table)</b> updates the table with the rows of the input, " +
+            "using a single statement instead of an update for each row.")
+    private UpdateMode mode;
+
     @Property("Update Query")
     @Example("<ul>" +
             "<li><code>UPDATE orders SET name = 'another name' WHERE id = 1</code></li>" +
             "<li><code>UPDATE orders SET name = 'another name', surname = 'another surname' WHERE id = 2</code></li>" +
             "</ul>")
     @Hint("UPDATE orders SET name = 'another name' WHERE id = 1")
+    @When(propertyName = "mode", propertyValue = "QUERY")
     @Description("The <b>update</b> query to be executed on the database with the given Data Source connection. " +
             "The query might contain parameters which will be filled from the expressions defined in " +
             "the parameters mapping configuration below.")
@@ -63,40 +85,102 @@ public class Update implements ProcessorSync {
     @KeyName("Query Parameter Name")
     @ValueName("Query Parameter Value")
     @Example("name > <code>message.payload()</code>")
-    @Description("Mapping of update query parameters > values. Query parameters will be evaluated and replaced each time before the query is executed.")
+    @When(propertyName = "mode", propertyValue = "QUERY")
+    @Description("Mapping of update query parameters > values. Query parameters will be evaluated and bound to the prepared statement each time before the query is executed.")
     private DynamicObjectMap parametersMapping = DynamicObjectMap.empty();
 
+    @Property("Table")
+    @Hint("orders")
+    @Example("inventory.products")
+    @When(propertyName = "mode", propertyValue = "STAGING_TABLE")
+    @Description("The name of the table to be updated.")
+    private String table;
+
+    @Property("Key Columns")
+    @Hint("id")
+    @Example("order_id, line_number")
+    @When(propertyName = "mode", propertyValue = "STAGING_TABLE")
+    @Description("Comma separated names of the columns identifying the row to be updated. " +
+            "Two input rows must not have the same key: the update fails on Oracle and H2, " +
+            "while PostgreSQL and MySQL apply one of them.")
+    private String keyColumns;
+
+    @Property("Load Method")
+    @Example("BATCH_INSERT")
+    @InitValue("NATIVE")
+    @DefaultValue("NATIVE")
+    @When(propertyName = "mode", propertyValue = "STAGING_TABLE")
+    @Description("How the rows are loaded into the staging table. <b>Native</b> uses the bulk load of the database " +
+            "as the SQL Bulk Load component does, falling back to batched inserts on databases without one. " +
+            "<b>Batch Insert</b> always uses batched insert statements.")
+    private BulkLoadMethod loadMethod;
+
+    @Property("Batch Size")
+    @Hint("1000")
+    @Example("5000")
+    @DefaultValue("1000")
+    @When(propertyName = "mode", propertyValue = "STAGING_TABLE")
+    @Description("The number of rows inserted into the staging table with each batch when batched inserts are used.")
+    private Integer batchSize;
+
+    @Property("Column Value Mappings")
+    @TabGroup("Column Value Mappings")
+    @KeyName("Column Name")
+    @ValueName("Column Value")
+    @Example("name > <code>message.payload().name</code>")
+    @When(propertyName = "mode", propertyValue = "STAGING_TABLE")
+    @Description("Mapping of table columns > values. The key columns must be mapped, " +
+            "the other columns are updated. The values are evaluated for each element of the input: " +
+            "the element is the payload of the message the expressions are evaluated against.")
+    private DynamicObjectMap columnsMapping = DynamicObjectMap.empty();
+
     @Reference
     DataSourceService dataSourceService;
     @Reference
     ScriptEngineService scriptEngine;
 
     private ComboPooledDataSource dataSource;
+    private StatementCache statementCache;
     private QueryStatementTemplate queryStatement;
+    private StagingUpdate stagingUpdate;
 
     @Override
     public void initialize() {
-        requireNotBlank(Update.class, query, "Update query is not defined");
+        boolean staging = Optional.ofNullable(mode).orElse(UpdateMode.QUERY) == UpdateMode.STAGING_TABLE;
+        if (!staging) {
+            requireNotBlank(Update.class, query, "Update query is not defined");
+        }
         dataSource = dataSourceService.getDataSource(this, connection);
-        queryStatement = new QueryStatementTemplate(query);
+        statementCache = dataSourceService.getStatementCache(connection);
+        if (staging) {
+            // The dialect depends on the connection configuration, checked by the data source service.
+            stagingUpdate = new StagingUpdate();
+        } else {
+            queryStatement = new QueryStatementTemplate(query);
+        }
     }
 
     @Override
     public Message apply(FlowContext flowContext, Message message) {
+        if (stagingUpdate != null) {
+            return stagingUpdate.apply(flowContext, message);
+        }
+
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
         ResultSet resultSet = null;
-        String realQuery = null;
+        Map<String, Object> evaluatedMap = null;
         try {
             connection = dataSource.getConnection();
-            statement = connection.createStatement();
 
-            Map<String, Object> evaluatedMap = scriptEngine.evaluate(parametersMapping, flowContext, message);
-            realQuery = queryStatement.replace(evaluatedMap);
+            evaluatedMap = scriptEngine.evaluate(parametersMapping, flowContext, message);
+
+            statement = statementCache.prepare(connection, queryStatement.compiledQuery());
+            queryStatement.bind(statement, evaluatedMap);
+
+            int rowCount = statement.executeUpdate();
 
-            int rowCount = statement.executeUpdate(realQuery);
-            
-            MessageAttributes attributes = new DatabaseAttributes(realQuery);
+            MessageAttributes attributes = new UpdateAttributes(query);
 
             return MessageBuilder.get(Update.class)
                     .withJavaObject(rowCount)
@@ -104,14 +188,15 @@ public class Update implements ProcessorSync {
                     .build();
 
         } catch (Throwable exception) {
-            String error = Optional.ofNullable(realQuery)
+            String error = Optional.ofNullable(evaluatedMap)
+                    .map(queryStatement::replace)
                     .map(query -> QUERY_EXECUTE_ERROR_WITH_QUERY.format(query, rootCauseMessageOf(exception)))
                     .orElse(QUERY_EXECUTE_ERROR.format(rootCauseMessageOf(exception)));
             throw new UpdateException(error, exception);
 
         } finally {
             DatabaseUtils.closeSilently(resultSet);
-            DatabaseUtils.closeSilently(statement);
+            statementCache.release(statement);
             DatabaseUtils.closeSilently(connection);
         }
     }
@@ -120,7 +205,9 @@ public class Update implements ProcessorSync {
     public void dispose() {
         this.dataSourceService.dispose(this, connection);
         this.dataSource = null;
+        this.statementCache = null;
         this.queryStatement = null;
+        this.stagingUpdate = null;
     }
 
     public void setConnection(ConnectionConfiguration connection) {
@@ -134,4 +221,136 @@ public class Update implements ProcessorSync {
     public void setQuery(String query) {
         this.query = query;
     }
+
+    public void setMode(UpdateMode mode) {
+        this.mode = mode;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public void setKeyColumns(String keyColumns) {
+        this.keyColumns = keyColumns;
+    }
+
+    public void setLoadMethod(BulkLoadMethod loadMethod) {
+        this.loadMethod = loadMethod;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setColumnsMapping(DynamicObjectMap columnsMapping) {
+        this.columnsMapping = columnsMapping;
+    }
+
+    /**
+     * Loads the input rows into a session temporary table and updates the table from it
+     * with a single statement, in one transaction. The staging table is dropped before
+     * the connection goes back to the pool.
+     */
+    private class StagingUpdate {
+
+        private final Dialect dialect;
+        private final List<String> columns;
+        private final List<String> keys;
+        private final String stagingTable;
+        private final String updateQuery;
+        private final BulkLoader loader;
+
+        StagingUpdate() {
+            requireNotBlank(Update.class, table, "Table is not defined");
+            requireNotBlank(Update.class, keyColumns, "Key columns are not defined");
+            requireTrue(Update.class, !columnsMapping.isEmpty(), "Column value mappings are not defined");
+            requireTrue(Update.class, batchSize == null || batchSize > 0, "Batch size must be greater than zero");
+
+            columns = new ArrayList<>(columnsMapping.keySet());
+            keys = Arrays.stream(keyColumns.split(","))
+                    .map(String::trim)
+                    .filter(column -> !column.isEmpty())
+                    .collect(Collectors.toList());
+            keys.forEach(key -> requireTrue(Update.class, columns.contains(key), KEY_COLUMN_NOT_MAPPED.format(key)));
+            requireTrue(Update.class, !keys.containsAll(columns), "Column value mappings must define a column which is not a key");
+
+            dialect = Dialect.of(connection.getDatabaseDriver());
+            stagingTable = dialect.stagingTable();
+            updateQuery = dialect.updateFrom(table.trim(), stagingTable, columns, keys);
+            loader = BulkLoader.of(connection.getDatabaseDriver(),
+                    Optional.ofNullable(loadMethod).orElse(BulkLoadMethod.NATIVE),
+                    stagingTable,
+                    columns,
+                    batchSize());
+        }
+
+        Message apply(FlowContext flowContext, Message message) {
+            Connection connection = null;
+            boolean autoCommit = true;
+            boolean staging = false;
+            long stagedRows = 0;
+            try (BulkLoadInput input = inputOf(flowContext, message)) {
+                connection = dataSource.getConnection();
+                autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+
+                long start = System.nanoTime();
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(dialect.createStagingTable(stagingTable, table.trim(), columns));
+                    staging = true;
+
+                    stagedRows = loader.load(connection, input);
+
+                    String prepare = dialect.prepareStagingTable(stagingTable, keys);
+                    if (prepare != null) {
+                        statement.execute(prepare);
+                    }
+
+                    int rowCount = statement.executeUpdate(updateQuery);
+                    connection.commit();
+
+                    MessageAttributes attributes =
+                            new UpdateAttributes(updateQuery, loader.method(), stagedRows, System.nanoTime() - start);
+
+                    return MessageBuilder.get(Update.class)
+                            .withJavaObject(rowCount)
+                            .attributes(attributes)
+                            .build();
+                }
+
+            } catch (Throwable exception) {
+                DatabaseUtils.rollbackSilently(connection);
+                String error = STAGING_UPDATE_ERROR.format(table, updateQuery, stagedRows, rootCauseMessageOf(exception));
+                throw new UpdateException(error, exception);
+
+            } finally {
+                DatabaseUtils.autoCommitSilently(connection, autoCommit);
+                // Dropped with auto commit restored: a failed drop does not leave a broken transaction behind.
+                if (staging) {
+                    DatabaseUtils.executeSilently(connection, dialect.dropStagingTable(stagingTable));
+                }
+                DatabaseUtils.closeSilently(connection);
+            }
+        }
+
+        // The rows are the values of the column mappings evaluated against each element.
+        private BulkLoadInput inputOf(FlowContext flowContext, Message message) {
+            PayloadElements elements = PayloadElements.of(message, batchSize());
+            if (elements == null) {
+                return BulkLoadInput.ofRows(Collections.singletonList(evaluate(flowContext, message)));
+            }
+            Iterator<Map<String, Object>> rows = elements.iterator(element ->
+                    evaluate(flowContext, PayloadElements.elementMessage(Update.class, element)));
+            return BulkLoadInput.ofRows(rows, elements);
+        }
+
+        private Map<String, Object> evaluate(FlowContext flowContext, Message message) {
+            return scriptEngine.evaluate(columnsMapping, flowContext, message);
+        }
+    }
+
+    private int batchSize() {
+        return Optional.ofNullable(batchSize).orElse(DEFAULT_BATCH_SIZE);
+    }
 }
@@ -0,0 +1,238 @@
+package com.reedelk.database.component;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.reedelk.database.internal.attribute.UpsertAttributes;
+import com.reedelk.database.internal.batch.BatchWriter;
+import com.reedelk.database.internal.batch.PayloadElements;
+import com.reedelk.database.internal.commons.DataSourceService;
+import com.reedelk.database.internal.commons.DatabaseUtils;
+import com.reedelk.database.internal.commons.ParameterSetter;
+import com.reedelk.database.internal.commons.StatementCache;
+import com.reedelk.database.internal.dialect.Dialect;
+import com.reedelk.database.internal.exception.UpsertException;
+import com.reedelk.runtime.api.annotation.*;
+import com.reedelk.runtime.api.component.ProcessorSync;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicObjectMap;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ServiceScope;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.reedelk.database.internal.commons.Messages.Upsert.KEY_COLUMN_NOT_MAPPED;
+import static com.reedelk.database.internal.commons.Messages.Upsert.QUERY_EXECUTE_ERROR_WITH_QUERY;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotBlank;
+import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+@ModuleComponent("SQL Upsert")
+@ComponentOutput(
+        attributes = UpsertAttributes.class,
+        payload = int.class,
+        description = "The total number of rows inserted or updated, as reported by the database " +
+                "(MySQL counts an updated row as two rows).")
+@ComponentInput(
+        payload = { Object.class, List.class, TypedPublisher.class },
+        description = "If the input payload is a collection or a stream, the column value mappings are evaluated " +
+                "once for each element and the rows are upserted in JDBC batches. " +
+                "Otherwise the mappings are evaluated once against the input message.")
+@Description("Inserts a row into the given table or, if a row with the same key columns exists, updates it, " +
+        "with a single statement generated for the configured database: MERGE on H2 and Oracle, " +
+        "INSERT ... ON CONFLICT on PostgreSQL, INSERT ... ON DUPLICATE KEY UPDATE on MySQL. " +
+        "Supported databases and drivers: H2 (org.h2.Driver), MySQL (com.mysql.cj.jdbc.Driver), Oracle (oracle.jdbc.Driver), PostgreSQL (org.postgresql.Driver).")
+@Component(service = Upsert.class, scope = ServiceScope.PROTOTYPE)
+public class Upsert implements ProcessorSync {
+
+    static final int DEFAULT_BATCH_SIZE = 500;
+    static final int DEFAULT_COMMIT_INTERVAL = 1;
+
+    @DialogTitle("Data Source Configuration")
+    @Property("Connection")
+    @Description("Data source configuration to be used by this query. " +
+            "Shared configurations use the same connection pool.")
+    private ConnectionConfiguration connection;
+
+    @Property("Table")
+    @Hint("orders")
+    @Example("inventory.products")
+    @Description("The name of the table the rows are inserted into or updated.")
+    private String table;
+
+    @Property("Key Columns")
+    @Hint("id")
+    @Example("order_id, line_number")
+    @Description("Comma separated names of the columns identifying an existing row. " +
+            "PostgreSQL requires a unique index or constraint on the key columns; " +
+            "MySQL uses the primary key and the unique indexes of the table instead.")
+    private String keyColumns;
+
+    @Property("Batch Size")
+    @Hint("500")
+    @Example("1000")
+    @DefaultValue("500")
+    @Description("The maximum number of upsert statements sent to the database in a single batch.")
+    private Integer batchSize;
+
+    @Property("Commit Interval")
+    @Hint("1")
+    @Example("10")
+    @DefaultValue("1")
+    @Description("The number of executed batches after which the transaction is committed. " +
+            "Rows of batches not yet committed are rolled back if a following batch fails.")
+    private Integer commitInterval;
+
+    @Property("Column Value Mappings")
+    @TabGroup("Column Value Mappings")
+    @KeyName("Column Name")
+    @ValueName("Column Value")
+    @Example("name > <code>message.payload().name</code>")
+    @Description("Mapping of table columns > values. The key columns must be mapped. " +
+            "If the input is a collection or a stream, the values are evaluated for each element: " +
+            "the element is the payload of the message the expressions are evaluated against.")
+    private DynamicObjectMap columnsMapping = DynamicObjectMap.empty();
+
+    @Reference
+    DataSourceService dataSourceService;
+    @Reference
+    ScriptEngineService scriptEngine;
+
+    private ComboPooledDataSource dataSource;
+    private StatementCache statementCache;
+    private List<String> columns;
+    private String upsertQuery;
+
+    @Override
+    public void initialize() {
+        requireNotBlank(Upsert.class, table, "Table is not defined");
+        requireNotBlank(Upsert.class, keyColumns, "Key columns are not defined");
+        requireTrue(Upsert.class, !columnsMapping.isEmpty(), "Column value mappings are not defined");
+        requireTrue(Upsert.class, batchSize == null || batchSize > 0, "Batch size must be greater than zero");
+        requireTrue(Upsert.class, commitInterval == null || commitInterval > 0, "Commit interval must be greater than zero");
+
+        columns = new ArrayList<>(columnsMapping.keySet());
+        List<String> keys = Arrays.stream(keyColumns.split(","))
+                .map(String::trim)
+                .filter(column -> !column.isEmpty())
+                .collect(Collectors.toList());
+        keys.forEach(key -> requireTrue(Upsert.class, columns.contains(key), KEY_COLUMN_NOT_MAPPED.format(key)));
+
+        dataSource = dataSourceService.getDataSource(this, connection);
+        statementCache = dataSourceService.getStatementCache(connection);
+        upsertQuery = Dialect.of(connection.getDatabaseDriver()).upsert(table.trim(), columns, keys);
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+        PayloadElements elements = PayloadElements.of(message, batchSize());
+        if (elements == null) {
+            return upsert(writer -> write(flowContext, message, writer));
+        }
+        try {
+            return upsert(writer -> {
+                for (Object element : elements) {
+                    write(flowContext, PayloadElements.elementMessage(Upsert.class, element), writer);
+                }
+            });
+        } finally {
+            elements.close();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        this.dataSourceService.dispose(this, connection);
+        this.dataSource = null;
+        this.statementCache = null;
+        this.columns = null;
+        this.upsertQuery = null;
+    }
+
+    public void setConnection(ConnectionConfiguration connection) {
+        this.connection = connection;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public void setKeyColumns(String keyColumns) {
+        this.keyColumns = keyColumns;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setCommitInterval(Integer commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+
+    public void setColumnsMapping(DynamicObjectMap columnsMapping) {
+        this.columnsMapping = columnsMapping;
+    }
+
+    private Message upsert(ElementsWriter elementsWriter) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        boolean autoCommit = true;
+        try {
+            connection = dataSource.getConnection();
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            statement = statementCache.prepare(connection, upsertQuery);
+
+            BatchWriter writer = new BatchWriter(connection, statement, batchSize(),
+                    Optional.ofNullable(commitInterval).orElse(DEFAULT_COMMIT_INTERVAL));
+
+            elementsWriter.write(writer);
+
+            writer.flush();
+
+            MessageAttributes attributes = new UpsertAttributes(upsertQuery, writer.rowCount(), writer.batchCounts());
+
+            return MessageBuilder.get(Upsert.class)
+                    .withJavaObject(writer.rowCount())
+                    .attributes(attributes)
+                    .build();
+
+        } catch (Throwable exception) {
+            DatabaseUtils.rollbackSilently(connection);
+            String error = QUERY_EXECUTE_ERROR_WITH_QUERY.format(upsertQuery, rootCauseMessageOf(exception));
+            throw new UpsertException(error, exception);
+
+        } finally {
+            statementCache.release(statement);
+            DatabaseUtils.autoCommitSilently(connection, autoCommit);
+            DatabaseUtils.closeSilently(connection);
+        }
+    }
+
+    // The values are bound in the order of the columns of the generated statement.
+    private void write(FlowContext flowContext, Message message, BatchWriter writer) throws SQLException {
+        Map<String, Object> evaluatedMap = scriptEngine.evaluate(columnsMapping, flowContext, message);
+        PreparedStatement statement = writer.statement();
+        for (int i = 0; i < columns.size(); i++) {
+            ParameterSetter.set(statement, i + 1, evaluatedMap.get(columns.get(i)));
+        }
+        writer.add();
+    }
+
+    private int batchSize() {
+        return Optional.ofNullable(batchSize).orElse(DEFAULT_BATCH_SIZE);
+    }
+
+    private interface ElementsWriter {
+        void write(BatchWriter writer) throws Exception;
+    }
+}
@@ -0,0 +1,175 @@
+package com.reedelk.database.internal.arrow;
+
+import com.reedelk.database.internal.commons.ByteOutput;
+import com.reedelk.database.internal.commons.RowSchema;
+import com.reedelk.database.internal.exception.ConversionError;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.reedelk.database.internal.commons.Messages.Select.ARROW_DECIMAL_OUT_OF_RANGE;
+import static com.reedelk.database.internal.commons.Messages.Select.COLUMN_TYPE_NOT_SUPPORTED;
+
+/**
+ * The buffers of a column of an Arrow record batch: the validity bitmap
+ * followed by the buffers of the column type layout.
+ */
+abstract class ArrowColumn {
+
+    // Arrow Type union ids.
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_FLOATING_POINT = 3;
+    private static final int TYPE_BINARY = 4;
+    private static final int TYPE_UTF8 = 5;
+    private static final int TYPE_BOOL = 6;
+    private static final int TYPE_DECIMAL = 7;
+    private static final int TYPE_DATE = 8;
+    private static final int TYPE_TIMESTAMP = 10;
+
+    private static final int PRECISION_SINGLE = 1;
+    private static final int PRECISION_DOUBLE = 2;
+    private static final int DATE_UNIT_DAY = 0;
+    private static final int TIME_UNIT_MICROSECOND = 2;
+    private static final int MAX_DECIMAL_PRECISION = 38;
+
+    private final String name;
+    private final int typeId;
+    private final FlatTable type;
+    private final ByteOutput validity = new ByteOutput();
+    private int length;
+    private int nullCount;
+
+    ArrowColumn(String name, int typeId, FlatTable type) {
+        this.name = name;
+        this.typeId = typeId;
+        this.type = type;
+    }
+
+    static ArrowColumn of(RowSchema schema, int columnIndex) {
+        String name = schema.columnName(columnIndex);
+        int columnType = schema.columnType(columnIndex);
+        switch (columnType) {
+            case Types.BIGINT:
+                return new FixedWidthColumn(name, TYPE_INT, intType(64), 8,
+                        (values, object, primitive) -> values.putLong(primitive));
+            case Types.BOOLEAN:
+                return new BooleanColumn(name, TYPE_BOOL, new FlatTable());
+            case Types.DOUBLE:
+                return new FixedWidthColumn(name, TYPE_FLOATING_POINT, new FlatTable().addShort(0, PRECISION_DOUBLE), 8,
+                        (values, object, primitive) -> values.putLong(primitive));
+            case Types.FLOAT:
+                return new FixedWidthColumn(name, TYPE_FLOATING_POINT, new FlatTable().addShort(0, PRECISION_SINGLE), 4,
+                        (values, object, primitive) -> values.putInt(Float.floatToRawIntBits((float) Double.longBitsToDouble(primitive))));
+            case Types.INTEGER:
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return new FixedWidthColumn(name, TYPE_INT, intType(32), 4,
+                        (values, object, primitive) -> values.putInt((int) primitive));
+            case Types.NVARCHAR:
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return new VariableWidthColumn(name, TYPE_UTF8, new FlatTable(),
+                        object -> ((String) object).getBytes(StandardCharsets.UTF_8));
+            case Types.NUMERIC:
+                return numericColumn(name, schema.columnPrecision(columnIndex), schema.columnScale(columnIndex));
+            case Types.DATE:
+                return new FixedWidthColumn(name, TYPE_DATE, new FlatTable().addShort(0, DATE_UNIT_DAY), 4,
+                        (values, object, primitive) -> values.putInt((int) ((Date) object).toLocalDate().toEpochDay()));
+            case Types.TIMESTAMP:
+                // Without time zone: the local date time is stored as if it was UTC.
+                return new FixedWidthColumn(name, TYPE_TIMESTAMP, new FlatTable().addShort(0, TIME_UNIT_MICROSECOND), 8,
+                        (values, object, primitive) -> {
+                            LocalDateTime dateTime = ((Timestamp) object).toLocalDateTime();
+                            values.putLong(dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1000);
+                        });
+            case Types.BLOB:
+                return new VariableWidthColumn(name, TYPE_BINARY, new FlatTable(), object -> (byte[]) object);
+            default:
+                throw new ConversionError(COLUMN_TYPE_NOT_SUPPORTED.format(columnType, name));
+        }
+    }
+
+    void append(Object object, long primitive) {
+        validity.setBit(length++);
+        appendValue(object, primitive);
+    }
+
+    void appendNull() {
+        validity.extendBits(++length);
+        nullCount++;
+        appendNullValue();
+    }
+
+    void reset() {
+        validity.reset();
+        length = 0;
+        nullCount = 0;
+        resetValues();
+    }
+
+    int length() {
+        return length;
+    }
+
+    int nullCount() {
+        return nullCount;
+    }
+
+    FlatTable field() {
+        return new FlatTable()
+                .addString(0, name)
+                .addBoolean(1, true)
+                .addByte(2, typeId)
+                .addTable(3, type)
+                .addTables(5, Collections.emptyList());
+    }
+
+    List<ByteOutput> buffers() {
+        List<ByteOutput> buffers = new ArrayList<>();
+        buffers.add(validity);
+        valueBuffers(buffers);
+        return buffers;
+    }
+
+    abstract void appendValue(Object object, long primitive);
+
+    abstract void appendNullValue();
+
+    abstract void resetValues();
+
+    abstract void valueBuffers(List<ByteOutput> buffers);
+
+    private static FlatTable intType(int bitWidth) {
+        return new FlatTable().addInt(0, bitWidth).addBoolean(1, true);
+    }
+
+    // Numeric values are written as 128 bits decimals when the precision
+    // and scale are known, otherwise as strings.
+    private static ArrowColumn numericColumn(String name, int precision, int scale) {
+        if (precision <= 0 || precision > MAX_DECIMAL_PRECISION || scale < 0 || scale > precision) {
+            return new VariableWidthColumn(name, TYPE_UTF8, new FlatTable(),
+                    object -> ((BigDecimal) object).toPlainString().getBytes(StandardCharsets.UTF_8));
+        }
+        FlatTable decimalType = new FlatTable().addInt(0, precision).addInt(1, scale);
+        return new FixedWidthColumn(name, TYPE_DECIMAL, decimalType, 16, (values, object, primitive) -> {
+            BigInteger unscaled = ((BigDecimal) object).setScale(scale, RoundingMode.HALF_UP).unscaledValue();
+            if (unscaled.bitLength() > 127) {
+                throw new ConversionError(ARROW_DECIMAL_OUT_OF_RANGE.format(object, name));
+            }
+            values.putLong(unscaled.longValue());
+            values.putLong(unscaled.shiftRight(64).longValue());
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package com.reedelk.database.internal.arrow;
+
+import com.reedelk.database.internal.commons.ByteOutput;
+import com.reedelk.database.internal.commons.RowConverter;
+import com.reedelk.database.internal.commons.RowSchema;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes a result set as an Arrow IPC stream: the schema message, one record batch
+ * message for each 'batchRows' rows and the end of stream marker. Each message is
+ * returned as a separate chunk, so that only one record batch is in memory at a time.
+ */
+public class ArrowStreamWriter {
+
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final int METADATA_VERSION_V4 = 3;
+    private static final int HEADER_SCHEMA = 1;
+    private static final int HEADER_RECORD_BATCH = 3;
+
+    private final RowConverter rowConverter;
+    private final ArrowColumn[] columns;
+    private final int batchRows;
+
+    private final Object[] objects;
+    private final long[] primitives;
+    private final long[] nulls;
+
+    private boolean schemaWritten;
+    private boolean completed;
+
+    private ArrowStreamWriter(RowConverter rowConverter, int batchRows) {
+        RowSchema schema = rowConverter.schema();
+        this.rowConverter = rowConverter;
+        this.batchRows = batchRows;
+        this.columns = new ArrowColumn[schema.columnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = ArrowColumn.of(schema, i);
+        }
+        this.objects = new Object[columns.length];
+        this.primitives = new long[columns.length];
+        this.nulls = new long[(columns.length + 63) >>> 6];
+    }
+
+    /**
+     * @throws com.reedelk.database.internal.exception.ConversionError if a column type is not supported.
+     */
+    public static ArrowStreamWriter from(RowConverter rowConverter, int batchRows) {
+        return new ArrowStreamWriter(rowConverter, batchRows);
+    }
+
+    /**
+     * Returns the next chunk of the stream, reading the next rows from the result set
+     * if needed, or null if the end of stream marker has already been returned.
+     */
+    public byte[] next(ResultSet resultSet) throws SQLException {
+        if (!schemaWritten) {
+            schemaWritten = true;
+            return schema();
+        }
+        if (completed) {
+            return null;
+        }
+        byte[] recordBatch = recordBatch(resultSet);
+        if (recordBatch != null) {
+            return recordBatch;
+        }
+        completed = true;
+        return endOfStream();
+    }
+
+    private byte[] schema() {
+        List<FlatTable> fields = new ArrayList<>(columns.length);
+        for (ArrowColumn column : columns) {
+            fields.add(column.field());
+        }
+        FlatTable schema = new FlatTable()
+                .addShort(0, 0) // Little endian
+                .addTables(1, fields);
+        return message(HEADER_SCHEMA, schema, new ArrayList<>(), 0);
+    }
+
+    // Returns null if there are no more rows.
+    private byte[] recordBatch(ResultSet resultSet) throws SQLException {
+        for (ArrowColumn column : columns) {
+            column.reset();
+        }
+
+        int rowCount = 0;
+        while (rowCount < batchRows && resultSet.next()) {
+            Arrays.fill(nulls, 0L);
+            rowConverter.read(resultSet, objects, primitives, nulls);
+            for (int i = 0; i < columns.length; i++) {
+                if ((nulls[i >>> 6] & (1L << i)) != 0) {
+                    columns[i].appendNull();
+                } else {
+                    columns[i].append(objects[i], primitives[i]);
+                }
+            }
+            rowCount++;
+        }
+        if (rowCount == 0) {
+            return null;
+        }
+
+        long[] nodes = new long[columns.length * 2];
+        List<ByteOutput> body = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) {
+            nodes[i * 2] = columns[i].length();
+            nodes[i * 2 + 1] = columns[i].nullCount();
+            body.addAll(columns[i].buffers());
+        }
+
+        long[] buffers = new long[body.size() * 2];
+        long bodyLength = 0;
+        for (int i = 0; i < body.size(); i++) {
+            buffers[i * 2] = bodyLength;
+            buffers[i * 2 + 1] = body.get(i).size();
+            bodyLength += padded(body.get(i).size());
+        }
+
+        FlatTable recordBatch = new FlatTable()
+                .addLong(0, rowCount)
+                .addStructs(1, nodes, 2)
+                .addStructs(2, buffers, 2);
+        return message(HEADER_RECORD_BATCH, recordBatch, body, bodyLength);
+    }
+
+    private static byte[] endOfStream() {
+        ByteOutput output = new ByteOutput(8);
+        output.putInt(CONTINUATION);
+        output.putInt(0);
+        return output.toByteArray();
+    }
+
+    // The metadata is padded so that the body starts at a multiple of 8 bytes.
+    private static byte[] message(int headerType, FlatTable header, List<ByteOutput> body, long bodyLength) {
+        byte[] metadata = new FlatTable()
+                .addShort(0, METADATA_VERSION_V4)
+                .addByte(1, headerType)
+                .addTable(2, header)
+                .addLong(3, bodyLength)
+                .finish();
+
+        int metadataLength = padded(metadata.length);
+        ByteOutput output = new ByteOutput(8 + metadataLength + (int) bodyLength);
+        output.putInt(CONTINUATION);
+        output.putInt(metadataLength);
+        output.putBytes(metadata);
+        output.align(8);
+        for (ByteOutput buffer : body) {
+            buffer.writeTo(output);
+            output.align(8);
+        }
+        return output.toByteArray();
+    }
+
+    private static int padded(int length) {
+        return (length + 7) & ~7;
+    }
+}
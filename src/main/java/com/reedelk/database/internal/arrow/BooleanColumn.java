@@ -0,0 +1,40 @@
+package com.reedelk.database.internal.arrow;
+
+import com.reedelk.database.internal.commons.ByteOutput;
+
+import java.util.List;
+
+// Values are stored as a bitmap.
+class BooleanColumn extends ArrowColumn {
+
+    private final ByteOutput values = new ByteOutput();
+    private int length;
+
+    BooleanColumn(String name, int typeId, FlatTable type) {
+        super(name, typeId, type);
+    }
+
+    @Override
+    void appendValue(Object object, long primitive) {
+        if (primitive != 0) {
+            values.setBit(length);
+        }
+        values.extendBits(++length);
+    }
+
+    @Override
+    void appendNullValue() {
+        values.extendBits(++length);
+    }
+
+    @Override
+    void resetValues() {
+        values.reset();
+        length = 0;
+    }
+
+    @Override
+    void valueBuffers(List<ByteOutput> buffers) {
+        buffers.add(values);
+    }
+}
@@ -0,0 +1,44 @@
+package com.reedelk.database.internal.arrow;
+
+import com.reedelk.database.internal.commons.ByteOutput;
+
+import java.util.List;
+
+class FixedWidthColumn extends ArrowColumn {
+
+    private final int width;
+    private final ValueWriter writer;
+    private final ByteOutput values = new ByteOutput();
+
+    FixedWidthColumn(String name, int typeId, FlatTable type, int width, ValueWriter writer) {
+        super(name, typeId, type);
+        this.width = width;
+        this.writer = writer;
+    }
+
+    @Override
+    void appendValue(Object object, long primitive) {
+        writer.write(values, object, primitive);
+    }
+
+    @Override
+    void appendNullValue() {
+        values.putZeros(width);
+    }
+
+    @Override
+    void resetValues() {
+        values.reset();
+    }
+
+    @Override
+    void valueBuffers(List<ByteOutput> buffers) {
+        buffers.add(values);
+    }
+
+    @FunctionalInterface
+    interface ValueWriter {
+
+        void write(ByteOutput values, Object object, long primitive);
+    }
+}
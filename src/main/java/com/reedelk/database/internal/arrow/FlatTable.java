@@ -0,0 +1,203 @@
+package com.reedelk.database.internal.arrow;
+
+import com.reedelk.database.internal.commons.ByteOutput;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A minimal flatbuffers table writer, enough to encode the Arrow IPC metadata.
+ * Tables are written front to back: each table is preceded by its vtable and
+ * the tables, vectors and strings it references are written after it, so that
+ * all the references are forward offsets as required by the format.
+ */
+class FlatTable {
+
+    private final List<Slot> slots = new ArrayList<>();
+
+    FlatTable addBoolean(int field, boolean value) {
+        return add(field, 1, value ? 1L : 0L, null);
+    }
+
+    FlatTable addByte(int field, int value) {
+        return add(field, 1, value, null);
+    }
+
+    FlatTable addShort(int field, int value) {
+        return add(field, 2, value, null);
+    }
+
+    FlatTable addInt(int field, int value) {
+        return add(field, 4, value, null);
+    }
+
+    FlatTable addLong(int field, long value) {
+        return add(field, 8, value, null);
+    }
+
+    FlatTable addTable(int field, FlatTable table) {
+        return add(field, 4, 0L, table);
+    }
+
+    FlatTable addTables(int field, List<FlatTable> tables) {
+        return add(field, 4, 0L, new TableVector(tables));
+    }
+
+    // A vector of structs made of 'structLongs' long fields each.
+    FlatTable addStructs(int field, long[] values, int structLongs) {
+        return add(field, 4, 0L, new StructVector(values, structLongs));
+    }
+
+    FlatTable addString(int field, String value) {
+        return add(field, 4, 0L, value);
+    }
+
+    /**
+     * Returns the flatbuffer having this table as root table.
+     */
+    byte[] finish() {
+        ByteOutput output = new ByteOutput();
+        Deque<Reference> references = new ArrayDeque<>();
+        output.putInt(0); // Root table offset
+        references.add(new Reference(0, this));
+        while (!references.isEmpty()) {
+            Reference reference = references.poll();
+            int position = write(reference.target, output, references);
+            output.putIntAt(reference.position, position - reference.position);
+        }
+        return output.toByteArray();
+    }
+
+    private FlatTable add(int field, int size, long value, Object reference) {
+        while (slots.size() <= field) slots.add(null);
+        slots.set(field, new Slot(size, value, reference));
+        return this;
+    }
+
+    private static int write(Object target, ByteOutput output, Deque<Reference> references) {
+        if (target instanceof FlatTable) {
+            return ((FlatTable) target).writeTable(output, references);
+        } else if (target instanceof TableVector) {
+            List<FlatTable> tables = ((TableVector) target).tables;
+            output.align(4);
+            int position = output.size();
+            output.putInt(tables.size());
+            for (FlatTable table : tables) {
+                references.add(new Reference(output.size(), table));
+                output.putInt(0);
+            }
+            return position;
+        } else if (target instanceof StructVector) {
+            StructVector vector = (StructVector) target;
+            // The struct elements must be 8 bytes aligned.
+            output.alignTo(8, 4);
+            int position = output.size();
+            output.putInt(vector.values.length / vector.structLongs);
+            for (long value : vector.values) {
+                output.putLong(value);
+            }
+            return position;
+        } else {
+            byte[] bytes = ((String) target).getBytes(StandardCharsets.UTF_8);
+            output.align(4);
+            int position = output.size();
+            output.putInt(bytes.length);
+            output.putBytes(bytes);
+            output.putByte(0);
+            return position;
+        }
+    }
+
+    private int writeTable(ByteOutput output, Deque<Reference> references) {
+        // Fields are laid out by decreasing size to avoid padding, after the vtable offset.
+        int[] offsets = new int[slots.size()];
+        int tableSize = 4;
+        for (int size = 8; size >= 1; size /= 2) {
+            for (int field = 0; field < slots.size(); field++) {
+                Slot slot = slots.get(field);
+                if (slot != null && slot.size == size) {
+                    offsets[field] = tableSize;
+                    tableSize += size;
+                }
+            }
+        }
+
+        output.align(2);
+        int vtablePosition = output.size();
+        output.putShort(4 + 2 * slots.size());
+        output.putShort(tableSize);
+        for (int offset : offsets) {
+            output.putShort(offset);
+        }
+
+        output.align(8);
+        int tablePosition = output.size();
+        output.putInt(tablePosition - vtablePosition);
+        output.putZeros(tableSize - 4);
+        for (int field = 0; field < slots.size(); field++) {
+            Slot slot = slots.get(field);
+            if (slot == null) continue;
+            int position = tablePosition + offsets[field];
+            if (slot.reference != null) {
+                references.add(new Reference(position, slot.reference));
+            } else if (slot.size == 1) {
+                output.putByteAt(position, (int) slot.value);
+            } else if (slot.size == 2) {
+                output.putShortAt(position, (int) slot.value);
+            } else if (slot.size == 4) {
+                output.putIntAt(position, (int) slot.value);
+            } else {
+                output.putLongAt(position, slot.value);
+            }
+        }
+        return tablePosition;
+    }
+
+    private static class Slot {
+
+        final int size;
+        final long value;
+        final Object reference;
+
+        Slot(int size, long value, Object reference) {
+            this.size = size;
+            this.value = value;
+            this.reference = reference;
+        }
+    }
+
+    // An offset at the given position to be set once the target has been written.
+    private static class Reference {
+
+        final int position;
+        final Object target;
+
+        Reference(int position, Object target) {
+            this.position = position;
+            this.target = target;
+        }
+    }
+
+    private static class TableVector {
+
+        final List<FlatTable> tables;
+
+        TableVector(List<FlatTable> tables) {
+            this.tables = tables;
+        }
+    }
+
+    private static class StructVector {
+
+        final long[] values;
+        final int structLongs;
+
+        StructVector(long[] values, int structLongs) {
+            this.values = values;
+            this.structLongs = structLongs;
+        }
+    }
+}
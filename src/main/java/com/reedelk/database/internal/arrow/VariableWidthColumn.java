@@ -0,0 +1,44 @@
+package com.reedelk.database.internal.arrow;
+
+import com.reedelk.database.internal.commons.ByteOutput;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Values are stored one after the other, the offsets buffer has the start of each value.
+class VariableWidthColumn extends ArrowColumn {
+
+    private final Function<Object, byte[]> converter;
+    private final ByteOutput offsets = new ByteOutput();
+    private final ByteOutput data = new ByteOutput();
+
+    VariableWidthColumn(String name, int typeId, FlatTable type, Function<Object, byte[]> converter) {
+        super(name, typeId, type);
+        this.converter = converter;
+        this.offsets.putInt(0);
+    }
+
+    @Override
+    void appendValue(Object object, long primitive) {
+        data.putBytes(converter.apply(object));
+        offsets.putInt(data.size());
+    }
+
+    @Override
+    void appendNullValue() {
+        offsets.putInt(data.size());
+    }
+
+    @Override
+    void resetValues() {
+        offsets.reset();
+        offsets.putInt(0);
+        data.reset();
+    }
+
+    @Override
+    void valueBuffers(List<ByteOutput> buffers) {
+        buffers.add(offsets);
+        buffers.add(data);
+    }
+}
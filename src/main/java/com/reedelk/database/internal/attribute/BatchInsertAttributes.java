@@ -0,0 +1,51 @@
+package com.reedelk.database.internal.attribute;
+
+import com.reedelk.database.internal.type.ListOfBatchRowResult;
+import com.reedelk.database.internal.type.ListOfDatabaseRow;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.commons.SerializableUtils;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+import java.util.List;
+
+import static com.reedelk.database.internal.attribute.BatchInsertAttributes.*;
+
+@Type
+@TypeProperty(name = QUERY, type = String.class)
+@TypeProperty(name = ROW_COUNT, type = int.class)
+@TypeProperty(name = BATCH_COUNT, type = int.class)
+@TypeProperty(name = BATCH_COUNTS, type = List.class)
+@TypeProperty(name = GENERATED_KEYS, type = ListOfDatabaseRow.class)
+@TypeProperty(name = FAILED_ROW_COUNT, type = int.class)
+@TypeProperty(name = ROW_RESULTS, type = ListOfBatchRowResult.class)
+public class BatchInsertAttributes extends MessageAttributes {
+
+    static final String QUERY = "query";
+    static final String ROW_COUNT = "rowCount";
+    static final String BATCH_COUNT = "batchCount";
+    static final String BATCH_COUNTS = "batchCounts";
+    static final String GENERATED_KEYS = "generatedKeys";
+    static final String FAILED_ROW_COUNT = "failedRowCount";
+    static final String ROW_RESULTS = "rowResults";
+
+    public BatchInsertAttributes(String query, int rowCount, List<Integer> batchCounts) {
+        put(QUERY, query);
+        put(ROW_COUNT, rowCount);
+        put(BATCH_COUNT, batchCounts.size());
+        put(BATCH_COUNTS, SerializableUtils.asSerializableList(batchCounts));
+    }
+
+    public BatchInsertAttributes(String query, int rowCount, List<Integer> batchCounts, ListOfDatabaseRow generatedKeys) {
+        this(query, rowCount, batchCounts);
+        if (generatedKeys != null) {
+            put(GENERATED_KEYS, generatedKeys);
+        }
+    }
+
+    public BatchInsertAttributes(String query, int rowCount, List<Integer> batchCounts, ListOfBatchRowResult rowResults, int failedRowCount) {
+        this(query, rowCount, batchCounts);
+        put(FAILED_ROW_COUNT, failedRowCount);
+        put(ROW_RESULTS, rowResults);
+    }
+}
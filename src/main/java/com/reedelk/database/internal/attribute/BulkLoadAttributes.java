@@ -0,0 +1,31 @@
+package com.reedelk.database.internal.attribute;
+
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+import static com.reedelk.database.internal.attribute.BulkLoadAttributes.*;
+
+@Type
+@TypeProperty(name = TABLE, type = String.class)
+@TypeProperty(name = METHOD, type = String.class)
+@TypeProperty(name = ROW_COUNT, type = long.class)
+@TypeProperty(name = ELAPSED_MILLIS, type = long.class)
+@TypeProperty(name = ROWS_PER_SECOND, type = long.class)
+public class BulkLoadAttributes extends MessageAttributes {
+
+    static final String TABLE = "table";
+    static final String METHOD = "method";
+    static final String ROW_COUNT = "rowCount";
+    static final String ELAPSED_MILLIS = "elapsedMillis";
+    static final String ROWS_PER_SECOND = "rowsPerSecond";
+
+    public BulkLoadAttributes(String table, String method, long rowCount, long elapsedNanos) {
+        long elapsedMillis = elapsedNanos / 1_000_000L;
+        put(TABLE, table);
+        put(METHOD, method);
+        put(ROW_COUNT, rowCount);
+        put(ELAPSED_MILLIS, elapsedMillis);
+        put(ROWS_PER_SECOND, elapsedNanos > 0 ? rowCount * 1_000_000_000L / elapsedNanos : rowCount);
+    }
+}
@@ -0,0 +1,30 @@
+package com.reedelk.database.internal.attribute;
+
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+import static com.reedelk.database.internal.attribute.ChunkedDeleteAttributes.*;
+
+@Type
+@TypeProperty(name = TABLE, type = String.class)
+@TypeProperty(name = QUERY, type = String.class)
+@TypeProperty(name = ROW_COUNT, type = long.class)
+@TypeProperty(name = CHUNK_COUNT, type = int.class)
+@TypeProperty(name = ELAPSED_MILLIS, type = long.class)
+public class ChunkedDeleteAttributes extends MessageAttributes {
+
+    static final String TABLE = "table";
+    static final String QUERY = "query";
+    static final String ROW_COUNT = "rowCount";
+    static final String CHUNK_COUNT = "chunkCount";
+    static final String ELAPSED_MILLIS = "elapsedMillis";
+
+    public ChunkedDeleteAttributes(String table, String query, long rowCount, int chunkCount, long elapsedNanos) {
+        put(TABLE, table);
+        put(QUERY, query);
+        put(ROW_COUNT, rowCount);
+        put(CHUNK_COUNT, chunkCount);
+        put(ELAPSED_MILLIS, elapsedNanos / 1_000_000L);
+    }
+}
@@ -0,0 +1,25 @@
+package com.reedelk.database.internal.attribute;
+
+import com.reedelk.database.internal.type.ListOfDatabaseRow;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+import static com.reedelk.database.internal.attribute.InsertAttributes.GENERATED_KEYS;
+import static com.reedelk.database.internal.attribute.InsertAttributes.QUERY;
+
+@Type
+@TypeProperty(name = QUERY, type = String.class)
+@TypeProperty(name = GENERATED_KEYS, type = ListOfDatabaseRow.class)
+public class InsertAttributes extends MessageAttributes {
+
+    static final String QUERY = "query";
+    static final String GENERATED_KEYS = "generatedKeys";
+
+    public InsertAttributes(String query, ListOfDatabaseRow generatedKeys) {
+        put(QUERY, query);
+        if (generatedKeys != null) {
+            put(GENERATED_KEYS, generatedKeys);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.reedelk.database.internal.attribute;
+
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+import static com.reedelk.database.internal.attribute.UpdateAttributes.*;
+
+@Type
+@TypeProperty(name = QUERY, type = String.class)
+@TypeProperty(name = LOAD_METHOD, type = String.class)
+@TypeProperty(name = STAGED_ROW_COUNT, type = long.class)
+@TypeProperty(name = ELAPSED_MILLIS, type = long.class)
+public class UpdateAttributes extends MessageAttributes {
+
+    static final String QUERY = "query";
+    static final String LOAD_METHOD = "loadMethod";
+    static final String STAGED_ROW_COUNT = "stagedRowCount";
+    static final String ELAPSED_MILLIS = "elapsedMillis";
+
+    public UpdateAttributes(String query) {
+        put(QUERY, query);
+    }
+
+    // The attributes of an update through a staging table.
+    public UpdateAttributes(String query, String loadMethod, long stagedRowCount, long elapsedNanos) {
+        put(QUERY, query);
+        put(LOAD_METHOD, loadMethod);
+        put(STAGED_ROW_COUNT, stagedRowCount);
+        put(ELAPSED_MILLIS, elapsedNanos / 1_000_000L);
+    }
+}
@@ -0,0 +1,30 @@
+package com.reedelk.database.internal.attribute;
+
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeProperty;
+import com.reedelk.runtime.api.commons.SerializableUtils;
+import com.reedelk.runtime.api.message.MessageAttributes;
+
+import java.util.List;
+
+import static com.reedelk.database.internal.attribute.UpsertAttributes.*;
+
+@Type
+@TypeProperty(name = QUERY, type = String.class)
+@TypeProperty(name = ROW_COUNT, type = int.class)
+@TypeProperty(name = BATCH_COUNT, type = int.class)
+@TypeProperty(name = BATCH_COUNTS, type = List.class)
+public class UpsertAttributes extends MessageAttributes {
+
+    static final String QUERY = "query";
+    static final String ROW_COUNT = "rowCount";
+    static final String BATCH_COUNT = "batchCount";
+    static final String BATCH_COUNTS = "batchCounts";
+
+    public UpsertAttributes(String query, int rowCount, List<Integer> batchCounts) {
+        put(QUERY, query);
+        put(ROW_COUNT, rowCount);
+        put(BATCH_COUNT, batchCounts.size());
+        put(BATCH_COUNTS, SerializableUtils.asSerializableList(batchCounts));
+    }
+}
@@ -0,0 +1,110 @@
+package com.reedelk.database.internal.batch;
+
+import com.reedelk.database.internal.commons.GeneratedKeys;
+import com.reedelk.database.internal.type.DatabaseRow;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accumulates the bound parameters of a prepared statement into JDBC batches of
+ * at most 'batchSize' statements, and commits every 'commitInterval' executed batches.
+ * The connection must have auto commit disabled. If a list of generated keys is given,
+ * the keys generated by each executed batch are added to it, in the order of the statements.
+ */
+public class BatchWriter {
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final int batchSize;
+    private final int commitInterval;
+    private final List<DatabaseRow> generatedKeys;
+
+    private final List<Integer> batchCounts = new ArrayList<>();
+    private int pendingStatements = 0;
+    private int uncommittedBatches = 0;
+    private int rowCount = 0;
+
+    public BatchWriter(Connection connection, PreparedStatement statement, int batchSize, int commitInterval) {
+        this(connection, statement, batchSize, commitInterval, null);
+    }
+
+    public BatchWriter(Connection connection, PreparedStatement statement, int batchSize, int commitInterval, List<DatabaseRow> generatedKeys) {
+        this.connection = connection;
+        this.statement = statement;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.generatedKeys = generatedKeys;
+    }
+
+    public PreparedStatement statement() {
+        return statement;
+    }
+
+    // Adds the parameters currently bound to the statement to the batch.
+    public void add() throws SQLException {
+        statement.addBatch();
+        // Parameters not bound by the next element must not keep the values of this one.
+        statement.clearParameters();
+        pendingStatements++;
+        if (pendingStatements >= batchSize) {
+            executeBatch();
+        }
+    }
+
+    // Executes the pending statements, if any, as a batch.
+    public void executePending() throws SQLException {
+        if (pendingStatements > 0) {
+            executeBatch();
+        }
+    }
+
+    // Executes the pending statements, if any, and commits.
+    public void flush() throws SQLException {
+        executePending();
+        if (uncommittedBatches > 0) {
+            commit();
+        }
+    }
+
+    public boolean hasPendingStatements() {
+        return pendingStatements > 0;
+    }
+
+    public List<Integer> batchCounts() {
+        return batchCounts;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    private void executeBatch() throws SQLException {
+        int[] updateCounts = statement.executeBatch();
+        int batchCount = 0;
+        for (int updateCount : updateCounts) {
+            // Some drivers (e.g. Oracle) do not report the number of rows affected
+            // by each statement of a batch: a successful statement counts as one row.
+            batchCount += updateCount == Statement.SUCCESS_NO_INFO ? 1 : updateCount;
+        }
+        if (generatedKeys != null) {
+            GeneratedKeys.read(statement, generatedKeys);
+        }
+        batchCounts.add(batchCount);
+        rowCount += batchCount;
+        pendingStatements = 0;
+        uncommittedBatches++;
+        if (uncommittedBatches >= commitInterval) {
+            commit();
+        }
+    }
+
+    private void commit() throws SQLException {
+        connection.commit();
+        uncommittedBatches = 0;
+    }
+}
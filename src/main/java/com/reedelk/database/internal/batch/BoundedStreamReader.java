@@ -0,0 +1,118 @@
+package com.reedelk.database.internal.batch;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the elements of a publisher from the calling thread. At most 'capacity'
+ * elements are requested ahead of the consumer: a fast upstream is slowed down
+ * to the pace of the consumer instead of being buffered in memory.
+ */
+public class BoundedStreamReader<T> implements AutoCloseable {
+
+    private static final Object COMPLETE = new Object();
+
+    private final int capacity;
+    private final int replenishThreshold;
+    private final BlockingQueue<Object> queue;
+
+    private volatile Subscription subscription;
+
+    // Accessed by the consumer thread only.
+    private Object next;
+    private boolean completed;
+    private int consumed;
+
+    public BoundedStreamReader(Publisher<T> publisher, int capacity) {
+        this.capacity = capacity;
+        this.replenishThreshold = Math.max(1, capacity / 2);
+        // One more slot for the terminal signal.
+        this.queue = new ArrayBlockingQueue<>(capacity + 1);
+        publisher.subscribe(new QueueSubscriber());
+    }
+
+    /**
+     * Waits at most 'timeoutMillis' for the next element.
+     * Returns false if no element arrived in time or if the stream is complete.
+     */
+    public boolean await(long timeoutMillis) throws InterruptedException {
+        if (next != null) return true;
+        if (completed) return false;
+
+        Object signal = queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (signal == COMPLETE) {
+            completed = true;
+            return false;
+        } else if (signal instanceof ErrorSignal) {
+            completed = true;
+            throw Exceptions.propagate(((ErrorSignal) signal).error);
+        }
+        next = signal;
+        return signal != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T next() {
+        Object element = next;
+        next = null;
+        consumed++;
+        if (consumed >= replenishThreshold) {
+            subscription.request(consumed);
+            consumed = 0;
+        }
+        return (T) element;
+    }
+
+    public boolean isComplete() {
+        return completed;
+    }
+
+    @Override
+    public void close() {
+        Subscription current = subscription;
+        if (!completed && current != null) {
+            current.cancel();
+        }
+        queue.clear();
+    }
+
+    private class QueueSubscriber implements Subscriber<T> {
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            BoundedStreamReader.this.subscription = subscription;
+            subscription.request(capacity);
+        }
+
+        // The queue has always room for the requested elements.
+        @Override
+        public void onNext(T element) {
+            queue.offer(element);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            queue.offer(new ErrorSignal(throwable));
+        }
+
+        @Override
+        public void onComplete() {
+            queue.offer(COMPLETE);
+        }
+    }
+
+    private static class ErrorSignal {
+
+        private final Throwable error;
+
+        ErrorSignal(Throwable error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.reedelk.database.internal.batch;
+
+import com.reedelk.database.internal.type.BatchRowResult;
+import com.reedelk.database.internal.type.ListOfBatchRowResult;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes the parameters of the elements in JDBC batches, like a BatchWriter, but a failed
+ * statement does not fail its batch: the failed statements are isolated and the others are
+ * committed. Each batch runs within a savepoint. When a batch fails, it is rolled back to
+ * the savepoint and, if the update counts of the BatchUpdateException point to the first failed
+ * statement, the statements before it are executed again as a batch, the failed one is executed
+ * again on its own, and recorded as failed only if it fails again, and the statements after it
+ * are executed as a new batch. If the counts do not point to a single statement, e.g. because
+ * the driver rewrites the batch or reports every statement as failed, the batch is split in
+ * two halves executed on their own, down to single statements.
+ * The connection must have auto commit disabled. A result is kept for each element.
+ */
+public class IsolatingBatchWriter {
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ParameterBinder binder;
+    private final int batchSize;
+    private final int commitInterval;
+
+    private final List<Map<String, Object>> pending = new ArrayList<>();
+    private final ListOfBatchRowResult rowResults = new ListOfBatchRowResult();
+    private final List<Integer> batchCounts = new ArrayList<>();
+    private int uncommittedBatches = 0;
+    private int rowCount = 0;
+    private int failedRowCount = 0;
+    private int executedElements = 0;
+
+    public IsolatingBatchWriter(Connection connection, PreparedStatement statement, ParameterBinder binder, int batchSize, int commitInterval) {
+        this.connection = connection;
+        this.statement = statement;
+        this.binder = binder;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+    }
+
+    public void add(Map<String, Object> parameters) throws SQLException {
+        pending.add(parameters);
+        if (pending.size() >= batchSize) {
+            executeBatch();
+        }
+    }
+
+    public void executePending() throws SQLException {
+        if (!pending.isEmpty()) {
+            executeBatch();
+        }
+    }
+
+    public void flush() throws SQLException {
+        executePending();
+        if (uncommittedBatches > 0) {
+            commit();
+        }
+    }
+
+    public boolean hasPendingStatements() {
+        return !pending.isEmpty();
+    }
+
+    public List<Integer> batchCounts() {
+        return batchCounts;
+    }
+
+    // The number of rows affected by the statements which succeeded.
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int failedRowCount() {
+        return failedRowCount;
+    }
+
+    // One result for each element, in the order of the elements.
+    public ListOfBatchRowResult rowResults() {
+        return rowResults;
+    }
+
+    private void executeBatch() throws SQLException {
+        int firstResult = rowResults.size();
+        execute(0, pending.size());
+        executedElements += pending.size();
+        pending.clear();
+
+        int batchCount = 0;
+        for (int i = firstResult; i < rowResults.size(); i++) {
+            batchCount += rowResults.get(i).getCount();
+        }
+        batchCounts.add(batchCount);
+        rowCount += batchCount;
+        uncommittedBatches++;
+        if (uncommittedBatches >= commitInterval) {
+            commit();
+        }
+    }
+
+    // Executes the pending statements in the range [from, to), adding their results in order.
+    private void execute(int from, int to) throws SQLException {
+        if (from >= to) return;
+
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            for (int i = from; i < to; i++) {
+                binder.bind(statement, pending.get(i));
+                statement.addBatch();
+                statement.clearParameters();
+            }
+            int[] updateCounts = statement.executeBatch();
+            for (int i = 0; i < updateCounts.length; i++) {
+                // A successful statement without a count (e.g. on Oracle) counts as one row.
+                int count = updateCounts[i] == Statement.SUCCESS_NO_INFO ? 1 : updateCounts[i];
+                rowResults.add(BatchRowResult.success(indexOf(from + i), count));
+            }
+            releaseSilently(savepoint);
+
+        } catch (BatchUpdateException exception) {
+            statement.clearBatch();
+            connection.rollback(savepoint);
+            int failed = firstFailedOf(exception.getUpdateCounts());
+            if (to - from == 1) {
+                addFailure(from, exception);
+            } else if (failed >= 0 && from + failed < to) {
+                // Drivers which keep executing after a failure (e.g. H2, MySQL) executed the
+                // following statements as well: they are executed again after the failed one.
+                // The failed one is executed again too: the counts only tell a candidate.
+                execute(from, from + failed);
+                execute(from + failed, from + failed + 1);
+                execute(from + failed + 1, to);
+            } else {
+                bisect(from, to, exception);
+            }
+
+        } catch (SQLException exception) {
+            statement.clearBatch();
+            connection.rollback(savepoint);
+            bisect(from, to, exception);
+        }
+    }
+
+    private void bisect(int from, int to, SQLException exception) throws SQLException {
+        if (to - from == 1) {
+            addFailure(from, exception);
+        } else {
+            int middle = (from + to) >>> 1;
+            execute(from, middle);
+            execute(middle, to);
+        }
+    }
+
+    private void addFailure(int pendingIndex, SQLException exception) {
+        // The batch exception usually wraps the exception of the failed statement.
+        SQLException cause = exception.getNextException() != null ? exception.getNextException() : exception;
+        String sqlState = exception.getSQLState() != null ? exception.getSQLState() : cause.getSQLState();
+        rowResults.add(BatchRowResult.failure(indexOf(pendingIndex), sqlState, cause.getMessage()));
+        failedRowCount++;
+    }
+
+    // The index of the first failed statement, or -1 if the update counts do not tell it.
+    // Counts without information (e.g. rewritten batches) or with groups of failed statements
+    // (e.g. a whole rewritten batch, or all the statements on some drivers) tell nothing.
+    private static int firstFailedOf(int[] updateCounts) {
+        if (updateCounts == null || updateCounts.length == 0) return -1;
+        int firstFailed = -1;
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.SUCCESS_NO_INFO) return -1;
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                if (i > 0 && updateCounts[i - 1] == Statement.EXECUTE_FAILED) return -1;
+                if (firstFailed == -1) firstFailed = i;
+            }
+        }
+        if (firstFailed >= 0) return firstFailed;
+        // The driver stopped at the failed statement (e.g. PostgreSQL).
+        return updateCounts.length;
+    }
+
+    // The index in the input of the pending element.
+    private int indexOf(int pendingIndex) {
+        return executedElements + pendingIndex;
+    }
+
+    private void releaseSilently(Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException exception) {
+            // Some drivers (e.g. Oracle) do not release savepoints: they end with the transaction.
+        }
+    }
+
+    private void commit() throws SQLException {
+        connection.commit();
+        uncommittedBatches = 0;
+    }
+
+    public interface ParameterBinder {
+        void bind(PreparedStatement statement, Map<String, Object> parameters) throws SQLException;
+    }
+}
@@ -0,0 +1,238 @@
+package com.reedelk.database.internal.batch;
+
+import com.reedelk.database.internal.commons.DatabaseUtils;
+import com.reedelk.database.internal.commons.QueryStatementTemplate;
+import com.reedelk.database.internal.commons.StatementCache;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Executes the batches of a query on several connections at once. The parameters of the
+ * elements are partitioned across the connections either a batch at a time (round robin),
+ * or by the hash of a key parameter: elements with the same key are then always written
+ * by the same connection, in their order, and never wait for each other's row locks.
+ * Each connection has at most one batch in flight and commits on its own every
+ * 'commitInterval' batches. The writer must be used from a single thread.
+ */
+public class ParallelBatchWriter implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final StatementCache statementCache;
+    private final QueryStatementTemplate queryStatement;
+    private final ExecutorService executor;
+    private final String partitionKey;
+    private final int batchSize;
+    private final int commitInterval;
+    private final Partition[] partitions;
+
+    // Batch ordinal > rows count, in the order the batches were submitted.
+    private final SortedMap<Integer, Integer> batchCounts = new TreeMap<>();
+    private final List<BatchFailure> failures = new ArrayList<>();
+
+    private int roundRobin = 0;
+    private int nextBatchOrdinal = 0;
+    private long nextElementIndex = 0;
+
+    public ParallelBatchWriter(DataSource dataSource,
+                               StatementCache statementCache,
+                               QueryStatementTemplate queryStatement,
+                               ExecutorService executor,
+                               int connections,
+                               String partitionKey,
+                               int batchSize,
+                               int commitInterval) {
+        this.dataSource = dataSource;
+        this.statementCache = statementCache;
+        this.queryStatement = queryStatement;
+        this.executor = executor;
+        this.partitionKey = partitionKey;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.partitions = new Partition[connections];
+        for (int i = 0; i < connections; i++) {
+            partitions[i] = new Partition();
+        }
+    }
+
+    public void add(Map<String, Object> parameters) throws SQLException, InterruptedException {
+        Partition partition = partitionOf(parameters);
+        if (partition.pending.isEmpty()) {
+            partition.firstElement = nextElementIndex;
+        }
+        partition.pending.add(parameters);
+        nextElementIndex++;
+        if (partition.pending.size() >= batchSize) {
+            submit(partition);
+            if (partitionKey == null) {
+                roundRobin = (roundRobin + 1) % partitions.length;
+            }
+        }
+    }
+
+    // Submits the batches not full yet, if any.
+    public void executePending() throws SQLException, InterruptedException {
+        for (Partition partition : partitions) {
+            if (!partition.pending.isEmpty()) {
+                submit(partition);
+            }
+        }
+    }
+
+    public boolean hasPendingStatements() {
+        return Arrays.stream(partitions).anyMatch(partition -> !partition.pending.isEmpty());
+    }
+
+    // Executes the pending batches, waits for all the batches and commits each connection.
+    public void flush() throws SQLException, InterruptedException {
+        executePending();
+        for (Partition partition : partitions) {
+            await(partition);
+        }
+        throwIfFailed();
+        for (Partition partition : partitions) {
+            if (partition.writer != null) {
+                partition.writer.flush();
+            }
+        }
+    }
+
+    public List<Integer> batchCounts() {
+        return new ArrayList<>(batchCounts.values());
+    }
+
+    public int rowCount() {
+        return batchCounts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // Uncommitted batches are rolled back: the batches already committed are kept.
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            try {
+                await(partition);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                // A batch not started yet is not executed: a running one is waited for by release.
+                partition.inFlight.cancel(false);
+            }
+            partition.release();
+        }
+    }
+
+    private Partition partitionOf(Map<String, Object> parameters) {
+        if (partitionKey == null) {
+            return partitions[roundRobin];
+        }
+        int hash = Objects.hashCode(parameters.get(partitionKey));
+        return partitions[Math.floorMod(hash, partitions.length)];
+    }
+
+    private void submit(Partition partition) throws SQLException, InterruptedException {
+        // The previous batch of the partition must be executed first, on the same connection.
+        await(partition);
+        throwIfFailed();
+
+        List<Map<String, Object>> batch = partition.pending;
+        int batchOrdinal = nextBatchOrdinal++;
+        long firstElement = partition.firstElement;
+        partition.pending = new ArrayList<>(batchSize);
+        partition.inFlightOrdinal = batchOrdinal;
+        partition.inFlightFirstElement = firstElement;
+        partition.inFlight = executor.submit(() -> partition.execute(batch));
+    }
+
+    private void await(Partition partition) throws InterruptedException {
+        Future<Integer> inFlight = partition.inFlight;
+        if (inFlight == null) return;
+        // If interrupted, the batch is still in flight: it is awaited again or cancelled on close.
+        try {
+            batchCounts.put(partition.inFlightOrdinal, inFlight.get());
+        } catch (ExecutionException exception) {
+            failures.add(new BatchFailure(partition.inFlightFirstElement, exception.getCause()));
+        }
+        partition.inFlight = null;
+    }
+
+    private void throwIfFailed() throws PartitionedBatchException, InterruptedException {
+        if (failures.isEmpty()) return;
+        // Other batches still in flight might fail as well.
+        for (Partition partition : partitions) {
+            await(partition);
+        }
+        failures.sort(Comparator.comparingLong(failure -> failure.firstElement));
+        BatchFailure first = failures.get(0);
+        PartitionedBatchException exception =
+                new PartitionedBatchException(first.firstElement, failures.size(), first.cause);
+        failures.stream().skip(1).forEach(failure -> exception.addSuppressed(failure.cause));
+        throw exception;
+    }
+
+    private class Partition {
+
+        // Accessed by the caller thread only.
+        private List<Map<String, Object>> pending = new ArrayList<>();
+        private long firstElement;
+        private Future<Integer> inFlight;
+        private int inFlightOrdinal;
+        private long inFlightFirstElement;
+
+        // Accessed by one batch at a time: the next batch is submitted after
+        // the previous one is done, and the caller reads them after that.
+        // Executing a batch and releasing the connection hold the partition lock,
+        // so that a batch still running when the writer is closed is waited for.
+        private Connection connection;
+        private boolean autoCommit;
+        private PreparedStatement statement;
+        private BatchWriter writer;
+        private boolean released;
+
+        private synchronized int execute(List<Map<String, Object>> batch) throws SQLException {
+            // A batch cancelled when it was about to start must not open a connection.
+            if (released) {
+                throw new SQLException("The batch was cancelled: the writer is closed");
+            }
+            if (connection == null) {
+                connection = dataSource.getConnection();
+                autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                statement = statementCache.prepare(connection, queryStatement.compiledQuery());
+                writer = new BatchWriter(connection, statement, batchSize, commitInterval);
+            }
+            for (Map<String, Object> parameters : batch) {
+                queryStatement.bind(statement, parameters);
+                writer.add();
+            }
+            writer.executePending();
+            List<Integer> counts = writer.batchCounts();
+            return counts.get(counts.size() - 1);
+        }
+
+        private synchronized void release() {
+            released = true;
+            if (connection != null) {
+                DatabaseUtils.rollbackSilently(connection);
+                statementCache.release(statement);
+                DatabaseUtils.autoCommitSilently(connection, autoCommit);
+                DatabaseUtils.closeSilently(connection);
+            }
+        }
+    }
+
+    private static class BatchFailure {
+
+        private final long firstElement;
+        private final Throwable cause;
+
+        BatchFailure(long firstElement, Throwable cause) {
+            this.firstElement = firstElement;
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.reedelk.database.internal.batch;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when batches executed on parallel connections fail. The cause is the failure
+ * of the batch with the first input element: the failures of the following batches,
+ * in the order of their elements, are suppressed exceptions.
+ */
+public class PartitionedBatchException extends SQLException {
+
+    private final long firstFailedElement;
+    private final int failedBatches;
+
+    PartitionedBatchException(long firstFailedElement, int failedBatches, Throwable cause) {
+        super(cause.getMessage(), cause);
+        this.firstFailedElement = firstFailedElement;
+        this.failedBatches = failedBatches;
+    }
+
+    // The zero based index of the first input element of the first failed batch.
+    public long firstFailedElement() {
+        return firstFailedElement;
+    }
+
+    public int failedBatches() {
+        return failedBatches;
+    }
+}
@@ -0,0 +1,98 @@
+package com.reedelk.database.internal.batch;
+
+import com.reedelk.runtime.api.component.Component;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedContent;
+import org.reactivestreams.Publisher;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * The elements of a message payload written one at a time: the elements of a stream,
+ * read from the calling thread with at most 'prefetch' elements requested ahead,
+ * or the elements of a collection or of an array. The elements are read once:
+ * the stream is subscribed when they are first read and cancelled on close
+ * if it is not complete.
+ */
+public class PayloadElements implements Iterable<Object>, AutoCloseable {
+
+    private final Collection<?> collection;
+    private final Publisher<Object> stream;
+    private final int prefetch;
+
+    private BoundedStreamReader<Object> reader;
+
+    private PayloadElements(Collection<?> collection, Publisher<Object> stream, int prefetch) {
+        this.collection = collection;
+        this.stream = stream;
+        this.prefetch = prefetch;
+    }
+
+    // Returns null if the payload is neither a stream, a collection nor an array.
+    @SuppressWarnings("unchecked")
+    public static PayloadElements of(Message message, int prefetch) {
+        TypedContent<?, ?> content = message.content();
+        if (content.isStream()) {
+            return new PayloadElements(null, (Publisher<Object>) content.stream(), prefetch);
+        }
+        Object payload = message.payload();
+        if (payload instanceof Collection) {
+            return new PayloadElements((Collection<?>) payload, null, prefetch);
+        } else if (payload instanceof Object[]) {
+            return new PayloadElements(Arrays.asList((Object[]) payload), null, prefetch);
+        }
+        return null;
+    }
+
+    // The message of an element, against which the mappings of the element are evaluated.
+    public static Message elementMessage(Class<? extends Component> component, Object element) {
+        return MessageBuilder.get(component)
+                .withJavaObject(element)
+                .build();
+    }
+
+    public boolean isStream() {
+        return stream != null;
+    }
+
+    // The reader of the stream elements, for the writers awaiting them with a timeout.
+    public BoundedStreamReader<Object> reader() {
+        if (reader == null) {
+            reader = new BoundedStreamReader<>(stream, prefetch);
+        }
+        return reader;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<Object> iterator() {
+        return isStream() ? new StreamIterator<>(reader()) : (Iterator<Object>) collection.iterator();
+    }
+
+    // The elements mapped as they are read.
+    public <R> Iterator<R> iterator(Function<Object, R> mapper) {
+        Iterator<Object> elements = iterator();
+        return new Iterator<R>() {
+            @Override
+            public boolean hasNext() {
+                return elements.hasNext();
+            }
+
+            @Override
+            public R next() {
+                return mapper.apply(elements.next());
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.reedelk.database.internal.batch;
+
+import reactor.core.Exceptions;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the elements read by a BoundedStreamReader, waiting for the upstream
+ * for as long as it takes. An interrupted wait is rethrown unchecked.
+ */
+public class StreamIterator<T> implements Iterator<T> {
+
+    private final BoundedStreamReader<T> reader;
+
+    public StreamIterator(BoundedStreamReader<T> reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return await(reader);
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return reader.next();
+    }
+
+    public static boolean await(BoundedStreamReader<?> reader) {
+        try {
+            return reader.await(Long.MAX_VALUE);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw Exceptions.propagate(exception);
+        }
+    }
+}
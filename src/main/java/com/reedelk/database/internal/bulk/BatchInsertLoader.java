@@ -0,0 +1,48 @@
+package com.reedelk.database.internal.bulk;
+
+import com.reedelk.database.internal.batch.BatchWriter;
+import com.reedelk.database.internal.commons.ParameterSetter;
+import com.reedelk.database.internal.dialect.Dialect;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The portable fallback: batched inserts, committed after each batch.
+ * CSV fields are bound as strings and converted by the database.
+ */
+class BatchInsertLoader extends BulkLoader {
+
+    private final int batchSize;
+
+    BatchInsertLoader(String table, List<String> columns, Dialect dialect, int batchSize) {
+        super(table, columns, dialect);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public String method() {
+        return "BATCH INSERT";
+    }
+
+    @Override
+    public long load(Connection connection, BulkLoadInput input) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(dialect.insert(table, columns))) {
+            BatchWriter writer = new BatchWriter(connection, statement, batchSize, 1);
+            Iterator<Object[]> records = input.records(columns);
+            long rowCount = 0;
+            while (records.hasNext()) {
+                Object[] values = records.next();
+                for (int i = 0; i < columns.size(); i++) {
+                    ParameterSetter.set(statement, i + 1, i < values.length ? values[i] : null);
+                }
+                writer.add();
+                rowCount++;
+            }
+            writer.flush();
+            return rowCount;
+        }
+    }
+}
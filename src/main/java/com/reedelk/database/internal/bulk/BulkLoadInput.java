@@ -0,0 +1,86 @@
+package com.reedelk.database.internal.bulk;
+
+import com.reedelk.database.internal.batch.BoundedStreamReader;
+import com.reedelk.database.internal.commons.DatabaseUtils;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The rows to be loaded, either as UTF-8 CSV text or as row elements. The input is read
+ * once, while the loader consumes it: streams are pulled at the pace of the database.
+ */
+public class BulkLoadInput implements AutoCloseable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream csv;
+    private final boolean header;
+    private final Iterator<?> rows;
+    private final AutoCloseable source;
+
+    private BulkLoadInput(InputStream csv, boolean header, Iterator<?> rows, AutoCloseable source) {
+        this.csv = csv;
+        this.header = header;
+        this.rows = rows;
+        this.source = source;
+    }
+
+    public static BulkLoadInput ofCsv(InputStream csv, boolean header) {
+        return new BulkLoadInput(csv, header, null, csv);
+    }
+
+    // Chunks which are not bytes are encoded as UTF-8 text.
+    public static BulkLoadInput ofCsv(Publisher<?> chunks, boolean header, int prefetch) {
+        Flux<byte[]> bytes = Flux.from(chunks).map(chunk -> chunk instanceof byte[] ?
+                (byte[]) chunk :
+                chunk.toString().getBytes(StandardCharsets.UTF_8));
+        return ofCsv(new PublisherInputStream(new BoundedStreamReader<>(bytes, prefetch)), header);
+    }
+
+    public static BulkLoadInput ofRows(Iterable<?> rows) {
+        return new BulkLoadInput(null, false, rows.iterator(), null);
+    }
+
+    // The rows are read as the loader consumes them: the source is closed with the input.
+    public static BulkLoadInput ofRows(Iterator<?> rows, AutoCloseable source) {
+        return new BulkLoadInput(null, false, rows, source);
+    }
+
+    public boolean isCsv() {
+        return csv != null;
+    }
+
+    // True if the first line of the CSV input names the columns.
+    boolean header() {
+        return header;
+    }
+
+    InputStream csv(List<String> columns, CsvFormat format) {
+        return isCsv() ? csv : new RowsCsvInputStream(new RowValues(rows, columns, source), format);
+    }
+
+    // The CSV records, without the header, or the values of the rows.
+    Iterator<Object[]> records(List<String> columns) {
+        if (!isCsv()) {
+            return new RowValues(rows, columns, source);
+        }
+        CsvRecordReader records = new CsvRecordReader(new BufferedReader(
+                new InputStreamReader(csv, StandardCharsets.UTF_8), READ_BUFFER_SIZE));
+        if (header && records.hasNext()) {
+            records.next();
+        }
+        return records;
+    }
+
+    @Override
+    public void close() {
+        DatabaseUtils.closeSilently(source);
+    }
+}
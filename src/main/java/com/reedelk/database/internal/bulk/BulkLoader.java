@@ -0,0 +1,78 @@
+package com.reedelk.database.internal.bulk;
+
+import com.reedelk.database.internal.commons.BulkLoadMethod;
+import com.reedelk.database.internal.commons.DatabaseDriver;
+import com.reedelk.database.internal.dialect.Dialect;
+import com.reedelk.database.internal.exception.BulkLoadException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.List;
+
+import static com.reedelk.database.internal.commons.Messages.BulkLoad.DRIVER_API_NOT_AVAILABLE;
+
+/**
+ * Loads rows into a table in the transaction of the given connection, reading the input
+ * as it goes. The native loaders reach the driver specific API by reflection, because
+ * the drivers are provided by the runtime and are not dependencies of this module.
+ */
+public abstract class BulkLoader {
+
+    final String table;
+    final List<String> columns;
+    final Dialect dialect;
+
+    BulkLoader(String table, List<String> columns, Dialect dialect) {
+        this.table = table;
+        this.columns = columns;
+        this.dialect = dialect;
+    }
+
+    // Databases without a native bulk load always use batched inserts.
+    public static BulkLoader of(DatabaseDriver driver, BulkLoadMethod method, String table, List<String> columns, int batchSize) {
+        Dialect dialect = Dialect.of(driver);
+        if (method == BulkLoadMethod.NATIVE && dialect.bulkLoad(table, columns, false, "") != null) {
+            switch (driver) {
+                case POSTGRESQL:
+                    return new CopyLoader(table, columns, dialect);
+                case MYSQL:
+                    return new LoadDataLoader(table, columns, dialect);
+                case H2:
+                    return new CsvReadLoader(table, columns, dialect);
+            }
+        }
+        return new BatchInsertLoader(table, columns, dialect, batchSize);
+    }
+
+    // The name of the load method, e.g. COPY, reported with the load statistics.
+    public abstract String method();
+
+    // Returns the number of loaded rows.
+    public abstract long load(Connection connection, BulkLoadInput input) throws Exception;
+
+    static Object invoke(Object target, Method method, Object... arguments) throws Exception {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException exception) {
+            Throwable cause = exception.getCause();
+            throw cause instanceof Exception ? (Exception) cause : exception;
+        }
+    }
+
+    static Class<?> driverClass(Object driverObject, String className) {
+        try {
+            return Class.forName(className, true, driverObject.getClass().getClassLoader());
+        } catch (ClassNotFoundException exception) {
+            throw new BulkLoadException(DRIVER_API_NOT_AVAILABLE.format(className, exception.getMessage()), exception);
+        }
+    }
+
+    static Method methodOf(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException exception) {
+            throw new BulkLoadException(DRIVER_API_NOT_AVAILABLE.format(type.getName(), exception.getMessage()), exception);
+        }
+    }
+}
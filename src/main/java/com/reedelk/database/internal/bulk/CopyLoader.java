@@ -0,0 +1,41 @@
+package com.reedelk.database.internal.bulk;
+
+import com.reedelk.database.internal.dialect.Dialect;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * PostgreSQL COPY FROM STDIN, through the CopyManager of the driver.
+ */
+class CopyLoader extends BulkLoader {
+
+    private static final String PG_CONNECTION = "org.postgresql.PGConnection";
+
+    CopyLoader(String table, List<String> columns, Dialect dialect) {
+        super(table, columns, dialect);
+    }
+
+    @Override
+    public String method() {
+        return "COPY";
+    }
+
+    @Override
+    public long load(Connection connection, BulkLoadInput input) throws Exception {
+        String copy = dialect.bulkLoad(table, columns, input.header(), null);
+
+        Connection physicalConnection = connection.unwrap(Connection.class);
+        Class<?> pgConnectionClass = driverClass(physicalConnection, PG_CONNECTION);
+        Object pgConnection = physicalConnection.unwrap(pgConnectionClass);
+
+        Object copyManager = invoke(pgConnection, methodOf(pgConnectionClass, "getCopyAPI"));
+        Method copyIn = methodOf(copyManager.getClass(), "copyIn", String.class, InputStream.class);
+
+        try (InputStream csv = input.csv(columns, CsvFormat.POSTGRESQL)) {
+            return (Long) invoke(copyManager, copyIn, copy, csv);
+        }
+    }
+}
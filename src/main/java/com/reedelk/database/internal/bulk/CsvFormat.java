@@ -0,0 +1,74 @@
+package com.reedelk.database.internal.bulk;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Writes row values as CSV fields understood by the native loader of a database.
+ * Text is always quoted, so that an empty string is not read back as null.
+ * Binary values are written as quoted hexadecimal text, which the loaders convert to bytes.
+ */
+class CsvFormat {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // PostgreSQL COPY and H2 CSVREAD read an unquoted empty field as null.
+    // COPY reads bytea in the hex format, H2 converts hexadecimal text to binary.
+    static final CsvFormat POSTGRESQL = new CsvFormat("", "true", "false", "\\x");
+    static final CsvFormat H2 = new CsvFormat("", "true", "false", "");
+    // LOAD DATA reads an unquoted NULL as null and has no boolean type:
+    // the hexadecimal text of binary columns is decoded by the statement.
+    static final CsvFormat MYSQL = new CsvFormat("NULL", "1", "0", "");
+
+    private final String nullValue;
+    private final String trueValue;
+    private final String falseValue;
+    private final String binaryPrefix;
+
+    private CsvFormat(String nullValue, String trueValue, String falseValue, String binaryPrefix) {
+        this.nullValue = nullValue;
+        this.trueValue = trueValue;
+        this.falseValue = falseValue;
+        this.binaryPrefix = binaryPrefix;
+    }
+
+    void writeField(StringBuilder builder, Object value) {
+        if (value == null) {
+            builder.append(nullValue);
+        } else if (value instanceof Boolean) {
+            builder.append((Boolean) value ? trueValue : falseValue);
+        } else if (value instanceof BigDecimal) {
+            builder.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number || value instanceof java.sql.Date ||
+                value instanceof java.sql.Time || value instanceof Timestamp) {
+            // java.sql.Timestamp, Date and Time print the JDBC escape format.
+            builder.append(value);
+        } else if (value instanceof Date) {
+            // As bound by the batched inserts.
+            builder.append(new Timestamp(((Date) value).getTime()));
+        } else if (value instanceof byte[]) {
+            writeHex(builder, (byte[]) value);
+        } else {
+            writeQuoted(builder, value.toString());
+        }
+    }
+
+    private void writeHex(StringBuilder builder, byte[] value) {
+        builder.append('"').append(binaryPrefix);
+        for (byte b : value) {
+            builder.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+        builder.append('"');
+    }
+
+    private static void writeQuoted(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') builder.append('"');
+            builder.append(c);
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,43 @@
+package com.reedelk.database.internal.bulk;
+
+import com.reedelk.database.internal.dialect.Dialect;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * H2 CSVREAD. CSVREAD only reads files: the input is streamed to a temporary file
+ * first, which must be visible to the database, i.e. H2 runs embedded or on this host.
+ */
+class CsvReadLoader extends BulkLoader {
+
+    CsvReadLoader(String table, List<String> columns, Dialect dialect) {
+        super(table, columns, dialect);
+    }
+
+    @Override
+    public String method() {
+        return "CSVREAD";
+    }
+
+    @Override
+    public long load(Connection connection, BulkLoadInput input) throws Exception {
+        Path file = Files.createTempFile("bulk-load-", ".csv");
+        try {
+            try (InputStream csv = input.csv(columns, CsvFormat.H2)) {
+                Files.copy(csv, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String csvRead = dialect.bulkLoad(table, columns, input.header(), file.toAbsolutePath().toString());
+            try (Statement statement = connection.createStatement()) {
+                return statement.executeLargeUpdate(csvRead);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.reedelk.database.internal.bulk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads RFC 4180 records one at a time. An unquoted empty field is read as null,
+ * a quoted one as an empty string. Both CRLF and LF line breaks are accepted.
+ */
+class CsvRecordReader implements Iterator<Object[]> {
+
+    private static final int END = -1;
+
+    private final Reader reader;
+    private final List<Object> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+
+    private Object[] next;
+    private int pending = -2;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readRecord();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Object[] record = next;
+        next = null;
+        return record;
+    }
+
+    private Object[] readRecord() {
+        int c = read();
+        // Blank lines between records are skipped.
+        while (c == '\r' || c == '\n') c = read();
+        if (c == END) return null;
+
+        fields.clear();
+        while (true) {
+            field.setLength(0);
+            boolean quoted = c == '"';
+            if (quoted) {
+                c = readQuoted();
+            } else {
+                while (c != ',' && c != '\r' && c != '\n' && c != END) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            fields.add(!quoted && field.length() == 0 ? null : field.toString());
+
+            if (c == ',') {
+                c = read();
+            } else {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') pending = following;
+                }
+                return fields.toArray();
+            }
+        }
+    }
+
+    // Reads a quoted field and returns the character following its closing quote.
+    private int readQuoted() {
+        while (true) {
+            int c = read();
+            if (c == END) return END;
+            if (c == '"') {
+                c = read();
+                if (c != '"') return c;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private int read() {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        try {
+            return reader.read();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.reedelk.database.internal.bulk;
+
+import com.reedelk.database.internal.dialect.Dialect;
+
+import java.io.InputStream;
+import java.sql.*;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * MySQL LOAD DATA LOCAL INFILE, reading the input stream set on the statement instead
+ * of a file. The connection must allow it with the 'allowLoadLocalInfile=true' property.
+ * The binary values of rows are written as hexadecimal text, decoded by the statement
+ * for the columns of the table having a binary type.
+ */
+class LoadDataLoader extends BulkLoader {
+
+    private static final String JDBC_STATEMENT = "com.mysql.cj.jdbc.JdbcStatement";
+
+    LoadDataLoader(String table, List<String> columns, Dialect dialect) {
+        super(table, columns, dialect);
+    }
+
+    @Override
+    public String method() {
+        return "LOAD DATA";
+    }
+
+    @Override
+    public long load(Connection connection, BulkLoadInput input) throws Exception {
+        Set<String> binaryColumns = input.isCsv() ? Collections.emptySet() : binaryColumns(connection);
+        String loadData = dialect.bulkLoad(table, columns, binaryColumns, input.header(), "bulk-load.csv");
+
+        Connection physicalConnection = connection.unwrap(Connection.class);
+        try (Statement statement = physicalConnection.createStatement();
+             InputStream csv = input.csv(columns, CsvFormat.MYSQL)) {
+            Class<?> jdbcStatementClass = driverClass(statement, JDBC_STATEMENT);
+            Object jdbcStatement = statement.unwrap(jdbcStatementClass);
+            invoke(jdbcStatement, methodOf(jdbcStatementClass, "setLocalInfileInputStream", InputStream.class), csv);
+            return statement.executeLargeUpdate(loadData);
+        }
+    }
+
+    private Set<String> binaryColumns(Connection connection) throws SQLException {
+        Set<String> binaryColumns = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT " + String.join(", ", columns) + " FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 0; i < columns.size(); i++) {
+                int columnType = metaData.getColumnType(i + 1);
+                if (columnType == Types.BINARY || columnType == Types.VARBINARY ||
+                        columnType == Types.LONGVARBINARY || columnType == Types.BLOB) {
+                    binaryColumns.add(columns.get(i));
+                }
+            }
+        }
+        return binaryColumns;
+    }
+}
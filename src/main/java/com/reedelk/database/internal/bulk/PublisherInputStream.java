@@ -0,0 +1,52 @@
+package com.reedelk.database.internal.bulk;
+
+import com.reedelk.database.internal.batch.BoundedStreamReader;
+import com.reedelk.database.internal.batch.StreamIterator;
+
+import java.io.InputStream;
+
+/**
+ * Reads the chunks of a byte stream as they are published, without buffering more
+ * than the chunks requested ahead by the underlying reader.
+ */
+class PublisherInputStream extends InputStream {
+
+    private final BoundedStreamReader<byte[]> reader;
+
+    private byte[] chunk;
+    private int position;
+
+    PublisherInputStream(BoundedStreamReader<byte[]> reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public int read() {
+        if (!nextChunk()) return -1;
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        if (length == 0) return 0;
+        if (!nextChunk()) return -1;
+        int count = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+
+    private boolean nextChunk() {
+        while (chunk == null || position == chunk.length) {
+            if (!StreamIterator.await(reader)) return false;
+            chunk = reader.next();
+            position = 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,57 @@
+package com.reedelk.database.internal.bulk;
+
+import com.reedelk.database.internal.commons.DatabaseUtils;
+import com.reedelk.database.internal.exception.BulkLoadException;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.reedelk.database.internal.commons.Messages.BulkLoad.ROW_NOT_SUPPORTED;
+
+/**
+ * The values of the rows, in the order of the columns: a row is a map of column
+ * name > value, or a list or an array of values in the order of the columns.
+ */
+class RowValues implements Iterator<Object[]>, AutoCloseable {
+
+    private final Iterator<?> rows;
+    private final List<String> columns;
+    private final AutoCloseable source;
+
+    RowValues(Iterator<?> rows, List<String> columns, AutoCloseable source) {
+        this.rows = rows;
+        this.columns = columns;
+        this.source = source;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return rows.hasNext();
+    }
+
+    @Override
+    public Object[] next() {
+        Object row = rows.next();
+        if (row instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) row;
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = map.get(columns.get(i));
+            }
+            return values;
+        } else if (row instanceof Collection) {
+            return ((Collection<?>) row).toArray();
+        } else if (row instanceof Object[]) {
+            return (Object[]) row;
+        }
+        String rowType = row == null ? null : row.getClass().getName();
+        throw new BulkLoadException(ROW_NOT_SUPPORTED.format(rowType));
+    }
+
+    @Override
+    public void close() {
+        DatabaseUtils.closeSilently(source);
+    }
+}
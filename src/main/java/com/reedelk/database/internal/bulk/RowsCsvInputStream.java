@@ -0,0 +1,64 @@
+package com.reedelk.database.internal.bulk;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Encodes the rows as UTF-8 CSV lines, one row at a time, as the loader reads them.
+ * The lines end with LF, the only line break LOAD DATA is configured with.
+ */
+class RowsCsvInputStream extends InputStream {
+
+    private final RowValues rows;
+    private final CsvFormat format;
+    private final StringBuilder line = new StringBuilder();
+
+    private byte[] encoded = new byte[0];
+    private int position;
+
+    RowsCsvInputStream(RowValues rows, CsvFormat format) {
+        this.rows = rows;
+        this.format = format;
+    }
+
+    @Override
+    public int read() {
+        if (!nextLine()) return -1;
+        return encoded[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        if (length == 0) return 0;
+        int count = 0;
+        while (count < length && nextLine()) {
+            int chunk = Math.min(length - count, encoded.length - position);
+            System.arraycopy(encoded, position, buffer, offset + count, chunk);
+            position += chunk;
+            count += chunk;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public void close() {
+        rows.close();
+    }
+
+    private boolean nextLine() {
+        if (position < encoded.length) return true;
+        if (!rows.hasNext()) return false;
+
+        Object[] values = rows.next();
+        line.setLength(0);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            format.writeField(line, values[i]);
+        }
+        line.append('\n');
+        encoded = line.toString().getBytes(StandardCharsets.UTF_8);
+        position = 0;
+        return true;
+    }
+}
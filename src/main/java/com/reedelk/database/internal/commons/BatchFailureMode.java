@@ -0,0 +1,11 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum BatchFailureMode {
+
+    @DisplayName("Fail Batch")
+    FAIL_BATCH,
+    @DisplayName("Isolate Failed Rows")
+    ISOLATE_FAILED_ROWS
+}
@@ -0,0 +1,11 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum BatchPartitionStrategy {
+
+    @DisplayName("Round Robin")
+    ROUND_ROBIN,
+    @DisplayName("Key Hash")
+    KEY_HASH
+}
@@ -0,0 +1,11 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum BulkLoadMethod {
+
+    @DisplayName("Native")
+    NATIVE,
+    @DisplayName("Batch Insert")
+    BATCH_INSERT
+}
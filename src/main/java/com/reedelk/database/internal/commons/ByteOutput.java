@@ -0,0 +1,135 @@
+package com.reedelk.database.internal.commons;
+
+import java.util.Arrays;
+
+/**
+ * A growable little endian byte buffer, reused across the record batches
+ * of an Arrow stream or the chunks of a text stream.
+ */
+public class ByteOutput {
+
+    private byte[] data;
+    private int size;
+
+    public ByteOutput() {
+        this(256);
+    }
+
+    public ByteOutput(int capacity) {
+        this.data = new byte[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void reset() {
+        Arrays.fill(data, 0, size, (byte) 0);
+        size = 0;
+    }
+
+    public void putByte(int value) {
+        ensureCapacity(1);
+        data[size++] = (byte) value;
+    }
+
+    public void putShort(int value) {
+        ensureCapacity(2);
+        putShortAt(size, value);
+        size += 2;
+    }
+
+    public void putInt(int value) {
+        ensureCapacity(4);
+        putIntAt(size, value);
+        size += 4;
+    }
+
+    public void putLong(long value) {
+        ensureCapacity(8);
+        putLongAt(size, value);
+        size += 8;
+    }
+
+    public void putBytes(byte[] bytes) {
+        putBytes(bytes, 0, bytes.length);
+    }
+
+    public void putBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, data, size, length);
+        size += length;
+    }
+
+    public void putZeros(int length) {
+        ensureCapacity(length);
+        size += length;
+    }
+
+    public void putByteAt(int position, int value) {
+        data[position] = (byte) value;
+    }
+
+    public void putShortAt(int position, int value) {
+        data[position] = (byte) value;
+        data[position + 1] = (byte) (value >>> 8);
+    }
+
+    public void putIntAt(int position, int value) {
+        data[position] = (byte) value;
+        data[position + 1] = (byte) (value >>> 8);
+        data[position + 2] = (byte) (value >>> 16);
+        data[position + 3] = (byte) (value >>> 24);
+    }
+
+    public void putLongAt(int position, long value) {
+        putIntAt(position, (int) value);
+        putIntAt(position + 4, (int) (value >>> 32));
+    }
+
+    // Sets the bit at the given index, bits are numbered from the least significant bit of each byte.
+    public void setBit(int index) {
+        extendBits(index + 1);
+        data[index >>> 3] |= (byte) (1 << (index & 7));
+    }
+
+    // Makes room for the given number of bits, the new bits are not set.
+    public void extendBits(int bitCount) {
+        int length = (bitCount + 7) >>> 3;
+        if (length > size) {
+            putZeros(length - size);
+        }
+    }
+
+    // Pads with zeros until the size is a multiple of the given alignment.
+    public void align(int alignment) {
+        alignTo(alignment, 0);
+    }
+
+    // Pads with zeros until the size modulo the given alignment is the given remainder.
+    public void alignTo(int alignment, int remainder) {
+        int padding = Math.floorMod(remainder - size, alignment);
+        putZeros(padding);
+    }
+
+    public void writeTo(ByteOutput output) {
+        output.putBytes(data, 0, size);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    // Returns the content and empties the buffer.
+    public byte[] drain() {
+        byte[] content = toByteArray();
+        reset();
+        return content;
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + length));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.reedelk.database.internal.commons;
+
+import java.sql.Types;
+
+/**
+ * How the values of a column are stored in a database row: numeric and boolean
+ * values are stored in primitive slots, all the other values as objects.
+ */
+public enum ColumnKind {
+
+    INT,
+    LONG,
+    BOOLEAN,
+    FLOAT,
+    DOUBLE,
+    OBJECT;
+
+    public static ColumnKind of(int columnType) {
+        switch (columnType) {
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return INT;
+            case Types.BIGINT:
+                return LONG;
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.FLOAT:
+                return FLOAT;
+            case Types.DOUBLE:
+                return DOUBLE;
+            default:
+                return OBJECT;
+        }
+    }
+
+    public boolean isPrimitive() {
+        return this != OBJECT;
+    }
+}
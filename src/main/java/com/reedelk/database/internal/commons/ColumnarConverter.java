@@ -0,0 +1,61 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.database.internal.type.ColumnVector;
+import com.reedelk.database.internal.type.ColumnarResult;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Appends the rows of a result set to column vectors. Rows are read with the
+ * row converter column extractors into slots reused for each row.
+ */
+public class ColumnarConverter {
+
+    private final RowSchema schema;
+    private final RowConverter rowConverter;
+    private final ColumnVector[] columns;
+
+    private final Object[] objects;
+    private final long[] primitives;
+    private final long[] nulls;
+
+    private int rowCount;
+
+    private ColumnarConverter(RowConverter rowConverter) {
+        this.schema = rowConverter.schema();
+        this.rowConverter = rowConverter;
+        this.columns = new ColumnVector[schema.columnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = ColumnVector.of(schema.columnName(i), schema.columnType(i));
+        }
+        this.objects = new Object[columns.length];
+        this.primitives = new long[columns.length];
+        this.nulls = new long[(columns.length + 63) >>> 6];
+    }
+
+    public static ColumnarConverter from(RowConverter rowConverter) {
+        return new ColumnarConverter(rowConverter);
+    }
+
+    public void append(ResultSet resultSetRow) throws SQLException {
+        Arrays.fill(nulls, 0L);
+        rowConverter.read(resultSetRow, objects, primitives, nulls);
+        for (int i = 0; i < columns.length; i++) {
+            if ((nulls[i >>> 6] & (1L << i)) != 0) {
+                columns[i].appendNull();
+            } else {
+                columns[i].append(objects[i], primitives[i]);
+            }
+        }
+        rowCount++;
+    }
+
+    public ColumnarResult complete() {
+        for (ColumnVector column : columns) {
+            column.complete();
+        }
+        return new ColumnarResult(schema, columns, rowCount);
+    }
+}
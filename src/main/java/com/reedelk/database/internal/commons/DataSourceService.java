@@ -8,7 +8,11 @@ import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.Semaphore;
 
 import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
 import static com.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
@@ -20,7 +24,13 @@ public class DataSourceService {
 
     private static final Logger logger = LoggerFactory.getLogger(DataSourceService.class);
 
+    private static final boolean DEFAULT_STATEMENT_CACHE_ENABLED = true;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 25;
+    private static final String STATEMENT_CACHE_MBEAN_NAME = "com.reedelk.database:type=StatementCache,connection=%s";
+
     final Map<String, ComboPooledDataSource> CONFIG_ID_CONNECTION_POOL_MAP = new HashMap<>();
+    final Map<String, StatementCache> CONFIG_ID_STATEMENT_CACHE_MAP = new HashMap<>();
+    final Map<String, Semaphore> CONFIG_ID_PARALLEL_PERMITS_MAP = new HashMap<>();
     final Map<String, List<com.reedelk.runtime.api.component.Component>> CONFIG_ID_COMPONENT_MAP = new HashMap<>();
 
     public synchronized ComboPooledDataSource getDataSource(com.reedelk.runtime.api.component.Component component, ConnectionConfiguration connectionConfiguration) {
@@ -51,12 +61,36 @@ public class DataSourceService {
             Optional.ofNullable(connectionConfiguration.getAcquireIncrement())
                     .ifPresent(pooledDataSource::setAcquireIncrement);
             CONFIG_ID_CONNECTION_POOL_MAP.put(configId, pooledDataSource);
+
+            boolean statementCacheEnabled = Optional.ofNullable(connectionConfiguration.getStatementCacheEnabled())
+                    .orElse(DEFAULT_STATEMENT_CACHE_ENABLED);
+            int statementCacheSize = Optional.ofNullable(connectionConfiguration.getStatementCacheSize())
+                    .orElse(DEFAULT_STATEMENT_CACHE_SIZE);
+            StatementCache statementCache = new StatementCache(statementCacheEnabled, statementCacheSize);
+            registerStatisticsMBean(configId, statementCache);
+            CONFIG_ID_STATEMENT_CACHE_MAP.put(configId, statementCache);
+
+            // Components writing on parallel connections take at most half of the pool
+            // on top of their first connection, leaving the rest to the other components.
+            CONFIG_ID_PARALLEL_PERMITS_MAP.put(configId, new Semaphore(pooledDataSource.getMaxPoolSize() / 2));
         }
         addComponentMapping(configId, component);
         return CONFIG_ID_CONNECTION_POOL_MAP.get(configId);
 
     }
 
+    public synchronized StatementCache getStatementCache(ConnectionConfiguration connectionConfiguration) {
+        StatementCache statementCache = CONFIG_ID_STATEMENT_CACHE_MAP.get(connectionConfiguration.getId());
+        requireNotNull(Select.class, statementCache, "Data source must be created before getting its statement cache");
+        return statementCache;
+    }
+
+    public synchronized Semaphore getParallelConnectionPermits(ConnectionConfiguration connectionConfiguration) {
+        Semaphore permits = CONFIG_ID_PARALLEL_PERMITS_MAP.get(connectionConfiguration.getId());
+        requireNotNull(Select.class, permits, "Data source must be created before getting its parallel connection permits");
+        return permits;
+    }
+
     public synchronized void dispose(com.reedelk.runtime.api.component.Component component, ConnectionConfiguration connectionConfiguration) {
         if (CONFIG_ID_COMPONENT_MAP.containsKey(connectionConfiguration.getId())) {
             List<com.reedelk.runtime.api.component.Component> components = CONFIG_ID_COMPONENT_MAP.get(connectionConfiguration.getId());
@@ -65,6 +99,8 @@ public class DataSourceService {
                 // If there are not components using this data source, we
                 // can close it since it is not in use anymore.
                 CONFIG_ID_COMPONENT_MAP.remove(connectionConfiguration.getId());
+                CONFIG_ID_PARALLEL_PERMITS_MAP.remove(connectionConfiguration.getId());
+                silentlyClose(connectionConfiguration.getId(), CONFIG_ID_STATEMENT_CACHE_MAP.remove(connectionConfiguration.getId()));
                 ComboPooledDataSource toClose = CONFIG_ID_CONNECTION_POOL_MAP.remove(connectionConfiguration.getId());
                 silentlyClose(toClose);
             }
@@ -72,9 +108,12 @@ public class DataSourceService {
     }
 
     public synchronized void dispose() {
+        CONFIG_ID_STATEMENT_CACHE_MAP.forEach(this::silentlyClose);
+        CONFIG_ID_STATEMENT_CACHE_MAP.clear();
         CONFIG_ID_CONNECTION_POOL_MAP.forEach((configurationId, comboPooledDataSource) -> silentlyClose(comboPooledDataSource));
         CONFIG_ID_CONNECTION_POOL_MAP.clear();
         CONFIG_ID_COMPONENT_MAP.clear();
+        CONFIG_ID_PARALLEL_PERMITS_MAP.clear();
     }
 
     void silentlyClose(ComboPooledDataSource toClose) {
@@ -87,6 +126,34 @@ public class DataSourceService {
         }
     }
 
+    void silentlyClose(String configId, StatementCache toClose) {
+        if (toClose == null) return;
+        logger.info(format("Closing statement cache for connection configuration id=[%s]: %s", configId, toClose.statistics()));
+        toClose.dispose();
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(format(STATEMENT_CACHE_MBEAN_NAME, ObjectName.quote(String.valueOf(configId))));
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+        } catch (Exception exception) {
+            logger.warn("Could not unregister statement cache statistics MBean", exception);
+        }
+    }
+
+    private void registerStatisticsMBean(String configId, StatementCache statementCache) {
+        if (!statementCache.isEnabled()) return;
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(format(STATEMENT_CACHE_MBEAN_NAME, ObjectName.quote(String.valueOf(configId))));
+            if (!mBeanServer.isRegistered(name)) {
+                mBeanServer.registerMBean(statementCache.statistics(), name);
+            }
+        } catch (Exception exception) {
+            logger.warn("Could not register statement cache statistics MBean", exception);
+        }
+    }
+
     private void addComponentMapping(String configId, com.reedelk.runtime.api.component.Component component) {
         if (CONFIG_ID_COMPONENT_MAP.containsKey(configId)) {
             CONFIG_ID_COMPONENT_MAP.get(configId).add(component);
@@ -3,6 +3,9 @@ package com.reedelk.database.internal.commons;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
+import java.sql.Statement;
+
 public class DatabaseUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseUtils.class);
@@ -17,4 +20,48 @@ public class DatabaseUtils {
             }
         }
     }
+
+    public static void cancelSilently(Statement statement) {
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (Throwable exception) {
+                String message = String.format("Could not cancel: %s", exception.getMessage());
+                logger.warn(message, exception);
+            }
+        }
+    }
+
+    public static void rollbackSilently(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (Throwable exception) {
+                String message = String.format("Could not rollback: %s", exception.getMessage());
+                logger.warn(message, exception);
+            }
+        }
+    }
+
+    public static void autoCommitSilently(Connection connection, boolean autoCommit) {
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(autoCommit);
+            } catch (Throwable exception) {
+                String message = String.format("Could not set auto commit: %s", exception.getMessage());
+                logger.warn(message, exception);
+            }
+        }
+    }
+
+    public static void executeSilently(Connection connection, String sql) {
+        if (connection != null) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            } catch (Throwable exception) {
+                String message = String.format("Could not execute statement=[%s]: %s", sql, exception.getMessage());
+                logger.warn(message, exception);
+            }
+        }
+    }
 }
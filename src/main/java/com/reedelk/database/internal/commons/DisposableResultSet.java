@@ -9,25 +9,60 @@ import java.net.URL;
 import java.sql.*;
 import java.util.Calendar;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.reedelk.database.internal.commons.DatabaseUtils.autoCommitSilently;
+import static com.reedelk.database.internal.commons.DatabaseUtils.cancelSilently;
 import static com.reedelk.database.internal.commons.DatabaseUtils.closeSilently;
 
 public class DisposableResultSet implements ResultSet, Disposable {
 
     private final ResultSet delegate;
-    private final Statement statement;
+    private final PreparedStatement statement;
     private final Connection connection;
+    private final StatementCache statementCache;
+    private final boolean restoreAutoCommit;
+    private final AtomicBoolean disposed = new AtomicBoolean(false);
+    private volatile boolean holdUntilFlowEnds;
 
-    public DisposableResultSet(Connection connection, Statement statement, ResultSet delegate) {
+    public DisposableResultSet(Connection connection, PreparedStatement statement, ResultSet delegate, StatementCache statementCache, boolean restoreAutoCommit) {
         this.delegate = delegate;
         this.statement = statement;
         this.connection = connection;
+        this.statementCache = statementCache;
+        this.restoreAutoCommit = restoreAutoCommit;
     }
 
+    // Cancels the statement still producing rows, before the result set is disposed.
+    public void cancel() {
+        if (!disposed.get()) {
+            cancelSilently(statement);
+        }
+    }
+
+    // Streamed LOB values are read through the connection: the result set is not
+    // released when the rows are read, it is disposed by the flow context instead.
+    public void holdUntilFlowEnds() {
+        this.holdUntilFlowEnds = true;
+    }
+
+    // Releases the result set once all the rows have been read, unless it must be held until the flow ends.
+    public void release() {
+        if (!holdUntilFlowEnds) {
+            dispose();
+        }
+    }
+
+    // The result set is disposed as soon as the rows stream terminates: the
+    // flow context disposes it again, as a safety net, when the flow ends.
     @Override
     public void dispose() {
+        if (!disposed.compareAndSet(false, true)) return;
         closeSilently(delegate);
-        closeSilently(statement);
+        statementCache.release(statement);
+        if (restoreAutoCommit) {
+            autoCommitSilently(connection, true);
+        }
         closeSilently(connection);
     }
 
@@ -0,0 +1,19 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum FetchMode {
+
+    @DisplayName("Stream")
+    STREAM,
+    @DisplayName("Materialize")
+    MATERIALIZE,
+    @DisplayName("Columnar")
+    COLUMNAR,
+    @DisplayName("Arrow IPC Stream")
+    ARROW,
+    @DisplayName("CSV Stream")
+    CSV,
+    @DisplayName("NDJSON Stream")
+    NDJSON
+}
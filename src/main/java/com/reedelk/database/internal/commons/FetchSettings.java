@@ -0,0 +1,99 @@
+package com.reedelk.database.internal.commons;
+
+import java.sql.*;
+
+/**
+ * Applies the fetch size and, when the server side cursor is enabled, the driver specific
+ * settings needed to stream the rows of a result set instead of loading all of them in memory:
+ * <ul>
+ *     <li>MySQL: the fetch size is set to Integer.MIN_VALUE to stream rows one by one,
+ *     unless 'useCursorFetch=true' is set in the connection URL (then the fetch size is used).</li>
+ *     <li>PostgreSQL: a cursor is used only if auto commit is disabled.</li>
+ *     <li>Oracle and H2: the fetch size is the number of rows prefetched for each round trip.</li>
+ * </ul>
+ */
+public class FetchSettings {
+
+    static final int DEFAULT_CURSOR_FETCH_SIZE = 1000;
+
+    // Adaptive fetch size: about 1MB of data for each round trip.
+    static final int ADAPTIVE_FETCH_BYTES = 1024 * 1024;
+    static final int ADAPTIVE_MIN_FETCH_SIZE = 10;
+    static final int ADAPTIVE_MAX_FETCH_SIZE = 10000;
+    // LOB columns might report a huge display size.
+    static final int MAX_COLUMN_WIDTH = 4096;
+    static final int UNKNOWN_COLUMN_WIDTH = 32;
+
+    private final DatabaseDriver driver;
+    private final Integer fetchSize;
+    private final boolean adaptive;
+    private final boolean serverSideCursor;
+    private final boolean mySQLCursorFetch;
+
+    public FetchSettings(DatabaseDriver driver, String connectionURL, Integer fetchSize, boolean adaptive, boolean serverSideCursor) {
+        this.driver = driver;
+        this.fetchSize = fetchSize;
+        this.adaptive = adaptive;
+        this.serverSideCursor = serverSideCursor;
+        this.mySQLCursorFetch = connectionURL != null && connectionURL.contains("useCursorFetch=true");
+    }
+
+    /**
+     * Applies the settings before the statement is executed. Returns true if auto commit
+     * was disabled on the connection: it must be enabled again when the result set is closed.
+     */
+    public boolean beforeExecute(Connection connection, PreparedStatement statement) throws SQLException {
+        // Statements are cached and shared: the fetch size is always set, 0 is the driver default.
+        if (isMySQLStreaming()) {
+            statement.setFetchSize(Integer.MIN_VALUE);
+        } else {
+            statement.setFetchSize(initialFetchSize());
+        }
+
+        if (serverSideCursor && driver == DatabaseDriver.POSTGRESQL && connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            return true;
+        }
+        return false;
+    }
+
+    public void afterExecute(ResultSet resultSet) throws SQLException {
+        if (adaptive && !isMySQLStreaming()) {
+            resultSet.setFetchSize(adaptiveFetchSize(resultSet.getMetaData()));
+        }
+    }
+
+    /**
+     * Returns true if the statement must be cancelled when the rows are not read until the end:
+     * MySQL reads all the remaining rows of a streamed result set in order to close it.
+     * Other drivers just close the cursor, a cancel might instead hit the next query executed
+     * on the pooled connection.
+     */
+    public boolean cancelOnEarlyClose() {
+        return isMySQLStreaming();
+    }
+
+    static int adaptiveFetchSize(ResultSetMetaData metaData) throws SQLException {
+        int rowWidth = 0;
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            int columnWidth = metaData.getColumnDisplaySize(i);
+            if (columnWidth <= 0) {
+                columnWidth = UNKNOWN_COLUMN_WIDTH;
+            }
+            rowWidth += Math.min(columnWidth, MAX_COLUMN_WIDTH);
+        }
+        int fetchSize = ADAPTIVE_FETCH_BYTES / Math.max(rowWidth, 1);
+        return Math.max(ADAPTIVE_MIN_FETCH_SIZE, Math.min(fetchSize, ADAPTIVE_MAX_FETCH_SIZE));
+    }
+
+    private int initialFetchSize() {
+        if (fetchSize != null) {
+            return fetchSize;
+        }
+        return serverSideCursor ? DEFAULT_CURSOR_FETCH_SIZE : 0;
+    }
+
+    private boolean isMySQLStreaming() {
+        return serverSideCursor && driver == DatabaseDriver.MYSQL && !mySQLCursorFetch;
+    }
+}
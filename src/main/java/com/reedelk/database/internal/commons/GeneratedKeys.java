@@ -0,0 +1,44 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.database.internal.type.DatabaseRow;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the keys generated by an insert statement. What is returned depends on the driver:
+ * H2 and MySQL return the auto generated columns, PostgreSQL executes the statement with a
+ * RETURNING clause (whole rows if no key columns are given), Oracle needs the key columns.
+ */
+public class GeneratedKeys {
+
+    private static final String[] DRIVER_KEYS = new String[0];
+
+    private GeneratedKeys() {
+    }
+
+    // Comma separated column names: if blank, the keys are chosen by the driver.
+    public static String[] keyColumnsOf(String keyColumns) {
+        if (keyColumns == null || keyColumns.trim().isEmpty()) {
+            return DRIVER_KEYS;
+        }
+        return Arrays.stream(keyColumns.split(","))
+                .map(String::trim)
+                .filter(column -> !column.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    // Adds the keys generated by the last execution (or batch execution) of the statement.
+    public static void read(Statement statement, List<DatabaseRow> keys) throws SQLException {
+        try (ResultSet resultSet = statement.getGeneratedKeys()) {
+            if (resultSet == null) return;
+            RowConverter rowConverter = RowConverter.from(RowSchema.from(resultSet.getMetaData()));
+            while (resultSet.next()) {
+                keys.add(rowConverter.convert(resultSet));
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum GeneratedKeysOutput {
+
+    @DisplayName("Attribute 'generatedKeys'")
+    ATTRIBUTE,
+    @DisplayName("Payload")
+    PAYLOAD
+}
@@ -0,0 +1,13 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum LobMode {
+
+    @DisplayName("Eager")
+    EAGER,
+    @DisplayName("Stream")
+    STREAM,
+    @DisplayName("Threshold")
+    THRESHOLD
+}
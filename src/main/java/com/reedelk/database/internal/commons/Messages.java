@@ -31,7 +31,15 @@ public class Messages {
         QUERY_EXECUTE_ERROR_WITH_QUERY("Could not execute select query=[%s]: %s"),
         COLUMN_TYPE_NOT_SUPPORTED("Column type id=[%d] not supported for column name=[%s]"),
         BLOB_TO_BYTES_ERROR("Could not convert bytes from blob, column name=[%s]"),
-        METADATA_FETCH_ERROR("Could not fetch query metadata, SQL error code=[%d], SQL state=[%s], cause=[%s]");
+        CLOB_TO_STRING_ERROR("Could not convert string from clob, column name=[%s]"),
+        LOB_READ_ERROR("Could not read LOB value of column name=[%s] (it can be read only until the flow ends): %s"),
+        METADATA_FETCH_ERROR("Could not fetch query metadata, SQL error code=[%d], SQL state=[%s], cause=[%s]"),
+        MAX_ROWS_EXCEEDED("Select query=[%s] returned more than the max materialized rows=[%d]"),
+        COLUMN_NOT_FOUND("Column name=[%s] not found"),
+        COLUMN_NOT_NUMERIC("Column name=[%s] does not contain a numeric value"),
+        ARROW_DECIMAL_OUT_OF_RANGE("Value=[%s] out of the Arrow decimal range for column name=[%s]"),
+        SPILL_WRITE_ERROR("Could not write rows to spill file=[%s]: %s"),
+        SPILL_READ_ERROR("Could not read rows from spill file=[%s]: %s");
 
         private String message;
 
@@ -65,7 +73,9 @@ public class Messages {
     public enum Update implements FormattedMessage {
 
         QUERY_EXECUTE_ERROR("Could not execute update query: %s"),
-        QUERY_EXECUTE_ERROR_WITH_QUERY("Could not execute update query=[%s]: %s");
+        QUERY_EXECUTE_ERROR_WITH_QUERY("Could not execute update query=[%s]: %s"),
+        STAGING_UPDATE_ERROR("Could not execute staging table update of table=[%s], query=[%s], staged rows=[%d]: %s"),
+        KEY_COLUMN_NOT_MAPPED("Key column=[%s] must be defined in the column value mappings");
 
         private String message;
 
@@ -95,4 +105,77 @@ public class Messages {
             return message;
         }
     }
+
+    public enum BatchInsert implements FormattedMessage {
+
+        QUERY_EXECUTE_ERROR_WITH_QUERY("Could not execute batch insert query=[%s]: %s"),
+        PAYLOAD_NOT_SUPPORTED("Batch insert payload must be a collection, found=[%s]"),
+        PARALLEL_QUERY_EXECUTE_ERROR("Could not execute batch insert query=[%s], failed batches=[%d], " +
+                "first element of the first failed batch=[%d]: %s"),
+        PARALLEL_GENERATED_KEYS_NOT_SUPPORTED("Generated keys can not be returned when inserting on parallel connections"),
+        ISOLATE_FAILED_ROWS_NOT_SUPPORTED("Failed rows can not be isolated when inserting on parallel connections or returning generated keys");
+
+        private String message;
+
+        BatchInsert(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum Upsert implements FormattedMessage {
+
+        QUERY_EXECUTE_ERROR_WITH_QUERY("Could not execute upsert query=[%s]: %s"),
+        KEY_COLUMN_NOT_MAPPED("Key column=[%s] must be defined in the column value mappings");
+
+        private String message;
+
+        Upsert(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum BulkLoad implements FormattedMessage {
+
+        LOAD_ERROR("Could not bulk load into table=[%s] with method=[%s]: %s"),
+        PAYLOAD_NOT_SUPPORTED("Bulk load payload must be CSV bytes or text, a collection or a stream, found=[%s]"),
+        ROW_NOT_SUPPORTED("Bulk load row must be a map, a list or an array of values, found=[%s]"),
+        DRIVER_API_NOT_AVAILABLE("Bulk load driver API=[%s] is not available: %s");
+
+        private String message;
+
+        BulkLoad(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum ChunkedDelete implements FormattedMessage {
+
+        QUERY_EXECUTE_ERROR_WITH_QUERY("Could not execute chunked delete query=[%s] after deleting rows=[%d] in chunks=[%d]: %s");
+
+        private String message;
+
+        ChunkedDelete(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
 }
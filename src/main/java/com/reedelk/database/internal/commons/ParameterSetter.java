@@ -0,0 +1,84 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.database.internal.type.DatabaseBlob;
+import com.reedelk.database.internal.type.DatabaseClob;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.*;
+
+/**
+ * Binds a parameter value to a prepared statement. Large values are bound as streams, so that
+ * the driver can send them to the database without an additional copy: input streams and byte
+ * arrays (or database blobs) with setBinaryStream, readers and strings (or database clobs) with
+ * setCharacterStream, with the length when it is known. Streams are read by the driver when the
+ * statement is executed, they are not closed.
+ */
+public class ParameterSetter {
+
+    // Byte arrays and strings up to this size (in bytes or characters) are bound as they are.
+    static final int STREAM_THRESHOLD = 32 * 1024;
+
+    private ParameterSetter() {
+    }
+
+    public static void set(PreparedStatement statement, int parameterIndex, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(parameterIndex, Types.NULL);
+        } else if (value instanceof String) {
+            String string = (String) value;
+            if (string.length() > STREAM_THRESHOLD) {
+                statement.setCharacterStream(parameterIndex, new StringReader(string), string.length());
+            } else {
+                statement.setString(parameterIndex, string);
+            }
+        } else if (value instanceof Integer) {
+            statement.setInt(parameterIndex, (Integer) value);
+        } else if (value instanceof Long) {
+            statement.setLong(parameterIndex, (Long) value);
+        } else if (value instanceof Double) {
+            statement.setDouble(parameterIndex, (Double) value);
+        } else if (value instanceof Float) {
+            statement.setFloat(parameterIndex, (Float) value);
+        } else if (value instanceof Boolean) {
+            statement.setBoolean(parameterIndex, (Boolean) value);
+        } else if (value instanceof BigDecimal) {
+            statement.setBigDecimal(parameterIndex, (BigDecimal) value);
+        } else if (value instanceof Short) {
+            statement.setShort(parameterIndex, (Short) value);
+        } else if (value instanceof Byte) {
+            statement.setByte(parameterIndex, (Byte) value);
+        } else if (value instanceof Timestamp) {
+            statement.setTimestamp(parameterIndex, (Timestamp) value);
+        } else if (value instanceof Date) {
+            statement.setDate(parameterIndex, (Date) value);
+        } else if (value instanceof Time) {
+            statement.setTime(parameterIndex, (Time) value);
+        } else if (value instanceof java.util.Date) {
+            java.util.Date date = (java.util.Date) value;
+            statement.setTimestamp(parameterIndex, new Timestamp(date.getTime()));
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            if (bytes.length > STREAM_THRESHOLD) {
+                statement.setBinaryStream(parameterIndex, new ByteArrayInputStream(bytes), bytes.length);
+            } else {
+                statement.setBytes(parameterIndex, bytes);
+            }
+        } else if (value instanceof InputStream) {
+            statement.setBinaryStream(parameterIndex, (InputStream) value);
+        } else if (value instanceof Reader) {
+            statement.setCharacterStream(parameterIndex, (Reader) value);
+        } else if (value instanceof DatabaseBlob) {
+            DatabaseBlob blob = (DatabaseBlob) value;
+            statement.setBinaryStream(parameterIndex, blob.getInputStream(), blob.length());
+        } else if (value instanceof DatabaseClob) {
+            DatabaseClob clob = (DatabaseClob) value;
+            statement.setCharacterStream(parameterIndex, clob.getReader(), clob.length());
+        } else {
+            statement.setObject(parameterIndex, value);
+        }
+    }
+}
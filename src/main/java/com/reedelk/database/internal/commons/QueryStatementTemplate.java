@@ -1,18 +1,53 @@
 package com.reedelk.database.internal.commons;
 
-import java.util.Map;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class QueryStatementTemplate {
 
     private static final Pattern REGEXP = Pattern.compile("(:\\w+)");
+    private static final int MAX_REPLACEMENT_LENGTH = 256;
     private final String query;
 
+    // The query with each ':name' parameter replaced by a positional '?' placeholder.
+    private final String compiledQuery;
+    // Parameter name > JDBC indexes of the placeholders the parameter is bound to.
+    private final Map<String, List<Integer>> parameterIndexMap;
+
     public QueryStatementTemplate(String query) {
+        List<String> parameterNames = new ArrayList<>();
         this.query = query;
+        this.compiledQuery = compile(query, parameterNames);
+        this.parameterIndexMap = indexMapOf(parameterNames);
+    }
+
+    public String compiledQuery() {
+        return compiledQuery;
+    }
+
+    public Map<String, List<Integer>> parameterIndexMap() {
+        return parameterIndexMap;
     }
 
+    // Parameters without a mapping are left unbound: the driver reports them when the statement is executed.
+    public void bind(PreparedStatement statement, Map<String,Object> parameters) throws SQLException {
+        for (Map.Entry<String, List<Integer>> entry : parameterIndexMap.entrySet()) {
+            String parameterName = entry.getKey();
+            if (parameters.containsKey(parameterName)) {
+                Object value = parameters.get(parameterName);
+                for (Integer parameterIndex : entry.getValue()) {
+                    ParameterSetter.set(statement, parameterIndex, value);
+                }
+            }
+        }
+    }
+
+    // The replaced query is never executed, it is only used to describe the query in error messages.
     public String replace(Map<String,Object> replacements) {
         if (replacements.isEmpty()) {
             return query;
@@ -28,11 +63,7 @@ public class QueryStatementTemplate {
             if (replacement == null) {
                 builder.append(matcher.group(0));
             } else {
-                if (replacement instanceof String) {
-                    builder.append("'").append(replacement).append("'");
-                } else {
-                    builder.append(replacement);
-                }
+                appendReplacement(builder, replacement);
             }
             i = matcher.end();
         }
@@ -43,4 +74,73 @@ public class QueryStatementTemplate {
         }
         return builder.toString();
     }
+
+    // Large and binary values are described instead of being copied into the query.
+    private static void appendReplacement(StringBuilder builder, Object replacement) {
+        if (replacement instanceof String) {
+            String string = (String) replacement;
+            if (string.length() > MAX_REPLACEMENT_LENGTH) {
+                builder.append("'").append(string, 0, MAX_REPLACEMENT_LENGTH)
+                        .append("...' (").append(string.length()).append(" characters)");
+            } else {
+                builder.append("'").append(string).append("'");
+            }
+        } else if (replacement instanceof byte[]) {
+            builder.append("<").append(((byte[]) replacement).length).append(" bytes>");
+        } else if (replacement instanceof InputStream) {
+            builder.append("<binary stream>");
+        } else if (replacement instanceof Reader) {
+            builder.append("<character stream>");
+        } else {
+            builder.append(replacement);
+        }
+    }
+
+    private static String compile(String query, List<String> parameterNames) {
+        StringBuilder builder = new StringBuilder(query.length());
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            char current = query.charAt(i);
+            if (current == '\'' || current == '"') {
+                // Quoted literals and identifiers are copied as they are:
+                // a ':' inside them (e.g. '12:30') is not a parameter.
+                int end = query.indexOf(current, i + 1);
+                end = end == -1 ? length : end + 1;
+                builder.append(query, i, end);
+                i = end;
+
+            } else if (current == ':' && i + 1 < length && query.charAt(i + 1) == ':') {
+                // PostgreSQL cast operator, e.g. '::int'.
+                builder.append("::");
+                i += 2;
+
+            } else if (current == ':' && i + 1 < length && isParameterChar(query.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < length && isParameterChar(query.charAt(end))) end++;
+                parameterNames.add(query.substring(i + 1, end));
+                builder.append('?');
+                i = end;
+
+            } else {
+                builder.append(current);
+                i++;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static Map<String, List<Integer>> indexMapOf(List<String> parameterNames) {
+        Map<String, List<Integer>> parameterIndexMap = new HashMap<>();
+        for (int i = 0; i < parameterNames.size(); i++) {
+            parameterIndexMap
+                    .computeIfAbsent(parameterNames.get(i), name -> new ArrayList<>())
+                    .add(i + 1); // JDBC parameter index starts from 1 instead of 0
+        }
+        return Collections.unmodifiableMap(parameterIndexMap);
+    }
+
+    private static boolean isParameterChar(char character) {
+        return Character.isLetterOrDigit(character) || character == '_';
+    }
 }
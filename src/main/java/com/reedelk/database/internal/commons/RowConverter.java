@@ -1,76 +1,192 @@
 package com.reedelk.database.internal.commons;
 
 import com.reedelk.database.internal.exception.ConversionError;
+import com.reedelk.database.internal.type.DatabaseBlob;
+import com.reedelk.database.internal.type.DatabaseClob;
 import com.reedelk.database.internal.type.DatabaseRow;
 import com.reedelk.runtime.api.commons.ByteArrayUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Serializable;
+import java.io.Reader;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 
 import static com.reedelk.database.internal.commons.Messages.Select.BLOB_TO_BYTES_ERROR;
+import static com.reedelk.database.internal.commons.Messages.Select.CLOB_TO_STRING_ERROR;
 import static com.reedelk.database.internal.commons.Messages.Select.COLUMN_TYPE_NOT_SUPPORTED;
 
+/**
+ * Converts the rows of a result set into database rows. The column extractors are
+ * built once from the row schema: converting a row does not access the result set metadata.
+ * Numeric and boolean columns are read with the primitive getters and are not boxed.
+ * BLOB and CLOB columns are read according to the LOB mode: into byte arrays and strings (eager),
+ * as database blobs and clobs read through the connection while the flow runs (stream), or
+ * eagerly only up to the given number of bytes or characters (threshold).
+ */
 public class RowConverter {
 
-    public static DatabaseRow convert(ResultSetMetaData metaData,
-                                      ResultSet resultSetRow,
-                                      Map<String, Integer> columnNameIndexMap,
-                                      Map<Integer, String> columnIndexNameMap) throws SQLException {
-        int columnCount = metaData.getColumnCount();
-        List<Serializable> values = new ArrayList<>();
-        for (int i = 1; i <= columnCount; i++) {
-            Serializable rowValue = getObjectByColumnId(metaData, i, resultSetRow);
-            values.add(rowValue);
+    private final RowSchema schema;
+    private final ColumnExtractor[] extractors;
+    private final boolean streamsLobs;
+
+    private RowConverter(RowSchema schema, ColumnExtractor[] extractors, boolean streamsLobs) {
+        this.schema = schema;
+        this.extractors = extractors;
+        this.streamsLobs = streamsLobs;
+    }
+
+    public static RowConverter from(RowSchema schema) {
+        return from(schema, LobMode.EAGER, 0L);
+    }
+
+    public static RowConverter from(RowSchema schema, LobMode lobMode, long lobThreshold) {
+        // Values up to the threshold are read eagerly: eager mode has no limit, stream mode inlines nothing.
+        long inlineThreshold = lobMode == LobMode.EAGER ? Long.MAX_VALUE :
+                lobMode == LobMode.STREAM ? -1L : lobThreshold;
+        ColumnExtractor[] extractors = new ColumnExtractor[schema.columnCount()];
+        boolean streamsLobs = false;
+        for (int i = 0; i < extractors.length; i++) {
+            int columnType = schema.columnType(i);
+            extractors[i] = extractorOf(columnType, schema.columnName(i), inlineThreshold);
+            streamsLobs |= lobMode != LobMode.EAGER && isLob(columnType);
         }
-        return new DatabaseRow(columnNameIndexMap, columnIndexNameMap, values);
+        return new RowConverter(schema, extractors, streamsLobs);
+    }
+
+    public RowSchema schema() {
+        return schema;
+    }
+
+    /**
+     * Returns true if LOB values might be returned as database blobs and clobs: they can be
+     * read only while the connection is open, it must not be released before the flow ends.
+     */
+    public boolean streamsLobs() {
+        return streamsLobs;
+    }
+
+    public DatabaseRow convert(ResultSet resultSetRow) throws SQLException {
+        Object[] objects = new Object[extractors.length];
+        long[] primitives = new long[extractors.length];
+        long[] nulls = new long[(extractors.length + 63) >>> 6];
+        read(resultSetRow, objects, primitives, nulls);
+        return new DatabaseRow(schema, objects, primitives, nulls);
     }
 
-    private static Serializable getObjectByColumnId(ResultSetMetaData metaData, int columnId, ResultSet resultSetRow) throws SQLException {
-        int columnType = metaData.getColumnType(columnId);
-        if (columnType == java.sql.Types.BIGINT) {
-            return resultSetRow.getInt(columnId);
-        } else if (columnType == java.sql.Types.BOOLEAN) {
-            return resultSetRow.getBoolean(columnId);
-        } else if (columnType == java.sql.Types.DOUBLE) {
-            return resultSetRow.getDouble(columnId);
-        } else if (columnType == java.sql.Types.FLOAT) {
-            return resultSetRow.getFloat(columnId);
-        } else if (columnType == java.sql.Types.INTEGER) {
-            return resultSetRow.getInt(columnId);
-        } else if (columnType == java.sql.Types.NVARCHAR) {
-            return resultSetRow.getNString(columnId);
-        } else if (columnType == java.sql.Types.VARCHAR) {
-            return resultSetRow.getString(columnId);
-        } else if (columnType == java.sql.Types.CHAR) {
-            return resultSetRow.getString(columnId);
-        } else if (columnType == Types.NUMERIC) {
-            return resultSetRow.getBigDecimal(columnId);
-        } else if (columnType == java.sql.Types.TINYINT) {
-            return resultSetRow.getInt(columnId);
-        } else if (columnType == java.sql.Types.SMALLINT) {
-            return resultSetRow.getInt(columnId);
-        } else if (columnType == java.sql.Types.DATE) {
-            return resultSetRow.getDate(columnId);
-        } else if (columnType == java.sql.Types.TIMESTAMP) {
-            return resultSetRow.getTimestamp(columnId);
-        } else if (columnType == java.sql.Types.BLOB) {
-            Blob blob = resultSetRow.getBlob(columnId);
-            try (InputStream inputStream = blob.getBinaryStream()){
-                return ByteArrayUtils.from(inputStream);
-            } catch (IOException exception) {
-                String columnName = metaData.getColumnName(columnId);
-                String error = BLOB_TO_BYTES_ERROR.format(columnName);
-                throw new ConversionError(error);
+    /**
+     * Reads the current row into the given slots: numeric and boolean values into the primitive
+     * slots (doubles as their raw long bits), all the other values into the object slots.
+     * The null bits are only set, never cleared.
+     */
+    public void read(ResultSet resultSetRow, Object[] objects, long[] primitives, long[] nulls) throws SQLException {
+        for (int i = 0; i < extractors.length; i++) {
+            extractors[i].extract(resultSetRow, i, objects, primitives);
+            if (resultSetRow.wasNull()) {
+                nulls[i >>> 6] |= 1L << i;
             }
-        } else {
-            String columnName = metaData.getColumnName(columnId);
-            String error = COLUMN_TYPE_NOT_SUPPORTED.format(columnType, columnName);
-            throw new ConversionError(error);
         }
     }
+
+    // Column indexes are 0 based, result set indexes start from 1 instead of 0.
+    private static ColumnExtractor extractorOf(int columnType, String columnName, long inlineThreshold) {
+        switch (columnType) {
+            case Types.BIGINT:
+                return (resultSetRow, i, objects, primitives) ->
+                        primitives[i] = resultSetRow.getLong(i + 1);
+            case Types.BOOLEAN:
+                return (resultSetRow, i, objects, primitives) ->
+                        primitives[i] = resultSetRow.getBoolean(i + 1) ? 1L : 0L;
+            case Types.DOUBLE:
+                return (resultSetRow, i, objects, primitives) ->
+                        primitives[i] = Double.doubleToRawLongBits(resultSetRow.getDouble(i + 1));
+            case Types.FLOAT:
+                return (resultSetRow, i, objects, primitives) ->
+                        primitives[i] = Double.doubleToRawLongBits(resultSetRow.getFloat(i + 1));
+            case Types.INTEGER:
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return (resultSetRow, i, objects, primitives) ->
+                        primitives[i] = resultSetRow.getInt(i + 1);
+            case Types.NVARCHAR:
+                return (resultSetRow, i, objects, primitives) ->
+                        objects[i] = resultSetRow.getNString(i + 1);
+            case Types.VARCHAR:
+            case Types.CHAR:
+                return (resultSetRow, i, objects, primitives) ->
+                        objects[i] = resultSetRow.getString(i + 1);
+            case Types.NUMERIC:
+                return (resultSetRow, i, objects, primitives) ->
+                        objects[i] = resultSetRow.getBigDecimal(i + 1);
+            case Types.DATE:
+                return (resultSetRow, i, objects, primitives) ->
+                        objects[i] = resultSetRow.getDate(i + 1);
+            case Types.TIMESTAMP:
+                return (resultSetRow, i, objects, primitives) ->
+                        objects[i] = resultSetRow.getTimestamp(i + 1);
+            case Types.BLOB:
+                if (inlineThreshold != Long.MAX_VALUE) {
+                    return (resultSetRow, i, objects, primitives) -> {
+                        Blob blob = resultSetRow.getBlob(i + 1);
+                        if (blob == null) return;
+                        long length = blob.length();
+                        objects[i] = length <= inlineThreshold ?
+                                blob.getBytes(1, (int) length) :
+                                new DatabaseBlob(blob, columnName, length);
+                    };
+                }
+                return (resultSetRow, i, objects, primitives) -> {
+                    Blob blob = resultSetRow.getBlob(i + 1);
+                    if (blob == null) return;
+                    try (InputStream inputStream = blob.getBinaryStream()) {
+                        objects[i] = ByteArrayUtils.from(inputStream);
+                    } catch (IOException exception) {
+                        String error = BLOB_TO_BYTES_ERROR.format(columnName);
+                        throw new ConversionError(error);
+                    }
+                };
+            case Types.CLOB:
+            case Types.NCLOB:
+                return (resultSetRow, i, objects, primitives) -> {
+                    Clob clob = resultSetRow.getClob(i + 1);
+                    if (clob == null) return;
+                    long length = clob.length();
+                    if (length > inlineThreshold) {
+                        objects[i] = new DatabaseClob(clob, columnName, length);
+                        return;
+                    }
+                    try (Reader reader = clob.getCharacterStream()) {
+                        objects[i] = readString(reader, length);
+                    } catch (IOException exception) {
+                        String error = CLOB_TO_STRING_ERROR.format(columnName);
+                        throw new ConversionError(error);
+                    }
+                };
+            default:
+                // The error is raised only if a row is actually converted.
+                return (resultSetRow, i, objects, primitives) -> {
+                    String error = COLUMN_TYPE_NOT_SUPPORTED.format(columnType, columnName);
+                    throw new ConversionError(error);
+                };
+        }
+    }
+
+    private static boolean isLob(int columnType) {
+        return columnType == Types.BLOB || columnType == Types.CLOB || columnType == Types.NCLOB;
+    }
+
+    private static String readString(Reader reader, long length) throws IOException {
+        StringBuilder builder = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            builder.append(buffer, 0, read);
+        }
+        return builder.toString();
+    }
+
+    @FunctionalInterface
+    interface ColumnExtractor {
+
+        void extract(ResultSet resultSetRow, int columnIndex, Object[] objects, long[] primitives) throws SQLException;
+    }
 }
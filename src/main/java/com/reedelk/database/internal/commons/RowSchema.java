@@ -0,0 +1,177 @@
+package com.reedelk.database.internal.commons;
+
+import java.io.Serializable;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Immutable description of the columns of a result set, shared by all its rows.
+ * Column names are resolved to column indexes with an open addressing hash table:
+ * when two columns have the same name, the name resolves to the last one.
+ */
+public class RowSchema implements Serializable {
+
+    private static final int NOT_FOUND = -1;
+
+    private final String[] columnNames;
+    private final int[] columnTypes;
+    private final ColumnKind[] columnKinds;
+    private final int[] columnPrecisions;
+    private final int[] columnScales;
+
+    // Open addressing name > index table, the length is a power of two.
+    private final String[] indexKeys;
+    private final int[] indexValues;
+    private final int indexMask;
+
+    // Indexes of the columns which can be accessed by name, in column order.
+    private final int[] namedColumns;
+    private final Set<String> columnNameSet;
+
+    public RowSchema(String[] columnNames, int[] columnTypes) {
+        this(columnNames, columnTypes, new int[columnTypes.length], new int[columnTypes.length]);
+    }
+
+    public RowSchema(String[] columnNames, int[] columnTypes, int[] columnPrecisions, int[] columnScales) {
+        this.columnNames = columnNames.clone();
+        this.columnTypes = columnTypes.clone();
+        this.columnPrecisions = columnPrecisions.clone();
+        this.columnScales = columnScales.clone();
+        this.columnKinds = new ColumnKind[columnTypes.length];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnKinds[i] = ColumnKind.of(columnTypes[i]);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(columnNames.length, 1) * 2 - 1) << 1;
+        this.indexKeys = new String[capacity];
+        this.indexValues = new int[capacity];
+        this.indexMask = capacity - 1;
+        for (int i = 0; i < columnNames.length; i++) {
+            int slot = slotOf(columnNames[i]);
+            indexKeys[slot] = columnNames[i];
+            indexValues[slot] = i;
+        }
+
+        int[] named = new int[columnNames.length];
+        int namedCount = 0;
+        for (int i = 0; i < columnNames.length; i++) {
+            if (indexOf(columnNames[i]) == i) {
+                named[namedCount++] = i;
+            }
+        }
+        this.namedColumns = Arrays.copyOf(named, namedCount);
+        this.columnNameSet = new ColumnNameSet();
+    }
+
+    public static RowSchema from(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount];
+        int[] columnTypes = new int[columnCount];
+        int[] columnPrecisions = new int[columnCount];
+        int[] columnScales = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1); // Index Starts from 1 instead of 0
+            columnTypes[i] = metaData.getColumnType(i + 1);
+            columnPrecisions[i] = metaData.getPrecision(i + 1);
+            columnScales[i] = metaData.getScale(i + 1);
+        }
+        return new RowSchema(columnNames, columnTypes, columnPrecisions, columnScales);
+    }
+
+    public int columnCount() {
+        return columnNames.length;
+    }
+
+    public String columnName(int columnIndex) {
+        return columnNames[columnIndex];
+    }
+
+    public int columnType(int columnIndex) {
+        return columnTypes[columnIndex];
+    }
+
+    public ColumnKind columnKind(int columnIndex) {
+        return columnKinds[columnIndex];
+    }
+
+    public int columnPrecision(int columnIndex) {
+        return columnPrecisions[columnIndex];
+    }
+
+    public int columnScale(int columnIndex) {
+        return columnScales[columnIndex];
+    }
+
+    public List<Integer> columnTypes() {
+        List<Integer> types = new ArrayList<>(columnTypes.length);
+        for (int columnType : columnTypes) types.add(columnType);
+        return types;
+    }
+
+    /**
+     * Returns the index of the column with the given name, -1 if there is no such column.
+     */
+    public int indexOf(Object columnName) {
+        if (!(columnName instanceof String)) return NOT_FOUND;
+        int slot = slotOf((String) columnName);
+        return indexKeys[slot] == null ? NOT_FOUND : indexValues[slot];
+    }
+
+    /**
+     * Returns the number of columns which can be accessed by name.
+     */
+    public int namedColumnCount() {
+        return namedColumns.length;
+    }
+
+    public int namedColumn(int position) {
+        return namedColumns[position];
+    }
+
+    public Set<String> columnNames() {
+        return columnNameSet;
+    }
+
+    // The slot of the given name, or the empty slot where the name would be stored.
+    private int slotOf(String columnName) {
+        int hash = columnName.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & indexMask;
+        while (indexKeys[slot] != null && !indexKeys[slot].equals(columnName)) {
+            slot = (slot + 1) & indexMask;
+        }
+        return slot;
+    }
+
+    private class ColumnNameSet extends AbstractSet<String> implements Serializable {
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+
+                private int position = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return position < namedColumns.length;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return columnNames[namedColumns[position++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return namedColumns.length;
+        }
+
+        @Override
+        public boolean contains(Object columnName) {
+            return indexOf(columnName) != NOT_FOUND;
+        }
+    }
+}
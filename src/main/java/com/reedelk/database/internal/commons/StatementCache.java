@@ -0,0 +1,179 @@
+package com.reedelk.database.internal.commons;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+import static com.reedelk.database.internal.commons.DatabaseUtils.closeSilently;
+
+/**
+ * Prepared statements cache for the connections of a data source. Statements are cached
+ * for each physical connection (the connection pool hands out a different proxy for each
+ * checkout of the same physical connection) and keyed by the compiled SQL statement
+ * and the generated keys it returns, if any.
+ * Each connection caches at most 'maxStatementsPerConnection' statements: when the
+ * limit is reached the least recently used statement is closed and evicted.
+ */
+public class StatementCache {
+
+    private final boolean enabled;
+    private final int maxStatementsPerConnection;
+    private final StatementCacheStatistics statistics = new StatementCacheStatistics();
+
+    // Physical connection > statements. Guarded by 'this'.
+    private final Map<Connection, ConnectionStatements> connectionStatementsMap = new IdentityHashMap<>();
+    // Cached statement > physical connection it was prepared on. Guarded by 'this'.
+    private final Map<PreparedStatement, Connection> statementConnectionMap = new IdentityHashMap<>();
+
+    public StatementCache(boolean enabled, int maxStatementsPerConnection) {
+        this.enabled = enabled && maxStatementsPerConnection > 0;
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public StatementCacheStatistics statistics() {
+        return statistics;
+    }
+
+    public PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return prepare(connection, sql, null);
+    }
+
+    /**
+     * Prepares a statement returning the generated keys: the given key columns, or the
+     * keys chosen by the driver if the array is empty. No keys are returned if null.
+     * Statements returning different keys are cached separately.
+     */
+    public PreparedStatement prepare(Connection connection, String sql, String[] keyColumns) throws SQLException {
+        if (!enabled) {
+            return prepareStatement(connection, sql, keyColumns);
+        }
+
+        String key = keyColumns == null ? sql : sql + "\n-- RETURNING " + String.join(",", keyColumns);
+
+        Connection physicalConnection = connection.unwrap(Connection.class);
+
+        synchronized (this) {
+            ConnectionStatements statements = connectionStatementsMap.get(physicalConnection);
+            if (statements == null) {
+                // A new physical connection: the pool might have destroyed some of the
+                // connections we know about, their statements can not be used anymore.
+                removeClosedConnections();
+                statements = new ConnectionStatements();
+                connectionStatementsMap.put(physicalConnection, statements);
+            }
+
+            PreparedStatement statement = statements.get(key);
+            if (statement != null) {
+                if (!statement.isClosed()) {
+                    statistics.hit();
+                    return statement;
+                }
+                statements.remove(key);
+                statementConnectionMap.remove(statement);
+            }
+
+            statistics.miss();
+            statement = prepareStatement(physicalConnection, sql, keyColumns);
+            statements.put(key, statement);
+            statementConnectionMap.put(statement, physicalConnection);
+            return statement;
+        }
+    }
+
+    /**
+     * Releases a statement obtained from this cache: cached statements are
+     * cleared and kept open for the next execution, non cached statements are closed.
+     */
+    public void release(PreparedStatement statement) {
+        if (statement == null) return;
+
+        boolean cached;
+        synchronized (this) {
+            cached = statementConnectionMap.containsKey(statement);
+        }
+
+        if (!cached) {
+            closeSilently(statement);
+            return;
+        }
+
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+        } catch (SQLException exception) {
+            // The statement can not be reused.
+            evict(statement);
+        }
+    }
+
+    public synchronized void dispose() {
+        statementConnectionMap.keySet().forEach(DatabaseUtils::closeSilently);
+        statementConnectionMap.clear();
+        connectionStatementsMap.clear();
+    }
+
+    private synchronized void evict(PreparedStatement statement) {
+        Connection physicalConnection = statementConnectionMap.remove(statement);
+        ConnectionStatements statements = connectionStatementsMap.get(physicalConnection);
+        if (statements != null) {
+            statements.values().remove(statement);
+        }
+        closeSilently(statement);
+    }
+
+    private static PreparedStatement prepareStatement(Connection connection, String sql, String[] keyColumns) throws SQLException {
+        if (keyColumns == null) {
+            return connection.prepareStatement(sql);
+        } else if (keyColumns.length == 0) {
+            return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        } else {
+            return connection.prepareStatement(sql, keyColumns);
+        }
+    }
+
+    private void removeClosedConnections() {
+        Iterator<Map.Entry<Connection, ConnectionStatements>> iterator = connectionStatementsMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Connection, ConnectionStatements> entry = iterator.next();
+            if (isClosed(entry.getKey())) {
+                entry.getValue().values().forEach(statementConnectionMap::remove);
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException exception) {
+            return true;
+        }
+    }
+
+    // Access ordered map evicting the least recently used statement when full.
+    private class ConnectionStatements extends LinkedHashMap<String, PreparedStatement> {
+
+        ConnectionStatements() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() > maxStatementsPerConnection) {
+                PreparedStatement evicted = eldest.getValue();
+                statementConnectionMap.remove(evicted);
+                closeSilently(evicted);
+                statistics.eviction();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.reedelk.database.internal.commons;
+
+public interface StatementCacheStatisticsMBean {
+
+    long getHits();
+
+    long getMisses();
+
+    long getEvictions();
+
+    double getHitRatio();
+}
@@ -0,0 +1,11 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.runtime.api.annotation.DisplayName;
+
+public enum UpdateMode {
+
+    @DisplayName("Query")
+    QUERY,
+    @DisplayName("Bulk (Staging Table)")
+    STAGING_TABLE
+}
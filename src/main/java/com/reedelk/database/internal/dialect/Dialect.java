@@ -0,0 +1,131 @@
+package com.reedelk.database.internal.dialect;
+
+import com.reedelk.database.internal.commons.DatabaseDriver;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates the SQL statements whose syntax depends on the database. Table and column
+ * names are used as they are given: quoted identifiers must be given with their quotes.
+ * Statement parameters are positional, in the order of the given columns.
+ */
+public abstract class Dialect {
+
+    public static Dialect of(DatabaseDriver driver) {
+        switch (driver) {
+            case MYSQL:
+                return new MySQLDialect();
+            case ORACLE:
+                return new OracleDialect();
+            case POSTGRESQL:
+                return new PostgreSQLDialect();
+            default:
+                return new H2Dialect();
+        }
+    }
+
+    /**
+     * Returns a statement inserting a row with the given columns, or updating the columns
+     * which are not keys of the existing row with the same key columns.
+     */
+    public abstract String upsert(String table, List<String> columns, List<String> keyColumns);
+
+    /**
+     * Returns a statement deleting at most the number of rows given by its last parameter among
+     * the rows matching the condition, or among all the rows if the condition is null.
+     * The parameters of the condition come first.
+     */
+    public abstract String deleteChunk(String table, String condition);
+
+    // True if a chunk deleting fewer rows than its limit proves that no matching row is left.
+    public boolean isShortDeleteChunkLast() {
+        return true;
+    }
+
+    /**
+     * Returns a statement updating the columns which are not keys of the rows of the table
+     * with the values of the rows of the staging table having the same key columns.
+     * The staging table must not contain two rows with the same key columns.
+     */
+    public abstract String updateFrom(String table, String stagingTable, List<String> columns, List<String> keyColumns);
+
+    // The staging table is a session temporary table: it is not visible to other connections.
+    public String stagingTable() {
+        return "reedelk_update_staging";
+    }
+
+    public String createStagingTable(String stagingTable, String table, List<String> columns) {
+        return "CREATE TEMPORARY TABLE " + stagingTable + " AS SELECT " + join(columns) + " FROM " + table + " WHERE 1 = 0";
+    }
+
+    /**
+     * Returns the statement preparing the loaded staging table to be joined by the key columns,
+     * or null if the database joins it efficiently as it is.
+     */
+    public String prepareStagingTable(String stagingTable, List<String> keyColumns) {
+        return null;
+    }
+
+    public String dropStagingTable(String stagingTable) {
+        return "DROP TABLE " + stagingTable;
+    }
+
+    public String insert(String table, List<String> columns) {
+        return "INSERT INTO " + table + " (" + join(columns) + ") VALUES (" + placeholders(columns) + ")";
+    }
+
+    /**
+     * Returns the statement loading UTF-8 CSV lines into the given columns with the native
+     * bulk load of the database, or null if the database has none usable through JDBC.
+     * The file name is used by the databases whose bulk load statement names a file.
+     */
+    public String bulkLoad(String table, List<String> columns, boolean header, String fileName) {
+        return null;
+    }
+
+    /**
+     * As the bulk load above, with the given binary columns read as hexadecimal text.
+     * Only the databases not converting hexadecimal text to binary use the binary columns.
+     */
+    public String bulkLoad(String table, List<String> columns, Set<String> binaryColumns, boolean header, String fileName) {
+        return bulkLoad(table, columns, header, fileName);
+    }
+
+    static String where(String condition) {
+        return condition == null ? "" : " WHERE (" + condition + ")";
+    }
+
+    // The MERGE statement of H2 and Oracle updating the matched rows only.
+    static String mergeUpdate(String table, String stagingTable, List<String> columns, List<String> keyColumns) {
+        return "MERGE INTO " + table + " t USING " + stagingTable + " s ON (" + joinOn(keyColumns) + ") " +
+                "WHEN MATCHED THEN UPDATE SET " + valueColumns(columns, keyColumns).stream()
+                .map(column -> column + " = s." + column)
+                .collect(Collectors.joining(", "));
+    }
+
+    static String joinOn(List<String> keyColumns) {
+        return keyColumns.stream()
+                .map(column -> "t." + column + " = s." + column)
+                .collect(Collectors.joining(" AND "));
+    }
+
+    static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    static String join(List<String> columns) {
+        return String.join(", ", columns);
+    }
+
+    static String placeholders(List<String> columns) {
+        return columns.stream().map(column -> "?").collect(Collectors.joining(", "));
+    }
+
+    static List<String> valueColumns(List<String> columns, List<String> keyColumns) {
+        return columns.stream()
+                .filter(column -> !keyColumns.contains(column))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,42 @@
+package com.reedelk.database.internal.dialect;
+
+import java.util.List;
+
+class H2Dialect extends Dialect {
+
+    @Override
+    public String upsert(String table, List<String> columns, List<String> keyColumns) {
+        return "MERGE INTO " + table + " (" + join(columns) + ") KEY (" + join(keyColumns) + ") " +
+                "VALUES (" + placeholders(columns) + ")";
+    }
+
+    @Override
+    public String updateFrom(String table, String stagingTable, List<String> columns, List<String> keyColumns) {
+        return mergeUpdate(table, stagingTable, columns, keyColumns);
+    }
+
+    // A TEMPORARY table without LOCAL is a global one.
+    @Override
+    public String createStagingTable(String stagingTable, String table, List<String> columns) {
+        return "CREATE LOCAL TEMPORARY TABLE " + stagingTable + " AS SELECT " + join(columns) + " FROM " + table + " WHERE 1 = 0";
+    }
+
+    // Without an index the staging table is scanned for each row of the table.
+    @Override
+    public String prepareStagingTable(String stagingTable, List<String> keyColumns) {
+        return "CREATE INDEX ON " + stagingTable + " (" + join(keyColumns) + ")";
+    }
+
+    @Override
+    public String deleteChunk(String table, String condition) {
+        return "DELETE FROM " + table + where(condition) + " LIMIT ?";
+    }
+
+    // CSVREAD reads a file visible to the database process. Its arguments cannot be parameters.
+    @Override
+    public String bulkLoad(String table, List<String> columns, boolean header, String fileName) {
+        String columnNames = header ? "NULL" : literal(String.join(",", columns));
+        return "INSERT INTO " + table + " (" + join(columns) + ") " +
+                "SELECT * FROM CSVREAD(" + literal(fileName) + ", " + columnNames + ", 'charset=UTF-8')";
+    }
+}
@@ -0,0 +1,76 @@
+package com.reedelk.database.internal.dialect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class MySQLDialect extends Dialect {
+
+    // The row is updated on a duplicate value of any primary key or unique index: the key columns are not used.
+    @Override
+    public String upsert(String table, List<String> columns, List<String> keyColumns) {
+        List<String> valueColumns = valueColumns(columns, keyColumns);
+        // If all the columns are keys, a no-op update ignores the duplicate row.
+        List<String> updatedColumns = valueColumns.isEmpty() ? keyColumns.subList(0, 1) : valueColumns;
+        return "INSERT INTO " + table + " (" + join(columns) + ") VALUES (" + placeholders(columns) + ") " +
+                "ON DUPLICATE KEY UPDATE " + updatedColumns.stream()
+                .map(column -> column + " = VALUES(" + column + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public String updateFrom(String table, String stagingTable, List<String> columns, List<String> keyColumns) {
+        return "UPDATE " + table + " t JOIN " + stagingTable + " s ON " + joinOn(keyColumns) + " SET " +
+                valueColumns(columns, keyColumns).stream()
+                        .map(column -> "t." + column + " = s." + column)
+                        .collect(Collectors.joining(", "));
+    }
+
+    // Versions before 8.0.18 have no hash join: without an index the staging table is scanned for each row.
+    @Override
+    public String prepareStagingTable(String stagingTable, List<String> keyColumns) {
+        return "ALTER TABLE " + stagingTable + " ADD INDEX (" + join(keyColumns) + ")";
+    }
+
+    // TEMPORARY makes sure that a permanent table is never dropped.
+    @Override
+    public String dropStagingTable(String stagingTable) {
+        return "DROP TEMPORARY TABLE " + stagingTable;
+    }
+
+    @Override
+    public String deleteChunk(String table, String condition) {
+        return "DELETE FROM " + table + where(condition) + " LIMIT ?";
+    }
+
+    // The file is not read: the driver sends the input stream set on the statement instead.
+    // With no escape character an unquoted NULL is read as null, as written by the bulk loader.
+    @Override
+    public String bulkLoad(String table, List<String> columns, boolean header, String fileName) {
+        return bulkLoad(table, columns, Collections.emptySet(), header, fileName);
+    }
+
+    // The binary columns are read into user variables and set from their hexadecimal text.
+    @Override
+    public String bulkLoad(String table, List<String> columns, Set<String> binaryColumns, boolean header, String fileName) {
+        List<String> targets = new ArrayList<>();
+        List<String> assignments = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            if (binaryColumns.contains(column)) {
+                targets.add("@binary" + i);
+                assignments.add(column + " = UNHEX(@binary" + i + ")");
+            } else {
+                targets.add(column);
+            }
+        }
+        return "LOAD DATA LOCAL INFILE " + literal(fileName) + " INTO TABLE " + table + " CHARACTER SET utf8mb4 " +
+                "FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '' " +
+                "LINES TERMINATED BY '\\n' " +
+                (header ? "IGNORE 1 LINES " : "") +
+                "(" + join(targets) + ")" +
+                (assignments.isEmpty() ? "" : " SET " + join(assignments));
+    }
+}
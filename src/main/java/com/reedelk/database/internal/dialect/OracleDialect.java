@@ -0,0 +1,49 @@
+package com.reedelk.database.internal.dialect;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+class OracleDialect extends Dialect {
+
+    @Override
+    public String upsert(String table, List<String> columns, List<String> keyColumns) {
+        List<String> valueColumns = valueColumns(columns, keyColumns);
+        StringBuilder merge = new StringBuilder("MERGE INTO ").append(table).append(" t USING (SELECT ")
+                .append(columns.stream().map(column -> "? AS " + column).collect(Collectors.joining(", ")))
+                .append(" FROM dual) s ON (")
+                .append(keyColumns.stream().map(column -> "t." + column + " = s." + column).collect(Collectors.joining(" AND ")))
+                .append(")");
+        if (!valueColumns.isEmpty()) {
+            merge.append(" WHEN MATCHED THEN UPDATE SET ")
+                    .append(valueColumns.stream().map(column -> "t." + column + " = s." + column).collect(Collectors.joining(", ")));
+        }
+        return merge.append(" WHEN NOT MATCHED THEN INSERT (").append(join(columns)).append(") VALUES (")
+                .append(columns.stream().map(column -> "s." + column).collect(Collectors.joining(", ")))
+                .append(")")
+                .toString();
+    }
+
+    @Override
+    public String updateFrom(String table, String stagingTable, List<String> columns, List<String> keyColumns) {
+        return mergeUpdate(table, stagingTable, columns, keyColumns);
+    }
+
+    // Private temporary tables (Oracle 18c) are created by the session, with the default name prefix.
+    // Their rows and definition are kept until the end of the session: batched inserts commit.
+    // They cannot be indexed: the MERGE joins them by hash.
+    @Override
+    public String stagingTable() {
+        return "ora$ptt_reedelk_update_staging";
+    }
+
+    @Override
+    public String createStagingTable(String stagingTable, String table, List<String> columns) {
+        return "CREATE PRIVATE TEMPORARY TABLE " + stagingTable + " ON COMMIT PRESERVE DEFINITION " +
+                "AS SELECT " + join(columns) + " FROM " + table + " WHERE 1 = 0";
+    }
+
+    @Override
+    public String deleteChunk(String table, String condition) {
+        return "DELETE FROM " + table + " WHERE " + (condition == null ? "" : "(" + condition + ") AND ") + "ROWNUM <= ?";
+    }
+}
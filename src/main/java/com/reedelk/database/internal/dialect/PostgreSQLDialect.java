@@ -0,0 +1,55 @@
+package com.reedelk.database.internal.dialect;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+class PostgreSQLDialect extends Dialect {
+
+    // The key columns must have a unique index or constraint.
+    @Override
+    public String upsert(String table, List<String> columns, List<String> keyColumns) {
+        List<String> valueColumns = valueColumns(columns, keyColumns);
+        String insert = "INSERT INTO " + table + " (" + join(columns) + ") VALUES (" + placeholders(columns) + ") " +
+                "ON CONFLICT (" + join(keyColumns) + ") ";
+        if (valueColumns.isEmpty()) {
+            return insert + "DO NOTHING";
+        }
+        return insert + "DO UPDATE SET " + valueColumns.stream()
+                .map(column -> column + " = EXCLUDED." + column)
+                .collect(Collectors.joining(", "));
+    }
+
+    // The updated columns cannot be qualified with the table alias.
+    @Override
+    public String updateFrom(String table, String stagingTable, List<String> columns, List<String> keyColumns) {
+        return "UPDATE " + table + " t SET " + valueColumns(columns, keyColumns).stream()
+                .map(column -> column + " = s." + column)
+                .collect(Collectors.joining(", ")) +
+                " FROM " + stagingTable + " s WHERE " + joinOn(keyColumns);
+    }
+
+    // Temporary tables are not analyzed by autovacuum: without statistics the join plan is a guess.
+    @Override
+    public String prepareStagingTable(String stagingTable, List<String> keyColumns) {
+        return "ANALYZE " + stagingTable;
+    }
+
+    // DELETE has no LIMIT: the rows of the chunk are selected by their physical location.
+    @Override
+    public String deleteChunk(String table, String condition) {
+        return "DELETE FROM " + table + " WHERE ctid = ANY (ARRAY(SELECT ctid FROM " + table + where(condition) + " LIMIT ?))";
+    }
+
+    // A row updated by another transaction between the subquery and the delete has a new ctid:
+    // it is skipped and the chunk is short, while matching rows are left.
+    @Override
+    public boolean isShortDeleteChunkLast() {
+        return false;
+    }
+
+    @Override
+    public String bulkLoad(String table, List<String> columns, boolean header, String fileName) {
+        return "COPY " + table + " (" + join(columns) + ") FROM STDIN WITH (FORMAT csv" +
+                (header ? ", HEADER true" : "") + ")";
+    }
+}
@@ -0,0 +1,14 @@
+package com.reedelk.database.internal.exception;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class BatchInsertException extends PlatformException {
+
+    public BatchInsertException(String message) {
+        super(message);
+    }
+
+    public BatchInsertException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
@@ -0,0 +1,14 @@
+package com.reedelk.database.internal.exception;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class BulkLoadException extends PlatformException {
+
+    public BulkLoadException(String message) {
+        super(message);
+    }
+
+    public BulkLoadException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
@@ -0,0 +1,14 @@
+package com.reedelk.database.internal.exception;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class ChunkedDeleteException extends PlatformException {
+
+    public ChunkedDeleteException(String message) {
+        super(message);
+    }
+
+    public ChunkedDeleteException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
@@ -4,6 +4,10 @@ import com.reedelk.runtime.api.exception.PlatformException;
 
 public class SelectException extends PlatformException {
 
+    public SelectException(String message) {
+        super(message);
+    }
+
     public SelectException(String message, Throwable exception) {
         super(message, exception);
     }
@@ -0,0 +1,14 @@
+package com.reedelk.database.internal.exception;
+
+import com.reedelk.runtime.api.exception.PlatformException;
+
+public class UpsertException extends PlatformException {
+
+    public UpsertException(String message) {
+        super(message);
+    }
+
+    public UpsertException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
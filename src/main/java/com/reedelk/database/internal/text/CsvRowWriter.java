@@ -0,0 +1,40 @@
+package com.reedelk.database.internal.text;
+
+import com.reedelk.database.internal.commons.RowConverter;
+
+/**
+ * RFC 4180 CSV: a header line with the column names, null values are empty fields.
+ */
+class CsvRowWriter extends RowTextWriter {
+
+    private static final char SEPARATOR = ',';
+
+    CsvRowWriter(RowConverter rowConverter, int chunkSize) {
+        super(rowConverter, chunkSize);
+    }
+
+    @Override
+    void writeHeader(TextOutput output) {
+        for (int i = 0; i < schema().columnCount(); i++) {
+            if (i > 0) output.writeByte(SEPARATOR);
+            output.writeCsvField(schema().columnName(i), SEPARATOR);
+        }
+        output.writeByte('\r');
+        output.writeByte('\n');
+    }
+
+    @Override
+    void writeRow(TextOutput output) {
+        for (int i = 0; i < schema().columnCount(); i++) {
+            if (i > 0) output.writeByte(SEPARATOR);
+            if (!isNull(i)) writeValue(output, i);
+        }
+        output.writeByte('\r');
+        output.writeByte('\n');
+    }
+
+    @Override
+    void writeText(TextOutput output, String value) {
+        output.writeCsvField(value, SEPARATOR);
+    }
+}
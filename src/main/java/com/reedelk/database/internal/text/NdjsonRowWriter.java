@@ -0,0 +1,64 @@
+package com.reedelk.database.internal.text;
+
+import com.reedelk.database.internal.commons.RowConverter;
+import com.reedelk.database.internal.commons.RowSchema;
+
+/**
+ * Newline delimited JSON: one JSON object for each row. Like the database row map
+ * view, when two columns have the same name only the last one is written.
+ */
+class NdjsonRowWriter extends RowTextWriter {
+
+    // The encoded '"name":' of each column which can be accessed by name.
+    private final byte[][] keys;
+
+    NdjsonRowWriter(RowConverter rowConverter, int chunkSize) {
+        super(rowConverter, chunkSize);
+        RowSchema schema = rowConverter.schema();
+        this.keys = new byte[schema.namedColumnCount()][];
+        TextOutput key = new TextOutput(64);
+        for (int i = 0; i < keys.length; i++) {
+            key.writeJsonString(schema.columnName(schema.namedColumn(i)));
+            key.writeByte(':');
+            keys[i] = key.drain();
+        }
+    }
+
+    @Override
+    void writeHeader(TextOutput output) {
+        // No header.
+    }
+
+    @Override
+    void writeRow(TextOutput output) {
+        RowSchema schema = schema();
+        output.writeByte('{');
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) output.writeByte(',');
+            output.writeBytes(keys[i]);
+            int columnIndex = schema.namedColumn(i);
+            if (isNull(columnIndex)) {
+                output.writeAscii("null");
+            } else {
+                writeValue(output, columnIndex);
+            }
+        }
+        output.writeByte('}');
+        output.writeByte('\n');
+    }
+
+    @Override
+    void writeText(TextOutput output, String value) {
+        output.writeJsonString(value);
+    }
+
+    // NaN and infinite values are not valid JSON numbers.
+    @Override
+    void writeDouble(TextOutput output, double value, boolean isFloat) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            output.writeAscii("null");
+        } else {
+            super.writeDouble(output, value, isFloat);
+        }
+    }
+}
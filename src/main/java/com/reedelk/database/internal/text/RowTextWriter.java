@@ -0,0 +1,121 @@
+package com.reedelk.database.internal.text;
+
+import com.reedelk.database.internal.commons.ColumnKind;
+import com.reedelk.database.internal.commons.RowConverter;
+import com.reedelk.database.internal.commons.RowSchema;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Writes the rows of a result set as text, without creating database rows: each row
+ * is read with the row converter column extractors into slots reused for each row and
+ * encoded into a reused buffer. The text is returned in chunks of about 'chunkSize' bytes.
+ */
+public abstract class RowTextWriter {
+
+    private final RowConverter rowConverter;
+    private final int chunkSize;
+    private final TextOutput output;
+
+    private final Object[] objects;
+    private final long[] primitives;
+    private final long[] nulls;
+
+    private boolean headerWritten;
+
+    RowTextWriter(RowConverter rowConverter, int chunkSize) {
+        int columnCount = rowConverter.schema().columnCount();
+        this.rowConverter = rowConverter;
+        this.chunkSize = chunkSize;
+        this.output = new TextOutput(chunkSize + chunkSize / 4);
+        this.objects = new Object[columnCount];
+        this.primitives = new long[columnCount];
+        this.nulls = new long[(columnCount + 63) >>> 6];
+    }
+
+    public static RowTextWriter csv(RowConverter rowConverter, int chunkSize) {
+        return new CsvRowWriter(rowConverter, chunkSize);
+    }
+
+    public static RowTextWriter ndjson(RowConverter rowConverter, int chunkSize) {
+        return new NdjsonRowWriter(rowConverter, chunkSize);
+    }
+
+    /**
+     * Returns the next chunk of text, reading the next rows from the result set,
+     * or null if there are no more rows.
+     */
+    public byte[] next(ResultSet resultSet) throws SQLException {
+        if (!headerWritten) {
+            headerWritten = true;
+            writeHeader(output);
+        }
+        while (output.size() < chunkSize && resultSet.next()) {
+            Arrays.fill(nulls, 0L);
+            rowConverter.read(resultSet, objects, primitives, nulls);
+            writeRow(output);
+        }
+        return output.size() == 0 ? null : output.drain();
+    }
+
+    RowSchema schema() {
+        return rowConverter.schema();
+    }
+
+    boolean isNull(int columnIndex) {
+        return (nulls[columnIndex >>> 6] & (1L << columnIndex)) != 0;
+    }
+
+    abstract void writeHeader(TextOutput output);
+
+    abstract void writeRow(TextOutput output);
+
+    // Writes a value which is not a number or a boolean.
+    abstract void writeText(TextOutput output, String value);
+
+    // Writes a not null value: numbers and booleans as they are, all the other values as text.
+    void writeValue(TextOutput output, int columnIndex) {
+        long primitive = primitives[columnIndex];
+        ColumnKind kind = schema().columnKind(columnIndex);
+        switch (kind) {
+            case INT:
+            case LONG:
+                output.writeLong(primitive);
+                return;
+            case BOOLEAN:
+                output.writeAscii(primitive != 0 ? "true" : "false");
+                return;
+            case FLOAT:
+                writeDouble(output, (float) Double.longBitsToDouble(primitive), true);
+                return;
+            case DOUBLE:
+                writeDouble(output, Double.longBitsToDouble(primitive), false);
+                return;
+            default:
+                writeObject(output, objects[columnIndex]);
+        }
+    }
+
+    void writeDouble(TextOutput output, double value, boolean isFloat) {
+        output.writeAscii(isFloat ? Float.toString((float) value) : Double.toString(value));
+    }
+
+    private void writeObject(TextOutput output, Object value) {
+        if (value instanceof String) {
+            writeText(output, (String) value);
+        } else if (value instanceof BigDecimal) {
+            output.writeAscii(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Timestamp) {
+            writeText(output, ((Timestamp) value).toLocalDateTime().toString());
+        } else if (value instanceof byte[]) {
+            writeText(output, Base64.getEncoder().encodeToString((byte[]) value));
+        } else {
+            writeText(output, String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.reedelk.database.internal.text;
+
+import com.reedelk.database.internal.commons.ByteOutput;
+
+/**
+ * Encodes text as UTF-8 into a byte buffer, reused for all the chunks of a stream.
+ */
+class TextOutput {
+
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final ByteOutput output;
+
+    TextOutput(int capacity) {
+        this.output = new ByteOutput(capacity);
+    }
+
+    int size() {
+        return output.size();
+    }
+
+    // Returns the content and empties the buffer.
+    byte[] drain() {
+        return output.drain();
+    }
+
+    void writeByte(int value) {
+        output.putByte(value);
+    }
+
+    void writeBytes(byte[] bytes) {
+        output.putBytes(bytes);
+    }
+
+    // Only for strings known to be ASCII, such as numbers.
+    void writeAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            output.putByte(value.charAt(i));
+        }
+    }
+
+    // Writes the digits without creating a string.
+    void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeBytes(MIN_LONG);
+            return;
+        }
+        if (value < 0) {
+            output.putByte('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) digits++;
+        int start = output.size();
+        output.putZeros(digits);
+        for (int i = start + digits - 1; i >= start; i--) {
+            output.putByteAt(i, (int) ('0' + value % 10));
+            value /= 10;
+        }
+    }
+
+    void writeUtf8(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else {
+                i = writeNonAscii(value, i);
+            }
+        }
+    }
+
+    void writeJsonString(String value) {
+        writeByte('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writeByte('\\');
+                writeByte(c);
+            } else if (c < 0x20) {
+                writeJsonControl(c);
+            } else if (c < 0x80) {
+                writeByte(c);
+            } else {
+                i = writeNonAscii(value, i);
+            }
+        }
+        writeByte('"');
+    }
+
+    // RFC 4180: the value is quoted only if it contains a separator, a quote or a line break.
+    void writeCsvField(String value, char separator) {
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == separator || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            writeUtf8(value);
+            return;
+        }
+        writeByte('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writeByte('"');
+                writeByte('"');
+            } else if (c < 0x80) {
+                writeByte(c);
+            } else {
+                i = writeNonAscii(value, i);
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeJsonControl(char c) {
+        writeByte('\\');
+        switch (c) {
+            case '\b': writeByte('b'); break;
+            case '\f': writeByte('f'); break;
+            case '\n': writeByte('n'); break;
+            case '\r': writeByte('r'); break;
+            case '\t': writeByte('t'); break;
+            default:
+                writeByte('u');
+                writeByte('0');
+                writeByte('0');
+                writeByte(HEX[c >> 4]);
+                writeByte(HEX[c & 0xF]);
+        }
+    }
+
+    // Returns the index of the last char written: surrogate pairs are written as a single code point.
+    private int writeNonAscii(String value, int index) {
+        char c = value.charAt(index);
+        if (c < 0x800) {
+            output.putByte(0xC0 | (c >> 6));
+            output.putByte(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) &&
+                index + 1 < value.length() &&
+                Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            output.putByte(0xF0 | (codePoint >> 18));
+            output.putByte(0x80 | ((codePoint >> 12) & 0x3F));
+            output.putByte(0x80 | ((codePoint >> 6) & 0x3F));
+            output.putByte(0x80 | (codePoint & 0x3F));
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            output.putByte('?'); // Malformed surrogate pair
+        } else {
+            output.putByte(0xE0 | (c >> 12));
+            output.putByte(0x80 | ((c >> 6) & 0x3F));
+            output.putByte(0x80 | (c & 0x3F));
+        }
+        return index;
+    }
+}
@@ -0,0 +1,69 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeFunction;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of the statement executed for one element of a batch: the number
+ * of affected rows if it succeeded, the SQL state and the error message if it failed.
+ */
+@Type(displayName = "BatchRowResult")
+public class BatchRowResult implements Serializable {
+
+    private final int index;
+    private final boolean success;
+    private final int count;
+    private final String sqlState;
+    private final String message;
+
+    private BatchRowResult(int index, boolean success, int count, String sqlState, String message) {
+        this.index = index;
+        this.success = success;
+        this.count = count;
+        this.sqlState = sqlState;
+        this.message = message;
+    }
+
+    public static BatchRowResult success(int index, int count) {
+        return new BatchRowResult(index, true, count, null, null);
+    }
+
+    public static BatchRowResult failure(int index, String sqlState, String message) {
+        return new BatchRowResult(index, false, 0, sqlState, message);
+    }
+
+    // The zero based index of the element in the input.
+    @TypeFunction(returnType = int.class, signature = "getIndex()", cursorOffset = 1)
+    public int getIndex() {
+        return index;
+    }
+
+    @TypeFunction(returnType = boolean.class, signature = "isSuccess()", cursorOffset = 1)
+    public boolean isSuccess() {
+        return success;
+    }
+
+    @TypeFunction(returnType = int.class, signature = "getCount()", cursorOffset = 1)
+    public int getCount() {
+        return count;
+    }
+
+    @TypeFunction(returnType = String.class, signature = "getSqlState()", cursorOffset = 1)
+    public String getSqlState() {
+        return sqlState;
+    }
+
+    @TypeFunction(returnType = String.class, signature = "getMessage()", cursorOffset = 1)
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return success ?
+                "BatchRowResult{index=" + index + ", count=" + count + "}" :
+                "BatchRowResult{index=" + index + ", sqlState=" + sqlState + ", message=" + message + "}";
+    }
+}
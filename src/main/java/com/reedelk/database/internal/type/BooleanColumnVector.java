@@ -0,0 +1,47 @@
+package com.reedelk.database.internal.type;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+// Values are stored as a bitmap.
+class BooleanColumnVector extends ColumnVector {
+
+    private long[] values;
+
+    BooleanColumnVector(String name, int capacity) {
+        super(name);
+        this.values = new long[(capacity + 63) >>> 6];
+    }
+
+    @Override
+    void set(int row, Object object, long primitive) {
+        if (primitive != 0) {
+            values[row >>> 6] |= 1L << row;
+        }
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, (capacity + 63) >>> 6);
+    }
+
+    @Override
+    Serializable valueAt(int row) {
+        return booleanAt(row);
+    }
+
+    @Override
+    long longAt(int row) {
+        return booleanAt(row) ? 1L : 0L;
+    }
+
+    @Override
+    double doubleAt(int row) {
+        return longAt(row);
+    }
+
+    @Override
+    boolean booleanAt(int row) {
+        return (values[row >>> 6] & (1L << row)) != 0;
+    }
+}
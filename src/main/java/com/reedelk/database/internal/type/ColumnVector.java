@@ -0,0 +1,148 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.commons.ColumnKind;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeFunction;
+
+import java.io.Serializable;
+import java.sql.Types;
+import java.util.Arrays;
+
+import static com.reedelk.database.internal.commons.Messages.Select.COLUMN_NOT_NUMERIC;
+
+/**
+ * The values of a single column of a columnar result, stored in a growable array
+ * of the column type with a null bitmap. Values are appended while the result set
+ * is read; once complete, the arrays are trimmed to the number of rows.
+ */
+@Type(displayName = "ColumnVector")
+public abstract class ColumnVector implements Serializable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String name;
+    private long[] nulls;
+    private int capacity;
+    private int size;
+
+    ColumnVector(String name) {
+        this.name = name;
+        this.capacity = INITIAL_CAPACITY;
+        this.nulls = new long[INITIAL_CAPACITY >>> 6];
+    }
+
+    public static ColumnVector of(String name, int columnType) {
+        switch (ColumnKind.of(columnType)) {
+            case INT:
+                return new IntColumnVector(name, INITIAL_CAPACITY);
+            case LONG:
+                return new LongColumnVector(name, INITIAL_CAPACITY);
+            case BOOLEAN:
+                return new BooleanColumnVector(name, INITIAL_CAPACITY);
+            case FLOAT:
+                return new DoubleColumnVector(name, INITIAL_CAPACITY, true);
+            case DOUBLE:
+                return new DoubleColumnVector(name, INITIAL_CAPACITY, false);
+            default:
+                if (columnType == Types.VARCHAR ||
+                        columnType == Types.CHAR ||
+                        columnType == Types.NVARCHAR) {
+                    return new StringColumnVector(name, INITIAL_CAPACITY);
+                }
+                return new ObjectColumnVector(name, INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * Appends a not null value: primitive values are given as read by the row converter,
+     * doubles as their raw long bits.
+     */
+    public void append(Object object, long primitive) {
+        ensureCapacity();
+        set(size++, object, primitive);
+    }
+
+    public void appendNull() {
+        ensureCapacity();
+        nulls[size >>> 6] |= 1L << size;
+        size++;
+    }
+
+    /**
+     * Trims the vector to its size, no more values can be appended.
+     */
+    public void complete() {
+        nulls = Arrays.copyOf(nulls, (size + 63) >>> 6);
+        capacity = size;
+        resize(size);
+    }
+
+    @TypeFunction(returnType = String.class, signature = "getName()", cursorOffset = 1)
+    public String getName() {
+        return name;
+    }
+
+    @TypeFunction(returnType = int.class, signature = "size()", cursorOffset = 1)
+    public int size() {
+        return size;
+    }
+
+    @TypeFunction(returnType = boolean.class, signature = "isNull(int row)", cursorOffset = 1)
+    public boolean isNull(int row) {
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    @TypeFunction(returnType = Serializable.class, signature = "get(int row)", cursorOffset = 1)
+    public Serializable get(int row) {
+        return isNull(row) ? null : valueAt(row);
+    }
+
+    // Like JDBC, a null value is returned as 0.
+    @TypeFunction(returnType = long.class, signature = "getLong(int row)", cursorOffset = 1)
+    public long getLong(int row) {
+        return isNull(row) ? 0L : longAt(row);
+    }
+
+    @TypeFunction(returnType = int.class, signature = "getInt(int row)", cursorOffset = 1)
+    public int getInt(int row) {
+        return (int) getLong(row);
+    }
+
+    // Like JDBC, a null value is returned as 0.
+    @TypeFunction(returnType = double.class, signature = "getDouble(int row)", cursorOffset = 1)
+    public double getDouble(int row) {
+        return isNull(row) ? 0d : doubleAt(row);
+    }
+
+    // Like JDBC, a null value is returned as false.
+    @TypeFunction(returnType = boolean.class, signature = "getBoolean(int row)", cursorOffset = 1)
+    public boolean getBoolean(int row) {
+        return !isNull(row) && booleanAt(row);
+    }
+
+    abstract void set(int row, Object object, long primitive);
+
+    abstract void resize(int capacity);
+
+    abstract Serializable valueAt(int row);
+
+    long longAt(int row) {
+        throw new IllegalArgumentException(COLUMN_NOT_NUMERIC.format(name));
+    }
+
+    double doubleAt(int row) {
+        throw new IllegalArgumentException(COLUMN_NOT_NUMERIC.format(name));
+    }
+
+    boolean booleanAt(int row) {
+        return longAt(row) != 0;
+    }
+
+    private void ensureCapacity() {
+        if (size == capacity) {
+            capacity = Math.max(capacity * 2, INITIAL_CAPACITY);
+            nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+            resize(capacity);
+        }
+    }
+}
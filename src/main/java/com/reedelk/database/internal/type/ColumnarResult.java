@@ -0,0 +1,70 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.commons.RowSchema;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeFunction;
+
+import java.io.Serializable;
+
+import static com.reedelk.database.internal.commons.Messages.Select.COLUMN_NOT_FOUND;
+
+/**
+ * A result set stored by column: one vector of values for each column.
+ */
+@Type(displayName = "ColumnarResult")
+public class ColumnarResult implements Serializable {
+
+    private final RowSchema schema;
+    private final ColumnVector[] columns;
+    private final int rowCount;
+
+    public ColumnarResult(RowSchema schema, ColumnVector[] columns, int rowCount) {
+        this.schema = schema;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    @TypeFunction(returnType = int.class, signature = "getRowCount()", cursorOffset = 1)
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @TypeFunction(returnType = int.class, signature = "getColumnCount()", cursorOffset = 1)
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @TypeFunction(returnType = Integer.class, signature = "getColumnIndex(String columnName)", cursorOffset = 1)
+    public Integer getColumnIndex(String columnName) {
+        int columnIndex = schema.indexOf(columnName);
+        return columnIndex < 0 ? null : columnIndex;
+    }
+
+    @TypeFunction(returnType = String.class, signature = "getColumnName(int columnIndex)", cursorOffset = 1)
+    public String getColumnName(int columnIndex) {
+        return schema.columnName(columnIndex);
+    }
+
+    @TypeFunction(returnType = ColumnVector.class, signature = "getColumn(int columnIndex)", cursorOffset = 1)
+    public ColumnVector getColumn(int columnIndex) {
+        return columns[columnIndex];
+    }
+
+    @TypeFunction(returnType = ColumnVector.class, signature = "getColumn(String columnName)", cursorOffset = 1)
+    public ColumnVector getColumn(String columnName) {
+        int columnIndex = schema.indexOf(columnName);
+        if (columnIndex < 0) {
+            throw new IllegalArgumentException(COLUMN_NOT_FOUND.format(columnName));
+        }
+        return columns[columnIndex];
+    }
+
+    @TypeFunction(returnType = Serializable.class, signature = "get(String columnName, int row)", cursorOffset = 1)
+    public Serializable get(String columnName, int row) {
+        return getColumn(columnName).get(row);
+    }
+
+    public RowSchema schema() {
+        return schema;
+    }
+}
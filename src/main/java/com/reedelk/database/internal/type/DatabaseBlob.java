@@ -0,0 +1,66 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.exception.SelectException;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeFunction;
+import com.reedelk.runtime.api.commons.ByteArrayUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.sql.Blob;
+import java.sql.SQLException;
+
+import static com.reedelk.database.internal.commons.Messages.Select.LOB_READ_ERROR;
+import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+/**
+ * A BLOB column value which is not read into memory: the bytes are read from the database
+ * through the input stream. The value can be read only while the connection it was fetched
+ * from is open, that is until the flow ends. Once serialized, the value is a byte array.
+ */
+@Type(displayName = "DatabaseBlob")
+public class DatabaseBlob implements Serializable {
+
+    private final transient Blob blob;
+    private final String columnName;
+    private final long length;
+
+    public DatabaseBlob(Blob blob, String columnName, long length) {
+        this.blob = blob;
+        this.columnName = columnName;
+        this.length = length;
+    }
+
+    @TypeFunction(returnType = long.class, signature = "length()", cursorOffset = 1)
+    public long length() {
+        return length;
+    }
+
+    @TypeFunction(returnType = InputStream.class, signature = "getInputStream()", cursorOffset = 1)
+    public InputStream getInputStream() {
+        try {
+            return blob.getBinaryStream();
+        } catch (SQLException exception) {
+            throw new SelectException(LOB_READ_ERROR.format(columnName, rootCauseMessageOf(exception)), exception);
+        }
+    }
+
+    @TypeFunction(returnType = byte[].class, signature = "getBytes()", cursorOffset = 1)
+    public byte[] getBytes() {
+        try (InputStream inputStream = getInputStream()) {
+            return ByteArrayUtils.from(inputStream);
+        } catch (IOException exception) {
+            throw new SelectException(LOB_READ_ERROR.format(columnName, rootCauseMessageOf(exception)), exception);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseBlob{column=" + columnName + ", length=" + length + "}";
+    }
+
+    private Object writeReplace() {
+        return getBytes();
+    }
+}
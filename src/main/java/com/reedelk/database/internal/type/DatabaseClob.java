@@ -0,0 +1,72 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.exception.SelectException;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.annotation.TypeFunction;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.sql.Clob;
+import java.sql.SQLException;
+
+import static com.reedelk.database.internal.commons.Messages.Select.LOB_READ_ERROR;
+import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+/**
+ * A CLOB column value which is not read into memory: the characters are read from the database
+ * through the reader. The value can be read only while the connection it was fetched from is
+ * open, that is until the flow ends. Once serialized, the value is a string.
+ */
+@Type(displayName = "DatabaseClob")
+public class DatabaseClob implements Serializable {
+
+    private final transient Clob clob;
+    private final String columnName;
+    private final long length;
+
+    public DatabaseClob(Clob clob, String columnName, long length) {
+        this.clob = clob;
+        this.columnName = columnName;
+        this.length = length;
+    }
+
+    // The number of characters.
+    @TypeFunction(returnType = long.class, signature = "length()", cursorOffset = 1)
+    public long length() {
+        return length;
+    }
+
+    @TypeFunction(returnType = Reader.class, signature = "getReader()", cursorOffset = 1)
+    public Reader getReader() {
+        try {
+            return clob.getCharacterStream();
+        } catch (SQLException exception) {
+            throw new SelectException(LOB_READ_ERROR.format(columnName, rootCauseMessageOf(exception)), exception);
+        }
+    }
+
+    @TypeFunction(returnType = String.class, signature = "getString()", cursorOffset = 1)
+    public String getString() {
+        try (Reader reader = getReader()) {
+            StringBuilder builder = new StringBuilder((int) Math.min(length, 1024 * 1024));
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                builder.append(buffer, 0, read);
+            }
+            return builder.toString();
+        } catch (IOException exception) {
+            throw new SelectException(LOB_READ_ERROR.format(columnName, rootCauseMessageOf(exception)), exception);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseClob{column=" + columnName + ", length=" + length + "}";
+    }
+
+    private Object writeReplace() {
+        return getString();
+    }
+}
@@ -1,65 +1,223 @@
 package com.reedelk.database.internal.type;
 
+import com.reedelk.database.internal.commons.ColumnKind;
+import com.reedelk.database.internal.commons.RowSchema;
 import com.reedelk.runtime.api.annotation.Type;
 import com.reedelk.runtime.api.annotation.TypeFunction;
 
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.BiConsumer;
 
+import static com.reedelk.database.internal.commons.Messages.Select.COLUMN_NOT_FOUND;
+import static com.reedelk.database.internal.commons.Messages.Select.COLUMN_NOT_NUMERIC;
+
+/**
+ * A database row: the column names are resolved by the row schema shared by all the rows
+ * of the same result set. Numeric and boolean values are stored in primitive slots (doubles
+ * as their raw long bits) and null values are tracked in a bitmap: the typed getters do not
+ * allocate, values are boxed only when the row is accessed through the map interface.
+ * Rows are serialized in a compact binary format: the schema followed by the row cells.
+ */
 @Type(displayName = "DatabaseRow", mapKeyType = String.class, mapValueType = Serializable.class)
-public class DatabaseRow extends HashMap<String, Serializable> {
+public class DatabaseRow extends HashMap<String, Serializable> implements Externalizable {
+
+    private RowSchema schema;
+    private Object[] objects;
+    private long[] primitives;
+    private long[] nulls;
 
-    private final List<Serializable> values;
-    private final Map<String,Integer> columnNameIndexMap;
-    private final Map<Integer,String> columnIndexNameMap;
+    // Used by deserialization only.
+    public DatabaseRow() {
+    }
 
-    public DatabaseRow(Map<String,Integer> columnNameIndexMap,
-                       Map<Integer,String> columnIndexNameMap,
-                       List<Serializable> values) {
-        this.columnIndexNameMap = columnIndexNameMap;
-        this.columnNameIndexMap = columnNameIndexMap;
-        this.values = values;
+    public DatabaseRow(RowSchema schema, Object[] objects, long[] primitives, long[] nulls) {
+        this.schema = schema;
+        this.objects = objects;
+        this.primitives = primitives;
+        this.nulls = nulls;
     }
 
     @TypeFunction(returnType = Integer.class, signature = "getColumnIndex(String columnName)", cursorOffset = 1)
     public Integer getColumnIndex(String columnName) {
-        return columnNameIndexMap.get(columnName);
+        int columnIndex = schema.indexOf(columnName);
+        return columnIndex < 0 ? null : columnIndex;
     }
 
     @TypeFunction(returnType = String.class, signature = "getColumnName(int columnIndex)", cursorOffset = 1)
     public String getColumnName(int columnIndex) {
-        return columnIndexNameMap.get(columnIndex);
+        return schema.columnName(columnIndex);
     }
 
     @TypeFunction(returnType = Serializable.class, signature = "get(int columnIndex)", cursorOffset = 1)
     public Serializable get(int columnIndex) {
-        return values.get(columnIndex);
+        return valueOf(columnIndex);
+    }
+
+    @TypeFunction(returnType = boolean.class, signature = "isNull(int columnIndex)", cursorOffset = 1)
+    public boolean isNull(int columnIndex) {
+        return (nulls[columnIndex >>> 6] & (1L << columnIndex)) != 0;
+    }
+
+    @TypeFunction(returnType = boolean.class, signature = "isNull(String columnName)", cursorOffset = 1)
+    public boolean isNull(String columnName) {
+        return isNull(indexOf(columnName));
+    }
+
+    // Like JDBC, a null value is returned as 0.
+    @TypeFunction(returnType = long.class, signature = "getLong(int columnIndex)", cursorOffset = 1)
+    public long getLong(int columnIndex) {
+        if (isNull(columnIndex)) return 0L;
+        switch (schema.columnKind(columnIndex)) {
+            case INT:
+            case LONG:
+            case BOOLEAN:
+                return primitives[columnIndex];
+            case FLOAT:
+            case DOUBLE:
+                return (long) Double.longBitsToDouble(primitives[columnIndex]);
+            default:
+                return numberOf(columnIndex).longValue();
+        }
+    }
+
+    @TypeFunction(returnType = long.class, signature = "getLong(String columnName)", cursorOffset = 1)
+    public long getLong(String columnName) {
+        return getLong(indexOf(columnName));
+    }
+
+    @TypeFunction(returnType = int.class, signature = "getInt(int columnIndex)", cursorOffset = 1)
+    public int getInt(int columnIndex) {
+        return (int) getLong(columnIndex);
+    }
+
+    @TypeFunction(returnType = int.class, signature = "getInt(String columnName)", cursorOffset = 1)
+    public int getInt(String columnName) {
+        return getInt(indexOf(columnName));
+    }
+
+    // Like JDBC, a null value is returned as 0.
+    @TypeFunction(returnType = double.class, signature = "getDouble(int columnIndex)", cursorOffset = 1)
+    public double getDouble(int columnIndex) {
+        if (isNull(columnIndex)) return 0d;
+        switch (schema.columnKind(columnIndex)) {
+            case INT:
+            case LONG:
+            case BOOLEAN:
+                return primitives[columnIndex];
+            case FLOAT:
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[columnIndex]);
+            default:
+                return numberOf(columnIndex).doubleValue();
+        }
+    }
+
+    @TypeFunction(returnType = double.class, signature = "getDouble(String columnName)", cursorOffset = 1)
+    public double getDouble(String columnName) {
+        return getDouble(indexOf(columnName));
+    }
+
+    // Like JDBC, a null value is returned as false.
+    @TypeFunction(returnType = boolean.class, signature = "getBoolean(int columnIndex)", cursorOffset = 1)
+    public boolean getBoolean(int columnIndex) {
+        if (isNull(columnIndex)) return false;
+        if (schema.columnKind(columnIndex) == ColumnKind.OBJECT && objects[columnIndex] instanceof Boolean) {
+            return (Boolean) objects[columnIndex];
+        }
+        return getLong(columnIndex) != 0;
+    }
+
+    @TypeFunction(returnType = boolean.class, signature = "getBoolean(String columnName)", cursorOffset = 1)
+    public boolean getBoolean(String columnName) {
+        return getBoolean(indexOf(columnName));
+    }
+
+    public RowSchema schema() {
+        return schema;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject(schema);
+        writeCells(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        RowSchema schema = (RowSchema) in.readObject();
+        DatabaseRow row = RowCodec.read(in, schema);
+        this.schema = schema;
+        this.objects = row.objects;
+        this.primitives = row.primitives;
+        this.nulls = row.nulls;
+    }
+
+    void writeCells(DataOutput out) throws IOException {
+        RowCodec.write(out, schema, objects, primitives, nulls);
+    }
+
+    // Approximate heap size: the row, its slot arrays and the object values.
+    long estimatedSize() {
+        long size = 96 + 4L * objects.length + 8L * primitives.length + 8L * nulls.length;
+        for (Object value : objects) {
+            if (value instanceof String) {
+                size += 40 + 2L * ((String) value).length();
+            } else if (value instanceof byte[]) {
+                size += 16 + ((byte[]) value).length;
+            } else if (value != null) {
+                size += 48;
+            }
+        }
+        return size;
     }
 
     @Override
     public int size() {
-        return values.size();
+        return schema.namedColumnCount();
     }
 
     @Override
     public boolean isEmpty() {
-        return values.isEmpty();
+        return schema.namedColumnCount() == 0;
     }
 
     @Override
     public boolean containsKey(Object key) {
-        return columnNameIndexMap.containsKey(key);
+        return schema.indexOf(key) >= 0;
     }
 
     @Override
     public boolean containsValue(Object value) {
-        return values.contains(value);
+        for (int i = 0; i < schema.namedColumnCount(); i++) {
+            if (Objects.equals(valueOf(schema.namedColumn(i)), value)) return true;
+        }
+        return false;
     }
 
     @Override
     public Serializable get(Object key) {
-        Integer valueIndex = columnNameIndexMap.get(key);
-        return values.get(valueIndex);
+        int columnIndex = schema.indexOf(key);
+        return columnIndex < 0 ? null : valueOf(columnIndex);
+    }
+
+    @Override
+    public Serializable getOrDefault(Object key, Serializable defaultValue) {
+        int columnIndex = schema.indexOf(key);
+        return columnIndex < 0 ? defaultValue : valueOf(columnIndex);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Serializable> action) {
+        for (int i = 0; i < schema.namedColumnCount(); i++) {
+            int columnIndex = schema.namedColumn(i);
+            action.accept(schema.columnName(columnIndex), valueOf(columnIndex));
+        }
     }
 
     @Override
@@ -82,24 +240,143 @@ public class DatabaseRow extends HashMap<String, Serializable> {
         throw new UnsupportedOperationException();
     }
 
+    // Shared by all the rows with the same schema.
     @Override
     public Set<String> keySet() {
-        return columnNameIndexMap.keySet();
+        return schema.columnNames();
     }
 
     @Override
     public Collection<Serializable> values() {
-        return values;
+        return new AbstractCollection<Serializable>() {
+            @Override
+            public Iterator<Serializable> iterator() {
+                return new ColumnIterator<Serializable>() {
+                    @Override
+                    Serializable valueAt(int columnIndex) {
+                        return valueOf(columnIndex);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return schema.namedColumnCount();
+            }
+        };
     }
 
+    // Each entry is a new immutable one, as callers might keep it: forEach and the
+    // typed getters access the values without allocating entries.
     @Override
     public Set<Entry<String, Serializable>> entrySet() {
-        Map<String, Serializable> map = new HashMap<>();
-        for (Entry<String,Integer> entry : columnNameIndexMap.entrySet()) {
-            String columnName = entry.getKey();
-            Integer columnIndex = entry.getValue();
-            map.put(columnName, values.get(columnIndex));
+        return new AbstractSet<Entry<String, Serializable>>() {
+            @Override
+            public Iterator<Entry<String, Serializable>> iterator() {
+                return new ColumnIterator<Entry<String, Serializable>>() {
+                    @Override
+                    Entry<String, Serializable> valueAt(int columnIndex) {
+                        return new AbstractMap.SimpleImmutableEntry<>(
+                                schema.columnName(columnIndex),
+                                valueOf(columnIndex));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return schema.namedColumnCount();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Map)) return false;
+        Map<?, ?> other = (Map<?, ?>) o;
+        if (other.size() != size()) return false;
+        for (int i = 0; i < schema.namedColumnCount(); i++) {
+            int columnIndex = schema.namedColumn(i);
+            Object otherValue = other.get(schema.columnName(columnIndex));
+            if (!Objects.equals(valueOf(columnIndex), otherValue)) return false;
+            if (otherValue == null && !other.containsKey(schema.columnName(columnIndex))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < schema.namedColumnCount(); i++) {
+            int columnIndex = schema.namedColumn(i);
+            hash += Objects.hashCode(schema.columnName(columnIndex)) ^ Objects.hashCode(valueOf(columnIndex));
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (int i = 0; i < schema.namedColumnCount(); i++) {
+            int columnIndex = schema.namedColumn(i);
+            joiner.add(schema.columnName(columnIndex) + "=" + valueOf(columnIndex));
+        }
+        return joiner.toString();
+    }
+
+    // Boxes primitive values, used by the map interface only.
+    private Serializable valueOf(int columnIndex) {
+        if (isNull(columnIndex)) return null;
+        long primitive = primitives[columnIndex];
+        switch (schema.columnKind(columnIndex)) {
+            case INT:
+                return (int) primitive;
+            case LONG:
+                return primitive;
+            case BOOLEAN:
+                return primitive != 0;
+            case FLOAT:
+                return (float) Double.longBitsToDouble(primitive);
+            case DOUBLE:
+                return Double.longBitsToDouble(primitive);
+            default:
+                return (Serializable) objects[columnIndex];
+        }
+    }
+
+    private Number numberOf(int columnIndex) {
+        Object value = objects[columnIndex];
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        throw new IllegalArgumentException(COLUMN_NOT_NUMERIC.format(schema.columnName(columnIndex)));
+    }
+
+    private int indexOf(String columnName) {
+        int columnIndex = schema.indexOf(columnName);
+        if (columnIndex < 0) {
+            throw new IllegalArgumentException(COLUMN_NOT_FOUND.format(columnName));
+        }
+        return columnIndex;
+    }
+
+    // Iterates the columns which can be accessed by name.
+    private abstract class ColumnIterator<T> implements Iterator<T> {
+
+        private int position = 0;
+
+        abstract T valueAt(int columnIndex);
+
+        @Override
+        public boolean hasNext() {
+            return position < schema.namedColumnCount();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return valueAt(schema.namedColumn(position++));
         }
-        return map.entrySet();
     }
 }
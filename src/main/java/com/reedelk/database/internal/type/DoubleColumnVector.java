@@ -0,0 +1,42 @@
+package com.reedelk.database.internal.type;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+class DoubleColumnVector extends ColumnVector {
+
+    // Float columns are stored as doubles and returned as floats.
+    private final boolean floatValues;
+    private double[] values;
+
+    DoubleColumnVector(String name, int capacity, boolean floatValues) {
+        super(name);
+        this.floatValues = floatValues;
+        this.values = new double[capacity];
+    }
+
+    @Override
+    void set(int row, Object object, long primitive) {
+        values[row] = Double.longBitsToDouble(primitive);
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    Serializable valueAt(int row) {
+        return floatValues ? (Serializable) (float) values[row] : (Serializable) values[row];
+    }
+
+    @Override
+    long longAt(int row) {
+        return (long) values[row];
+    }
+
+    @Override
+    double doubleAt(int row) {
+        return values[row];
+    }
+}
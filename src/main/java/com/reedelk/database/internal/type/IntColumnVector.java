@@ -0,0 +1,39 @@
+package com.reedelk.database.internal.type;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+class IntColumnVector extends ColumnVector {
+
+    private int[] values;
+
+    IntColumnVector(String name, int capacity) {
+        super(name);
+        this.values = new int[capacity];
+    }
+
+    @Override
+    void set(int row, Object object, long primitive) {
+        values[row] = (int) primitive;
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    Serializable valueAt(int row) {
+        return values[row];
+    }
+
+    @Override
+    long longAt(int row) {
+        return values[row];
+    }
+
+    @Override
+    double doubleAt(int row) {
+        return values[row];
+    }
+}
@@ -0,0 +1,9 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.runtime.api.annotation.Type;
+
+import java.util.ArrayList;
+
+@Type(listItemType = BatchRowResult.class)
+public class ListOfBatchRowResult extends ArrayList<BatchRowResult> {
+}
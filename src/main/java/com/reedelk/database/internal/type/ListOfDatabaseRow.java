@@ -1,9 +1,46 @@
 package com.reedelk.database.internal.type;
 
+import com.reedelk.database.internal.commons.RowSchema;
 import com.reedelk.runtime.api.annotation.Type;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 
+/**
+ * Serialized in a compact binary format: the schema is written only once
+ * for consecutive rows sharing it, followed by the cells of each row.
+ */
 @Type(listItemType = DatabaseRow.class)
-public class ListOfDatabaseRow extends ArrayList<DatabaseRow> {
+public class ListOfDatabaseRow extends ArrayList<DatabaseRow> implements Externalizable {
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(size());
+        RowSchema previous = null;
+        for (DatabaseRow row : this) {
+            boolean sameSchema = row.schema() == previous;
+            out.writeBoolean(sameSchema);
+            if (!sameSchema) {
+                out.writeObject(row.schema());
+                previous = row.schema();
+            }
+            row.writeCells(out);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int size = in.readInt();
+        ensureCapacity(size);
+        RowSchema schema = null;
+        for (int i = 0; i < size; i++) {
+            if (!in.readBoolean()) {
+                schema = (RowSchema) in.readObject();
+            }
+            add(RowCodec.read(in, schema));
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package com.reedelk.database.internal.type;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+class LongColumnVector extends ColumnVector {
+
+    private long[] values;
+
+    LongColumnVector(String name, int capacity) {
+        super(name);
+        this.values = new long[capacity];
+    }
+
+    @Override
+    void set(int row, Object object, long primitive) {
+        values[row] = primitive;
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    Serializable valueAt(int row) {
+        return values[row];
+    }
+
+    @Override
+    long longAt(int row) {
+        return values[row];
+    }
+
+    @Override
+    double doubleAt(int row) {
+        return values[row];
+    }
+}
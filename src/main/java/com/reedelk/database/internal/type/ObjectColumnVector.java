@@ -0,0 +1,53 @@
+package com.reedelk.database.internal.type;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import static com.reedelk.database.internal.commons.Messages.Select.COLUMN_NOT_NUMERIC;
+
+class ObjectColumnVector extends ColumnVector {
+
+    private Object[] values;
+
+    ObjectColumnVector(String name, int capacity) {
+        super(name);
+        this.values = new Object[capacity];
+    }
+
+    @Override
+    void set(int row, Object object, long primitive) {
+        values[row] = object;
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    Serializable valueAt(int row) {
+        return (Serializable) values[row];
+    }
+
+    @Override
+    long longAt(int row) {
+        return numberAt(row).longValue();
+    }
+
+    @Override
+    double doubleAt(int row) {
+        return numberAt(row).doubleValue();
+    }
+
+    @Override
+    boolean booleanAt(int row) {
+        return values[row] instanceof Boolean ? (Boolean) values[row] : longAt(row) != 0;
+    }
+
+    private Number numberAt(int row) {
+        if (values[row] instanceof Number) {
+            return (Number) values[row];
+        }
+        throw new IllegalArgumentException(COLUMN_NOT_NUMERIC.format(getName()));
+    }
+}
@@ -0,0 +1,186 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.commons.RowSchema;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+/**
+ * Compact binary encoding of the cells of a database row: the null bitmap followed
+ * by the not null values. Integers are zigzag varint encoded, doubles are written as
+ * their raw bits and objects are prefixed by a type tag. The schema is not written.
+ * The same encoding is used by the externalized rows and by the spill files.
+ */
+class RowCodec {
+
+    private static final int TAG_STRING = 1;
+    private static final int TAG_DECIMAL = 2;
+    private static final int TAG_DATE = 3;
+    private static final int TAG_TIMESTAMP = 4;
+    private static final int TAG_BYTES = 5;
+    private static final int TAG_OBJECT = 6;
+
+    private RowCodec() {
+    }
+
+    static void write(DataOutput out, RowSchema schema, Object[] objects, long[] primitives, long[] nulls) throws IOException {
+        for (long word : nulls) {
+            writeVarLong(out, word);
+        }
+        for (int i = 0; i < schema.columnCount(); i++) {
+            if ((nulls[i >>> 6] & (1L << i)) != 0) continue;
+            switch (schema.columnKind(i)) {
+                case INT:
+                case LONG:
+                    writeVarLong(out, zigzag(primitives[i]));
+                    break;
+                case BOOLEAN:
+                    out.writeByte((int) primitives[i]);
+                    break;
+                case FLOAT:
+                    out.writeInt(Float.floatToRawIntBits((float) Double.longBitsToDouble(primitives[i])));
+                    break;
+                case DOUBLE:
+                    out.writeLong(primitives[i]);
+                    break;
+                default:
+                    writeObject(out, objects[i]);
+            }
+        }
+    }
+
+    static DatabaseRow read(DataInput in, RowSchema schema) throws IOException, ClassNotFoundException {
+        int columnCount = schema.columnCount();
+        Object[] objects = new Object[columnCount];
+        long[] primitives = new long[columnCount];
+        long[] nulls = new long[(columnCount + 63) >>> 6];
+        for (int i = 0; i < nulls.length; i++) {
+            nulls[i] = readVarLong(in);
+        }
+        for (int i = 0; i < columnCount; i++) {
+            if ((nulls[i >>> 6] & (1L << i)) != 0) continue;
+            switch (schema.columnKind(i)) {
+                case INT:
+                case LONG:
+                    primitives[i] = unzigzag(readVarLong(in));
+                    break;
+                case BOOLEAN:
+                    primitives[i] = in.readByte();
+                    break;
+                case FLOAT:
+                    primitives[i] = Double.doubleToRawLongBits(Float.intBitsToFloat(in.readInt()));
+                    break;
+                case DOUBLE:
+                    primitives[i] = in.readLong();
+                    break;
+                default:
+                    objects[i] = readObject(in);
+            }
+        }
+        return new DatabaseRow(schema, objects, primitives, nulls);
+    }
+
+    private static void writeObject(DataOutput out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            out.writeByte(TAG_DECIMAL);
+            writeVarLong(out, zigzag(decimal.scale()));
+            writeBytes(out, decimal.unscaledValue().toByteArray());
+        } else if (value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            out.writeByte(TAG_TIMESTAMP);
+            writeVarLong(out, zigzag(Math.floorDiv(timestamp.getTime(), 1000L)));
+            writeVarLong(out, timestamp.getNanos());
+        } else if (value instanceof Date) {
+            out.writeByte(TAG_DATE);
+            writeVarLong(out, zigzag(((Date) value).getTime()));
+        } else if (value instanceof byte[]) {
+            out.writeByte(TAG_BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value instanceof DatabaseBlob) {
+            // Streamed LOB values are read when the row is written.
+            out.writeByte(TAG_BYTES);
+            writeBytes(out, ((DatabaseBlob) value).getBytes());
+        } else if (value instanceof DatabaseClob) {
+            out.writeByte(TAG_STRING);
+            writeBytes(out, ((DatabaseClob) value).getString().getBytes(StandardCharsets.UTF_8));
+        } else {
+            // Values of other types are serialized on their own, the output might not be an object stream.
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+                objectOut.writeObject(value);
+            }
+            out.writeByte(TAG_OBJECT);
+            writeBytes(out, bytes.toByteArray());
+        }
+    }
+
+    private static Object readObject(DataInput in) throws IOException, ClassNotFoundException {
+        int tag = in.readByte();
+        switch (tag) {
+            case TAG_STRING:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case TAG_DECIMAL:
+                int scale = (int) unzigzag(readVarLong(in));
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case TAG_TIMESTAMP:
+                Timestamp timestamp = new Timestamp(unzigzag(readVarLong(in)) * 1000L);
+                timestamp.setNanos((int) readVarLong(in));
+                return timestamp;
+            case TAG_DATE:
+                return new Date(unzigzag(readVarLong(in)));
+            case TAG_BYTES:
+                return readBytes(in);
+            case TAG_OBJECT:
+                try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(readBytes(in)))) {
+                    return objectIn.readObject();
+                }
+            default:
+                throw new IOException("Unknown database row value tag=[" + tag + "]");
+        }
+    }
+
+    private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
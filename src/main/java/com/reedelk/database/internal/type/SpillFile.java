@@ -0,0 +1,136 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.commons.DatabaseUtils;
+import com.reedelk.database.internal.commons.RowSchema;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A temporary file of rows in the compact row encoding. Rows are appended through a buffered
+ * stream; once complete, the file is memory mapped and rows are read back by index. The file
+ * is mapped in segments of at most 1GB, a row never spans two segments.
+ */
+class SpillFile {
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final Path path;
+    private final RowSchema schema;
+    private final RowBytes rowBytes = new RowBytes();
+    private final DataOutputStream rowOutput = new DataOutputStream(rowBytes);
+
+    private DataOutputStream output;
+    private long position;
+    private long[] offsets = new long[1024];
+    private int rowCount;
+    private final List<Long> segmentStarts = new ArrayList<>();
+    private MappedByteBuffer[] segments;
+
+    SpillFile(RowSchema schema) throws IOException {
+        this.schema = schema;
+        this.path = Files.createTempFile("select-spill-", ".rows");
+        this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+        this.segmentStarts.add(0L);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    void append(DatabaseRow row) throws IOException {
+        rowBytes.reset();
+        row.writeCells(rowOutput);
+        int size = rowBytes.size();
+
+        long segmentStart = segmentStarts.get(segmentStarts.size() - 1);
+        if (position - segmentStart + size > SEGMENT_SIZE) {
+            segmentStarts.add(position);
+        }
+        if (rowCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, rowCount * 2);
+        }
+        offsets[rowCount++] = position;
+        output.write(rowBytes.buffer(), 0, size);
+        position += size;
+    }
+
+    void complete() throws IOException {
+        output.close();
+        output = null;
+        segments = new MappedByteBuffer[segmentStarts.size()];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int i = 0; i < segments.length; i++) {
+                long start = segmentStarts.get(i);
+                long end = i + 1 < segments.length ? segmentStarts.get(i + 1) : position;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            }
+        }
+    }
+
+    DatabaseRow read(int index) throws IOException, ClassNotFoundException {
+        if (segments == null) {
+            throw new IOException("spill file not available");
+        }
+        long offset = offsets[index];
+        int segment = segments.length - 1;
+        while (segmentStarts.get(segment) > offset) segment--;
+        ByteBuffer buffer = segments[segment].duplicate();
+        buffer.position((int) (offset - segmentStarts.get(segment)));
+        return RowCodec.read(new DataInputStream(new ByteBufferInputStream(buffer)), schema);
+    }
+
+    // The mapped segments are released by the garbage collector: on some
+    // platforms the file can not be deleted while still mapped.
+    void delete() {
+        DatabaseUtils.closeSilently(output);
+        output = null;
+        segments = null;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException exception) {
+            path.toFile().deleteOnExit();
+        }
+    }
+
+    private static class RowBytes extends ByteArrayOutputStream {
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
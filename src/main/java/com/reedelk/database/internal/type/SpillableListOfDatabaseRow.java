@@ -0,0 +1,112 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.exception.SelectException;
+import com.reedelk.runtime.api.annotation.Type;
+import com.reedelk.runtime.api.flow.Disposable;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.reedelk.database.internal.commons.Messages.Select.SPILL_READ_ERROR;
+import static com.reedelk.database.internal.commons.Messages.Select.SPILL_WRITE_ERROR;
+import static com.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+/**
+ * A list of database rows kept in memory up to the given memory budget: the following
+ * rows are appended to a temporary spill file and read back from the memory mapped file
+ * when accessed. Rows must share the same schema. The spill file is deleted when the list
+ * is disposed; once serialized, the list is a plain list of database rows.
+ */
+@Type(listItemType = DatabaseRow.class)
+public class SpillableListOfDatabaseRow extends AbstractList<DatabaseRow> implements Disposable, Serializable {
+
+    private final long memoryBudget;
+    private final List<DatabaseRow> rows = new ArrayList<>();
+    private long memorySize;
+    private SpillFile spillFile;
+
+    public SpillableListOfDatabaseRow(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    @Override
+    public boolean add(DatabaseRow row) {
+        if (spillFile == null && memorySize + row.estimatedSize() <= memoryBudget) {
+            memorySize += row.estimatedSize();
+            rows.add(row);
+        } else {
+            spill(row);
+        }
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Makes the spilled rows available for reading, no more rows can be added.
+     */
+    public void complete() {
+        if (spillFile != null) {
+            try {
+                spillFile.complete();
+            } catch (IOException exception) {
+                throw new SelectException(SPILL_WRITE_ERROR.format(spillFile.path(), rootCauseMessageOf(exception)), exception);
+            }
+        }
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    @Override
+    public DatabaseRow get(int index) {
+        if (index < rows.size()) {
+            return rows.get(index);
+        }
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        try {
+            return spillFile.read(index - rows.size());
+        } catch (IOException | ClassNotFoundException exception) {
+            throw new SelectException(SPILL_READ_ERROR.format(spillFile.path(), rootCauseMessageOf(exception)), exception);
+        }
+    }
+
+    @Override
+    public int size() {
+        return rows.size() + (spillFile == null ? 0 : spillFile.rowCount());
+    }
+
+    SpillFile spillFile() {
+        return spillFile;
+    }
+
+    @Override
+    public void dispose() {
+        if (spillFile != null) {
+            spillFile.delete();
+        }
+    }
+
+    private void spill(DatabaseRow row) {
+        try {
+            if (spillFile == null) {
+                spillFile = new SpillFile(row.schema());
+            }
+            spillFile.append(row);
+        } catch (IOException exception) {
+            String file = spillFile == null ? "" : spillFile.path().toString();
+            throw new SelectException(SPILL_WRITE_ERROR.format(file, rootCauseMessageOf(exception)), exception);
+        }
+    }
+
+    private Object writeReplace() {
+        ListOfDatabaseRow list = new ListOfDatabaseRow();
+        list.addAll(this);
+        return list;
+    }
+}
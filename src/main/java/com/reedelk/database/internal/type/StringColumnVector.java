@@ -0,0 +1,55 @@
+package com.reedelk.database.internal.type;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Dictionary encoded: each row stores the code of its value in the dictionary.
+class StringColumnVector extends ColumnVector {
+
+    private final ArrayList<String> dictionary = new ArrayList<>();
+    // Only used while values are appended.
+    private transient Map<String, Integer> codes = new HashMap<>();
+    private int[] values;
+
+    StringColumnVector(String name, int capacity) {
+        super(name);
+        this.values = new int[capacity];
+    }
+
+    @Override
+    void set(int row, Object object, long primitive) {
+        String value = (String) object;
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            codes.put(value, code);
+        }
+        values[row] = code;
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    public void complete() {
+        super.complete();
+        dictionary.trimToSize();
+        codes = null;
+    }
+
+    @Override
+    Serializable valueAt(int row) {
+        return dictionary.get(values[row]);
+    }
+
+    List<String> dictionary() {
+        return dictionary;
+    }
+}
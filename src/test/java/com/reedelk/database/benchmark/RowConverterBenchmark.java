@@ -0,0 +1,125 @@
+package com.reedelk.database.benchmark;
+
+import com.reedelk.database.internal.commons.RowConverter;
+import com.reedelk.database.internal.commons.RowSchema;
+import com.reedelk.database.internal.type.DatabaseRow;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the precompiled row converter with the previous converter,
+ * which accessed the result set metadata for each column of each row.
+ * Run with the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowConverterBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"5", "50"})
+    public int columns;
+
+    private SimpleResultSet resultSet;
+    private ResultSetMetaData metaData;
+    private RowSchema schema;
+
+    @Setup
+    public void setUp() throws SQLException {
+        resultSet = new SimpleResultSet();
+        // The result set is read again on each benchmark invocation.
+        resultSet.setAutoClose(false);
+        for (int i = 0; i < columns; i++) {
+            switch (i % 5) {
+                case 0: resultSet.addColumn("ID" + i, Types.BIGINT, 19, 0); break;
+                case 1: resultSet.addColumn("NAME" + i, Types.VARCHAR, 255, 0); break;
+                case 2: resultSet.addColumn("AMOUNT" + i, Types.DOUBLE, 17, 0); break;
+                case 3: resultSet.addColumn("QUANTITY" + i, Types.INTEGER, 10, 0); break;
+                default: resultSet.addColumn("PRICE" + i, Types.NUMERIC, 10, 2); break;
+            }
+        }
+        for (int row = 0; row < ROWS; row++) {
+            Object[] values = new Object[columns];
+            for (int i = 0; i < columns; i++) {
+                switch (i % 5) {
+                    case 0: values[i] = (long) row; break;
+                    case 1: values[i] = "Name " + row; break;
+                    case 2: values[i] = row * 1.5d; break;
+                    case 3: values[i] = row; break;
+                    default: values[i] = BigDecimal.valueOf(row, 2); break;
+                }
+            }
+            resultSet.addRow(values);
+        }
+        metaData = resultSet.getMetaData();
+        schema = RowSchema.from(metaData);
+    }
+
+    @Benchmark
+    public void precompiledConverter(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        RowConverter converter = RowConverter.from(schema);
+        while (resultSet.next()) {
+            blackhole.consume(converter.convert(resultSet));
+        }
+    }
+
+    @Benchmark
+    public void metadataLookupConverter(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(convert(metaData, resultSet, schema));
+        }
+    }
+
+    // The converter before the column extractors were precompiled.
+    private static DatabaseRow convert(ResultSetMetaData metaData,
+                                       ResultSet resultSetRow,
+                                       RowSchema schema) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        Object[] values = new Object[columnCount];
+        for (int i = 1; i <= columnCount; i++) {
+            int columnType = metaData.getColumnType(i);
+            if (columnType == Types.BIGINT) {
+                values[i - 1] = resultSetRow.getInt(i);
+            } else if (columnType == Types.BOOLEAN) {
+                values[i - 1] = resultSetRow.getBoolean(i);
+            } else if (columnType == Types.DOUBLE) {
+                values[i - 1] = resultSetRow.getDouble(i);
+            } else if (columnType == Types.FLOAT) {
+                values[i - 1] = resultSetRow.getFloat(i);
+            } else if (columnType == Types.INTEGER) {
+                values[i - 1] = resultSetRow.getInt(i);
+            } else if (columnType == Types.NVARCHAR) {
+                values[i - 1] = resultSetRow.getNString(i);
+            } else if (columnType == Types.VARCHAR) {
+                values[i - 1] = resultSetRow.getString(i);
+            } else if (columnType == Types.CHAR) {
+                values[i - 1] = resultSetRow.getString(i);
+            } else if (columnType == Types.NUMERIC) {
+                values[i - 1] = resultSetRow.getBigDecimal(i);
+            } else {
+                throw new IllegalStateException("Column type not benchmarked: " + columnType);
+            }
+        }
+        return new DatabaseRow(schema, values, new long[columnCount], new long[(columnCount + 63) >>> 6]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RowConverterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package com.reedelk.database.benchmark;
+
+import com.reedelk.database.internal.commons.RowSchema;
+import com.reedelk.database.internal.type.DatabaseRow;
+import com.reedelk.database.internal.type.ListOfDatabaseRow;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compact binary serialization of a list of database rows with the
+ * previous default serialization, where each row was serialized as a HashMap
+ * followed by its fields. The serialized sizes are printed by the main method,
+ * run it from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private ListOfDatabaseRow rows;
+    private ArrayList<DefaultSerializedRow> defaultSerializedRows;
+    private byte[] serializedRows;
+    private byte[] serializedDefaultRows;
+
+    @Setup
+    public void setUp() throws IOException {
+        RowSchema schema = new RowSchema(
+                new String[] {"ID", "NAME", "AMOUNT", "QUANTITY", "PRICE"},
+                new int[] {Types.BIGINT, Types.VARCHAR, Types.DOUBLE, Types.INTEGER, Types.NUMERIC});
+        rows = new ListOfDatabaseRow();
+        defaultSerializedRows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Object[] objects = {null, "Name " + i, null, null, BigDecimal.valueOf(i, 2)};
+            long[] primitives = {i, 0L, Double.doubleToRawLongBits(i * 1.5d), i % 100, 0L};
+            rows.add(new DatabaseRow(schema, objects, primitives, new long[1]));
+            defaultSerializedRows.add(new DefaultSerializedRow(schema, objects, primitives, new long[1]));
+        }
+        serializedRows = serialize(rows);
+        serializedDefaultRows = serialize(defaultSerializedRows);
+    }
+
+    @Benchmark
+    public byte[] serializeCompact() throws IOException {
+        return serialize(rows);
+    }
+
+    @Benchmark
+    public byte[] serializeDefault() throws IOException {
+        return serialize(defaultSerializedRows);
+    }
+
+    @Benchmark
+    public Object deserializeCompact() throws IOException, ClassNotFoundException {
+        return deserialize(serializedRows);
+    }
+
+    @Benchmark
+    public Object deserializeDefault() throws IOException, ClassNotFoundException {
+        return deserialize(serializedDefaultRows);
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    // The database row before the compact serialization.
+    static class DefaultSerializedRow extends HashMap<String, Serializable> {
+
+        private final RowSchema schema;
+        private final Object[] objects;
+        private final long[] primitives;
+        private final long[] nulls;
+
+        DefaultSerializedRow(RowSchema schema, Object[] objects, long[] primitives, long[] nulls) {
+            this.schema = schema;
+            this.objects = objects;
+            this.primitives = primitives;
+            this.nulls = nulls;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        SerializationBenchmark benchmark = new SerializationBenchmark();
+        benchmark.setUp();
+        System.out.printf("Serialized size of %d rows: compact=%d bytes, default=%d bytes%n",
+                ROWS, benchmark.serializedRows.length, benchmark.serializedDefaultRows.length);
+
+        new Runner(new OptionsBuilder()
+                .include(SerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,397 @@
+package com.reedelk.database.component;
+
+import com.reedelk.database.internal.commons.BatchFailureMode;
+import com.reedelk.database.internal.commons.BatchPartitionStrategy;
+import com.reedelk.database.internal.commons.DataSourceService;
+import com.reedelk.database.internal.commons.DatabaseDriver;
+import com.reedelk.database.internal.commons.GeneratedKeysOutput;
+import com.reedelk.database.internal.type.BatchRowResult;
+import com.reedelk.database.internal.type.DatabaseRow;
+import com.reedelk.database.internal.type.ListOfBatchRowResult;
+import com.reedelk.runtime.api.commons.ModuleContext;
+import com.reedelk.runtime.api.exception.PlatformException;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicObjectMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.zapodot.junit.db.annotations.EmbeddedDatabase;
+import org.zapodot.junit.db.annotations.EmbeddedDatabaseTest;
+import org.zapodot.junit.db.common.Engine;
+
+import reactor.core.publisher.Flux;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.reedelk.runtime.api.commons.ImmutableMap.of;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+
+@EmbeddedDatabaseTest(
+        engine = Engine.H2,
+        initialSqls = "CREATE TABLE Customer(id INTEGER PRIMARY KEY, name VARCHAR(512));"
+                + "INSERT INTO Customer(id, name) VALUES (1, 'John Doe');"
+)
+@ExtendWith(MockitoExtension.class)
+class BatchInsertTest {
+
+    @Mock
+    private ScriptEngineService mockScriptEngine;
+    @Mock
+    private FlowContext mockFlowContext;
+
+    private ModuleContext moduleContext = new ModuleContext(1L);
+
+    private BatchInsert component = new BatchInsert();
+
+    @BeforeEach
+    void setUp() {
+        ConnectionConfiguration connectionConfiguration = new ConnectionConfiguration();
+        connectionConfiguration.setConnectionURL("jdbc:h2:mem:" + BatchInsertTest.class.getSimpleName());
+        connectionConfiguration.setDatabaseDriver(DatabaseDriver.H2);
+        component.setConnection(connectionConfiguration);
+        component.dataSourceService = new DataSourceService();
+        component.scriptEngine = mockScriptEngine;
+    }
+
+    @AfterEach
+    void tearDown(@EmbeddedDatabase final DataSource dataSource) {
+        try {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Customer");
+        } catch (SQLException exception) {
+            // Nothing we can really do here.
+            exception.printStackTrace();
+        }
+    }
+
+    @Test
+    void shouldInsertElementsInBatches(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        List<Map<String, Object>> customers = asList(
+                of("id", 2, "name", "Mark Anton"),
+                of("id", 3, "name", "Michael S. Madden"),
+                of("id", 4, "name", "Paul Smith"));
+
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.setBatchSize(2);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(customers).build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int inserted = actual.payload();
+        assertThat(inserted).isEqualTo(3);
+
+        @SuppressWarnings("unchecked")
+        List<Integer> batchCounts = (List<Integer>) actual.attributes().get("batchCounts");
+        assertThat(batchCounts).containsExactly(2, 1);
+
+        assertCustomersCount(dataSource, 4);
+    }
+
+    @Test
+    void shouldReturnGeneratedKeysOfEachElement(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        dataSource.getConnection().createStatement().execute("CREATE TABLE Invoice(id IDENTITY PRIMARY KEY, amount INTEGER)");
+        List<Map<String, Object>> invoices = asList(
+                of("amount", 10), of("amount", 20), of("amount", 30), of("amount", 40), of("amount", 50));
+
+        component.setQuery("INSERT INTO Invoice(amount) VALUES (:amount)");
+        component.setBatchSize(2);
+        component.setReturnGeneratedKeys(true);
+        component.setGeneratedKeysOutput(GeneratedKeysOutput.PAYLOAD);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(invoices).build();
+
+        try {
+            // When
+            Message actual = component.apply(mockFlowContext, message);
+
+            // Then
+            List<DatabaseRow> keys = actual.payload();
+            assertThat(keys).hasSize(5);
+            for (int i = 0; i < keys.size(); i++) {
+                assertThat(keys.get(i).getLong(0)).isEqualTo(i + 1L);
+            }
+            assertThat(actual.attributes().get("rowCount")).isEqualTo(5);
+            assertThat(actual.attributes().get("generatedKeys")).isEqualTo(keys);
+        } finally {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Invoice");
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldInsertStreamElementsInBatches(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        AtomicLong maxRequested = new AtomicLong();
+        Flux<Map> customers = Flux.range(2, 5)
+                .doOnRequest(requested -> maxRequested.accumulateAndGet(requested, Math::max))
+                .map(id -> of("id", id, "name", "Customer " + id));
+
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.setBatchSize(2);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withTypedPublisher(TypedPublisher.from(customers, Map.class))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int inserted = actual.payload();
+        assertThat(inserted).isEqualTo(5);
+        assertThat(actual.attributes().get("rowCount")).isEqualTo(5);
+        assertThat(actual.attributes().get("batchCount")).isEqualTo(3);
+        assertThat((List<Integer>) actual.attributes().get("batchCounts")).containsExactly(2, 2, 1);
+
+        // Elements are never requested further than one batch ahead.
+        assertThat(maxRequested.get()).isLessThanOrEqualTo(2);
+
+        assertCustomersCount(dataSource, 6);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldExecuteStreamBatchWhenBatchTimeoutExpires(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        Flux<Map> customers = Flux.<Map>just(of("id", 2, "name", "Mark Anton"))
+                .concatWith(Flux.<Map>just(of("id", 3, "name", "Paul Smith")).delayElements(Duration.ofMillis(500)));
+
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.setBatchSize(10);
+        component.setBatchTimeout(50);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withTypedPublisher(TypedPublisher.from(customers, Map.class))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int inserted = actual.payload();
+        assertThat(inserted).isEqualTo(2);
+        assertThat((List<Integer>) actual.attributes().get("batchCounts")).containsExactly(1, 1);
+
+        assertCustomersCount(dataSource, 3);
+    }
+
+    @Test
+    void shouldEvaluateParametersMappingForEachElement(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        DynamicObjectMap map =
+                DynamicObjectMap.from(of("id", "#[message.payload()]", "name", "#['Customer ' + message.payload()]"), moduleContext);
+
+        lenient()
+                .doAnswer(invocation -> {
+                    Message elementMessage = invocation.getArgument(2);
+                    int id = elementMessage.payload();
+                    return of("id", id, "name", "Customer " + id);
+                })
+                .when(mockScriptEngine)
+                .evaluate(any(DynamicObjectMap.class), any(FlowContext.class), any(Message.class));
+
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.setParametersMapping(map);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(asList(5, 6)).build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int inserted = actual.payload();
+        assertThat(inserted).isEqualTo(2);
+
+        ResultSet resultSet = dataSource
+                .getConnection()
+                .createStatement()
+                .executeQuery("SELECT name FROM Customer WHERE id = 6");
+        assertThat(resultSet.next()).isTrue();
+        assertThat(resultSet.getString(1)).isEqualTo("Customer 6");
+    }
+
+    @Test
+    void shouldRollbackUncommittedBatchesWhenBatchFails(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        List<Map<String, Object>> customers = asList(
+                of("id", 2, "name", "Mark Anton"),
+                of("id", 1, "name", "Duplicated John Doe"));
+
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.setBatchSize(1);
+        component.setCommitInterval(10);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(customers).build();
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class,
+                () -> component.apply(mockFlowContext, message));
+
+        // Then
+        assertThat(thrown.getMessage()).startsWith("Could not execute batch insert query=[INSERT INTO Customer VALUES (:id,:name)]");
+        assertCustomersCount(dataSource, 1);
+    }
+
+    @Test
+    void shouldCommitSucceededRowsAndReportFailedRowsWhenIsolatingFailures(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        List<Map<String, Object>> customers = asList(
+                of("id", 2, "name", "Mark Anton"),
+                of("id", 1, "name", "Duplicated John Doe"),
+                of("id", 3, "name", "Paul Smith"),
+                of("id", 4, "name", "Michael S. Madden"),
+                of("id", 2, "name", "Duplicated Mark Anton"),
+                of("id", 5, "name", "Anna Lee"));
+
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.setBatchSize(3);
+        component.setRowFailureHandling(BatchFailureMode.ISOLATE_FAILED_ROWS);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(customers).build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int inserted = actual.payload();
+        assertThat(inserted).isEqualTo(4);
+        assertThat((int) actual.attributes().get("failedRowCount")).isEqualTo(2);
+
+        ListOfBatchRowResult rowResults = (ListOfBatchRowResult) actual.attributes().get("rowResults");
+        assertThat(rowResults).extracting(BatchRowResult::isSuccess)
+                .containsExactly(true, false, true, true, false, true);
+        assertThat(rowResults.get(1).getSqlState()).isEqualTo("23505");
+        assertThat(rowResults.get(4).getMessage()).contains("Unique index or primary key violation");
+
+        assertCustomersCount(dataSource, 5);
+    }
+
+    @Test
+    void shouldInsertOnParallelConnectionsPartitionedByKey(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        List<Map<String, Object>> customers = IntStream.rangeClosed(2, 1001)
+                .mapToObj(id -> of("id", (Object) id, "name", "Customer " + id))
+                .collect(Collectors.toList());
+
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.setBatchSize(50);
+        component.setParallelConnections(4);
+        component.setPartitionStrategy(BatchPartitionStrategy.KEY_HASH);
+        component.setPartitionKey("id");
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(customers).build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int inserted = actual.payload();
+        assertThat(inserted).isEqualTo(1000);
+
+        @SuppressWarnings("unchecked")
+        List<Integer> batchCounts = (List<Integer>) actual.attributes().get("batchCounts");
+        assertThat(batchCounts.stream().mapToInt(Integer::intValue).sum()).isEqualTo(1000);
+
+        assertCustomersCount(dataSource, 1001);
+        component.dispose();
+    }
+
+    @Test
+    void shouldReportFirstFailedBatchInElementOrderOnParallelConnections() {
+        // Given
+        List<Map<String, Object>> customers = asList(
+                of("id", 2, "name", "Mark Anton"),
+                of("id", 3, "name", "Paul Smith"),
+                of("id", 4, "name", "Michael S. Madden"),
+                of("id", 1, "name", "Duplicated John Doe"),
+                of("id", 5, "name", "Anna Lee"),
+                of("id", 6, "name", "Tom Hill"));
+
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.setBatchSize(2);
+        component.setParallelConnections(2);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(customers).build();
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class,
+                () -> component.apply(mockFlowContext, message));
+
+        // Then
+        assertThat(thrown.getMessage())
+                .startsWith("Could not execute batch insert query=[INSERT INTO Customer VALUES (:id,:name)], failed batches=[1], " +
+                        "first element of the first failed batch=[2]");
+        component.dispose();
+    }
+
+    @Test
+    void shouldNotAllowGeneratedKeysOnParallelConnections() {
+        // Given
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.setParallelConnections(2);
+        component.setReturnGeneratedKeys(true);
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class, () -> component.initialize());
+
+        // Then
+        assertThat(thrown).hasMessageContaining("Generated keys can not be returned when inserting on parallel connections");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPayloadIsNotCollection() {
+        // Given
+        component.setQuery("INSERT INTO Customer VALUES (:id,:name)");
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withText("Test").build();
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class,
+                () -> component.apply(mockFlowContext, message));
+
+        // Then
+        assertThat(thrown).hasMessage("Batch insert payload must be a collection, found=[java.lang.String]");
+    }
+
+    private void assertCustomersCount(DataSource dataSource, int expected) throws SQLException {
+        ResultSet resultSet = dataSource
+                .getConnection()
+                .createStatement()
+                .executeQuery("SELECT COUNT(*) FROM Customer");
+        assertThat(resultSet.next()).isTrue();
+        assertThat(resultSet.getInt(1)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,274 @@
+package com.reedelk.database.component;
+
+import com.reedelk.database.internal.commons.BulkLoadMethod;
+import com.reedelk.database.internal.commons.DataSourceService;
+import com.reedelk.database.internal.commons.DatabaseDriver;
+import com.reedelk.runtime.api.exception.PlatformException;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.zapodot.junit.db.annotations.EmbeddedDatabase;
+import org.zapodot.junit.db.annotations.EmbeddedDatabaseTest;
+import org.zapodot.junit.db.common.Engine;
+import reactor.core.publisher.Flux;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Map;
+
+import static com.reedelk.runtime.api.commons.ImmutableMap.of;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@EmbeddedDatabaseTest(
+        engine = Engine.H2,
+        initialSqls = "CREATE TABLE Product(id INTEGER PRIMARY KEY, name VARCHAR(512), price DECIMAL(10,2));" +
+                "CREATE TABLE Document(id INTEGER PRIMARY KEY, created TIMESTAMP, content VARBINARY(64));"
+)
+@ExtendWith(MockitoExtension.class)
+class BulkLoadTest {
+
+    @Mock
+    private FlowContext mockFlowContext;
+
+    private BulkLoad component = new BulkLoad();
+
+    @BeforeEach
+    void setUp() {
+        ConnectionConfiguration connectionConfiguration = new ConnectionConfiguration();
+        connectionConfiguration.setConnectionURL("jdbc:h2:mem:" + BulkLoadTest.class.getSimpleName());
+        connectionConfiguration.setDatabaseDriver(DatabaseDriver.H2);
+        component.setConnection(connectionConfiguration);
+        component.setTable("Product");
+        component.setColumns("id, name, price");
+        component.dataSourceService = new DataSourceService();
+    }
+
+    @AfterEach
+    void tearDown(@EmbeddedDatabase final DataSource dataSource) {
+        try {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Product");
+            dataSource.getConnection().createStatement().execute("DROP TABLE Document");
+        } catch (SQLException exception) {
+            // Nothing we can really do here.
+            exception.printStackTrace();
+        }
+    }
+
+    @Test
+    void shouldLoadCsvBytesWithCsvRead(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        String csv = "id,name,price\r\n" +
+                "1,\"Chair, oak\",120.50\r\n" +
+                "2,\"The \"\"big\"\" table\",\r\n";
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withBinary(csv.getBytes(StandardCharsets.UTF_8))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        long loaded = actual.payload();
+        assertThat(loaded).isEqualTo(2);
+        assertThat((String) actual.attributes().get("method")).isEqualTo("CSVREAD");
+        assertThat((long) actual.attributes().get("rowCount")).isEqualTo(2);
+        assertThat(nameOf(dataSource, 1)).isEqualTo("Chair, oak");
+        assertThat(nameOf(dataSource, 2)).isEqualTo("The \"big\" table");
+        assertThat(priceOf(dataSource, 1)).isEqualByComparingTo("120.50");
+        assertThat(priceOf(dataSource, 2)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void shouldLoadStreamOfRowsWithCsvRead(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        Flux<Map> products = Flux.range(1, 1000)
+                .map(id -> of("id", id, "name", id == 2 ? "" : "Product " + id, "price", new BigDecimal(id + ".99")));
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withTypedPublisher(TypedPublisher.from(products, Map.class))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        long loaded = actual.payload();
+        assertThat(loaded).isEqualTo(1000);
+        assertThat(nameOf(dataSource, 1000)).isEqualTo("Product 1000");
+        assertThat(nameOf(dataSource, 2)).isEmpty();
+        assertThat(priceOf(dataSource, 500)).isEqualByComparingTo("500.99");
+    }
+
+    @Test
+    void shouldLoadCsvTextStreamWithBatchInserts(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        Flux<String> chunks = Flux.just("1,\"Lamp\",15.2", "5\n2,\"Desk\n", "drawer\",\n");
+        component.setMethod(BulkLoadMethod.BATCH_INSERT);
+        component.setHeader(false);
+        component.setBatchSize(1);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withTypedPublisher(TypedPublisher.from(chunks, String.class))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        long loaded = actual.payload();
+        assertThat(loaded).isEqualTo(2);
+        assertThat((String) actual.attributes().get("method")).isEqualTo("BATCH INSERT");
+        assertThat(nameOf(dataSource, 2)).isEqualTo("Desk\ndrawer");
+        assertThat(priceOf(dataSource, 1)).isEqualByComparingTo("15.25");
+        assertThat(priceOf(dataSource, 2)).isNull();
+    }
+
+    @Test
+    void shouldLoadCollectionOfValueListsWithBatchInserts(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        component.setMethod(BulkLoadMethod.BATCH_INSERT);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withJavaObject(asList(asList(1, "Sofa", new BigDecimal("300")), asList(2, "Rug", null)))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        long loaded = actual.payload();
+        assertThat(loaded).isEqualTo(2);
+        assertThat(nameOf(dataSource, 2)).isEqualTo("Rug");
+        assertThat(priceOf(dataSource, 1)).isEqualByComparingTo("300");
+    }
+
+    @Test
+    void shouldLoadDateValuesWithCsvRead(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        Date created = new Date(1600000000123L);
+        component.setTable("Document");
+        component.setColumns("id, created");
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withJavaObject(asList(asList(1, created), asList(2, null)))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        assertThat((String) actual.attributes().get("method")).isEqualTo("CSVREAD");
+        assertThat(createdOf(dataSource, 1)).isEqualTo(new Timestamp(created.getTime()));
+        assertThat(createdOf(dataSource, 2)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void shouldLoadBinaryValuesWithCsvRead(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        byte[] content = new byte[] {0, 1, (byte) 0xAB, (byte) 0xFF, '"', ','};
+        Flux<Map> documents = Flux.just(of("id", 1, "content", content), of("id", 2, "content", new byte[0]));
+        component.setTable("Document");
+        component.setColumns("id, content");
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withTypedPublisher(TypedPublisher.from(documents, Map.class))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        long loaded = actual.payload();
+        assertThat(loaded).isEqualTo(2);
+        assertThat(contentOf(dataSource, 1)).isEqualTo(content);
+        assertThat(contentOf(dataSource, 2)).isEmpty();
+    }
+
+    @Test
+    void shouldRollbackAndThrowExceptionWhenLoadFails(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        component.setHeader(false);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withJavaObject("1,\"Chair\",10\n1,\"Chair\",10\n")
+                .build();
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class,
+                () -> component.apply(mockFlowContext, message));
+
+        // Then
+        assertThat(thrown).hasMessageStartingWith("Could not bulk load into table=[Product] with method=[CSVREAD]");
+        ResultSet resultSet = dataSource.getConnection().createStatement().executeQuery("SELECT COUNT(*) FROM Product");
+        assertThat(resultSet.next()).isTrue();
+        assertThat(resultSet.getInt(1)).isZero();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPayloadIsNotSupported() {
+        // Given
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(42).build();
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class,
+                () -> component.apply(mockFlowContext, message));
+
+        // Then
+        assertThat(thrown).hasMessage("Bulk load payload must be CSV bytes or text, " +
+                "a collection or a stream, found=[java.lang.Integer]");
+    }
+
+    private String nameOf(DataSource dataSource, int id) throws SQLException {
+        ResultSet resultSet = dataSource.getConnection().createStatement()
+                .executeQuery("SELECT name FROM Product WHERE id = " + id);
+        assertThat(resultSet.next()).isTrue();
+        return resultSet.getString(1);
+    }
+
+    private BigDecimal priceOf(DataSource dataSource, int id) throws SQLException {
+        ResultSet resultSet = dataSource.getConnection().createStatement()
+                .executeQuery("SELECT price FROM Product WHERE id = " + id);
+        assertThat(resultSet.next()).isTrue();
+        return resultSet.getBigDecimal(1);
+    }
+
+    private Timestamp createdOf(DataSource dataSource, int id) throws SQLException {
+        ResultSet resultSet = dataSource.getConnection().createStatement()
+                .executeQuery("SELECT created FROM Document WHERE id = " + id);
+        assertThat(resultSet.next()).isTrue();
+        return resultSet.getTimestamp(1);
+    }
+
+    private byte[] contentOf(DataSource dataSource, int id) throws SQLException {
+        ResultSet resultSet = dataSource.getConnection().createStatement()
+                .executeQuery("SELECT content FROM Document WHERE id = " + id);
+        assertThat(resultSet.next()).isTrue();
+        return resultSet.getBytes(1);
+    }
+}
@@ -0,0 +1,167 @@
+package com.reedelk.database.component;
+
+import com.reedelk.database.internal.commons.DataSourceService;
+import com.reedelk.database.internal.commons.DatabaseDriver;
+import com.reedelk.runtime.api.commons.ModuleContext;
+import com.reedelk.runtime.api.exception.PlatformException;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicObjectMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.zapodot.junit.db.annotations.EmbeddedDatabase;
+import org.zapodot.junit.db.annotations.EmbeddedDatabaseTest;
+import org.zapodot.junit.db.common.Engine;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+import static com.reedelk.runtime.api.commons.ImmutableMap.of;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+
+@EmbeddedDatabaseTest(
+        engine = Engine.H2,
+        initialSqls = "CREATE TABLE Customer(id INTEGER PRIMARY KEY, name VARCHAR(512));"
+                + "INSERT INTO Customer(id, name) VALUES (1, 'John Doe');"
+                + "INSERT INTO Customer(id, name) VALUES (2, 'Francis Lane');"
+                + "INSERT INTO Customer(id, name) VALUES (3, 'Mark Anton');"
+                + "INSERT INTO Customer(id, name) VALUES (4, 'Olivia Tree');"
+                + "INSERT INTO Customer(id, name) VALUES (5, 'Anna Grey');"
+)
+@ExtendWith(MockitoExtension.class)
+class ChunkedDeleteTest {
+
+    @Mock
+    private ScriptEngineService mockScriptEngine;
+    @Mock
+    private FlowContext mockFlowContext;
+
+    private ModuleContext moduleContext = new ModuleContext(1L);
+
+    private ChunkedDelete component = new ChunkedDelete();
+
+    private Message testMessage;
+
+    @BeforeEach
+    void setUp() {
+        testMessage = MessageBuilder.get(TestComponent.class).withText("Test").build();
+        lenient()
+                .doReturn(new HashMap<>())
+                .when(mockScriptEngine)
+                .evaluate(any(DynamicObjectMap.class), any(FlowContext.class), any(Message.class));
+
+        ConnectionConfiguration connectionConfiguration = new ConnectionConfiguration();
+        connectionConfiguration.setConnectionURL("jdbc:h2:mem:" + ChunkedDeleteTest.class.getSimpleName());
+        connectionConfiguration.setDatabaseDriver(DatabaseDriver.H2);
+        component.setConnection(connectionConfiguration);
+        component.setTable("Customer");
+        component.dataSourceService = new DataSourceService();
+        component.scriptEngine = mockScriptEngine;
+    }
+
+    @AfterEach
+    void tearDown(@EmbeddedDatabase final DataSource dataSource) {
+        try {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Customer");
+        } catch (SQLException exception) {
+            // Nothing we can really do here.
+            exception.printStackTrace();
+        }
+    }
+
+    @Test
+    void shouldDeleteAllRowsInChunks(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        component.setChunkSize(2);
+        component.initialize();
+
+        // When
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        // Then
+        long deleted = actual.payload();
+        assertThat(deleted).isEqualTo(5);
+
+        MessageAttributes attributes = actual.attributes();
+        assertThat(attributes.get("chunkCount")).isEqualTo(3);
+        assertThat(attributes.get("rowCount")).isEqualTo(5L);
+
+        assertThat(countOf(dataSource, "SELECT COUNT(*) FROM Customer")).isEqualTo(0);
+    }
+
+    @Test
+    void shouldDeleteRowsMatchingParameterizedCondition(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        DynamicObjectMap map =
+                DynamicObjectMap.from(of("minId", "#[2]"), moduleContext);
+
+        lenient()
+                .doReturn(of("minId", 2))
+                .when(mockScriptEngine)
+                .evaluate(any(DynamicObjectMap.class), any(FlowContext.class), any(Message.class));
+
+        component.setCondition("id > :minId");
+        component.setChunkSize(3);
+        component.setParametersMapping(map);
+        component.initialize();
+
+        // When
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        // Then
+        long deleted = actual.payload();
+        assertThat(deleted).isEqualTo(3);
+
+        // A full chunk is followed by an empty one.
+        MessageAttributes attributes = actual.attributes();
+        assertThat(attributes.get("chunkCount")).isEqualTo(2);
+
+        assertThat(countOf(dataSource, "SELECT COUNT(*) FROM Customer")).isEqualTo(2);
+        assertThat(countOf(dataSource, "SELECT COUNT(*) FROM Customer WHERE id > 2")).isEqualTo(0);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenConditionIsNotValid() {
+        // Given
+        component.setCondition("not_existing_column = 1");
+        component.initialize();
+
+        // When
+        PlatformException thrown =
+                assertThrows(PlatformException.class, () -> component.apply(mockFlowContext, testMessage));
+
+        // Then
+        assertThat(thrown).hasMessageStartingWith("Could not execute chunked delete query=" +
+                "[DELETE FROM Customer WHERE (not_existing_column = 1) LIMIT ?] after deleting rows=[0] in chunks=[0]");
+    }
+
+    @Test
+    void shouldThrowPreconditionErrorWhenConnectionIsNotDefined() {
+        // Given
+        component.setConnection(null);
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class, () -> component.initialize());
+
+        // Then
+        assertThat(thrown).hasMessageContaining("Connection configuration must be available");
+    }
+
+    private int countOf(DataSource dataSource, String query) throws SQLException {
+        ResultSet resultSet = dataSource.getConnection().createStatement().executeQuery(query);
+        resultSet.next();
+        return resultSet.getInt(1);
+    }
+}
@@ -2,6 +2,8 @@ package com.reedelk.database.component;
 
 import com.reedelk.database.internal.commons.DataSourceService;
 import com.reedelk.database.internal.commons.DatabaseDriver;
+import com.reedelk.database.internal.commons.GeneratedKeysOutput;
+import com.reedelk.database.internal.type.DatabaseRow;
 import com.reedelk.runtime.api.commons.ModuleContext;
 import com.reedelk.runtime.api.exception.PlatformException;
 import com.reedelk.runtime.api.flow.FlowContext;
@@ -20,9 +22,11 @@ import org.zapodot.junit.db.annotations.EmbeddedDatabaseTest;
 import org.zapodot.junit.db.common.Engine;
 
 import javax.sql.DataSource;
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
 
 import static com.reedelk.runtime.api.commons.ImmutableMap.of;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -101,6 +105,96 @@ class InsertTest {
         assertThat(actualName).isEqualTo("Mark Anton");
     }
 
+    @Test
+    void shouldReturnGeneratedKeys(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        dataSource.getConnection().createStatement().execute("CREATE TABLE Invoice(id IDENTITY PRIMARY KEY, amount INTEGER, " +
+                "created VARCHAR(32) DEFAULT 'today')");
+
+        component.setQuery("INSERT INTO Invoice(amount) VALUES (120)");
+        component.setReturnGeneratedKeys(true);
+        component.initialize();
+
+        try {
+            // When
+            Message actual = component.apply(mockFlowContext, testMessage);
+
+            // Then
+            int inserted = actual.payload();
+            assertThat(inserted).isEqualTo(1);
+
+            @SuppressWarnings("unchecked")
+            List<DatabaseRow> keys = (List<DatabaseRow>) actual.attributes().get("generatedKeys");
+            assertThat(keys).hasSize(1);
+            assertThat(keys.get(0).getLong("ID")).isEqualTo(1L);
+        } finally {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Invoice");
+        }
+    }
+
+    @Test
+    void shouldReturnKeyColumnsAsPayload(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        dataSource.getConnection().createStatement().execute("CREATE TABLE Invoice(id IDENTITY PRIMARY KEY, amount INTEGER, " +
+                "created VARCHAR(32) DEFAULT 'today')");
+
+        component.setQuery("INSERT INTO Invoice(amount) VALUES (120)");
+        component.setReturnGeneratedKeys(true);
+        component.setKeyColumns("ID, CREATED");
+        component.setGeneratedKeysOutput(GeneratedKeysOutput.PAYLOAD);
+        component.initialize();
+
+        try {
+            // When
+            Message actual = component.apply(mockFlowContext, testMessage);
+
+            // Then
+            List<DatabaseRow> keys = actual.payload();
+            assertThat(keys).hasSize(1);
+            assertThat(keys.get(0).getLong("ID")).isEqualTo(1L);
+            assertThat(keys.get(0).get("CREATED")).isEqualTo("today");
+        } finally {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Invoice");
+        }
+    }
+
+    @Test
+    void shouldStreamLargeBinaryParameter(@EmbeddedDatabase final DataSource dataSource) throws Exception {
+        // Given
+        dataSource.getConnection().createStatement().execute("CREATE TABLE Attachment(id INTEGER PRIMARY KEY, content BLOB)");
+        int length = 16 * 1024 * 1024;
+        GeneratedInputStream content = new GeneratedInputStream(length);
+
+        lenient()
+                .doReturn(of("id", 1, "content", content))
+                .when(mockScriptEngine)
+                .evaluate(any(DynamicObjectMap.class), any(FlowContext.class), any(Message.class));
+
+        component.setQuery("INSERT INTO Attachment VALUES (:id, :content)");
+        component.setParametersMapping(DynamicObjectMap.from(of("id", "#[1]", "content", "#[message.payload()]"), moduleContext));
+        component.initialize();
+
+        try {
+            // When
+            Message actual = component.apply(mockFlowContext, testMessage);
+
+            // Then
+            int inserted = actual.payload();
+            assertThat(inserted).isEqualTo(1);
+            // The value is read by the driver in chunks, it is never copied into a single array.
+            assertThat(content.maxReadLength).isLessThan(length / 16);
+
+            ResultSet resultSet = dataSource.getConnection().createStatement()
+                    .executeQuery("SELECT content FROM Attachment WHERE id = 1");
+            assertThat(resultSet.next()).isTrue();
+            try (InputStream stored = resultSet.getBinaryStream(1)) {
+                assertThat(stored).hasSameContentAs(new GeneratedInputStream(length));
+            }
+        } finally {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Attachment");
+        }
+    }
+
     @Test
     void shouldInsertRowCorrectlyWhenParameterizedQuery(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
         // Given
@@ -150,4 +244,32 @@ class InsertTest {
         assertThat(thrown).hasMessage("Could not execute insert query=[INSERT INTO Customer VAALUES(2,'Mark Anton')NOT CORRECT]: Syntax error in SQL statement \"INSERT INTO CUSTOMER VAALUES[*](2,'Mark Anton')NOT CORRECT\"; expected \"., (, DIRECT, SORTED, DEFAULT, VALUES, SET, (, WITH, SELECT, TABLE, VALUES\"; SQL statement:\n" +
                 "INSERT INTO Customer VAALUES(2,'Mark Anton')NOT CORRECT [42001-200]");
     }
+
+    // Generates the bytes while they are read, without holding them in memory.
+    static class GeneratedInputStream extends InputStream {
+
+        private final int length;
+        private int position;
+        int maxReadLength;
+
+        GeneratedInputStream(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            return position < length ? (position++ % 251) : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) {
+            if (position >= length) return -1;
+            maxReadLength = Math.max(maxReadLength, count);
+            int read = Math.min(count, length - position);
+            for (int i = 0; i < read; i++) {
+                buffer[offset + i] = (byte) (position++ % 251);
+            }
+            return read;
+        }
+    }
 }
@@ -2,12 +2,22 @@ package com.reedelk.database.component;
 
 import com.reedelk.database.internal.commons.DataSourceService;
 import com.reedelk.database.internal.commons.DatabaseDriver;
+import com.reedelk.database.internal.commons.DisposableResultSet;
+import com.reedelk.database.internal.commons.FetchMode;
+import com.reedelk.database.internal.commons.LobMode;
+import com.reedelk.database.internal.commons.MaxRowsExceededStrategy;
+import com.reedelk.database.internal.type.ColumnVector;
+import com.reedelk.database.internal.type.ColumnarResult;
+import com.reedelk.database.internal.type.DatabaseBlob;
 import com.reedelk.database.internal.type.DatabaseRow;
+import com.reedelk.database.internal.type.ListOfDatabaseRow;
+import com.reedelk.database.internal.type.SpillableListOfDatabaseRow;
 import com.reedelk.runtime.api.commons.ModuleContext;
 import com.reedelk.runtime.api.exception.PlatformException;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
 import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedContent;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicmap.DynamicObjectMap;
 import com.reedelk.runtime.api.type.MapOfStringSerializable;
@@ -15,14 +25,23 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscription;
 import org.zapodot.junit.db.annotations.EmbeddedDatabase;
 import org.zapodot.junit.db.annotations.EmbeddedDatabaseTest;
 import org.zapodot.junit.db.common.Engine;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
 
 import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -31,6 +50,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
 
 @EmbeddedDatabaseTest(
         engine = Engine.H2,
@@ -185,6 +205,320 @@ class SelectTest {
                 "SELECT WHERE customer WHERE id = 2 [42000-200]");
     }
 
+    @Test
+    void shouldReadRowsFromResultSetOnlyWhenRequested() throws SQLException {
+        // Given
+        component.setQuery("SELECT X FROM SYSTEM_RANGE(1, 1000)");
+        component.initialize();
+
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+        verify(mockFlowContext).register(captor.capture());
+        DisposableResultSet resultSet = captor.getValue();
+
+        // A slow subscriber which requested only 10 rows.
+        List<DatabaseRow> received = new ArrayList<>();
+        BaseSubscriber<DatabaseRow> slowSubscriber = new BaseSubscriber<DatabaseRow>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(10);
+            }
+            @Override
+            protected void hookOnNext(DatabaseRow row) {
+                received.add(row);
+            }
+        };
+
+        // When
+        TypedContent<List<DatabaseRow>, DatabaseRow> content = actual.content();
+        content.stream().subscribe(slowSubscriber);
+
+        // Then: no row is read ahead of the subscriber demand.
+        assertThat(received).hasSize(10);
+        assertThat(resultSet.getRow()).isEqualTo(10);
+
+        // When
+        slowSubscriber.request(5);
+
+        // Then
+        assertThat(received).hasSize(15);
+        assertThat(resultSet.getRow()).isEqualTo(15);
+
+        slowSubscriber.dispose();
+    }
+
+    @Test
+    void shouldReleaseResultSetWhenStreamCompletes() throws SQLException {
+        // Given
+        component.setQuery("SELECT * FROM Customer");
+        component.initialize();
+
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+        verify(mockFlowContext).register(captor.capture());
+
+        // When
+        List<DatabaseRow> result = actual.payload();
+
+        // Then
+        assertThat(result).hasSize(2);
+        assertThat(captor.getValue().isClosed()).isTrue();
+    }
+
+    @Test
+    void shouldReleaseResultSetWhenStreamIsCancelled() throws SQLException {
+        // Given
+        component.setQuery("SELECT X FROM SYSTEM_RANGE(1, 1000)");
+        component.initialize();
+
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+        verify(mockFlowContext).register(captor.capture());
+
+        // When
+        TypedContent<List<DatabaseRow>, DatabaseRow> content = actual.content();
+        List<DatabaseRow> firstRows = Flux.from(content.stream()).take(10).collectList().block();
+
+        // Then
+        assertThat(firstRows).hasSize(10);
+        assertThat(captor.getValue().isClosed()).isTrue();
+    }
+
+    @Test
+    void shouldMaterializeRowsAndReleaseResultSet() throws SQLException {
+        // Given
+        component.setQuery("SELECT * FROM Customer");
+        component.setFetchMode(FetchMode.MATERIALIZE);
+        component.initialize();
+
+        // When
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        // Then
+        ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+        verify(mockFlowContext).register(captor.capture());
+        assertThat(captor.getValue().isClosed()).isTrue();
+
+        TypedContent<List<DatabaseRow>, DatabaseRow> content = actual.content();
+        assertThat(content.isStream()).isFalse();
+
+        List<DatabaseRow> result = actual.payload();
+        assertThat(result).isInstanceOf(ListOfDatabaseRow.class);
+        assertFound(result, of("ID", 1, "NAME", "John Doe"));
+        assertFound(result, of("ID", 2, "NAME", "Mark Anton"));
+    }
+
+    @Test
+    void shouldFallbackToStreamWhenMaxMaterializedRowsExceeded() {
+        // Given
+        component.setQuery("SELECT X FROM SYSTEM_RANGE(1, 100)");
+        component.setFetchMode(FetchMode.MATERIALIZE);
+        component.setMaxRows(10);
+        component.initialize();
+
+        // When
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        // Then
+        List<DatabaseRow> result = actual.payload();
+        assertThat(result).hasSize(100);
+        for (int i = 0; i < result.size(); i++) {
+            assertThat(result.get(i).get(0)).isEqualTo(i + 1L);
+        }
+    }
+
+    @Test
+    void shouldMaterializeAllRowsWhenSpillThresholdIsDefined() {
+        // Given
+        component.setQuery("SELECT X FROM SYSTEM_RANGE(1, 2500)");
+        component.setFetchMode(FetchMode.MATERIALIZE);
+        component.setOnMaxRowsExceeded(MaxRowsExceededStrategy.FAIL);
+        component.setSpillThreshold(0);
+        component.initialize();
+
+        // When
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        // Then
+        TypedContent<List<DatabaseRow>, DatabaseRow> content = actual.content();
+        assertThat(content.isStream()).isFalse();
+
+        List<DatabaseRow> result = actual.payload();
+        assertThat(result).isInstanceOf(SpillableListOfDatabaseRow.class);
+        assertThat(((SpillableListOfDatabaseRow) result).isSpilled()).isTrue();
+        assertThat(result).hasSize(2500);
+        assertThat(result.get(2499).get(0)).isEqualTo(2500L);
+        ((SpillableListOfDatabaseRow) result).dispose();
+    }
+
+    @Test
+    void shouldFailWhenMaxMaterializedRowsExceeded() throws SQLException {
+        // Given
+        component.setQuery("SELECT X FROM SYSTEM_RANGE(1, 100)");
+        component.setFetchMode(FetchMode.MATERIALIZE);
+        component.setMaxRows(10);
+        component.setOnMaxRowsExceeded(MaxRowsExceededStrategy.FAIL);
+        component.initialize();
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class,
+                () -> component.apply(mockFlowContext, testMessage));
+
+        // Then
+        assertThat(thrown).hasMessage("Select query=[SELECT X FROM SYSTEM_RANGE(1, 100)] returned more than the max materialized rows=[10]");
+
+        ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+        verify(mockFlowContext).register(captor.capture());
+        assertThat(captor.getValue().isClosed()).isTrue();
+    }
+
+    @Test
+    void shouldReturnColumnarResult() throws SQLException {
+        // Given
+        component.setQuery("SELECT X, CAST(X * 1.5 AS DOUBLE) AS AMOUNT, " +
+                "CASEWHEN(MOD(X, 2) = 0, 'EVEN', 'ODD') AS PARITY, " +
+                "CASEWHEN(X = 3, NULL, X) AS MAYBE FROM SYSTEM_RANGE(1, 3000)");
+        component.setFetchMode(FetchMode.COLUMNAR);
+        component.initialize();
+
+        // When
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        // Then
+        ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+        verify(mockFlowContext).register(captor.capture());
+        assertThat(captor.getValue().isClosed()).isTrue();
+
+        ColumnarResult result = actual.payload();
+        assertThat(result.getRowCount()).isEqualTo(3000);
+        assertThat(result.getColumnCount()).isEqualTo(4);
+
+        ColumnVector amount = result.getColumn("AMOUNT");
+        double sum = 0;
+        for (int row = 0; row < amount.size(); row++) {
+            sum += amount.getDouble(row);
+        }
+        assertThat(sum).isEqualTo(1.5d * 3000 * 3001 / 2);
+        assertThat(result.getColumn("X").getLong(2999)).isEqualTo(3000L);
+        assertThat(result.get("PARITY", 0)).isEqualTo("ODD");
+        assertThat(result.get("PARITY", 1)).isEqualTo("EVEN");
+        assertThat(result.getColumn("MAYBE").isNull(2)).isTrue();
+        assertThat(result.get("MAYBE", 2)).isNull();
+        assertThat(result.get("MAYBE", 3)).isEqualTo(4L);
+    }
+
+    @Test
+    void shouldStreamLargeLobsWhileFlowIsRunning(@EmbeddedDatabase DataSource dataSource) throws Exception {
+        // Given
+        byte[] content = new byte[3 * 1024 * 1024];
+        new Random(7).nextBytes(content);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().execute("CREATE TABLE Document(id INTEGER PRIMARY KEY, content BLOB, summary CLOB)");
+            PreparedStatement insert = connection.prepareStatement("INSERT INTO Document(id, content, summary) VALUES (?, ?, ?)");
+            insert.setInt(1, 1);
+            insert.setBytes(2, content);
+            insert.setString(3, "Short summary");
+            insert.executeUpdate();
+        }
+
+        component.setQuery("SELECT id, content, summary FROM Document");
+        component.setFetchMode(FetchMode.MATERIALIZE);
+        component.setLobMode(LobMode.THRESHOLD);
+        component.setLobThreshold(1024);
+        component.initialize();
+
+        try {
+            // When
+            Message actual = component.apply(mockFlowContext, testMessage);
+
+            // Then
+            ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+            verify(mockFlowContext).register(captor.capture());
+            DisposableResultSet resultSet = captor.getValue();
+            assertThat(resultSet.isClosed()).isFalse();
+
+            List<DatabaseRow> rows = actual.payload();
+            DatabaseBlob blob = (DatabaseBlob) rows.get(0).get("CONTENT");
+            assertThat(blob.length()).isEqualTo(content.length);
+            try (InputStream inputStream = blob.getInputStream()) {
+                assertThat(inputStream).hasSameContentAs(new ByteArrayInputStream(content));
+            }
+            assertThat(rows.get(0).get("SUMMARY")).isEqualTo("Short summary");
+
+            resultSet.dispose();
+        } finally {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.createStatement().execute("DROP TABLE Document");
+            }
+        }
+    }
+
+    @Test
+    void shouldStreamArrowRecordBatches() throws SQLException {
+        // Given
+        component.setQuery("SELECT X FROM SYSTEM_RANGE(1, 250)");
+        component.setFetchMode(FetchMode.ARROW);
+        component.setArrowBatchRows(100);
+        component.initialize();
+
+        // When
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        // Then
+        TypedContent<byte[], byte[]> content = actual.content();
+        assertThat(content.isStream()).isTrue();
+        assertThat(content.streamType()).isEqualTo(byte[].class);
+
+        List<byte[]> chunks = actual.payload();
+        assertThat(chunks).hasSize(5); // Schema, three record batches, end of stream
+        assertThat(chunks.get(4)).containsExactly(0xFF, 0xFF, 0xFF, 0xFF, 0, 0, 0, 0);
+
+        ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+        verify(mockFlowContext).register(captor.capture());
+        assertThat(captor.getValue().isClosed()).isTrue();
+    }
+
+    @Test
+    void shouldStreamRowsAsNdjson() throws SQLException {
+        // Given
+        component.setQuery("SELECT * FROM Customer ORDER BY id");
+        component.setFetchMode(FetchMode.NDJSON);
+        component.initialize();
+
+        // When
+        Message actual = component.apply(mockFlowContext, testMessage);
+
+        // Then
+        List<byte[]> chunks = actual.payload();
+        assertThat(chunks).hasSize(1);
+        assertThat(new String(chunks.get(0), StandardCharsets.UTF_8)).isEqualTo(
+                "{\"ID\":1,\"NAME\":\"John Doe\"}\n" +
+                "{\"ID\":2,\"NAME\":\"Mark Anton\"}\n");
+
+        ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+        verify(mockFlowContext).register(captor.capture());
+        assertThat(captor.getValue().isClosed()).isTrue();
+    }
+
+    @Test
+    void shouldApplyFetchSizeToResultSet() throws SQLException {
+        // Given
+        component.setQuery("SELECT * FROM Customer");
+        component.setFetchSize(50);
+        component.initialize();
+
+        // When
+        component.apply(mockFlowContext, testMessage);
+
+        // Then
+        ArgumentCaptor<DisposableResultSet> captor = ArgumentCaptor.forClass(DisposableResultSet.class);
+        verify(mockFlowContext).register(captor.capture());
+        assertThat(captor.getValue().getStatement().getFetchSize()).isEqualTo(50);
+    }
+
     private void assertFound(Collection<DatabaseRow> rows, Map<String, Serializable> columnNameAndValueMap) {
         boolean found = findRowInCollection(rows, columnNameAndValueMap);
         assertThat(found).isTrue();
@@ -1,12 +1,16 @@
 package com.reedelk.database.component;
 
+import com.reedelk.database.internal.commons.BulkLoadMethod;
 import com.reedelk.database.internal.commons.DataSourceService;
 import com.reedelk.database.internal.commons.DatabaseDriver;
+import com.reedelk.database.internal.commons.UpdateMode;
 import com.reedelk.runtime.api.commons.ModuleContext;
 import com.reedelk.runtime.api.exception.PlatformException;
 import com.reedelk.runtime.api.flow.FlowContext;
 import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageAttributes;
 import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
 import com.reedelk.runtime.api.script.ScriptEngineService;
 import com.reedelk.runtime.api.script.dynamicmap.DynamicObjectMap;
 import org.junit.jupiter.api.AfterEach;
@@ -18,13 +22,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.zapodot.junit.db.annotations.EmbeddedDatabase;
 import org.zapodot.junit.db.annotations.EmbeddedDatabaseTest;
 import org.zapodot.junit.db.common.Engine;
+import reactor.core.publisher.Flux;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.Map;
 
 import static com.reedelk.runtime.api.commons.ImmutableMap.of;
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +43,7 @@ import static org.mockito.Mockito.lenient;
         engine = Engine.H2,
         initialSqls = "CREATE TABLE Customer(id INTEGER PRIMARY KEY, name VARCHAR(512));"
                 + "INSERT INTO Customer(id, name) VALUES (1, 'John Doe');"
+                + "INSERT INTO Customer(id, name) VALUES (2, 'Francis Lane');"
 )
 @ExtendWith(MockitoExtension.class)
 class UpdateTest {
@@ -98,6 +108,41 @@ class UpdateTest {
         assertThat(actualName).isEqualTo("Francis Lane");
     }
 
+    @Test
+    void shouldBindLargeTextParameterAsCharacterStream(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        dataSource.getConnection().createStatement().execute("CREATE TABLE Note(id INTEGER PRIMARY KEY, text CLOB)");
+        dataSource.getConnection().createStatement().execute("INSERT INTO Note(id, text) VALUES (1, 'Draft')");
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 4 * 1024 * 1024) {
+            text.append("Zoë's notes, ");
+        }
+
+        lenient()
+                .doReturn(of("text", text.toString()))
+                .when(mockScriptEngine)
+                .evaluate(any(DynamicObjectMap.class), any(FlowContext.class), any(Message.class));
+
+        component.setQuery("UPDATE Note SET text = :text WHERE id = 1");
+        component.setParametersMapping(DynamicObjectMap.from(of("text", "#[message.payload()]"), moduleContext));
+        component.initialize();
+
+        try {
+            // When
+            Message actual = component.apply(mockFlowContext, testMessage);
+
+            // Then
+            int updated = actual.payload();
+            assertThat(updated).isEqualTo(1);
+
+            ResultSet resultSet = dataSource.getConnection().createStatement().executeQuery("SELECT text FROM Note WHERE id = 1");
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getString(1)).isEqualTo(text.toString());
+        } finally {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Note");
+        }
+    }
+
     @Test
     void shouldInsertRowCorrectlyWhenParameterizedQuery(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
         // Given
@@ -147,4 +192,188 @@ class UpdateTest {
         assertThat(thrown).hasMessage("Could not execute update query=[UPDATE Customer SETWHERE id = 1;]: Syntax error in SQL statement \"UPDATE CUSTOMER SETWHERE ID[*] = 1;\"; expected \"SET\"; SQL statement:\n" +
                 "UPDATE Customer SETWHERE id = 1; [42001-200]");
     }
+
+    @Test
+    void shouldUpdateRowsFromStagingTable(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        useStagingTable(BulkLoadMethod.BATCH_INSERT);
+
+        // The customer with id 3 does not exist: it is not inserted.
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withJavaObject(asList(
+                        of("id", 1, "name", "Mark Anton"),
+                        of("id", 3, "name", "Olivia Tree")))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int updated = actual.payload();
+        assertThat(updated).isEqualTo(1);
+
+        MessageAttributes attributes = actual.attributes();
+        assertThat(attributes.get("stagedRowCount")).isEqualTo(2L);
+        assertThat(attributes.get("loadMethod")).isEqualTo("BATCH INSERT");
+
+        assertThat(nameOf(dataSource, 1)).isEqualTo("Mark Anton");
+        assertThat(nameOf(dataSource, 2)).isEqualTo("Francis Lane");
+        assertThat(countOf(dataSource)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldUpdateStreamRowsFromStagingTableWithNativeBulkLoad(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        useStagingTable(BulkLoadMethod.NATIVE);
+
+        Flux<Map> customers = Flux.range(1, 2).map(id -> of("id", id, "name", "Customer " + id));
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withTypedPublisher(TypedPublisher.from(customers, Map.class))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int updated = actual.payload();
+        assertThat(updated).isEqualTo(2);
+
+        MessageAttributes attributes = actual.attributes();
+        assertThat(attributes.get("loadMethod")).isEqualTo("CSVREAD");
+
+        assertThat(nameOf(dataSource, 1)).isEqualTo("Customer 1");
+        assertThat(nameOf(dataSource, 2)).isEqualTo("Customer 2");
+    }
+
+    @Test
+    void shouldUpdateDateAndBinaryColumnsFromStagingTableWithNativeBulkLoad(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        dataSource.getConnection().createStatement().execute(
+                "CREATE TABLE Document(id INTEGER PRIMARY KEY, created TIMESTAMP, content VARBINARY(64))");
+        dataSource.getConnection().createStatement().execute("INSERT INTO Document(id) VALUES (1)");
+        Date created = new Date(1600000000123L);
+        byte[] content = new byte[] {0, 1, (byte) 0xAB, (byte) 0xFF, '"', ','};
+
+        lenient()
+                .doAnswer(invocation -> ((Message) invocation.getArgument(2)).payload())
+                .when(mockScriptEngine)
+                .evaluate(any(DynamicObjectMap.class), any(FlowContext.class), any(Message.class));
+
+        component.setMode(UpdateMode.STAGING_TABLE);
+        component.setTable("Document");
+        component.setKeyColumns("id");
+        component.setLoadMethod(BulkLoadMethod.NATIVE);
+        component.setColumnsMapping(DynamicObjectMap.from(of(
+                "id", "#[message.payload().id]",
+                "created", "#[message.payload().created]",
+                "content", "#[message.payload().content]"), moduleContext));
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withJavaObject(asList(of("id", 1, "created", created, "content", content)))
+                .build();
+
+        try {
+            // When
+            Message actual = component.apply(mockFlowContext, message);
+
+            // Then
+            int updated = actual.payload();
+            assertThat(updated).isEqualTo(1);
+
+            ResultSet resultSet = dataSource.getConnection().createStatement()
+                    .executeQuery("SELECT created, content FROM Document WHERE id = 1");
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getTimestamp(1)).isEqualTo(new Timestamp(created.getTime()));
+            assertThat(resultSet.getBytes(2)).isEqualTo(content);
+        } finally {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Document");
+        }
+    }
+
+    @Test
+    void shouldDropStagingTableAfterEachUpdate(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        useStagingTable(BulkLoadMethod.BATCH_INSERT);
+
+        Message first = MessageBuilder.get(TestComponent.class)
+                .withJavaObject(asList(of("id", 1, "name", "First")))
+                .build();
+        Message second = MessageBuilder.get(TestComponent.class)
+                .withJavaObject(asList(of("id", 1, "name", "Second")))
+                .build();
+
+        // When
+        component.apply(mockFlowContext, first);
+        Message actual = component.apply(mockFlowContext, second);
+
+        // Then
+        int updated = actual.payload();
+        assertThat(updated).isEqualTo(1);
+        assertThat(nameOf(dataSource, 1)).isEqualTo("Second");
+    }
+
+    @Test
+    void shouldRollbackStagingTableUpdateWhenRowsAreNotValid(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        useStagingTable(BulkLoadMethod.BATCH_INSERT);
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withJavaObject(asList(
+                        of("id", 1, "name", "Mark Anton"),
+                        of("id", "not a number", "name", "Olivia Tree")))
+                .build();
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class,
+                () -> component.apply(mockFlowContext, message));
+
+        // Then
+        assertThat(thrown).hasMessageStartingWith("Could not execute staging table update of table=[Customer], " +
+                "query=[MERGE INTO Customer t USING reedelk_update_staging s ON (t.id = s.id) " +
+                "WHEN MATCHED THEN UPDATE SET name = s.name]");
+        assertThat(nameOf(dataSource, 1)).isEqualTo("John Doe");
+    }
+
+    @Test
+    void shouldThrowPreconditionErrorWhenStagingTableConnectionIsNotDefined() {
+        // Given
+        component.setConnection(null);
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class,
+                () -> useStagingTable(BulkLoadMethod.BATCH_INSERT));
+
+        // Then
+        assertThat(thrown).hasMessageContaining("Connection configuration must be available");
+    }
+
+    private void useStagingTable(BulkLoadMethod loadMethod) {
+        // The column values are the entries of the element.
+        lenient()
+                .doAnswer(invocation -> ((Message) invocation.getArgument(2)).payload())
+                .when(mockScriptEngine)
+                .evaluate(any(DynamicObjectMap.class), any(FlowContext.class), any(Message.class));
+
+        component.setMode(UpdateMode.STAGING_TABLE);
+        component.setTable("Customer");
+        component.setKeyColumns("id");
+        component.setLoadMethod(loadMethod);
+        component.setColumnsMapping(DynamicObjectMap.from(
+                of("id", "#[message.payload().id]", "name", "#[message.payload().name]"), moduleContext));
+        component.initialize();
+    }
+
+    private String nameOf(DataSource dataSource, int id) throws SQLException {
+        ResultSet resultSet = dataSource.getConnection().createStatement()
+                .executeQuery("SELECT name FROM Customer WHERE id = " + id);
+        assertThat(resultSet.next()).isTrue();
+        return resultSet.getString(1);
+    }
+
+    private int countOf(DataSource dataSource) throws SQLException {
+        ResultSet resultSet = dataSource.getConnection().createStatement().executeQuery("SELECT COUNT(*) FROM Customer");
+        resultSet.next();
+        return resultSet.getInt(1);
+    }
 }
@@ -0,0 +1,166 @@
+package com.reedelk.database.component;
+
+import com.reedelk.database.internal.commons.DataSourceService;
+import com.reedelk.database.internal.commons.DatabaseDriver;
+import com.reedelk.runtime.api.commons.ModuleContext;
+import com.reedelk.runtime.api.exception.PlatformException;
+import com.reedelk.runtime.api.flow.FlowContext;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
+import com.reedelk.runtime.api.script.ScriptEngineService;
+import com.reedelk.runtime.api.script.dynamicmap.DynamicObjectMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.zapodot.junit.db.annotations.EmbeddedDatabase;
+import org.zapodot.junit.db.annotations.EmbeddedDatabaseTest;
+import org.zapodot.junit.db.common.Engine;
+import reactor.core.publisher.Flux;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static com.reedelk.runtime.api.commons.ImmutableMap.of;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+
+@EmbeddedDatabaseTest(
+        engine = Engine.H2,
+        initialSqls = "CREATE TABLE Customer(id INTEGER PRIMARY KEY, name VARCHAR(512));"
+                + "INSERT INTO Customer(id, name) VALUES (1, 'John Doe');"
+)
+@ExtendWith(MockitoExtension.class)
+class UpsertTest {
+
+    @Mock
+    private ScriptEngineService mockScriptEngine;
+    @Mock
+    private FlowContext mockFlowContext;
+
+    private ModuleContext moduleContext = new ModuleContext(1L);
+
+    private Upsert component = new Upsert();
+
+    @BeforeEach
+    void setUp() {
+        // The column values are the entries of the element.
+        lenient()
+                .doAnswer(invocation -> ((Message) invocation.getArgument(2)).payload())
+                .when(mockScriptEngine)
+                .evaluate(any(DynamicObjectMap.class), any(FlowContext.class), any(Message.class));
+
+        ConnectionConfiguration connectionConfiguration = new ConnectionConfiguration();
+        connectionConfiguration.setConnectionURL("jdbc:h2:mem:" + UpsertTest.class.getSimpleName());
+        connectionConfiguration.setDatabaseDriver(DatabaseDriver.H2);
+        component.setConnection(connectionConfiguration);
+        component.setTable("Customer");
+        component.setKeyColumns("id");
+        component.setColumnsMapping(DynamicObjectMap.from(
+                of("id", "#[message.payload().id]", "name", "#[message.payload().name]"), moduleContext));
+        component.dataSourceService = new DataSourceService();
+        component.scriptEngine = mockScriptEngine;
+    }
+
+    @AfterEach
+    void tearDown(@EmbeddedDatabase final DataSource dataSource) {
+        try {
+            dataSource.getConnection().createStatement().execute("DROP TABLE Customer");
+        } catch (SQLException exception) {
+            // Nothing we can really do here.
+            exception.printStackTrace();
+        }
+    }
+
+    @Test
+    void shouldInsertOrUpdateSingleRow(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        component.initialize();
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(of("id", 1, "name", "Francis Lane")).build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int upserted = actual.payload();
+        assertThat(upserted).isEqualTo(1);
+        assertThat((String) actual.attributes().get("query")).startsWith("MERGE INTO Customer (").contains("KEY (id)");
+        assertThat(nameOf(dataSource, 1)).isEqualTo("Francis Lane");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldUpsertCollectionInBatches(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        List<Map<String, Object>> customers = asList(
+                of("id", 1, "name", "John Smith"),
+                of("id", 2, "name", "Mark Anton"),
+                of("id", 3, "name", "Paul Smith"));
+
+        component.setBatchSize(2);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(customers).build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int upserted = actual.payload();
+        assertThat(upserted).isEqualTo(3);
+        assertThat((List<Integer>) actual.attributes().get("batchCounts")).containsExactly(2, 1);
+        assertThat(nameOf(dataSource, 1)).isEqualTo("John Smith");
+        assertThat(nameOf(dataSource, 3)).isEqualTo("Paul Smith");
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void shouldUpsertStreamElements(@EmbeddedDatabase final DataSource dataSource) throws SQLException {
+        // Given
+        Flux<Map> customers = Flux.range(1, 4).map(id -> of("id", id, "name", "Customer " + id));
+
+        component.setBatchSize(3);
+        component.initialize();
+
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withTypedPublisher(TypedPublisher.from(customers, Map.class))
+                .build();
+
+        // When
+        Message actual = component.apply(mockFlowContext, message);
+
+        // Then
+        int upserted = actual.payload();
+        assertThat(upserted).isEqualTo(4);
+        assertThat(nameOf(dataSource, 1)).isEqualTo("Customer 1");
+        assertThat(nameOf(dataSource, 4)).isEqualTo("Customer 4");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenKeyColumnIsNotMapped() {
+        // Given
+        component.setKeyColumns("id, email");
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class, () -> component.initialize());
+
+        // Then
+        assertThat(thrown).hasMessageContaining("Key column=[email] must be defined in the column value mappings");
+    }
+
+    private String nameOf(DataSource dataSource, int id) throws SQLException {
+        ResultSet resultSet = dataSource.getConnection().createStatement()
+                .executeQuery("SELECT name FROM Customer WHERE id = " + id);
+        assertThat(resultSet.next()).isTrue();
+        return resultSet.getString(1);
+    }
+}
@@ -0,0 +1,153 @@
+package com.reedelk.database.internal.arrow;
+
+import com.reedelk.database.internal.commons.RowConverter;
+import com.reedelk.database.internal.commons.RowSchema;
+import com.reedelk.database.internal.exception.ConversionError;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.*;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.h2.tools.SimpleResultSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ArrowStreamWriterTest {
+
+    private SimpleResultSet resultSet;
+
+    @BeforeEach
+    void setUp() {
+        resultSet = new SimpleResultSet();
+    }
+
+    @Test
+    void shouldWriteStreamReadableByArrow() throws Exception {
+        // Given
+        resultSet.addColumn("ID", Types.INTEGER, 10, 0);
+        resultSet.addColumn("BIG", Types.BIGINT, 19, 0);
+        resultSet.addColumn("AMOUNT", Types.DOUBLE, 17, 0);
+        resultSet.addColumn("RATIO", Types.FLOAT, 7, 0);
+        resultSet.addColumn("ACTIVE", Types.BOOLEAN, 1, 0);
+        resultSet.addColumn("NAME", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("PRICE", Types.NUMERIC, 10, 2);
+        resultSet.addColumn("BORN", Types.DATE, 10, 0);
+        resultSet.addColumn("CREATED", Types.TIMESTAMP, 26, 6);
+        resultSet.addColumn("DATA", Types.BLOB, 0, 0);
+        for (int i = 0; i < 5; i++) {
+            resultSet.addRow(i, 3000000000L + i, i * 1.5d, i * 0.5f, i % 2 == 0, "Name " + i,
+                    new BigDecimal("-12.5").add(BigDecimal.valueOf(i)),
+                    Date.valueOf(LocalDate.of(2020, 1, 1 + i)),
+                    Timestamp.valueOf(LocalDateTime.of(2020, 1, 1, 10, 30, 0, 123456000)),
+                    new SerialBlob(new byte[] {(byte) i, 2, 3}));
+        }
+        resultSet.addRow(null, null, null, null, null, null, null, null, null, null);
+
+        ArrowStreamWriter writer = ArrowStreamWriter.from(converter(), 4);
+
+        // When
+        List<byte[]> chunks = writeAll(writer);
+
+        // Then
+        assertThat(chunks).hasSize(4); // Schema, two record batches, end of stream
+
+        try (RootAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(concat(chunks)), allocator)) {
+
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertThat(root.getSchema().getFields()).extracting("name")
+                    .containsExactly("ID", "BIG", "AMOUNT", "RATIO", "ACTIVE", "NAME", "PRICE", "BORN", "CREATED", "DATA");
+            assertThat(root.getSchema().findField("PRICE").getType()).isEqualTo(new ArrowType.Decimal(10, 2));
+
+            assertThat(reader.loadNextBatch()).isTrue();
+            assertThat(root.getRowCount()).isEqualTo(4);
+            assertThat(((IntVector) root.getVector("ID")).get(3)).isEqualTo(3);
+            assertThat(((BigIntVector) root.getVector("BIG")).get(3)).isEqualTo(3000000003L);
+            assertThat(((Float8Vector) root.getVector("AMOUNT")).get(3)).isEqualTo(4.5d);
+            assertThat(((Float4Vector) root.getVector("RATIO")).get(3)).isEqualTo(1.5f);
+            assertThat(((BitVector) root.getVector("ACTIVE")).get(2)).isEqualTo(1);
+            assertThat(((BitVector) root.getVector("ACTIVE")).get(3)).isEqualTo(0);
+            assertThat(((VarCharVector) root.getVector("NAME")).getObject(3).toString()).isEqualTo("Name 3");
+            assertThat(((DecimalVector) root.getVector("PRICE")).getObject(0)).isEqualTo(new BigDecimal("-12.50"));
+            assertThat(((DateDayVector) root.getVector("BORN")).get(3)).isEqualTo((int) LocalDate.of(2020, 1, 4).toEpochDay());
+            assertThat(((TimeStampMicroVector) root.getVector("CREATED")).getObject(0))
+                    .isEqualTo(LocalDateTime.of(2020, 1, 1, 10, 30, 0, 123456000));
+            assertThat(((VarBinaryVector) root.getVector("DATA")).get(3)).containsExactly(3, 2, 3);
+
+            assertThat(reader.loadNextBatch()).isTrue();
+            assertThat(root.getRowCount()).isEqualTo(2);
+            assertThat(((IntVector) root.getVector("ID")).get(0)).isEqualTo(4);
+            for (FieldVector vector : root.getFieldVectors()) {
+                assertThat(vector.isNull(1)).isTrue();
+                assertThat(vector.getNullCount()).isEqualTo(1);
+            }
+
+            assertThat(reader.loadNextBatch()).isFalse();
+        }
+    }
+
+    @Test
+    void shouldWriteSchemaAndEndOfStreamWhenResultSetIsEmpty() throws Exception {
+        // Given
+        resultSet.addColumn("ID", Types.INTEGER, 10, 0);
+        ArrowStreamWriter writer = ArrowStreamWriter.from(converter(), 100);
+
+        // When
+        List<byte[]> chunks = writeAll(writer);
+
+        // Then
+        assertThat(chunks).hasSize(2);
+        try (RootAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(concat(chunks)), allocator)) {
+            assertThat(reader.getVectorSchemaRoot().getSchema().getFields()).hasSize(1);
+            assertThat(reader.loadNextBatch()).isFalse();
+        }
+    }
+
+    @Test
+    void shouldThrowWhenColumnTypeIsNotSupported() throws SQLException {
+        // Given
+        resultSet.addColumn("DATA", Types.ARRAY, 0, 0);
+
+        // When
+        ConversionError thrown = assertThrows(ConversionError.class,
+                () -> ArrowStreamWriter.from(converter(), 100));
+
+        // Then
+        assertThat(thrown).hasMessage("Column type id=[2003] not supported for column name=[DATA]");
+    }
+
+    private RowConverter converter() throws SQLException {
+        return RowConverter.from(RowSchema.from(resultSet.getMetaData()));
+    }
+
+    private List<byte[]> writeAll(ArrowStreamWriter writer) throws SQLException {
+        List<byte[]> chunks = new ArrayList<>();
+        byte[] chunk;
+        while ((chunk = writer.next(resultSet)) != null) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static byte[] concat(List<byte[]> chunks) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) {
+            stream.write(chunk);
+        }
+        return stream.toByteArray();
+    }
+}
@@ -0,0 +1,143 @@
+package com.reedelk.database.internal.batch;
+
+import com.reedelk.database.internal.type.BatchRowResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IsolatingBatchWriterTest {
+
+    @Mock
+    private Connection mockConnection;
+    @Mock
+    private PreparedStatement mockStatement;
+
+    // The ids bound to the statement since the last executed batch.
+    private final List<Integer> batch = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lenient().doAnswer(invocation -> {
+            batch.clear();
+            return null;
+        }).when(mockStatement).clearBatch();
+    }
+
+    @Test
+    void shouldExecuteAgainStatementsBeforeFirstFailedOneWhenDriverStopsAtIt() throws SQLException {
+        // Given
+        // The driver stops at the failed statement, reporting the counts of the ones before it.
+        failingBatch(ids -> ids.subList(0, ids.indexOf(3)).stream().mapToInt(id -> 1).toArray());
+        IsolatingBatchWriter writer = new IsolatingBatchWriter(mockConnection, mockStatement, this::bind, 10, 1);
+
+        // When
+        for (int id = 1; id <= 5; id++) writer.add(singletonMap("id", id));
+        writer.flush();
+
+        // Then
+        assertThat(writer.rowCount()).isEqualTo(4);
+        assertThat(writer.failedRowCount()).isEqualTo(1);
+        assertThat(failedIndexes(writer)).containsExactly(2);
+        assertThat(writer.rowResults().get(2).getSqlState()).isEqualTo("23505");
+        // The failed statement is executed again on its own before it is recorded as failed.
+        verify(mockStatement, times(4)).executeBatch();
+        verify(mockConnection, times(2)).rollback(any());
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void shouldBisectBatchWhenDriverDoesNotReportUpdateCounts() throws SQLException {
+        // Given
+        failingBatch(ids -> new int[0]);
+        IsolatingBatchWriter writer = new IsolatingBatchWriter(mockConnection, mockStatement, this::bind, 8, 1);
+
+        // When
+        for (int id = 1; id <= 8; id++) writer.add(singletonMap("id", id == 6 ? 3 : id));
+        writer.flush();
+
+        // Then
+        assertThat(writer.rowCount()).isEqualTo(6);
+        assertThat(failedIndexes(writer)).containsExactly(2, 5);
+        assertThat(writer.rowResults()).extracting(BatchRowResult::getIndex)
+                .containsExactly(0, 1, 2, 3, 4, 5, 6, 7);
+        assertThat(writer.batchCounts()).containsExactly(6);
+    }
+
+    @Test
+    void shouldBisectBatchWhenDriverReportsEveryStatementAsFailed() throws SQLException {
+        // Given
+        failingBatch(ids -> ids.stream().mapToInt(id -> Statement.EXECUTE_FAILED).toArray());
+        IsolatingBatchWriter writer = new IsolatingBatchWriter(mockConnection, mockStatement, this::bind, 5, 1);
+
+        // When
+        for (int id = 1; id <= 5; id++) writer.add(singletonMap("id", id));
+        writer.flush();
+
+        // Then
+        assertThat(writer.rowCount()).isEqualTo(4);
+        assertThat(failedIndexes(writer)).containsExactly(2);
+        assertThat(writer.rowResults()).extracting(BatchRowResult::getIndex)
+                .containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void shouldNotRecordFailedStatementWhenItSucceedsOnItsOwn() throws SQLException {
+        // Given
+        // The driver reports the first statement of a rewritten group as the failed one.
+        failingBatch(ids -> ids.stream().mapToInt(id -> id == ids.get(0) ? Statement.EXECUTE_FAILED : 1).toArray());
+        IsolatingBatchWriter writer = new IsolatingBatchWriter(mockConnection, mockStatement, this::bind, 5, 1);
+
+        // When
+        for (int id = 1; id <= 5; id++) writer.add(singletonMap("id", id));
+        writer.flush();
+
+        // Then
+        assertThat(writer.rowCount()).isEqualTo(4);
+        assertThat(failedIndexes(writer)).containsExactly(2);
+        assertThat(writer.rowResults()).extracting(BatchRowResult::getIndex)
+                .containsExactly(0, 1, 2, 3, 4);
+    }
+
+    private void failingBatch(UpdateCounts updateCounts) throws SQLException {
+        doAnswer(invocation -> {
+            List<Integer> ids = new ArrayList<>(batch);
+            batch.clear();
+            if (ids.contains(3)) {
+                throw new BatchUpdateException("Duplicate key", "23505", updateCounts.of(ids));
+            }
+            return ids.stream().mapToInt(id -> 1).toArray();
+        }).when(mockStatement).executeBatch();
+    }
+
+    private void bind(PreparedStatement statement, Map<String, Object> parameters) {
+        batch.add((Integer) parameters.get("id"));
+    }
+
+    private List<Integer> failedIndexes(IsolatingBatchWriter writer) {
+        return writer.rowResults().stream()
+                .filter(result -> !result.isSuccess())
+                .map(BatchRowResult::getIndex)
+                .collect(Collectors.toList());
+    }
+
+    private interface UpdateCounts {
+        int[] of(List<Integer> ids);
+    }
+}
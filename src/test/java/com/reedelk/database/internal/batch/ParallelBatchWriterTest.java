@@ -0,0 +1,116 @@
+package com.reedelk.database.internal.batch;
+
+import com.reedelk.database.internal.commons.QueryStatementTemplate;
+import com.reedelk.database.internal.commons.StatementCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelBatchWriterTest {
+
+    @Mock
+    private DataSource mockDataSource;
+    @Mock
+    private Connection mockConnection;
+    @Mock
+    private PreparedStatement mockStatement;
+
+    private final CountDownLatch batchStarted = new CountDownLatch(1);
+    private final CountDownLatch batchFinish = new CountDownLatch(1);
+
+    private ExecutorService executor;
+    private ParallelBatchWriter writer;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        doReturn(mockConnection).when(mockDataSource).getConnection();
+        doReturn(true).when(mockConnection).getAutoCommit();
+        doReturn(mockStatement).when(mockConnection).prepareStatement(anyString());
+        doAnswer(invocation -> {
+            batchStarted.countDown();
+            batchFinish.await();
+            return new int[] {1};
+        }).when(mockStatement).executeBatch();
+
+        executor = Executors.newSingleThreadExecutor();
+        writer = new ParallelBatchWriter(mockDataSource, new StatementCache(false, 0),
+                new QueryStatementTemplate("INSERT INTO product (id) VALUES (:id)"),
+                executor, 1, null, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchFinish.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldKeepBatchInFlightWhenAwaitIsInterrupted() throws Exception {
+        // Given
+        writer.add(singletonMap("id", 1));
+        batchStarted.await();
+
+        // When
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, () -> writer.flush());
+        batchFinish.countDown();
+        writer.flush();
+
+        // Then
+        assertThat(writer.batchCounts()).containsExactly(1);
+        assertThat(writer.rowCount()).isEqualTo(1);
+        verify(mockConnection).commit();
+    }
+
+    @Test
+    void shouldWaitForRunningBatchBeforeReleasingConnectionWhenCloseIsInterrupted() throws Exception {
+        // Given
+        writer.add(singletonMap("id", 1));
+        batchStarted.await();
+
+        Thread closer = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            writer.close();
+        });
+
+        // When
+        closer.start();
+        closer.join(200);
+
+        // Then
+        assertThat(closer.isAlive()).isTrue();
+        verify(mockConnection, never()).rollback();
+        verify(mockConnection, never()).close();
+
+        // When
+        batchFinish.countDown();
+        closer.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Then
+        assertThat(closer.isAlive()).isFalse();
+        InOrder inOrder = inOrder(mockStatement, mockConnection);
+        inOrder.verify(mockStatement).executeBatch();
+        inOrder.verify(mockConnection).rollback();
+        inOrder.verify(mockConnection).close();
+    }
+}
@@ -0,0 +1,62 @@
+package com.reedelk.database.internal.batch;
+
+import com.reedelk.database.component.TestComponent;
+import com.reedelk.runtime.api.message.Message;
+import com.reedelk.runtime.api.message.MessageBuilder;
+import com.reedelk.runtime.api.message.content.TypedPublisher;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadElementsTest {
+
+    @Test
+    void shouldReadElementsOfCollectionAndArray() {
+        // Given
+        Message collection = MessageBuilder.get(TestComponent.class).withJavaObject(asList(1, 2)).build();
+        Message array = MessageBuilder.get(TestComponent.class).withJavaObject(new Object[] {"a", "b"}).build();
+
+        // When
+        PayloadElements collectionElements = PayloadElements.of(collection, 10);
+        PayloadElements arrayElements = PayloadElements.of(array, 10);
+
+        // Then
+        assertThat(collectionElements.isStream()).isFalse();
+        assertThat(collectionElements).containsExactly(1, 2);
+        assertThat(arrayElements).containsExactly("a", "b");
+    }
+
+    @Test
+    void shouldReadElementsOfStreamMappedAsTheyAreRead() {
+        // Given
+        Flux<Integer> stream = Flux.range(1, 5);
+        Message message = MessageBuilder.get(TestComponent.class)
+                .withTypedPublisher(TypedPublisher.from(stream, Integer.class))
+                .build();
+
+        PayloadElements elements = PayloadElements.of(message, 2);
+
+        // When
+        List<Integer> actual = new ArrayList<>();
+        elements.iterator(element -> (Integer) element * 10).forEachRemaining(actual::add);
+        elements.close();
+
+        // Then
+        assertThat(elements.isStream()).isTrue();
+        assertThat(actual).containsExactly(10, 20, 30, 40, 50);
+    }
+
+    @Test
+    void shouldReturnNullWhenPayloadIsSingleElement() {
+        // Given
+        Message message = MessageBuilder.get(TestComponent.class).withJavaObject(42).build();
+
+        // Expect
+        assertThat(PayloadElements.of(message, 10)).isNull();
+    }
+}
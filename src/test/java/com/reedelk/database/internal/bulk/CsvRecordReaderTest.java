@@ -0,0 +1,64 @@
+package com.reedelk.database.internal.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void shouldReadQuotedAndUnquotedFields() {
+        // Given
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                "1,\"a, \"\"b\"\"\",\r\n2,\"\",x\r\n\r\n3,\"multi\nline\",\"last\""));
+
+        // When / Then
+        assertThat(reader.next()).containsExactly("1", "a, \"b\"", null);
+        assertThat(reader.next()).containsExactly("2", "", "x");
+        assertThat(reader.next()).containsExactly("3", "multi\nline", "last");
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    @Test
+    void shouldWriteFieldsReadBackAsTheSameValues() {
+        // Given
+        StringBuilder line = new StringBuilder();
+        CsvFormat.H2.writeField(line, "say \"hi\", bye");
+        line.append(',');
+        CsvFormat.H2.writeField(line, null);
+        line.append(',');
+        CsvFormat.H2.writeField(line, "");
+        line.append(',');
+        CsvFormat.H2.writeField(line, true);
+
+        // When
+        Object[] record = new CsvRecordReader(new StringReader(line.toString())).next();
+
+        // Then
+        assertThat(record).containsExactly("say \"hi\", bye", null, "", "true");
+    }
+
+    @Test
+    void shouldWriteDatesAsTimestampsAndBinaryValuesAsHexadecimalText() {
+        // Given
+        Date date = new Date(1600000000123L);
+        byte[] bytes = new byte[] {0, 10, (byte) 0xAB, (byte) 0xFF};
+
+        // When
+        StringBuilder postgreSQL = new StringBuilder();
+        CsvFormat.POSTGRESQL.writeField(postgreSQL, bytes);
+        StringBuilder mySQL = new StringBuilder();
+        CsvFormat.MYSQL.writeField(mySQL, bytes);
+        StringBuilder h2 = new StringBuilder();
+        CsvFormat.H2.writeField(h2, date);
+
+        // Then
+        assertThat(postgreSQL.toString()).isEqualTo("\"\\x000aabff\"");
+        assertThat(mySQL.toString()).isEqualTo("\"000aabff\"");
+        assertThat(h2.toString()).isEqualTo(new Timestamp(date.getTime()).toString());
+    }
+}
@@ -14,6 +14,7 @@ import org.zapodot.junit.db.common.Engine;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Semaphore;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -49,6 +50,21 @@ class DataSourceServiceTest {
         assertThat(dataSource).isNotNull();
         assertThat(service.CONFIG_ID_CONNECTION_POOL_MAP).containsEntry(connectionId, dataSource);
         assertThat(service.CONFIG_ID_COMPONENT_MAP).containsEntry(connectionId, Collections.singletonList(component));
+        assertThat(service.CONFIG_ID_STATEMENT_CACHE_MAP).containsKey(connectionId);
+    }
+
+    @Test
+    void shouldLeaveHalfOfThePoolForComponentsNotUsingParallelConnections() {
+        // Given
+        ConnectionConfiguration configuration = newConfig(UUID.randomUUID().toString());
+        configuration.setMaxPoolSize(9);
+        service.getDataSource(new TestComponent(), configuration);
+
+        // When
+        Semaphore permits = service.getParallelConnectionPermits(configuration);
+
+        // Then
+        assertThat(permits.availablePermits()).isEqualTo(4);
     }
 
     @Test
@@ -119,6 +135,7 @@ class DataSourceServiceTest {
 
         assertThat(service.CONFIG_ID_COMPONENT_MAP).doesNotContainKeys(connectionId);
         assertThat(service.CONFIG_ID_CONNECTION_POOL_MAP).doesNotContainKeys(connectionId);
+        assertThat(service.CONFIG_ID_STATEMENT_CACHE_MAP).doesNotContainKeys(connectionId);
 
         verify(service).silentlyClose(dataSource1);
     }
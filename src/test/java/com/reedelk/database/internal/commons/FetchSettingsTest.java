@@ -0,0 +1,107 @@
+package com.reedelk.database.internal.commons;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FetchSettingsTest {
+
+    @Mock
+    private Connection mockConnection;
+    @Mock
+    private PreparedStatement mockStatement;
+    @Mock
+    private ResultSetMetaData mockMetaData;
+
+    @Test
+    void shouldUseDriverDefaultFetchSizeWhenNotDefined() throws SQLException {
+        // Given
+        FetchSettings settings = new FetchSettings(DatabaseDriver.MYSQL, "jdbc:mysql://localhost/test", null, false, false);
+
+        // When
+        boolean restoreAutoCommit = settings.beforeExecute(mockConnection, mockStatement);
+
+        // Then
+        assertThat(restoreAutoCommit).isFalse();
+        verify(mockStatement).setFetchSize(0);
+        verifyNoMoreInteractions(mockConnection);
+    }
+
+    @Test
+    void shouldStreamMySQLRowsOneByOneWhenServerSideCursor() throws SQLException {
+        // Given
+        FetchSettings settings = new FetchSettings(DatabaseDriver.MYSQL, "jdbc:mysql://localhost/test", 200, false, true);
+
+        // When
+        settings.beforeExecute(mockConnection, mockStatement);
+
+        // Then
+        verify(mockStatement).setFetchSize(Integer.MIN_VALUE);
+        assertThat(settings.cancelOnEarlyClose()).isTrue();
+    }
+
+    @Test
+    void shouldUseMySQLCursorFetchWhenEnabledInConnectionURL() throws SQLException {
+        // Given
+        FetchSettings settings = new FetchSettings(DatabaseDriver.MYSQL, "jdbc:mysql://localhost/test?useCursorFetch=true", 200, false, true);
+
+        // When
+        settings.beforeExecute(mockConnection, mockStatement);
+
+        // Then
+        verify(mockStatement).setFetchSize(200);
+        assertThat(settings.cancelOnEarlyClose()).isFalse();
+    }
+
+    @Test
+    void shouldDisablePostgreSQLAutoCommitWhenServerSideCursor() throws SQLException {
+        // Given
+        doReturn(true).when(mockConnection).getAutoCommit();
+        FetchSettings settings = new FetchSettings(DatabaseDriver.POSTGRESQL, "jdbc:postgresql://localhost/test", null, false, true);
+
+        // When
+        boolean restoreAutoCommit = settings.beforeExecute(mockConnection, mockStatement);
+
+        // Then
+        assertThat(restoreAutoCommit).isTrue();
+        verify(mockConnection).setAutoCommit(false);
+        verify(mockStatement).setFetchSize(FetchSettings.DEFAULT_CURSOR_FETCH_SIZE);
+    }
+
+    @Test
+    void shouldComputeAdaptiveFetchSizeFromColumnsWidth() throws SQLException {
+        // Given
+        doReturn(2).when(mockMetaData).getColumnCount();
+        doReturn(20).when(mockMetaData).getColumnDisplaySize(1);
+        doReturn(1004).when(mockMetaData).getColumnDisplaySize(2);
+
+        // When
+        int fetchSize = FetchSettings.adaptiveFetchSize(mockMetaData);
+
+        // Then
+        assertThat(fetchSize).isEqualTo(1024);
+    }
+
+    @Test
+    void shouldCapAdaptiveFetchSizeForLargeColumns() throws SQLException {
+        // Given
+        doReturn(1).when(mockMetaData).getColumnCount();
+        doReturn(Integer.MAX_VALUE).when(mockMetaData).getColumnDisplaySize(1);
+
+        // When
+        int fetchSize = FetchSettings.adaptiveFetchSize(mockMetaData);
+
+        // Then
+        assertThat(fetchSize).isEqualTo(256);
+    }
+}
@@ -3,6 +3,9 @@ package com.reedelk.database.internal.commons;
 import com.reedelk.runtime.api.commons.ImmutableMap;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -61,4 +64,79 @@ class   QueryStatementTemplateTest {
         // Then
         assertThat(replaced).isEqualTo("INSERT INTO ORDERS VALUES ('aabbcc','my test name')");
     }
+
+    @Test
+    void shouldCompileNamedParametersIntoPositionalPlaceholders() {
+        // Given
+        QueryStatementTemplate template = new QueryStatementTemplate("SELECT * FROM Orders WHERE name = :name AND surname = :surname");
+
+        // When
+        String compiled = template.compiledQuery();
+
+        // Then
+        assertThat(compiled).isEqualTo("SELECT * FROM Orders WHERE name = ? AND surname = ?");
+        assertThat(template.parameterIndexMap())
+                .containsEntry("name", Collections.singletonList(1))
+                .containsEntry("surname", Collections.singletonList(2));
+    }
+
+    @Test
+    void shouldMapRepeatedParameterToAllItsPositions() {
+        // Given
+        QueryStatementTemplate template = new QueryStatementTemplate("SELECT * FROM Orders WHERE id = :id OR parent_id = :id AND name = :name");
+
+        // When
+        String compiled = template.compiledQuery();
+
+        // Then
+        assertThat(compiled).isEqualTo("SELECT * FROM Orders WHERE id = ? OR parent_id = ? AND name = ?");
+        assertThat(template.parameterIndexMap())
+                .containsEntry("id", Arrays.asList(1, 2))
+                .containsEntry("name", Collections.singletonList(3));
+    }
+
+    @Test
+    void shouldNotCompileParametersInsideQuotedLiteralsAndCasts() {
+        // Given
+        QueryStatementTemplate template = new QueryStatementTemplate("SELECT id::text, ':label' FROM Orders WHERE time = '12:30' AND id = :id");
+
+        // When
+        String compiled = template.compiledQuery();
+
+        // Then
+        assertThat(compiled).isEqualTo("SELECT id::text, ':label' FROM Orders WHERE time = '12:30' AND id = ?");
+        assertThat(template.parameterIndexMap()).containsOnlyKeys("id");
+    }
+
+    @Test
+    void shouldCompileQueryWithoutParameters() {
+        // Given
+        QueryStatementTemplate template = new QueryStatementTemplate("INSERT INTO ORDERS VALUES (1,'my test name')");
+
+        // When
+        String compiled = template.compiledQuery();
+
+        // Then
+        assertThat(compiled).isEqualTo("INSERT INTO ORDERS VALUES (1,'my test name')");
+        assertThat(template.parameterIndexMap()).isEmpty();
+    }
+
+    @Test
+    void shouldDescribeBinaryAndLargeValues() {
+        // Given
+        QueryStatementTemplate replacer = new QueryStatementTemplate("INSERT INTO Attachment VALUES (:content, :stream, :text)");
+        char[] text = new char[1000];
+        Arrays.fill(text, 'a');
+
+        // When
+        Map<String,Object> replacements = ImmutableMap.of(
+                "content", new byte[2048],
+                "stream", new ByteArrayInputStream(new byte[0]),
+                "text", new String(text));
+        String replaced = replacer.replace(replacements);
+
+        // Then
+        assertThat(replaced).isEqualTo("INSERT INTO Attachment VALUES (<2048 bytes>, <binary stream>, '" +
+                new String(text, 0, 256) + "...' (1000 characters))");
+    }
 }
@@ -0,0 +1,137 @@
+package com.reedelk.database.internal.commons;
+
+import com.reedelk.database.internal.exception.ConversionError;
+import com.reedelk.database.internal.type.DatabaseClob;
+import com.reedelk.database.internal.type.DatabaseRow;
+import org.h2.tools.SimpleResultSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+class RowConverterTest {
+
+    private SimpleResultSet resultSet;
+
+    @BeforeEach
+    void setUp() {
+        resultSet = new SimpleResultSet();
+    }
+
+    @Test
+    void shouldConvertRowWithoutAccessingMetadata() throws SQLException {
+        // Given
+        resultSet.addColumn("ID", Types.BIGINT, 19, 0);
+        resultSet.addColumn("NAME", Types.VARCHAR, 255, 0);
+        resultSet.addRow(3000000000L, "John Doe");
+
+        ResultSetMetaData metaData = spy(resultSet.getMetaData());
+        RowConverter converter = RowConverter.from(RowSchema.from(metaData));
+        clearInvocations(metaData);
+
+        resultSet.next();
+
+        // When
+        DatabaseRow row = converter.convert(resultSet);
+
+        // Then
+        assertThat(row.get("ID")).isEqualTo(3000000000L);
+        assertThat(row.get("NAME")).isEqualTo("John Doe");
+        assertThat(row.get(1)).isEqualTo("John Doe");
+        verifyZeroInteractions(metaData);
+    }
+
+    @Test
+    void shouldConvertPrimitiveColumnsAndNulls() throws SQLException {
+        // Given
+        resultSet.addColumn("ID", Types.INTEGER, 10, 0);
+        resultSet.addColumn("AMOUNT", Types.DOUBLE, 17, 0);
+        resultSet.addColumn("NAME", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("DATA", Types.BLOB, 0, 0);
+        resultSet.addRow(null, 2.5d, null, null);
+
+        RowConverter converter = RowConverter.from(RowSchema.from(resultSet.getMetaData()));
+
+        resultSet.next();
+
+        // When
+        DatabaseRow row = converter.convert(resultSet);
+
+        // Then
+        assertThat(row.isNull("ID")).isTrue();
+        assertThat(row.get("ID")).isNull();
+        assertThat(row.getDouble("AMOUNT")).isEqualTo(2.5d);
+        assertThat(row.get("AMOUNT")).isEqualTo(2.5d);
+        assertThat(row.isNull("NAME")).isTrue();
+        assertThat(row.isNull("DATA")).isTrue();
+    }
+
+    @Test
+    void shouldReadLobsEagerly() throws SQLException {
+        // Given
+        resultSet.addColumn("DATA", Types.BLOB, 0, 0);
+        resultSet.addColumn("TEXT", Types.CLOB, 0, 0);
+        resultSet.addRow(new SerialBlob(new byte[] {1, 2, 3}), new SerialClob("Zoë".toCharArray()));
+
+        RowConverter converter = RowConverter.from(RowSchema.from(resultSet.getMetaData()));
+
+        resultSet.next();
+
+        // When
+        DatabaseRow row = converter.convert(resultSet);
+
+        // Then
+        assertThat(converter.streamsLobs()).isFalse();
+        assertThat((byte[]) row.get("DATA")).containsExactly(1, 2, 3);
+        assertThat(row.get("TEXT")).isEqualTo("Zoë");
+    }
+
+    @Test
+    void shouldStreamLobsLargerThanThreshold() throws SQLException {
+        // Given
+        resultSet.addColumn("DATA", Types.BLOB, 0, 0);
+        resultSet.addColumn("TEXT", Types.CLOB, 0, 0);
+        resultSet.addRow(new SerialBlob(new byte[] {1, 2, 3}), new SerialClob("Large text".toCharArray()));
+
+        RowConverter converter = RowConverter.from(RowSchema.from(resultSet.getMetaData()), LobMode.THRESHOLD, 4);
+
+        resultSet.next();
+
+        // When
+        DatabaseRow row = converter.convert(resultSet);
+
+        // Then
+        assertThat(converter.streamsLobs()).isTrue();
+        assertThat((byte[]) row.get("DATA")).containsExactly(1, 2, 3);
+        DatabaseClob text = (DatabaseClob) row.get("TEXT");
+        assertThat(text.length()).isEqualTo(10);
+        assertThat(text.getString()).isEqualTo("Large text");
+    }
+
+    @Test
+    void shouldThrowConversionErrorOnlyWhenRowWithNotSupportedColumnIsConverted() throws SQLException {
+        // Given
+        resultSet.addColumn("DATA", Types.ARRAY, 0, 0);
+        resultSet.addRow((Object) new Object[] { 1 });
+
+        RowConverter converter = RowConverter.from(RowSchema.from(resultSet.getMetaData()));
+
+        resultSet.next();
+
+        // When
+        ConversionError thrown = assertThrows(ConversionError.class, () -> converter.convert(resultSet));
+
+        // Then
+        assertThat(thrown).hasMessage("Column type id=[2003] not supported for column name=[DATA]");
+    }
+}
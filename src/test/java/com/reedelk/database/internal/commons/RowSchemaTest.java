@@ -0,0 +1,51 @@
+package com.reedelk.database.internal.commons;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowSchemaTest {
+
+    @Test
+    void shouldResolveColumnIndexByName() {
+        // Given
+        RowSchema schema = new RowSchema(
+                new String[] {"ID", "NAME", "SURNAME", "AGE", "EMAIL"},
+                new int[] {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.VARCHAR});
+
+        // Expect
+        assertThat(schema.indexOf("ID")).isEqualTo(0);
+        assertThat(schema.indexOf("SURNAME")).isEqualTo(2);
+        assertThat(schema.indexOf("EMAIL")).isEqualTo(4);
+        assertThat(schema.indexOf("NOT_EXISTING")).isEqualTo(-1);
+        assertThat(schema.indexOf(null)).isEqualTo(-1);
+        assertThat(schema.indexOf(1)).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldResolveDuplicatedColumnNameToLastColumn() {
+        // Given
+        RowSchema schema = new RowSchema(
+                new String[] {"ID", "NAME", "ID"},
+                new int[] {Types.INTEGER, Types.VARCHAR, Types.BIGINT});
+
+        // Expect
+        assertThat(schema.indexOf("ID")).isEqualTo(2);
+        assertThat(schema.columnCount()).isEqualTo(3);
+        assertThat(schema.namedColumnCount()).isEqualTo(2);
+        assertThat(schema.columnNames()).containsExactly("NAME", "ID");
+    }
+
+    @Test
+    void shouldReturnColumnTypesInColumnOrder() {
+        // Given
+        RowSchema schema = new RowSchema(
+                new String[] {"ID", "NAME"},
+                new int[] {Types.INTEGER, Types.VARCHAR});
+
+        // Expect
+        assertThat(schema.columnTypes()).containsExactly(Types.INTEGER, Types.VARCHAR);
+    }
+}
@@ -0,0 +1,134 @@
+package com.reedelk.database.internal.commons;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zapodot.junit.db.annotations.EmbeddedDatabaseTest;
+import org.zapodot.junit.db.common.Engine;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EmbeddedDatabaseTest(
+        engine = Engine.H2,
+        initialSqls = "CREATE TABLE Customer(id INTEGER PRIMARY KEY, name VARCHAR(512)); "
+                + "INSERT INTO CUSTOMER(id, name) VALUES (1, 'John Doe');"
+)
+class StatementCacheTest {
+
+    private ComboPooledDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new ComboPooledDataSource();
+        dataSource.setDriverClass(DatabaseDriver.H2.qualifiedName());
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + StatementCacheTest.class.getSimpleName());
+        dataSource.setMinPoolSize(1);
+        dataSource.setMaxPoolSize(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().execute("DROP TABLE Customer");
+        } catch (SQLException exception) {
+            // Nothing we can really do here.
+            exception.printStackTrace();
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    void shouldReuseStatementAcrossConnectionCheckouts() throws SQLException {
+        // Given
+        StatementCache cache = new StatementCache(true, 10);
+        PreparedStatement first = prepareAndRelease(cache, "SELECT * FROM Customer WHERE id = ?");
+
+        // When
+        PreparedStatement second = prepareAndRelease(cache, "SELECT * FROM Customer WHERE id = ?");
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(second.isClosed()).isFalse();
+        assertThat(cache.statistics().getHits()).isEqualTo(1);
+        assertThat(cache.statistics().getMisses()).isEqualTo(1);
+        assertThat(cache.statistics().getEvictions()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedStatementWhenCacheIsFull() throws SQLException {
+        // Given
+        StatementCache cache = new StatementCache(true, 2);
+        PreparedStatement first = prepareAndRelease(cache, "SELECT * FROM Customer WHERE id = ?");
+        PreparedStatement second = prepareAndRelease(cache, "SELECT * FROM Customer WHERE name = ?");
+        prepareAndRelease(cache, "SELECT * FROM Customer WHERE id = ?"); // 'first' is now the most recently used.
+
+        // When
+        prepareAndRelease(cache, "SELECT id FROM Customer");
+
+        // Then
+        assertThat(second.isClosed()).isTrue();
+        assertThat(first.isClosed()).isFalse();
+        assertThat(cache.statistics().getEvictions()).isEqualTo(1);
+        assertThat(cache.statistics().getHits()).isEqualTo(1);
+        assertThat(cache.statistics().getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldCloseStatementOnReleaseWhenCacheDisabled() throws SQLException {
+        // Given
+        StatementCache cache = new StatementCache(false, 10);
+
+        // When
+        PreparedStatement statement = prepareAndRelease(cache, "SELECT * FROM Customer WHERE id = ?");
+
+        // Then
+        assertThat(statement.isClosed()).isTrue();
+        assertThat(cache.statistics().getMisses()).isZero();
+    }
+
+    @Test
+    void shouldCloseCachedStatementsWhenDisposed() throws SQLException {
+        // Given
+        StatementCache cache = new StatementCache(true, 10);
+        PreparedStatement statement = prepareAndRelease(cache, "SELECT * FROM Customer WHERE id = ?");
+
+        // When
+        cache.dispose();
+
+        // Then
+        assertThat(statement.isClosed()).isTrue();
+    }
+
+    @Test
+    void shouldCacheStatementsReturningGeneratedKeysSeparately() throws SQLException {
+        // Given
+        StatementCache cache = new StatementCache(true, 10);
+        String sql = "INSERT INTO Customer(id, name) VALUES (?, ?)";
+
+        try (Connection connection = dataSource.getConnection()) {
+            // When
+            PreparedStatement plain = cache.prepare(connection, sql);
+            PreparedStatement driverKeys = cache.prepare(connection, sql, new String[0]);
+            PreparedStatement columnKeys = cache.prepare(connection, sql, new String[] {"ID"});
+
+            // Then
+            assertThat(driverKeys).isNotSameAs(plain);
+            assertThat(columnKeys).isNotSameAs(plain).isNotSameAs(driverKeys);
+            assertThat(cache.prepare(connection, sql, new String[] {"ID"})).isSameAs(columnKeys);
+        }
+    }
+
+    private PreparedStatement prepareAndRelease(StatementCache cache, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            PreparedStatement statement = cache.prepare(connection, sql);
+            cache.release(statement);
+            return statement;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.reedelk.database.internal.dialect;
+
+import com.reedelk.database.internal.commons.DatabaseDriver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DialectTest {
+
+    private final List<String> columns = asList("id", "name", "price");
+    private final List<String> keyColumns = singletonList("id");
+
+    @Test
+    void shouldGenerateH2Merge() {
+        // When
+        String upsert = Dialect.of(DatabaseDriver.H2).upsert("product", columns, keyColumns);
+
+        // Then
+        assertThat(upsert).isEqualTo("MERGE INTO product (id, name, price) KEY (id) VALUES (?, ?, ?)");
+    }
+
+    @Test
+    void shouldGeneratePostgreSQLInsertOnConflict() {
+        // When
+        String upsert = Dialect.of(DatabaseDriver.POSTGRESQL).upsert("product", columns, keyColumns);
+
+        // Then
+        assertThat(upsert).isEqualTo("INSERT INTO product (id, name, price) VALUES (?, ?, ?) " +
+                "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, price = EXCLUDED.price");
+    }
+
+    @Test
+    void shouldGeneratePostgreSQLInsertOnConflictDoNothingWhenAllColumnsAreKeys() {
+        // When
+        String upsert = Dialect.of(DatabaseDriver.POSTGRESQL).upsert("product_tag", asList("product_id", "tag"), asList("product_id", "tag"));
+
+        // Then
+        assertThat(upsert).isEqualTo("INSERT INTO product_tag (product_id, tag) VALUES (?, ?) " +
+                "ON CONFLICT (product_id, tag) DO NOTHING");
+    }
+
+    @Test
+    void shouldGenerateMySQLInsertOnDuplicateKeyUpdate() {
+        // When
+        String upsert = Dialect.of(DatabaseDriver.MYSQL).upsert("product", columns, keyColumns);
+
+        // Then
+        assertThat(upsert).isEqualTo("INSERT INTO product (id, name, price) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE name = VALUES(name), price = VALUES(price)");
+    }
+
+    @Test
+    void shouldGenerateOracleMerge() {
+        // When
+        String upsert = Dialect.of(DatabaseDriver.ORACLE).upsert("product", columns, keyColumns);
+
+        // Then
+        assertThat(upsert).isEqualTo("MERGE INTO product t USING (SELECT ? AS id, ? AS name, ? AS price FROM dual) s " +
+                "ON (t.id = s.id) " +
+                "WHEN MATCHED THEN UPDATE SET t.name = s.name, t.price = s.price " +
+                "WHEN NOT MATCHED THEN INSERT (id, name, price) VALUES (s.id, s.name, s.price)");
+    }
+
+    @Test
+    void shouldGeneratePostgreSQLCopy() {
+        // When
+        String copy = Dialect.of(DatabaseDriver.POSTGRESQL).bulkLoad("product", columns, true, null);
+
+        // Then
+        assertThat(copy).isEqualTo("COPY product (id, name, price) FROM STDIN WITH (FORMAT csv, HEADER true)");
+    }
+
+    @Test
+    void shouldGenerateMySQLLoadData() {
+        // When
+        String loadData = Dialect.of(DatabaseDriver.MYSQL).bulkLoad("product", columns, false, "bulk-load.csv");
+
+        // Then
+        assertThat(loadData).isEqualTo("LOAD DATA LOCAL INFILE 'bulk-load.csv' INTO TABLE product CHARACTER SET utf8mb4 " +
+                "FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '' " +
+                "LINES TERMINATED BY '\\n' (id, name, price)");
+    }
+
+    @Test
+    void shouldGenerateMySQLLoadDataDecodingBinaryColumns() {
+        // When
+        String loadData = Dialect.of(DatabaseDriver.MYSQL)
+                .bulkLoad("document", asList("id", "content"), singleton("content"), true, "bulk-load.csv");
+
+        // Then
+        assertThat(loadData).isEqualTo("LOAD DATA LOCAL INFILE 'bulk-load.csv' INTO TABLE document CHARACTER SET utf8mb4 " +
+                "FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '' " +
+                "LINES TERMINATED BY '\\n' IGNORE 1 LINES (id, @binary1) SET content = UNHEX(@binary1)");
+    }
+
+    @Test
+    void shouldGenerateH2CsvRead() {
+        // When
+        String csvRead = Dialect.of(DatabaseDriver.H2).bulkLoad("product", columns, false, "/tmp/o'brien.csv");
+
+        // Then
+        assertThat(csvRead).isEqualTo("INSERT INTO product (id, name, price) " +
+                "SELECT * FROM CSVREAD('/tmp/o''brien.csv', 'id,name,price', 'charset=UTF-8')");
+    }
+
+    @Test
+    void shouldNotGenerateOracleBulkLoad() {
+        // When
+        String bulkLoad = Dialect.of(DatabaseDriver.ORACLE).bulkLoad("product", columns, true, "product.csv");
+
+        // Then
+        assertThat(bulkLoad).isNull();
+    }
+
+    @Test
+    void shouldGenerateH2AndMySQLDeleteChunk() {
+        // When
+        String h2 = Dialect.of(DatabaseDriver.H2).deleteChunk("product", "price < :price");
+        String mySQL = Dialect.of(DatabaseDriver.MYSQL).deleteChunk("product", null);
+
+        // Then
+        assertThat(h2).isEqualTo("DELETE FROM product WHERE (price < :price) LIMIT ?");
+        assertThat(mySQL).isEqualTo("DELETE FROM product LIMIT ?");
+    }
+
+    @Test
+    void shouldGeneratePostgreSQLDeleteChunk() {
+        // When
+        String deleteChunk = Dialect.of(DatabaseDriver.POSTGRESQL).deleteChunk("product", "price < :price");
+
+        // Then
+        assertThat(deleteChunk).isEqualTo("DELETE FROM product WHERE ctid = ANY " +
+                "(ARRAY(SELECT ctid FROM product WHERE (price < :price) LIMIT ?))");
+    }
+
+    @Test
+    void shouldNotTreatShortPostgreSQLDeleteChunkAsLast() {
+        // Expect
+        assertThat(Dialect.of(DatabaseDriver.POSTGRESQL).isShortDeleteChunkLast()).isFalse();
+        assertThat(Dialect.of(DatabaseDriver.MYSQL).isShortDeleteChunkLast()).isTrue();
+    }
+
+    @Test
+    void shouldGenerateOracleDeleteChunk() {
+        // When
+        String withCondition = Dialect.of(DatabaseDriver.ORACLE).deleteChunk("product", "price < :price");
+        String withoutCondition = Dialect.of(DatabaseDriver.ORACLE).deleteChunk("product", null);
+
+        // Then
+        assertThat(withCondition).isEqualTo("DELETE FROM product WHERE (price < :price) AND ROWNUM <= ?");
+        assertThat(withoutCondition).isEqualTo("DELETE FROM product WHERE ROWNUM <= ?");
+    }
+
+    @Test
+    void shouldGenerateH2AndOracleMergeUpdateFromStagingTable() {
+        // When
+        String h2 = Dialect.of(DatabaseDriver.H2).updateFrom("product", "staging", columns, keyColumns);
+        String oracle = Dialect.of(DatabaseDriver.ORACLE).updateFrom("product", "staging", columns, keyColumns);
+
+        // Then
+        String merge = "MERGE INTO product t USING staging s ON (t.id = s.id) " +
+                "WHEN MATCHED THEN UPDATE SET name = s.name, price = s.price";
+        assertThat(h2).isEqualTo(merge);
+        assertThat(oracle).isEqualTo(merge);
+    }
+
+    @Test
+    void shouldGeneratePostgreSQLUpdateFromStagingTable() {
+        // When
+        String update = Dialect.of(DatabaseDriver.POSTGRESQL).updateFrom("product", "staging", columns, keyColumns);
+
+        // Then
+        assertThat(update).isEqualTo("UPDATE product t SET name = s.name, price = s.price " +
+                "FROM staging s WHERE t.id = s.id");
+    }
+
+    @Test
+    void shouldGenerateMySQLUpdateJoinStagingTable() {
+        // When
+        String update = Dialect.of(DatabaseDriver.MYSQL).updateFrom("product", "staging", columns, keyColumns);
+
+        // Then
+        assertThat(update).isEqualTo("UPDATE product t JOIN staging s ON t.id = s.id " +
+                "SET t.name = s.name, t.price = s.price");
+    }
+
+    @Test
+    void shouldGenerateSessionStagingTables() {
+        // When
+        Dialect h2 = Dialect.of(DatabaseDriver.H2);
+        Dialect oracle = Dialect.of(DatabaseDriver.ORACLE);
+        Dialect mySQL = Dialect.of(DatabaseDriver.MYSQL);
+
+        // Then
+        assertThat(h2.createStagingTable("staging", "product", columns))
+                .isEqualTo("CREATE LOCAL TEMPORARY TABLE staging AS SELECT id, name, price FROM product WHERE 1 = 0");
+        assertThat(mySQL.createStagingTable("staging", "product", columns))
+                .isEqualTo("CREATE TEMPORARY TABLE staging AS SELECT id, name, price FROM product WHERE 1 = 0");
+        assertThat(oracle.stagingTable()).startsWith("ora$ptt_");
+        assertThat(oracle.createStagingTable(oracle.stagingTable(), "product", columns))
+                .isEqualTo("CREATE PRIVATE TEMPORARY TABLE ora$ptt_reedelk_update_staging ON COMMIT PRESERVE DEFINITION " +
+                        "AS SELECT id, name, price FROM product WHERE 1 = 0");
+        assertThat(mySQL.dropStagingTable("staging")).isEqualTo("DROP TEMPORARY TABLE staging");
+    }
+}
@@ -0,0 +1,113 @@
+package com.reedelk.database.internal.text;
+
+import com.reedelk.database.internal.commons.RowConverter;
+import com.reedelk.database.internal.commons.RowSchema;
+import org.h2.tools.SimpleResultSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowTextWriterTest {
+
+    private SimpleResultSet resultSet;
+
+    @BeforeEach
+    void setUp() {
+        resultSet = new SimpleResultSet();
+        resultSet.addColumn("ID", Types.BIGINT, 19, 0);
+        resultSet.addColumn("NAME", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("AMOUNT", Types.DOUBLE, 17, 0);
+        resultSet.addColumn("ACTIVE", Types.BOOLEAN, 1, 0);
+        resultSet.addColumn("PRICE", Types.NUMERIC, 10, 2);
+    }
+
+    @Test
+    void shouldWriteCsv() throws Exception {
+        // Given
+        resultSet.addRow(-42L, "Doe, \"John\"", 1.5d, true, new BigDecimal("12.50"));
+        resultSet.addRow(Long.MIN_VALUE, "Zoë €", null, null, null);
+
+        RowTextWriter writer = RowTextWriter.csv(converter(), 1024);
+
+        // When
+        String actual = writeAll(writer);
+
+        // Then
+        assertThat(actual).isEqualTo(
+                "ID,NAME,AMOUNT,ACTIVE,PRICE\r\n" +
+                "-42,\"Doe, \"\"John\"\"\",1.5,true,12.50\r\n" +
+                "-9223372036854775808,Zoë €,,,\r\n");
+    }
+
+    @Test
+    void shouldWriteNdjson() throws Exception {
+        // Given
+        resultSet.addRow(1L, "Line\nbreak \"quoted\" 😀", Double.NaN, false, new BigDecimal("0.10"));
+        resultSet.addRow(2L, null, 2.0d, null, null);
+
+        RowTextWriter writer = RowTextWriter.ndjson(converter(), 1024);
+
+        // When
+        String actual = writeAll(writer);
+
+        // Then
+        assertThat(actual).isEqualTo(
+                "{\"ID\":1,\"NAME\":\"Line\\nbreak \\\"quoted\\\" 😀\",\"AMOUNT\":null,\"ACTIVE\":false,\"PRICE\":0.10}\n" +
+                "{\"ID\":2,\"NAME\":null,\"AMOUNT\":2.0,\"ACTIVE\":null,\"PRICE\":null}\n");
+    }
+
+    @Test
+    void shouldSplitTextInChunks() throws Exception {
+        // Given
+        for (long i = 0; i < 1000; i++) {
+            resultSet.addRow(i, "Name " + i, i * 1.5d, true, BigDecimal.ONE);
+        }
+        RowTextWriter writer = RowTextWriter.ndjson(converter(), 4096);
+
+        // When
+        List<byte[]> chunks = chunks(writer);
+
+        // Then
+        assertThat(chunks.size()).isGreaterThan(10);
+        for (byte[] chunk : chunks) {
+            assertThat(chunk.length).isLessThan(4096 + 128);
+            assertThat(chunk[chunk.length - 1]).isEqualTo((byte) '\n');
+        }
+        assertThat(concat(chunks).split("\n")).hasSize(1000);
+    }
+
+    private RowConverter converter() throws SQLException {
+        return RowConverter.from(RowSchema.from(resultSet.getMetaData()));
+    }
+
+    private List<byte[]> chunks(RowTextWriter writer) throws SQLException {
+        List<byte[]> chunks = new ArrayList<>();
+        byte[] chunk;
+        while ((chunk = writer.next(resultSet)) != null) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private String writeAll(RowTextWriter writer) throws SQLException, IOException {
+        return concat(chunks(writer));
+    }
+
+    private static String concat(List<byte[]> chunks) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) {
+            stream.write(chunk);
+        }
+        return new String(stream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,84 @@
+package com.reedelk.database.internal.type;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnVectorTest {
+
+    @Test
+    void shouldGrowWhenValuesAreAppended() {
+        // Given
+        ColumnVector vector = ColumnVector.of("ID", Types.INTEGER);
+
+        // When
+        for (int i = 0; i < 5000; i++) {
+            if (i % 100 == 0) vector.appendNull();
+            else vector.append(null, i);
+        }
+        vector.complete();
+
+        // Then
+        assertThat(vector.size()).isEqualTo(5000);
+        assertThat(vector.getInt(4999)).isEqualTo(4999);
+        assertThat(vector.get(4999)).isEqualTo(4999);
+        assertThat(vector.isNull(4900)).isTrue();
+        assertThat(vector.getInt(4900)).isZero();
+        assertThat(vector.get(4900)).isNull();
+    }
+
+    @Test
+    void shouldDictionaryEncodeStringValues() {
+        // Given
+        ColumnVector vector = ColumnVector.of("PARITY", Types.VARCHAR);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            vector.append(i % 2 == 0 ? "EVEN" : "ODD", 0L);
+        }
+        vector.complete();
+
+        // Then
+        assertThat(vector).isInstanceOf(StringColumnVector.class);
+        assertThat(((StringColumnVector) vector).dictionary()).containsExactly("EVEN", "ODD");
+        assertThat(vector.get(98)).isEqualTo("EVEN");
+        assertThat(vector.get(99)).isEqualTo("ODD");
+    }
+
+    @Test
+    void shouldReturnPrimitiveValues() {
+        // Given
+        ColumnVector doubles = ColumnVector.of("AMOUNT", Types.DOUBLE);
+        ColumnVector booleans = ColumnVector.of("ACTIVE", Types.BOOLEAN);
+        ColumnVector decimals = ColumnVector.of("PRICE", Types.NUMERIC);
+
+        // When
+        doubles.append(null, Double.doubleToRawLongBits(2.5d));
+        booleans.append(null, 1L);
+        decimals.append(new BigDecimal("12.75"), 0L);
+
+        // Then
+        assertThat(doubles.getDouble(0)).isEqualTo(2.5d);
+        assertThat(doubles.getLong(0)).isEqualTo(2L);
+        assertThat(booleans.getBoolean(0)).isTrue();
+        assertThat(booleans.get(0)).isEqualTo(true);
+        assertThat(decimals.getDouble(0)).isEqualTo(12.75d);
+    }
+
+    @Test
+    void shouldThrowWhenPrimitiveValueIsNotNumeric() {
+        // Given
+        ColumnVector vector = ColumnVector.of("NAME", Types.VARCHAR);
+        vector.append("John Doe", 0L);
+
+        // When
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> vector.getLong(0));
+
+        // Then
+        assertThat(thrown).hasMessage("Column name=[NAME] does not contain a numeric value");
+    }
+}
@@ -0,0 +1,164 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.commons.RowSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatabaseRowTest {
+
+    private final RowSchema schema = new RowSchema(
+            new String[] {"ID", "NAME"},
+            new int[] {Types.INTEGER, Types.VARCHAR});
+
+    @Test
+    void shouldExposeValuesAsMap() {
+        // Given
+        DatabaseRow row = row(1, "John Doe");
+
+        // Expect
+        assertThat(row).hasSize(2);
+        assertThat(row.get("NAME")).isEqualTo("John Doe");
+        assertThat(row.get("NOT_EXISTING")).isNull();
+        assertThat(row.get(0)).isEqualTo(1);
+        assertThat(row.getColumnIndex("NAME")).isEqualTo(1);
+        assertThat(row.getColumnIndex("NOT_EXISTING")).isNull();
+        assertThat(row.keySet()).containsExactly("ID", "NAME");
+        assertThat(row.values()).containsExactly(1, "John Doe");
+        assertThat(row.entrySet()).containsExactly(entry("ID", 1), entry("NAME", "John Doe"));
+    }
+
+    @Test
+    void shouldShareKeySetBetweenRowsWithSameSchema() {
+        // Given
+        DatabaseRow row1 = row(1, "John Doe");
+        DatabaseRow row2 = row(2, "Mark Anton");
+
+        // Expect
+        assertThat(row1.keySet()).isSameAs(row2.keySet());
+    }
+
+    @Test
+    void shouldBeEqualToMapWithSameEntries() {
+        // Given
+        DatabaseRow row = row(1, "John Doe");
+        Map<String, Serializable> map = new HashMap<>();
+        map.put("ID", 1);
+        map.put("NAME", "John Doe");
+
+        // Expect
+        assertThat(row).isEqualTo(map);
+        assertThat(map).isEqualTo(row);
+        assertThat(row.hashCode()).isEqualTo(map.hashCode());
+    }
+
+    @Test
+    void shouldNotBeModifiable() {
+        // Given
+        DatabaseRow row = row(1, "John Doe");
+
+        // Expect
+        assertThrows(UnsupportedOperationException.class, () -> row.put("ID", 2));
+    }
+
+    @Test
+    void shouldReturnPrimitiveValues() {
+        // Given
+        RowSchema schema = new RowSchema(
+                new String[] {"ID", "AMOUNT", "ACTIVE", "PRICE"},
+                new int[] {Types.BIGINT, Types.DOUBLE, Types.BOOLEAN, Types.NUMERIC});
+        long[] primitives = {3000000000L, Double.doubleToRawLongBits(2.5d), 1L, 0L};
+        Object[] objects = {null, null, null, new BigDecimal("12.75")};
+        DatabaseRow row = new DatabaseRow(schema, objects, primitives, new long[1]);
+
+        // Expect
+        assertThat(row.getLong("ID")).isEqualTo(3000000000L);
+        assertThat(row.getDouble(1)).isEqualTo(2.5d);
+        assertThat(row.getLong("AMOUNT")).isEqualTo(2L);
+        assertThat(row.getBoolean("ACTIVE")).isTrue();
+        assertThat(row.getDouble("PRICE")).isEqualTo(12.75d);
+        assertThat(row.getInt("PRICE")).isEqualTo(12);
+        assertThat(row.get("ID")).isEqualTo(3000000000L);
+        assertThat(row.get("AMOUNT")).isEqualTo(2.5d);
+        assertThat(row.get("ACTIVE")).isEqualTo(true);
+    }
+
+    @Test
+    void shouldReturnNullValues() {
+        // Given
+        long[] nulls = {0b01L};
+        DatabaseRow row = new DatabaseRow(schema, new Object[] {null, "John Doe"}, new long[2], nulls);
+
+        // Expect
+        assertThat(row.isNull("ID")).isTrue();
+        assertThat(row.isNull(1)).isFalse();
+        assertThat(row.getInt("ID")).isZero();
+        assertThat(row.get("ID")).isNull();
+        assertThat(row.containsKey("ID")).isTrue();
+        assertThat(row.values()).containsExactly(null, "John Doe");
+    }
+
+    @Test
+    void shouldThrowWhenPrimitiveValueIsNotNumeric() {
+        // Given
+        DatabaseRow row = row(1, "John Doe");
+
+        // When
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> row.getLong("NAME"));
+
+        // Then
+        assertThat(thrown).hasMessage("Column name=[NAME] does not contain a numeric value");
+    }
+
+    @Test
+    void shouldThrowWhenPrimitiveColumnDoesNotExist() {
+        // Given
+        DatabaseRow row = row(1, "John Doe");
+
+        // When
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> row.getLong("NOT_EXISTING"));
+
+        // Then
+        assertThat(thrown).hasMessage("Column name=[NOT_EXISTING] not found");
+    }
+
+    @Test
+    void shouldSerializeAndDeserialize() throws Exception {
+        // Given
+        DatabaseRow row = new DatabaseRow(schema, new Object[] {null, "Zoë"}, new long[] {-7, 0L}, new long[1]);
+
+        // When
+        DatabaseRow deserialized = (DatabaseRow) deserialize(serialize(row));
+
+        // Then
+        assertThat(deserialized).isEqualTo(row);
+        assertThat(deserialized.getInt("ID")).isEqualTo(-7);
+        assertThat(deserialized.keySet()).containsExactly("ID", "NAME");
+    }
+
+    static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    private DatabaseRow row(int id, String name) {
+        return new DatabaseRow(schema, new Object[] {null, name}, new long[] {id, 0L}, new long[1]);
+    }
+}
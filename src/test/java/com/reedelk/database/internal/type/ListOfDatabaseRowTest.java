@@ -0,0 +1,81 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.commons.RowSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+
+import static com.reedelk.database.internal.type.DatabaseRowTest.deserialize;
+import static com.reedelk.database.internal.type.DatabaseRowTest.serialize;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListOfDatabaseRowTest {
+
+    private final RowSchema schema = new RowSchema(
+            new String[] {"ID", "BIG", "AMOUNT", "RATIO", "ACTIVE", "NAME", "PRICE", "BORN", "CREATED", "DATA"},
+            new int[] {Types.INTEGER, Types.BIGINT, Types.DOUBLE, Types.FLOAT, Types.BOOLEAN,
+                    Types.VARCHAR, Types.NUMERIC, Types.DATE, Types.TIMESTAMP, Types.BLOB});
+
+    @Test
+    void shouldSerializeAndDeserializeAllColumnTypes() throws Exception {
+        // Given
+        ListOfDatabaseRow rows = new ListOfDatabaseRow();
+        rows.add(row(1));
+        rows.add(row(-2));
+        rows.add(new DatabaseRow(schema, new Object[10], new long[10], new long[] {0b1111111111L}));
+
+        // When
+        ListOfDatabaseRow deserialized = (ListOfDatabaseRow) deserialize(serialize(rows));
+
+        // Then
+        assertThat(deserialized).hasSize(3);
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(deserialized.get(i).values()).containsExactly(rows.get(i).values().toArray(new Serializable[0]));
+        }
+        assertThat(deserialized.get(1).get("DATA")).isEqualTo(new byte[] {-2, 2});
+        assertThat(deserialized.get(1).get("CREATED")).isEqualTo(rows.get(1).get("CREATED"));
+        assertThat(deserialized.get(2).values()).containsOnlyNulls();
+        assertThat(deserialized.get(0).schema()).isSameAs(deserialized.get(2).schema());
+    }
+
+    @Test
+    void shouldWriteSchemaOnlyOnce() throws Exception {
+        // Given
+        ListOfDatabaseRow one = new ListOfDatabaseRow();
+        one.add(row(1));
+        ListOfDatabaseRow thousand = new ListOfDatabaseRow();
+        for (int i = 0; i < 1000; i++) {
+            thousand.add(row(i));
+        }
+
+        // When
+        int oneSize = serialize(one).length;
+        int thousandSize = serialize(thousand).length;
+
+        // Then
+        int rowSize = (thousandSize - oneSize) / 999;
+        assertThat(rowSize).isLessThan(90);
+        assertThat(oneSize).isGreaterThan(rowSize * 5);
+    }
+
+    private DatabaseRow row(int id) {
+        Object[] objects = new Object[10];
+        objects[5] = "Name " + id;
+        objects[6] = new BigDecimal("12.50").add(BigDecimal.valueOf(id));
+        objects[7] = Date.valueOf("2020-01-15");
+        objects[8] = Timestamp.valueOf(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123456789));
+        objects[9] = new byte[] {(byte) id, 2};
+        long[] primitives = new long[10];
+        primitives[0] = id;
+        primitives[1] = 3000000000L * id;
+        primitives[2] = Double.doubleToRawLongBits(id * 1.5d);
+        primitives[3] = Double.doubleToRawLongBits(id * 0.5f);
+        primitives[4] = id % 2 == 0 ? 1L : 0L;
+        return new DatabaseRow(schema, objects, primitives, new long[1]);
+    }
+}
@@ -0,0 +1,93 @@
+package com.reedelk.database.internal.type;
+
+import com.reedelk.database.internal.commons.RowSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Types;
+
+import static com.reedelk.database.internal.type.DatabaseRowTest.deserialize;
+import static com.reedelk.database.internal.type.DatabaseRowTest.serialize;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpillableListOfDatabaseRowTest {
+
+    private final RowSchema schema = new RowSchema(
+            new String[] {"ID", "NAME", "PRICE"},
+            new int[] {Types.INTEGER, Types.VARCHAR, Types.NUMERIC});
+
+    @Test
+    void shouldKeepRowsInMemoryWithinBudget() {
+        // Given
+        SpillableListOfDatabaseRow rows = new SpillableListOfDatabaseRow(1024L * 1024L);
+
+        // When
+        for (int i = 0; i < 10; i++) rows.add(row(i));
+        rows.complete();
+
+        // Then
+        assertThat(rows.isSpilled()).isFalse();
+        assertThat(rows).hasSize(10);
+        assertThat(rows.get(9).getInt("ID")).isEqualTo(9);
+    }
+
+    @Test
+    void shouldSpillRowsExceedingBudgetAndReadThemBack() {
+        // Given
+        SpillableListOfDatabaseRow rows = new SpillableListOfDatabaseRow(1024L);
+
+        // When
+        for (int i = 0; i < 1000; i++) rows.add(row(i));
+        rows.complete();
+
+        // Then
+        assertThat(rows.isSpilled()).isTrue();
+        assertThat(rows).hasSize(1000);
+        int id = 0;
+        for (DatabaseRow row : rows) {
+            assertThat(row).isEqualTo(row(id++));
+        }
+        assertThat(rows.get(501).isNull("PRICE")).isTrue();
+        rows.dispose();
+    }
+
+    @Test
+    void shouldDeleteSpillFileWhenDisposed() {
+        // Given
+        SpillableListOfDatabaseRow rows = new SpillableListOfDatabaseRow(0L);
+        rows.add(row(1));
+        rows.complete();
+        File spillFile = rows.spillFile().path().toFile();
+        assertThat(spillFile).exists();
+
+        // When
+        rows.dispose();
+
+        // Then
+        assertThat(spillFile).doesNotExist();
+    }
+
+    @Test
+    void shouldSerializeAsListOfDatabaseRow() throws Exception {
+        // Given
+        SpillableListOfDatabaseRow rows = new SpillableListOfDatabaseRow(0L);
+        rows.add(row(1));
+        rows.add(row(2));
+        rows.complete();
+
+        // When
+        Object deserialized = deserialize(serialize(rows));
+
+        // Then
+        assertThat(deserialized).isInstanceOf(ListOfDatabaseRow.class);
+        assertThat((ListOfDatabaseRow) deserialized).containsExactly(row(1), row(2));
+        rows.dispose();
+    }
+
+    private DatabaseRow row(int id) {
+        Object[] objects = {null, "Name " + id, id % 2 == 0 ? new BigDecimal(id + ".25") : null};
+        long[] nulls = {id % 2 == 0 ? 0L : 0b100L};
+        return new DatabaseRow(schema, objects, new long[] {id, 0L, 0L}, nulls);
+    }
+}